@@ -5,6 +5,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.example.Backend_CitizenSpeak.services.AnalyticsResponseCache;
 import com.example.Backend_CitizenSpeak.services.PriorityClassificationService;
 
 @Configuration
@@ -14,12 +15,16 @@ public class AIConfig {
     @Autowired
     private PriorityClassificationService priorityClassificationService;
 
+    @Autowired
+    private AnalyticsResponseCache analyticsResponseCache;
+
     @Scheduled(cron = "0 0 2 * * *")
     public void scheduledModelRetraining() {
         try {
             System.out.println("🔄 Début du ré-entraînement automatique du modèle IA...");
             priorityClassificationService.trainModel();
             System.out.println("✅ Ré-entraînement automatique terminé avec succès !");
+            analyticsResponseCache.refreshAfterBatch();
         } catch (Exception e) {
             System.err.println("❌ Erreur lors du ré-entraînement automatique : " + e.getMessage());
         }
@@ -0,0 +1,30 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.services.AnalyticsResponseCache;
+import com.example.Backend_CitizenSpeak.services.CurrentUserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Puts the response cache in front of the read-heavy analytics endpoints. The registration keeps
+ * the default (lowest) order, so it runs after the Spring Security filter chain.
+ */
+@Configuration
+public class AnalyticsCacheConfig {
+
+    @Bean
+    public FilterRegistrationBean<AnalyticsResponseCacheFilter> analyticsResponseCacheFilter(
+            AnalyticsResponseCache cache,
+            CurrentUserService currentUserService,
+            @Value("${analytics.cache.enabled:true}") boolean enabled,
+            @Value("${analytics.cache.max-age-seconds:0}") long maxAgeSeconds,
+            @Value("${analytics.cache.max-entry-bytes:1048576}") int maxEntryBytes) {
+        FilterRegistrationBean<AnalyticsResponseCacheFilter> bean = new FilterRegistrationBean<>(
+                new AnalyticsResponseCacheFilter(cache, currentUserService, maxAgeSeconds, maxEntryBytes));
+        bean.addUrlPatterns("/api/dashboard/*", "/api/analyst/*", "/api/ai/dashboard");
+        bean.setEnabled(enabled);
+        return bean;
+    }
+}
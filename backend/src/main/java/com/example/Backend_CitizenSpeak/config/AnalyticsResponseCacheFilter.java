@@ -0,0 +1,210 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.services.AnalyticsResponseCache;
+import com.example.Backend_CitizenSpeak.services.CurrentUserService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ValueConstants;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Caches the GET responses of the analytics endpoints and answers conditional requests.
+ *
+ * Responses are keyed by the caller's role, the path and the sorted query parameters: the
+ * endpoints only differ by role, never by user. Every 200 response carries a weak ETag computed
+ * from its body, so a client whose copy is still current gets a 304 whether or not the response
+ * had to be recomputed. Runs after Spring Security, so only authenticated requests reach it.
+ *
+ * When the controller method only takes request and path parameters, the entry also records that
+ * call with its arguments, so the cache can recompute it in-process after a nightly job.
+ */
+public class AnalyticsResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+    private static final ConversionService CONVERSIONS = DefaultConversionService.getSharedInstance();
+
+    private final AnalyticsResponseCache cache;
+    private final CurrentUserService currentUserService;
+    private final String cacheControl;
+    private final int maxEntryBytes;
+
+    public AnalyticsResponseCacheFilter(AnalyticsResponseCache cache,
+                                        CurrentUserService currentUserService,
+                                        long maxAgeSeconds,
+                                        int maxEntryBytes) {
+        this.cache = cache;
+        this.currentUserService = currentUserService;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds))
+                .cachePrivate()
+                .mustRevalidate()
+                .getHeaderValue();
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String role = callerRole();
+        if (role == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String path = request.getQueryString() != null
+                ? request.getRequestURI() + "?" + request.getQueryString()
+                : request.getRequestURI();
+        String key = role + " " + request.getRequestURI() + "?" + sortedParameters(request);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+
+        AnalyticsResponseCache.Entry entry = cache.get(key);
+        if (entry != null) {
+            response.setHeader(HttpHeaders.ETAG, entry.etag());
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            if (matches(ifNoneMatch, entry.etag())) {
+                cache.recordNotModified();
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            response.setContentType(entry.contentType());
+            response.setContentLength(entry.body().length);
+            response.getOutputStream().write(entry.body());
+            return;
+        }
+
+        long version = cache.currentVersion();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || request.isAsyncStarted()) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        String etag = AnalyticsResponseCache.etagOf(body);
+        wrapper.setHeader(HttpHeaders.ETAG, etag);
+        wrapper.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (body.length <= maxEntryBytes) {
+            cache.put(key, role, path, body, wrapper.getContentType(), etag, recomputation(request), version);
+        }
+        if (matches(ifNoneMatch, etag)) {
+            cache.recordNotModified();
+            wrapper.resetBuffer();
+            wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private String callerRole() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        try {
+            String role = currentUserService.getUser(authentication).getRole();
+            return role != null ? role.toLowerCase() : null;
+        } catch (Exception e) {
+            // Unknown caller: let the endpoint answer it, uncached.
+            return null;
+        }
+    }
+
+    /**
+     * The controller call that produced this response, bound to its arguments, or null when a
+     * parameter comes from anything but the query string or the path (the caller, a body...).
+     */
+    @SuppressWarnings("unchecked")
+    private AnalyticsResponseCache.Recomputation recomputation(HttpServletRequest request) {
+        if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod mapped)) {
+            return null;
+        }
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        try {
+            HandlerMethod handler = mapped.createWithResolvedBean();
+            MethodParameter[] parameters = handler.getMethodParameters();
+            Object[] args = new Object[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                MethodParameter parameter = parameters[i];
+                parameter.initParameterNameDiscovery(PARAMETER_NAMES);
+                RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+                PathVariable pathVariable = parameter.getParameterAnnotation(PathVariable.class);
+                String value;
+                if (requestParam != null) {
+                    value = request.getParameter(requestParam.name().isEmpty()
+                            ? parameter.getParameterName() : requestParam.name());
+                    if (value == null && !ValueConstants.DEFAULT_NONE.equals(requestParam.defaultValue())) {
+                        value = requestParam.defaultValue();
+                    }
+                } else if (pathVariable != null && pathVariables != null) {
+                    value = pathVariables.get(pathVariable.name().isEmpty()
+                            ? parameter.getParameterName() : pathVariable.name());
+                } else {
+                    return null;
+                }
+                if (value == null && parameter.getParameterType().isPrimitive()) {
+                    return null;
+                }
+                args[i] = value != null ? CONVERSIONS.convert(value, parameter.getParameterType()) : null;
+            }
+            Object bean = handler.getBean();
+            Method method = handler.getMethod();
+            ReflectionUtils.makeAccessible(method);
+            return () -> {
+                try {
+                    return method.invoke(bean, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            };
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String sortedParameters(HttpServletRequest request) {
+        return request.getParameterMap().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(parameter -> parameter.getKey() + "=" + String.join(",", parameter.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        // Weak comparison: W/ prefixes are ignored.
+        String opaque = etag.substring(2);
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .anyMatch(candidate -> candidate.equals("*") || candidate.equals(etag) || candidate.equals(opaque));
+    }
+}
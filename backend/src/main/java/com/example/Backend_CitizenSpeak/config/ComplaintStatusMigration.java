@@ -0,0 +1,50 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.models.ComplaintStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rewrites complaint statuses stored as labels or French spellings ("Resolved", "résolue",
+ * "en cours", ...) to their {@link ComplaintStatus} code, one {@code updateMulti} per distinct
+ * legacy value. Values already stored as codes are left alone, so the migration is a no-op once
+ * done; unknown values are reported and kept. The {@code (status, creationDate)} index the
+ * dashboards filter on is declared in {@link MongoIndexRegistry}.
+ */
+@Component
+public class ComplaintStatusMigration {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public ComplaintStatusMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Called by {@link StartupMigrations} before the web server starts.
+     */
+    public void migrate() {
+        try {
+            for (String value : mongoTemplate.findDistinct(new Query(), "status", "complaints", String.class)) {
+                ComplaintStatus status = ComplaintStatus.parseOrNull(value);
+                if (status == null) {
+                    System.err.println("Statut de plainte inconnu laissé tel quel: " + value);
+                    continue;
+                }
+                if (status.code().equals(value)) {
+                    continue;
+                }
+                long migrated = mongoTemplate.updateMulti(Query.query(Criteria.where("status").is(value)),
+                        new Update().set("status", status.code()), "complaints").getModifiedCount();
+                System.out.println("Plaintes migrées du statut '" + value + "' vers " + status.code() + ": " + migrated);
+            }
+        } catch (Exception e) {
+            System.err.println("Échec de la migration des statuts de plaintes: " + e.getMessage());
+        }
+    }
+}
@@ -4,12 +4,14 @@ import com.example.Backend_CitizenSpeak.models.Category;
 import com.example.Backend_CitizenSpeak.repositories.CategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
 import java.util.List;
 
 @Component
+@Order(0)
 public class DataInitializer implements CommandLineRunner {
 
     private final CategoryRepository categoryRepository;
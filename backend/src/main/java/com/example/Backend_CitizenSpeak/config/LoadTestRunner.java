@@ -0,0 +1,129 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.services.LoadScenarioService;
+import com.example.Backend_CitizenSpeak.services.LoadTestReport;
+import com.example.Backend_CitizenSpeak.services.SyntheticDataSeeder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Load-test entry points, only loaded with the {@code loadtest} profile and even then off by
+ * default:
+ * <ul>
+ *   <li>{@code loadtest.seed.records} seeds about that many synthetic documents at startup, after
+ *   the categories and before the status migration, indexes and dashboard counters, unless synthetic
+ *   data is already there ({@code loadtest.seed.clear} removes it first), in which case its
+ *   accounts get a new random password;</li>
+ *   <li>{@code loadtest.scenario} ({@code mobile}, {@code admin} or {@code mixed}) replays that
+ *   traffic against {@code loadtest.run.base-url} once the application is ready, prints the
+ *   report, writes it to {@code loadtest.run.report-file} if set, and stops the application when
+ *   {@code loadtest.run.exit} is set.</li>
+ * </ul>
+ * The instance under test can drive itself, or a second one started with
+ * {@code --spring.main.web-application-type=none} against the same database can drive it.
+ */
+@Component
+@Profile("loadtest")
+@Order(1)
+public class LoadTestRunner implements CommandLineRunner {
+
+    private final SyntheticDataSeeder seeder;
+    private final LoadScenarioService scenarioService;
+    private final ApplicationContext context;
+    private final long records;
+    private final long randomSeed;
+    private final boolean clear;
+    private final String scenario;
+    private final String baseUrl;
+    private final int concurrency;
+    private final int durationSeconds;
+    private final String reportFile;
+    private final boolean exit;
+
+    @Autowired
+    public LoadTestRunner(SyntheticDataSeeder seeder,
+                          LoadScenarioService scenarioService,
+                          ApplicationContext context,
+                          @Value("${loadtest.seed.records:0}") long records,
+                          @Value("${loadtest.seed.random-seed:42}") long randomSeed,
+                          @Value("${loadtest.seed.clear:false}") boolean clear,
+                          @Value("${loadtest.scenario:}") String scenario,
+                          @Value("${loadtest.run.base-url:http://localhost:8080}") String baseUrl,
+                          @Value("${loadtest.run.concurrency:32}") int concurrency,
+                          @Value("${loadtest.run.duration-seconds:60}") int durationSeconds,
+                          @Value("${loadtest.run.report-file:}") String reportFile,
+                          @Value("${loadtest.run.exit:false}") boolean exit) {
+        this.seeder = seeder;
+        this.scenarioService = scenarioService;
+        this.context = context;
+        this.records = records;
+        this.randomSeed = randomSeed;
+        this.clear = clear;
+        this.scenario = scenario;
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+        this.durationSeconds = durationSeconds;
+        this.reportFile = reportFile;
+        this.exit = exit;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (clear) {
+            seeder.clear();
+        }
+        if (seeder.hasSyntheticData()) {
+            seeder.resetPasswords();
+            if (records > 0) {
+                System.out.println("Données synthétiques déjà présentes, génération ignorée (loadtest.seed.clear=true pour régénérer)");
+            }
+            return;
+        }
+        if (records > 0) {
+            seeder.seed(records, randomSeed);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(100)
+    public void startScenario() {
+        if (scenario.isBlank()) {
+            return;
+        }
+        Thread runner = new Thread(this::runScenario, "load-test-runner");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    private void runScenario() {
+        int status = 0;
+        try {
+            LoadTestReport report = scenarioService.run(scenario, baseUrl, concurrency, durationSeconds);
+            String text = report.format();
+            System.out.println("Résultats du test de charge " + scenario + " (" + durationSeconds + " s, "
+                    + concurrency + " clients):\n" + text);
+            if (!reportFile.isBlank()) {
+                Files.writeString(Path.of(reportFile), text, StandardCharsets.UTF_8);
+            }
+        } catch (Exception e) {
+            status = 1;
+            System.err.println("Échec du test de charge " + scenario + ": " + e.getMessage());
+        }
+        if (exit) {
+            int code = status;
+            System.exit(SpringApplication.exit(context, () -> code));
+        }
+    }
+}
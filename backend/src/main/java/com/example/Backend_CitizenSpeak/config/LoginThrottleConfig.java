@@ -0,0 +1,34 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.services.InMemoryLoginAttemptLimiter;
+import com.example.Backend_CitizenSpeak.services.LoginAttemptLimiter;
+import com.example.Backend_CitizenSpeak.services.MongoLoginAttemptLimiter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Selects where login attempt counters are kept.
+ *
+ * {@code auth.throttle.store=memory} counts per node, so with N instances an attacker gets up to
+ * N times the limits; {@code mongo} shares the counters between all instances at the cost of
+ * one update per counter and attempt.
+ */
+@Configuration
+public class LoginThrottleConfig {
+
+    @Bean
+    public LoginAttemptLimiter loginAttemptLimiter(Environment env, MongoTemplate mongoTemplate) {
+        String type = env.getProperty("auth.throttle.store", "memory");
+        LoginAttemptLimiter limiter = switch (type.toLowerCase()) {
+            case "memory" -> new InMemoryLoginAttemptLimiter(
+                    env.getProperty("auth.throttle.memory.max-keys", Integer.class, 200_000),
+                    env.getProperty("auth.throttle.memory.sweep-interval-ms", Long.class, 30_000L));
+            case "mongo" -> new MongoLoginAttemptLimiter(mongoTemplate);
+            default -> throw new IllegalStateException("Type de stockage du limiteur de connexions inconnu: " + type);
+        };
+        System.out.println("Stockage du limiteur de connexions: " + limiter.getType());
+        return limiter;
+    }
+}
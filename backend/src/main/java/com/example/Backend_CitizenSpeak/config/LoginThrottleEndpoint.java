@@ -0,0 +1,28 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.services.LoginThrottleService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/loginthrottle}: limits, rejection counts and how many keys are tracked and
+ * blocked. Only aggregates are reported, never the IPs or emails themselves.
+ */
+@Component
+@Endpoint(id = "loginthrottle")
+public class LoginThrottleEndpoint {
+
+    private final LoginThrottleService loginThrottleService;
+
+    public LoginThrottleEndpoint(LoginThrottleService loginThrottleService) {
+        this.loginThrottleService = loginThrottleService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> throttle() {
+        return loginThrottleService.getStatistics();
+    }
+}
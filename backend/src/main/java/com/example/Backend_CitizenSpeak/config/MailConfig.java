@@ -29,6 +29,16 @@ public class MailConfig {
     @Value("${spring.mail.properties.mail.smtp.starttls.enable}")
     private String starttls;
 
+    // Workers hold their connection across messages, so a stalled server must not block them forever.
+    @Value("${spring.mail.properties.mail.smtp.connectiontimeout:5000}")
+    private String connectionTimeout;
+
+    @Value("${spring.mail.properties.mail.smtp.timeout:10000}")
+    private String readTimeout;
+
+    @Value("${spring.mail.properties.mail.smtp.writetimeout:10000}")
+    private String writeTimeout;
+
     @Bean
     public JavaMailSender javaMailSender() {
         JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
@@ -42,6 +52,9 @@ public class MailConfig {
         props.put("mail.transport.protocol", "smtp");
         props.put("mail.smtp.auth", smtpAuth);
         props.put("mail.smtp.starttls.enable", starttls);
+        props.put("mail.smtp.connectiontimeout", connectionTimeout);
+        props.put("mail.smtp.timeout", readTimeout);
+        props.put("mail.smtp.writetimeout", writeTimeout);
         props.put("mail.debug", "false");
 
         return mailSender;
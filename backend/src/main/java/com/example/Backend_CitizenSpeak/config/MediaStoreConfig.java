@@ -0,0 +1,64 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.services.LocalMediaStore;
+import com.example.Backend_CitizenSpeak.services.MediaStorageLayout;
+import com.example.Backend_CitizenSpeak.services.MediaStore;
+import com.example.Backend_CitizenSpeak.services.ReplicatingMediaStore;
+import com.example.Backend_CitizenSpeak.services.S3MediaStore;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Paths;
+
+/**
+ * Selects where media bytes are stored.
+ *
+ * {@code media.storage.type=local} keeps files under {@code file.upload-dir} (single node only);
+ * {@code s3} stores them in an S3-compatible bucket so any instance behind the load balancer can
+ * serve any file. Setting {@code media.storage.replica.type} adds an asynchronous copy to a
+ * second store.
+ */
+@Configuration
+public class MediaStoreConfig {
+
+    @Bean
+    public MediaStore mediaStore(Environment env, MediaStorageLayout storageLayout) {
+        MediaStore primary = createStore(env, env.getProperty("media.storage.type", "local"), "media.storage", storageLayout);
+        System.out.println("Stockage des médias: " + primary.getType());
+
+        String replicaType = env.getProperty("media.storage.replica.type", "");
+        if (replicaType.isBlank()) {
+            return primary;
+        }
+
+        MediaStore replica = createStore(env, replicaType, "media.storage.replica", storageLayout);
+        System.out.println("Réplication asynchrone des médias vers: " + replica.getType());
+        return new ReplicatingMediaStore(primary, replica, storageLayout.getIncomingDirectory(),
+                env.getProperty("media.storage.replica.queue-capacity", Integer.class, 1000));
+    }
+
+    private MediaStore createStore(Environment env, String type, String prefix, MediaStorageLayout storageLayout) {
+        switch (type.toLowerCase()) {
+            case "local":
+                String directory = env.getProperty(prefix + ".local.directory");
+                return new LocalMediaStore(directory != null && !directory.isBlank()
+                        ? Paths.get(directory)
+                        : storageLayout.getRoot());
+            case "s3":
+                return new S3MediaStore(
+                        env.getProperty(prefix + ".s3.endpoint", ""),
+                        env.getProperty(prefix + ".s3.region", "us-east-1"),
+                        env.getRequiredProperty(prefix + ".s3.bucket"),
+                        env.getProperty(prefix + ".s3.access-key", ""),
+                        env.getProperty(prefix + ".s3.secret-key", ""),
+                        env.getProperty(prefix + ".s3.path-style", Boolean.class, true),
+                        env.getProperty(prefix + ".s3.multipart-threshold", Long.class, 16L * 1024 * 1024),
+                        env.getProperty(prefix + ".s3.part-size", Integer.class, 8 * 1024 * 1024),
+                        env.getProperty(prefix + ".s3.create-bucket", Boolean.class, false),
+                        storageLayout.getIncomingDirectory());
+            default:
+                throw new IllegalStateException("Type de stockage des médias inconnu: " + type);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.models.ComplaintStatus;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+
+@Configuration
+public class MongoConversionConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(new ComplaintStatusReadingConverter()));
+    }
+
+    /**
+     * Reads the status codes, and until {@code ComplaintStatusMigration} has run the legacy labels;
+     * an unknown value reads as no status rather than failing the whole query.
+     */
+    @ReadingConverter
+    static class ComplaintStatusReadingConverter implements Converter<String, ComplaintStatus> {
+        @Override
+        public ComplaintStatus convert(String source) {
+            return ComplaintStatus.parseOrNull(source);
+        }
+    }
+}
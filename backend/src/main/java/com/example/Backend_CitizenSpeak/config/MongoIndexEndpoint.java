@@ -0,0 +1,35 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/indexes}, admins only: the declared indexes and whether they were created, the
+ * plan each registered query pattern got at the last check, and the slow queries seen scanning a whole collection
+ * (with their filter values blanked out). Latencies per query are on {@code /actuator/mongoqueries}.
+ */
+@Component
+@Endpoint(id = "indexes")
+public class MongoIndexEndpoint {
+
+    private final MongoIndexRegistry indexRegistry;
+    private final MongoQueryProfiler mongoQueryProfiler;
+
+    public MongoIndexEndpoint(MongoIndexRegistry indexRegistry, MongoQueryProfiler mongoQueryProfiler) {
+        this.indexRegistry = indexRegistry;
+        this.mongoQueryProfiler = mongoQueryProfiler;
+    }
+
+    @ReadOperation
+    public Map<String, Object> indexes() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("indexes", indexRegistry.getIndexReport());
+        report.put("patterns", indexRegistry.getPlanReport());
+        report.put("unindexedQueries", mongoQueryProfiler.getUnindexedQueries());
+        return report;
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.models.Comment;
+import com.example.Backend_CitizenSpeak.models.Complaint;
+import com.example.Backend_CitizenSpeak.models.DeviceToken;
+import com.example.Backend_CitizenSpeak.models.Media;
+import com.example.Backend_CitizenSpeak.models.Notification;
+import com.example.Backend_CitizenSpeak.models.StatusHistory;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The indexes the repository queries rely on, declared in one place, and the query patterns each
+ * of them is meant to serve.
+ *
+ * At startup every declared index is created if missing ({@code createIndexes} is a no-op for an
+ * identical index), then every pattern is explained with sample values and the winning plan is
+ * checked: a pattern answered by a {@code COLLSCAN} is reported as such. {@code /actuator/indexes}
+ * shows the last check and only runs it again once it is older than
+ * {@code mongo.indexes.plan-check-interval-ms}. Retired indexes, which no query uses any more,
+ * are dropped at startup so they stop costing every write.
+ *
+ * Queries on a {@code @DBRef} property compare the whole reference: the derived
+ * {@code findByComplaint(complaint)} as well as the {@code @Query} filters on
+ * {@code complaint.complaintId}, which Spring Data rewrites to {@code complaint: DBRef(...)}. Only
+ * filters written on {@code complaint.$id} look at the id alone, and need an index of their own.
+ */
+@Component
+public class MongoIndexRegistry {
+
+    /**
+     * An index, by the entity whose collection it belongs to.
+     */
+    public record DeclaredIndex(Class<?> entity, String name, Document keys, boolean unique, Document partialFilter) {
+
+        public DeclaredIndex(Class<?> entity, String name, Document keys) {
+            this(entity, name, keys, false, null);
+        }
+    }
+
+    /**
+     * A repository query, as the filter and sort it sends, and the index that should answer it.
+     */
+    public record QueryPattern(String query, String index, Document filter, Document sort) {}
+
+    private static final ObjectId SAMPLE_ID = new ObjectId("000000000000000000000000");
+    private static final Date SAMPLE_DATE = new Date(0);
+
+    private static final List<DeclaredIndex> INDEXES = List.of(
+            new DeclaredIndex(Complaint.class, "complaints_status_creation", keys("status", 1, "creationDate", -1)),
+            new DeclaredIndex(Complaint.class, "complaints_creation", keys("creationDate", -1)),
+            new DeclaredIndex(Complaint.class, "complaints_citizen_creation", keys("citizen", 1, "creationDate", -1)),
+            new DeclaredIndex(Complaint.class, "complaints_agent_status", keys("assignedAgent", 1, "status", 1)),
+            new DeclaredIndex(Complaint.class, "complaints_agent_id_status", keys("assignedAgent.$id", 1, "status", 1)),
+            new DeclaredIndex(Complaint.class, "complaints_department_status", keys("assignedDepartment", 1, "status", 1)),
+            new DeclaredIndex(Complaint.class, "complaints_category_creation", keys("category", 1, "creationDate", -1)),
+            new DeclaredIndex(Complaint.class, "complaints_priority_creation", keys("priorityLevel", 1, "creationDate", -1)),
+
+            new DeclaredIndex(Comment.class, "comments_complaint_date", keys("complaint", 1, "commentDate", 1)),
+
+            new DeclaredIndex(StatusHistory.class, "status_histories_complaint_date", keys("complaint", 1, "statusDate", 1)),
+            new DeclaredIndex(StatusHistory.class, "status_histories_complaint_id_status", keys("complaint.$id", 1, "status", 1)),
+
+            new DeclaredIndex(Notification.class, "notification_recipient_read_created",
+                    keys("recipient", 1, "isRead", 1, "createdDate", -1)),
+            new DeclaredIndex(Notification.class, "notification_recipient_created", keys("recipient", 1, "createdDate", -1)),
+
+            new DeclaredIndex(Media.class, "media_complaint", keys("complaintId", 1)),
+            new DeclaredIndex(Media.class, "media_file", keys("mediaFile", 1)),
+            // One media per content and complaint, across nodes; media without a complaint may repeat.
+            new DeclaredIndex(Media.class, "media_hash_complaint_unique", keys("contentHash", 1, "complaintId", 1), true,
+                    new Document("contentHash", new Document("$exists", true))
+                            .append("complaintId", new Document("$exists", true))),
+
+            new DeclaredIndex(DeviceToken.class, "device_tokens_user_token", keys("user", 1, "token", 1)));
+
+    /**
+     * Indexes created by earlier versions and no longer used, dropped if present.
+     * {@code comments_complaint_id_date} was meant for filters on {@code complaint.$id}, but the
+     * comment queries compare the whole reference and are served by {@code comments_complaint_date}.
+     * {@code media_hash_complaint} is replaced by its unique version.
+     */
+    private static final List<DeclaredIndex> RETIRED_INDEXES = List.of(
+            new DeclaredIndex(Comment.class, "comments_complaint_id_date", keys("complaint.$id", 1, "commentDate", 1)),
+            new DeclaredIndex(Media.class, "media_hash_complaint", keys("contentHash", 1, "complaintId", 1)));
+
+    private static final List<QueryPattern> PATTERNS = List.of(
+            new QueryPattern("ComplaintRepository.findByStatusOrderByCreationDateDesc", "complaints_status_creation",
+                    new Document("status", "NEW"), keys("creationDate", -1)),
+            new QueryPattern("ComplaintRepository.countByStatusAndCreationDateBetween", "complaints_status_creation",
+                    new Document("status", "NEW").append("creationDate", dateRange()), null),
+            new QueryPattern("ComplaintRepository.findByYearRangeOrderByDateDesc", "complaints_creation",
+                    new Document("creationDate", dateRange()), keys("creationDate", -1)),
+            new QueryPattern("ComplaintRepository.findAllByOrderByCreationDateDesc", "complaints_creation",
+                    new Document(), keys("creationDate", -1)),
+            new QueryPattern("ComplaintRepository.findByCitizenOrderByCreationDateDesc", "complaints_citizen_creation",
+                    new Document("citizen", ref("users")), keys("creationDate", -1)),
+            new QueryPattern("ComplaintRepository.findByAssignedAgentAndStatus", "complaints_agent_status",
+                    new Document("assignedAgent", ref("users")).append("status", "ASSIGNED"), null),
+            new QueryPattern("ComplaintRepository.findByAssignedAgentUserIdAndStatus", "complaints_agent_id_status",
+                    new Document("assignedAgent.$id", SAMPLE_ID).append("status", "ASSIGNED"), null),
+            new QueryPattern("ComplaintRepository.countByAssignedAgentUserId", "complaints_agent_id_status",
+                    new Document("assignedAgent.$id", SAMPLE_ID), null),
+            new QueryPattern("ComplaintRepository.findByAssignedDepartmentAndStatus", "complaints_department_status",
+                    new Document("assignedDepartment", ref("departments")).append("status", "ASSIGNED"), null),
+            new QueryPattern("ComplaintRepository.findByCategoryAndCreationDateBetween", "complaints_category_creation",
+                    new Document("category", ref("categories")).append("creationDate", dateRange()), null),
+            new QueryPattern("ComplaintRepository.findByPriorityLevelAndCreationDateBetween", "complaints_priority_creation",
+                    new Document("priorityLevel", 1).append("creationDate", dateRange()), null),
+
+            new QueryPattern("CommentRepository.findByComplaintOrderByCommentDateDesc", "comments_complaint_date",
+                    new Document("complaint", ref("complaints")), keys("commentDate", -1)),
+            new QueryPattern("CommentRepository.findByComplaintComplaintIdOrderByCommentDateAsc", "comments_complaint_date",
+                    new Document("complaint", ref("complaints")), keys("commentDate", 1)),
+            new QueryPattern("CommentRepository.countByComplaintComplaintIdAndAuthorType", "comments_complaint_date",
+                    new Document("complaint", ref("complaints")).append("authorType", "CITIZEN"), null),
+
+            new QueryPattern("StatusHistoryRepository.findByComplaintOrderByStatusDateAsc", "status_histories_complaint_date",
+                    new Document("complaint", ref("complaints")), keys("statusDate", 1)),
+            new QueryPattern("StatusHistoryRepository.findByComplaintId", "status_histories_complaint_id_status",
+                    new Document("complaint.$id", SAMPLE_ID), null),
+            new QueryPattern("StatusHistoryRepository.existsByComplaintComplaintIdAndStatus", "status_histories_complaint_date",
+                    new Document("complaint", ref("complaints")).append("status", "RESOLVED"), null),
+
+            new QueryPattern("NotificationRepository.findByRecipientAndIsReadFalseOrderByCreatedDateDesc",
+                    "notification_recipient_read_created",
+                    new Document("recipient", ref("users")).append("isRead", false), keys("createdDate", -1)),
+            new QueryPattern("NotificationRepository.findByRecipientOrderByCreatedDateDesc", "notification_recipient_created",
+                    new Document("recipient", ref("users")), keys("createdDate", -1)),
+            new QueryPattern("NotificationRepository.findByRecipientAndTypeOrderByCreatedDateDesc",
+                    "notification_recipient_created",
+                    new Document("recipient", ref("users")).append("type", "COMPLAINT_UPDATE"), keys("createdDate", -1)),
+
+            new QueryPattern("MediaRepository.findByComplaintId", "media_complaint",
+                    new Document("complaintId", SAMPLE_ID.toHexString()), null),
+            new QueryPattern("MediaRepository.findByMediaFileIn", "media_file",
+                    new Document("mediaFile", new Document("$in", List.of("a.jpg", "b.jpg"))), null),
+            new QueryPattern("MediaRepository.findFirstByContentHashAndComplaintId", "media_hash_complaint_unique",
+                    new Document("contentHash", "0").append("complaintId", SAMPLE_ID.toHexString()), null),
+
+            new QueryPattern("DeviceTokenRepository.findByUserAndToken", "device_tokens_user_token",
+                    new Document("user", ref("users")).append("token", "token"), null),
+            new QueryPattern("DeviceTokenRepository.findByUserAndActiveTrue", "device_tokens_user_token",
+                    new Document("user", ref("users")).append("active", true), null),
+            new QueryPattern("PushNotificationService.findActiveTokens", "device_tokens_user_token",
+                    new Document("user", new Document("$in", List.of(ref("users")))).append("active", true), null));
+
+    private record PlanCheck(List<Map<String, Object>> results, long checkedAt) {}
+
+    private final MongoTemplate mongoTemplate;
+    private final long planCheckIntervalMillis;
+    private final Map<String, String> creationStatus = new ConcurrentHashMap<>();
+    private volatile PlanCheck lastPlanCheck;
+
+    @Autowired
+    public MongoIndexRegistry(MongoTemplate mongoTemplate,
+                              @Value("${mongo.indexes.plan-check-interval-ms:600000}") long planCheckIntervalMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.planCheckIntervalMillis = planCheckIntervalMillis;
+    }
+
+    public List<DeclaredIndex> getIndexes() {
+        return INDEXES;
+    }
+
+    public List<QueryPattern> getPatterns() {
+        return PATTERNS;
+    }
+
+    /**
+     * Creates the missing indexes, one at a time so that a conflicting one (same keys under another
+     * name, or the same name with other keys) does not keep the others from being created, then
+     * checks the plans.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(5)
+    public void ensureIndexes() {
+        dropRetiredIndexes();
+        int created = 0;
+        for (DeclaredIndex index : INDEXES) {
+            try {
+                CompoundIndexDefinition definition = new CompoundIndexDefinition(index.keys());
+                definition.named(index.name());
+                if (index.unique()) {
+                    definition.unique();
+                }
+                if (index.partialFilter() != null) {
+                    definition.partial(PartialIndexFilter.of(index.partialFilter()));
+                }
+                mongoTemplate.indexOps(index.entity()).ensureIndex(definition);
+                creationStatus.put(index.name(), "OK");
+                created++;
+            } catch (Exception e) {
+                creationStatus.put(index.name(), "ERROR: " + e.getMessage());
+                System.err.println("Impossible de créer l'index " + index.name() + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Index MongoDB vérifiés: " + created + "/" + INDEXES.size());
+
+        List<Map<String, Object>> results = verify();
+        lastPlanCheck = new PlanCheck(results, System.currentTimeMillis());
+        for (Map<String, Object> result : results) {
+            if ("COLLSCAN".equals(result.get("status"))) {
+                System.err.println("Requête sans index: " + result.get("query") + " (" + result.get("plan") + ")");
+            } else if ("OTHER_INDEX".equals(result.get("status"))) {
+                System.out.println("Requête servie par un autre index que " + result.get("index") + ": "
+                        + result.get("query") + " (" + result.get("plan") + ")");
+            }
+        }
+    }
+
+    /**
+     * The last plan check, run again first if it is older than the configured interval.
+     */
+    public synchronized List<Map<String, Object>> getPlanReport() {
+        PlanCheck check = lastPlanCheck;
+        if (check == null || System.currentTimeMillis() - check.checkedAt() >= planCheckIntervalMillis) {
+            check = new PlanCheck(verify(), System.currentTimeMillis());
+            lastPlanCheck = check;
+        }
+        return check.results();
+    }
+
+    /**
+     * Explains every query pattern. Status is {@code OK} when the declared index wins,
+     * {@code OTHER_INDEX} when another index does, {@code COLLSCAN}, {@code EMPTY} when the
+     * collection does not exist yet, or {@code ERROR}.
+     */
+    public List<Map<String, Object>> verify() {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (QueryPattern pattern : PATTERNS) {
+            String collection = collectionOf(pattern.index());
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("query", pattern.query());
+            result.put("collection", collection);
+            result.put("index", pattern.index());
+            try {
+                Document find = new Document("find", collection).append("filter", pattern.filter());
+                if (pattern.sort() != null) {
+                    find.append("sort", pattern.sort());
+                }
+                Document explain = mongoTemplate.getDb().runCommand(QueryPlans.explainCommand(find));
+                var stages = QueryPlans.stages(explain);
+                String status;
+                if (stages.contains("IXSCAN(" + pattern.index() + ")")) {
+                    status = "OK";
+                } else if (stages.contains("COLLSCAN")) {
+                    status = "COLLSCAN";
+                } else if (stages.contains("EOF")) {
+                    status = "EMPTY";
+                } else {
+                    status = "OTHER_INDEX";
+                }
+                result.put("status", status);
+                result.put("plan", QueryPlans.summary(explain));
+            } catch (Exception e) {
+                result.put("status", "ERROR");
+                result.put("plan", e.getMessage());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    public List<Map<String, Object>> getIndexReport() {
+        List<Map<String, Object>> report = new ArrayList<>();
+        for (DeclaredIndex index : INDEXES) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("collection", mongoTemplate.getCollectionName(index.entity()));
+            entry.put("name", index.name());
+            entry.put("keys", index.keys());
+            if (index.unique()) {
+                entry.put("unique", true);
+            }
+            entry.put("status", creationStatus.getOrDefault(index.name(), "PENDING"));
+            report.add(entry);
+        }
+        return report;
+    }
+
+    private void dropRetiredIndexes() {
+        for (DeclaredIndex index : RETIRED_INDEXES) {
+            try {
+                var indexOps = mongoTemplate.indexOps(index.entity());
+                if (indexOps.getIndexInfo().stream().anyMatch(info -> index.name().equals(info.getName()))) {
+                    indexOps.dropIndex(index.name());
+                    System.out.println("Index retiré supprimé: " + index.name());
+                }
+            } catch (Exception e) {
+                System.err.println("Impossible de supprimer l'index " + index.name() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private String collectionOf(String indexName) {
+        return INDEXES.stream()
+                .filter(index -> index.name().equals(indexName))
+                .findFirst()
+                .map(index -> mongoTemplate.getCollectionName(index.entity()))
+                .orElseThrow(() -> new IllegalStateException("Index non déclaré: " + indexName));
+    }
+
+    private static Document keys(Object... fieldsAndDirections) {
+        Document keys = new Document();
+        for (int i = 0; i < fieldsAndDirections.length; i += 2) {
+            keys.append((String) fieldsAndDirections[i], fieldsAndDirections[i + 1]);
+        }
+        return keys;
+    }
+
+    private static DBRef ref(String collection) {
+        return new DBRef(collection, SAMPLE_ID);
+    }
+
+    private static Document dateRange() {
+        return new Document("$gte", SAMPLE_DATE).append("$lt", SAMPLE_DATE);
+    }
+}
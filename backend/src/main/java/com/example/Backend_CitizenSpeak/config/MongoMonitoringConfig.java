@@ -0,0 +1,49 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers the command listeners on the Mongo client built by Spring Boot.
+ *
+ * The listeners reach Mongo again (to explain a query) through an {@link ObjectProvider}: the
+ * template depends on the client, which cannot depend on the template.
+ */
+@Configuration
+public class MongoMonitoringConfig {
+
+    @Bean
+    public MongoQueryProfiler mongoQueryProfiler(Environment env,
+                                                 ObjectProvider<MongoTemplate> mongoTemplate,
+                                                 MeterRegistry meterRegistry) {
+        // One thread, a short queue: explains are diagnostics and are dropped rather than piled up.
+        ThreadPoolExecutor explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mongo-query-explainer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+        return new MongoQueryProfiler(mongoTemplate, meterRegistry, explainer,
+                env.getProperty("mongo.profiler.enabled", Boolean.class, true),
+                env.getProperty("mongo.profiler.slow-threshold-ms", Long.class, 200L),
+                env.getProperty("mongo.profiler.explain-interval-ms", Long.class, 600_000L),
+                env.getProperty("mongo.profiler.histogram", Boolean.class, true),
+                env.getProperty("mongo.profiler.max-queries", Integer.class, 500));
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandListeners(MongoQueryProfiler mongoQueryProfiler) {
+        return settings -> settings.addCommandListener(mongoQueryProfiler);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/mongoqueries}, admins only: per repository method or aggregation, the number
+ * of calls, their latency, the documents returned, and the sampled plans with the keys and
+ * documents they examine. The histograms themselves are on the {@code mongo.query} metric.
+ */
+@Component
+@Endpoint(id = "mongoqueries")
+public class MongoQueryEndpoint {
+
+    private final MongoQueryProfiler mongoQueryProfiler;
+
+    public MongoQueryEndpoint(MongoQueryProfiler mongoQueryProfiler) {
+        this.mongoQueryProfiler = mongoQueryProfiler;
+    }
+
+    @ReadOperation
+    public Map<String, Object> queries() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", mongoQueryProfiler.getSettings());
+        report.put("queries", mongoQueryProfiler.getQueryReport());
+        return report;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.function.Supplier;
+
+/**
+ * Names the Mongo commands sent by the current thread, for {@link MongoQueryProfiler}.
+ *
+ * Repository methods are named automatically ({@code ComplaintRepository.findByStatus}, see
+ * {@link RepositoryQueryLabeler}); a {@code mongoTemplate} call can be named explicitly, e.g.
+ * {@code MongoQueryLabel.call("dashboard.complaintsByCategory", () -> mongoTemplate.aggregate(...))}.
+ * Without a name, commands are attributed to the application method that sent them.
+ */
+public final class MongoQueryLabel {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private MongoQueryLabel() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T call(String label, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(label);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    static Object invoke(String label, MethodInvocation invocation) throws Throwable {
+        String previous = CURRENT.get();
+        CURRENT.set(label);
+        try {
+            return invocation.proceed();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    private static void restore(String previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
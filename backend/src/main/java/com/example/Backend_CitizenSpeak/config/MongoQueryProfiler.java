@@ -0,0 +1,445 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times every Mongo command per query, samples the plan of each read and flags the slow reads
+ * that scan a whole collection.
+ *
+ * A query is the repository method that sent the command (see {@link RepositoryQueryLabeler}), the
+ * name given with {@link MongoQueryLabel}, or else the application method calling
+ * {@code mongoTemplate}. Latencies go to the {@code mongo.query} timer and returned documents to
+ * {@code mongo.query.returned}, both tagged with the query and the collection.
+ *
+ * Each read shape (query, command, and filter and sort with their values blanked out) is explained
+ * at {@code executionStats} verbosity in the background, at most once every
+ * {@code mongo.profiler.explain-interval-ms}: that gives its plan and the keys and documents it
+ * examines ({@code mongo.query.examined}) against the documents it returns. A shape whose plan is a
+ * {@code COLLSCAN} and that took over {@code mongo.profiler.slow-threshold-ms} is logged and listed
+ * on {@code /actuator/indexes}.
+ */
+public class MongoQueryProfiler implements CommandListener {
+
+    private static final Set<String> READ_COMMANDS = Set.of("find", "count", "distinct", "aggregate");
+    private static final Set<String> PROFILED_COMMANDS = Set.of("find", "count", "distinct", "aggregate", "getMore",
+            "insert", "update", "delete", "findAndModify");
+    private static final Set<String> SKIPPED_DATABASES = Set.of("admin", "config", "local");
+    private static final String APP_PACKAGE = "com.example.Backend_CitizenSpeak.";
+    private static final String OTHER_QUERY = "other";
+    private static final int MAX_IN_FLIGHT = 10_000;
+    private static final int MAX_SHAPES = 1_000;
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    /**
+     * The last sampled plan of a read shape.
+     */
+    public record PlanSample(String query, String collection, String command, String shape, String plan,
+                             boolean collectionScan, long keysExamined, long docsExamined, long returned,
+                             Date sampledDate) {}
+
+    /**
+     * A shape seen slow and answered by a collection scan.
+     */
+    public record UnindexedQuery(String query, String collection, String command, String shape, String plan,
+                                 long occurrences, long maxMillis, Date lastSeen) {}
+
+    private record InFlight(String database, String commandName, String collection, String query, Document command) {}
+
+    private static final class QueryStats {
+        private final Set<String> collections = ConcurrentHashMap.newKeySet();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder returned = new LongAdder();
+    }
+
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Executor explainer;
+    private final boolean enabled;
+    private final long slowThresholdMillis;
+    private final long explainIntervalMillis;
+    private final boolean histogram;
+    private final int maxQueries;
+    private final DocumentCodec codec = new DocumentCodec();
+
+    private final Map<Integer, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, QueryStats> queries = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    private final Map<String, Long> explainedAt = new ConcurrentHashMap<>();
+    private final Map<String, PlanSample> samples = new ConcurrentHashMap<>();
+    private final Map<String, UnindexedQuery> unindexed = new ConcurrentHashMap<>();
+
+    public MongoQueryProfiler(ObjectProvider<MongoTemplate> mongoTemplate,
+                              MeterRegistry meterRegistry,
+                              Executor explainer,
+                              boolean enabled,
+                              long slowThresholdMillis,
+                              long explainIntervalMillis,
+                              boolean histogram,
+                              int maxQueries) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.explainer = explainer;
+        this.enabled = enabled;
+        this.slowThresholdMillis = slowThresholdMillis;
+        this.explainIntervalMillis = explainIntervalMillis;
+        this.histogram = histogram;
+        this.maxQueries = maxQueries;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String commandName = event.getCommandName();
+        if (!enabled || !PROFILED_COMMANDS.contains(commandName)
+                || SKIPPED_DATABASES.contains(event.getDatabaseName())) {
+            return;
+        }
+        if (inFlight.size() >= MAX_IN_FLIGHT) {
+            // Events lost on a closed connection never complete; do not let them accumulate.
+            inFlight.clear();
+        }
+        BsonDocument command = event.getCommand();
+        BsonValue target = command.get("getMore".equals(commandName) ? "collection" : commandName);
+        String collection = target != null && target.isString() ? target.asString().getValue() : "?";
+        // The command document is only readable during this callback; only reads are kept, to be explained.
+        Document kept = READ_COMMANDS.contains(commandName) ? decode(command) : null;
+        inFlight.put(event.getRequestId(),
+                new InFlight(event.getDatabaseName(), commandName, collection, queryName(commandName, collection), kept));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        InFlight started = inFlight.remove(event.getRequestId());
+        if (started == null) {
+            return;
+        }
+        long elapsedNanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        long returned = returned(started.commandName(), event.getResponse());
+        record(started, elapsedNanos, "success", returned);
+
+        if (started.command() != null) {
+            onRead(started, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        InFlight started = inFlight.remove(event.getRequestId());
+        if (started != null) {
+            record(started, event.getElapsedTime(TimeUnit.NANOSECONDS), "error", -1);
+        }
+    }
+
+    /**
+     * Per query: calls, latency, documents returned and the sampled plans, slowest in total first.
+     */
+    public List<Map<String, Object>> getQueryReport() {
+        Map<String, List<PlanSample>> plansByQuery = new LinkedHashMap<>();
+        for (PlanSample sample : samples.values()) {
+            plansByQuery.computeIfAbsent(sample.query(), query -> new ArrayList<>()).add(sample);
+        }
+        List<Map<String, Object>> report = new ArrayList<>();
+        queries.forEach((query, stats) -> {
+            long calls = stats.calls.sum();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("query", query);
+            entry.put("collections", stats.collections);
+            entry.put("calls", calls);
+            entry.put("errors", stats.errors.sum());
+            entry.put("totalMillis", stats.totalNanos.sum() / 1_000_000);
+            entry.put("meanMillis", calls > 0 ? stats.totalNanos.sum() / 1_000_000.0 / calls : 0);
+            entry.put("maxMillis", stats.maxNanos.get() / 1_000_000.0);
+            entry.put("meanReturned", calls > 0 ? (double) stats.returned.sum() / calls : 0);
+            List<Map<String, Object>> plans = new ArrayList<>();
+            for (PlanSample sample : plansByQuery.getOrDefault(query, List.of())) {
+                Map<String, Object> plan = new LinkedHashMap<>();
+                plan.put("command", sample.command());
+                plan.put("shape", sample.shape());
+                plan.put("plan", sample.plan());
+                plan.put("keysExamined", sample.keysExamined());
+                plan.put("docsExamined", sample.docsExamined());
+                plan.put("returned", sample.returned());
+                plan.put("docsExaminedPerReturned", (double) sample.docsExamined() / Math.max(1, sample.returned()));
+                plan.put("sampledDate", sample.sampledDate());
+                plans.add(plan);
+            }
+            entry.put("plans", plans);
+            report.add(entry);
+        });
+        report.sort(Comparator.comparingLong((Map<String, Object> entry) -> (Long) entry.get("totalMillis")).reversed());
+        return report;
+    }
+
+    /**
+     * The sampled plans, one per read shape.
+     */
+    public List<PlanSample> getPlanSamples() {
+        return new ArrayList<>(samples.values());
+    }
+
+    /**
+     * Slow unindexed shapes, slowest first.
+     */
+    public List<UnindexedQuery> getUnindexedQueries() {
+        List<UnindexedQuery> flagged = new ArrayList<>(unindexed.values());
+        flagged.sort(Comparator.comparingLong(UnindexedQuery::maxMillis).reversed());
+        return flagged;
+    }
+
+    public Map<String, Object> getSettings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("enabled", enabled);
+        settings.put("slowThresholdMillis", slowThresholdMillis);
+        settings.put("explainIntervalMillis", explainIntervalMillis);
+        settings.put("trackedQueries", queries.size());
+        settings.put("sampledShapes", samples.size());
+        return settings;
+    }
+
+    private void record(InFlight started, long elapsedNanos, String outcome, long returned) {
+        QueryStats stats = queries.computeIfAbsent(started.query(), query -> new QueryStats());
+        stats.collections.add(started.collection());
+        stats.calls.increment();
+        stats.totalNanos.add(elapsedNanos);
+        stats.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        if ("error".equals(outcome)) {
+            stats.errors.increment();
+        }
+
+        timers.computeIfAbsent(started.query() + "|" + started.commandName() + "|" + started.collection() + "|" + outcome,
+                        key -> Timer.builder("mongo.query")
+                                .description("Mongo commands, per repository method or aggregation")
+                                .tag("query", started.query())
+                                .tag("command", started.commandName())
+                                .tag("collection", started.collection())
+                                .tag("outcome", outcome)
+                                .publishPercentileHistogram(histogram)
+                                .minimumExpectedValue(Duration.ofMillis(1))
+                                .maximumExpectedValue(Duration.ofSeconds(30))
+                                .register(meterRegistry))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (returned >= 0) {
+            stats.returned.add(returned);
+            summary("mongo.query.returned", started.query(), started.collection(), null).record(returned);
+        }
+    }
+
+    private void onRead(InFlight started, long elapsedMillis) {
+        String shape = shape(started);
+        String key = started.query() + " " + started.commandName() + " " + started.collection() + " " + shape;
+
+        PlanSample sample = samples.get(key);
+        if (sample != null && sample.collectionScan() && elapsedMillis >= slowThresholdMillis) {
+            flag(key, sample, elapsedMillis);
+        }
+
+        long now = System.currentTimeMillis();
+        Long last = explainedAt.get(key);
+        if (last != null && now - last < explainIntervalMillis) {
+            return;
+        }
+        if (explainedAt.size() >= MAX_SHAPES) {
+            explainedAt.clear();
+        }
+        explainedAt.put(key, now);
+        try {
+            explainer.execute(() -> explain(started, key, shape, elapsedMillis));
+        } catch (Exception e) {
+            // Explains are diagnostics: skipped when the explainer is saturated.
+            explainedAt.remove(key);
+        }
+    }
+
+    private void explain(InFlight started, String key, String shape, long elapsedMillis) {
+        try {
+            MongoTemplate template = mongoTemplate.getIfAvailable();
+            if (template == null) {
+                return;
+            }
+            Document explain = template.getMongoDatabaseFactory().getMongoDatabase(started.database())
+                    .runCommand(QueryPlans.explainCommand(started.command(), "executionStats"));
+            Document stats = QueryPlans.executionStats(explain);
+            PlanSample sample = new PlanSample(started.query(), started.collection(), started.commandName(), shape,
+                    QueryPlans.summary(explain), QueryPlans.isCollectionScan(explain),
+                    stats != null ? stats.get("totalKeysExamined", 0L) : 0,
+                    stats != null ? stats.get("totalDocsExamined", 0L) : 0,
+                    stats != null ? stats.get("nReturned", 0L) : 0,
+                    new Date());
+            if (samples.size() >= MAX_SHAPES && !samples.containsKey(key)) {
+                samples.clear();
+            }
+            samples.put(key, sample);
+
+            summary("mongo.query.examined", started.query(), started.collection(), "keys").record(sample.keysExamined());
+            summary("mongo.query.examined", started.query(), started.collection(), "docs").record(sample.docsExamined());
+
+            if (!sample.collectionScan()) {
+                unindexed.remove(key);
+            } else if (elapsedMillis >= slowThresholdMillis) {
+                flag(key, sample, elapsedMillis);
+            }
+        } catch (Exception e) {
+            System.err.println("Impossible d'expliquer une requête sur " + started.collection() + ": " + e.getMessage());
+        }
+    }
+
+    private void flag(String key, PlanSample sample, long elapsedMillis) {
+        if (!unindexed.containsKey(key) && unindexed.size() >= MAX_SHAPES) {
+            return;
+        }
+        UnindexedQuery previous = unindexed.get(key);
+        unindexed.put(key, new UnindexedQuery(sample.query(), sample.collection(), sample.command(), sample.shape(),
+                sample.plan(),
+                previous != null ? previous.occurrences() + 1 : 1,
+                previous != null ? Math.max(previous.maxMillis(), elapsedMillis) : elapsedMillis,
+                new Date()));
+        if (previous == null) {
+            System.err.println("Requête lente sans index (" + elapsedMillis + " ms) " + sample.query() + " sur "
+                    + sample.collection() + ": " + sample.command() + " " + sample.shape() + " -> " + sample.plan());
+        }
+    }
+
+    private DistributionSummary summary(String name, String query, String collection, String type) {
+        return summaries.computeIfAbsent(name + "|" + query + "|" + collection + "|" + type, key -> {
+            DistributionSummary.Builder builder = DistributionSummary.builder(name)
+                    .tag("query", query)
+                    .tag("collection", collection);
+            if (type != null) {
+                builder.tag("type", type);
+            }
+            return builder.register(meterRegistry);
+        });
+    }
+
+    /**
+     * The label set on the thread, or the closest application method on the stack.
+     */
+    private String queryName(String commandName, String collection) {
+        String label = MongoQueryLabel.current();
+        if (label == null) {
+            label = STACK_WALKER.walk(frames -> frames
+                    .filter(frame -> frame.getClassName().startsWith(APP_PACKAGE)
+                            && !frame.getClassName().contains("$$")
+                            && !frame.getClassName().startsWith(MongoQueryProfiler.class.getName()))
+                    .findFirst()
+                    .map(frame -> simpleName(frame.getClassName()) + "." + methodName(frame.getMethodName()))
+                    .orElse(commandName + ":" + collection));
+        }
+        if (!queries.containsKey(label) && queries.size() >= maxQueries) {
+            // Keeps the number of tagged series bounded.
+            return OTHER_QUERY;
+        }
+        return label;
+    }
+
+    private String simpleName(String className) {
+        String simple = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simple.indexOf('$');
+        return nested > 0 ? simple.substring(0, nested) : simple;
+    }
+
+    private String methodName(String method) {
+        // lambda$getOverview$3 -> getOverview
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', 7);
+            return end > 7 ? method.substring(7, end) : method;
+        }
+        return method;
+    }
+
+    private long returned(String commandName, BsonDocument response) {
+        try {
+            switch (commandName) {
+                case "find", "aggregate", "getMore" -> {
+                    BsonDocument cursor = response.getDocument("cursor", null);
+                    if (cursor == null) {
+                        return -1;
+                    }
+                    BsonArray batch = cursor.getArray("getMore".equals(commandName) ? "nextBatch" : "firstBatch", null);
+                    return batch != null ? batch.size() : -1;
+                }
+                case "count" -> {
+                    BsonValue n = response.get("n");
+                    return n != null && n.isNumber() ? n.asNumber().longValue() : -1;
+                }
+                case "distinct" -> {
+                    BsonArray values = response.getArray("values", null);
+                    return values != null ? values.size() : -1;
+                }
+                default -> {
+                    return -1;
+                }
+            }
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private String shape(InFlight started) {
+        Document command = started.command();
+        Document shape = new Document();
+        switch (started.commandName()) {
+            case "find" -> {
+                shape.append("filter", blank(command.get("filter")));
+                if (command.get("sort") != null) {
+                    shape.append("sort", command.get("sort"));
+                }
+            }
+            case "count", "distinct" -> shape.append("query", blank(command.get("query")));
+            default -> shape.append("pipeline", blank(command.get("pipeline")));
+        }
+        return shape.toJson();
+    }
+
+    /**
+     * Keeps field names and operators, replaces every value by {@code ?}.
+     */
+    private Object blank(Object value) {
+        if (value instanceof Document document) {
+            Document blanked = new Document();
+            document.forEach((field, nested) -> blanked.append(field, blank(nested)));
+            return blanked;
+        }
+        if (value instanceof List<?> list && !list.isEmpty() && list.stream().allMatch(Document.class::isInstance)) {
+            return list.stream().map(this::blank).toList();
+        }
+        return value == null ? null : "?";
+    }
+
+    private Document decode(BsonDocument command) {
+        return codec.decode(new BsonDocumentReader(command), DecoderContext.builder().build());
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.Backend_CitizenSpeak.config;
 
 import com.example.Backend_CitizenSpeak.services.AnalystService;
-import com.example.Backend_CitizenSpeak.services.NotificationService;
+import com.example.Backend_CitizenSpeak.services.AnalyticsResponseCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -11,22 +11,17 @@ import org.springframework.scheduling.annotation.Scheduled;
 @EnableScheduling
 public class NotificationScheduler {
 
-    @Autowired
-    private NotificationService notificationService;
-
     @Autowired
     private AnalystService analystService;
 
-    @Scheduled(cron = "0 0 2 * * ?")
-    public void cleanOldNotifications() {
-        System.out.println("Nettoyage des anciennes notifications...");
-        notificationService.cleanOldNotifications();
-    }
+    @Autowired
+    private AnalyticsResponseCache analyticsResponseCache;
 
     @Scheduled(cron = "0 0 8 * * ?")
     public void performDailyAnalysis() {
         System.out.println("Analyse quotidienne des données...");
         analystService.performPeriodicAnalysis();
+        analyticsResponseCache.refreshAfterBatch();
     }
 
     @Scheduled(cron = "0 0 9 * * MON")
@@ -0,0 +1,52 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves citizen-app notifications onto the common schema: the owner goes from {@code user} to
+ * {@code recipient} and {@code sentDate} is copied to {@code createdDate}, so every notification
+ * is found by the same {@code (recipient, isRead, createdDate)} index. {@code sentDate} is kept
+ * because the citizen app still reads it. Only documents that still have {@code user} are
+ * touched, so the migration is a no-op once done. Run by {@link StartupMigrations}.
+ */
+@Component
+public class NotificationSchemaMigration {
+
+    private static final String NOTIFICATIONS = "notifications";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public NotificationSchemaMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void migrate() {
+        try {
+            AggregationUpdate update = AggregationUpdate.update()
+                    .set("recipient").toValue(ConditionalOperators.ifNull("recipient").thenValueOf("user"))
+                    .set("createdDate").toValue(ConditionalOperators.ifNull("createdDate").thenValueOf("sentDate"))
+                    .unset("user");
+            long migrated = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("user").exists(true)), update, NOTIFICATIONS).getModifiedCount();
+            if (migrated > 0) {
+                System.out.println("Notifications migrées vers le champ recipient: " + migrated);
+            }
+
+            for (String legacyIndex : new String[]{"notification_user_read_sent", "notification_user_sent"}) {
+                if (mongoTemplate.indexOps(NOTIFICATIONS).getIndexInfo().stream()
+                        .anyMatch(index -> legacyIndex.equals(index.getName()))) {
+                    mongoTemplate.indexOps(NOTIFICATIONS).dropIndex(legacyIndex);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Échec de la migration des notifications: " + e.getMessage());
+        }
+    }
+}
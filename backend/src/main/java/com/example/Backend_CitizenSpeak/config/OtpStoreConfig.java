@@ -0,0 +1,33 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.services.InMemoryOtpChallengeStore;
+import com.example.Backend_CitizenSpeak.services.MongoOtpChallengeStore;
+import com.example.Backend_CitizenSpeak.services.OtpChallengeStore;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Selects where pending OTP logins are kept.
+ *
+ * {@code auth.otp.store=memory} keeps them on this node, which only works behind a single
+ * instance or sticky sessions; {@code mongo} shares them between all instances.
+ */
+@Configuration
+public class OtpStoreConfig {
+
+    @Bean
+    public OtpChallengeStore otpChallengeStore(Environment env, MongoTemplate mongoTemplate) {
+        String type = env.getProperty("auth.otp.store", "memory");
+        OtpChallengeStore store = switch (type.toLowerCase()) {
+            case "memory" -> new InMemoryOtpChallengeStore(
+                    env.getProperty("auth.otp.memory.max-entries", Integer.class, 100_000),
+                    env.getProperty("auth.otp.memory.tick-ms", Long.class, 1000L));
+            case "mongo" -> new MongoOtpChallengeStore(mongoTemplate);
+            default -> throw new IllegalStateException("Type de stockage des codes OTP inconnu: " + type);
+        };
+        System.out.println("Stockage des codes OTP: " + store.getType());
+        return store;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the winning plans out of {@code explain} results (find, count and aggregate, on a single
+ * server or sharded) and turns them into short summaries such as
+ * {@code FETCH > IXSCAN(complaints_status_creation)}.
+ */
+final class QueryPlans {
+
+    /**
+     * Command fields the driver adds to every command; {@code explain} refuses some of them when
+     * they are nested inside the explained command.
+     */
+    private static final Set<String> GENERIC_FIELDS = Set.of("$db", "lsid", "$clusterTime", "$readPreference",
+            "txnNumber", "autocommit", "startTransaction", "readConcern", "writeConcern", "apiVersion",
+            "apiStrict", "apiDeprecationErrors");
+
+    private QueryPlans() {
+    }
+
+    /**
+     * The {@code explain} command for {@code command}, at {@code queryPlanner} verbosity: the plan
+     * is chosen but the query is not run.
+     */
+    static Document explainCommand(Document command) {
+        return explainCommand(command, "queryPlanner");
+    }
+
+    /**
+     * With {@code executionStats} the query is run (without returning its documents) and the
+     * result reports how many keys and documents it examined.
+     */
+    static Document explainCommand(Document command, String verbosity) {
+        Document explained = new Document(command);
+        explained.keySet().removeAll(GENERIC_FIELDS);
+        return new Document("explain", explained).append("verbosity", verbosity);
+    }
+
+    /**
+     * The winning plans of an {@code explain} result: one per shard, and for an aggregation the
+     * plan of its initial cursor.
+     */
+    static List<Document> winningPlans(Document explain) {
+        List<Document> plans = new ArrayList<>();
+        collectWinningPlans(explain, plans);
+        return plans;
+    }
+
+    static String summary(Document explain) {
+        List<Document> plans = winningPlans(explain);
+        if (plans.isEmpty()) {
+            return "UNKNOWN";
+        }
+        return plans.stream().map(QueryPlans::stageSummary).distinct().collect(Collectors.joining(" | "));
+    }
+
+    /**
+     * Stage names of every winning plan; index scans appear both as {@code IXSCAN} and as
+     * {@code IXSCAN(<index>)}.
+     */
+    static Set<String> stages(Document explain) {
+        Set<String> stages = new LinkedHashSet<>();
+        for (Document plan : winningPlans(explain)) {
+            collectStages(plan, stages);
+        }
+        return stages;
+    }
+
+    static boolean isCollectionScan(Document explain) {
+        return stages(explain).contains("COLLSCAN");
+    }
+
+    /**
+     * {@code totalKeysExamined}, {@code totalDocsExamined} and {@code nReturned} of an explain run
+     * at {@code executionStats} verbosity, summed over the shards; {@code null} without stats. For
+     * an aggregation these are the figures of its initial cursor, before any {@code $group}.
+     */
+    static Document executionStats(Document explain) {
+        List<Document> all = new ArrayList<>();
+        collectExecutionStats(explain, all);
+        if (all.isEmpty()) {
+            return null;
+        }
+        long keys = 0;
+        long docs = 0;
+        long returned = 0;
+        for (Document stats : all) {
+            keys += number(stats.get("totalKeysExamined"));
+            docs += number(stats.get("totalDocsExamined"));
+            returned += number(stats.get("nReturned"));
+        }
+        return new Document("totalKeysExamined", keys).append("totalDocsExamined", docs).append("nReturned", returned);
+    }
+
+    private static void collectWinningPlans(Document explain, List<Document> plans) {
+        if (explain.get("queryPlanner") instanceof Document planner
+                && planner.get("winningPlan") instanceof Document winning) {
+            plans.add(winning);
+        }
+        if (explain.get("stages") instanceof List<?> stages) {
+            for (Object stage : stages) {
+                if (stage instanceof Document document && document.get("$cursor") instanceof Document cursor) {
+                    collectWinningPlans(cursor, plans);
+                }
+            }
+        }
+        if (explain.get("shards") instanceof Document shards) {
+            for (Map.Entry<String, Object> shard : shards.entrySet()) {
+                if (shard.getValue() instanceof Document document) {
+                    collectWinningPlans(document, plans);
+                }
+            }
+        }
+    }
+
+    private static void collectExecutionStats(Document explain, List<Document> all) {
+        if (explain.get("executionStats") instanceof Document stats) {
+            all.add(stats);
+            return;
+        }
+        if (explain.get("stages") instanceof List<?> stages) {
+            for (Object stage : stages) {
+                if (stage instanceof Document document && document.get("$cursor") instanceof Document cursor) {
+                    collectExecutionStats(cursor, all);
+                }
+            }
+        }
+        if (explain.get("shards") instanceof Document shards) {
+            for (Map.Entry<String, Object> shard : shards.entrySet()) {
+                if (shard.getValue() instanceof Document document) {
+                    collectExecutionStats(document, all);
+                }
+            }
+        }
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number number ? number.longValue() : 0;
+    }
+
+    private static String stageSummary(Document stage) {
+        // With the slot-based engine the classic tree sits under queryPlan.
+        if (stage.get("queryPlan") instanceof Document inner) {
+            return stageSummary(inner);
+        }
+        String name = stageName(stage);
+        if (stage.get("inputStage") instanceof Document input) {
+            return name + " > " + stageSummary(input);
+        }
+        if (stage.get("inputStages") instanceof List<?> inputs) {
+            return name + inputs.stream()
+                    .filter(Document.class::isInstance)
+                    .map(input -> stageSummary((Document) input))
+                    .collect(Collectors.joining(", ", "[", "]"));
+        }
+        return name;
+    }
+
+    private static void collectStages(Document stage, Set<String> stages) {
+        if (stage.get("queryPlan") instanceof Document inner) {
+            collectStages(inner, stages);
+            return;
+        }
+        stages.add(String.valueOf(stage.get("stage")));
+        stages.add(stageName(stage));
+        if (stage.get("inputStage") instanceof Document input) {
+            collectStages(input, stages);
+        }
+        if (stage.get("inputStages") instanceof List<?> inputs) {
+            for (Object input : inputs) {
+                if (input instanceof Document document) {
+                    collectStages(document, stages);
+                }
+            }
+        }
+    }
+
+    private static String stageName(Document stage) {
+        String name = String.valueOf(stage.get("stage"));
+        return stage.get("indexName") != null ? name + "(" + stage.get("indexName") + ")" : name;
+    }
+}
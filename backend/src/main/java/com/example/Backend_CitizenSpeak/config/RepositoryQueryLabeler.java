@@ -0,0 +1,34 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Names the Mongo commands sent from a repository method after the method
+ * ({@code CommentRepository.findByComplaintOrderByCommentDateDesc}), so that
+ * {@link MongoQueryProfiler} reports them per method rather than per collection. A repository
+ * method calling another one is reported under the inner one.
+ */
+@Component
+public class RepositoryQueryLabeler implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+            repositoryFactoryBean.addRepositoryFactoryCustomizer(
+                    factory -> factory.addRepositoryProxyPostProcessor(labelling()));
+        }
+        return bean;
+    }
+
+    static RepositoryProxyPostProcessor labelling() {
+        return (proxyFactory, repositoryInformation) -> {
+            String repository = repositoryInformation.getRepositoryInterface().getSimpleName();
+            proxyFactory.addAdvice((MethodInterceptor) invocation -> MongoQueryLabel.invoke(
+                    repository + "." + invocation.getMethod().getName(), invocation));
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the schema migrations the request paths depend on once every bean exists but before the
+ * web server is started, so no request sees a half-migrated database: a query by status code
+ * would otherwise miss complaints still stored under a legacy label. Notifications go before the
+ * user directory: that migration rewrites their {@code recipient}, which must already be there.
+ */
+@Component
+public class StartupMigrations implements SmartInitializingSingleton {
+
+    private final ComplaintStatusMigration complaintStatusMigration;
+    private final NotificationSchemaMigration notificationSchemaMigration;
+    private final UserDirectoryMigration userDirectoryMigration;
+
+    @Autowired
+    public StartupMigrations(ComplaintStatusMigration complaintStatusMigration,
+                             NotificationSchemaMigration notificationSchemaMigration,
+                             UserDirectoryMigration userDirectoryMigration) {
+        this.complaintStatusMigration = complaintStatusMigration;
+        this.notificationSchemaMigration = notificationSchemaMigration;
+        this.userDirectoryMigration = userDirectoryMigration;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        complaintStatusMigration.migrate();
+        notificationSchemaMigration.migrate();
+        userDirectoryMigration.migrate();
+    }
+}
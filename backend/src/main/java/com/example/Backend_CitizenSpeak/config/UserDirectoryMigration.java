@@ -0,0 +1,304 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.models.Admin;
+import com.example.Backend_CitizenSpeak.models.Analyst;
+import com.example.Backend_CitizenSpeak.models.Citizen;
+import com.example.Backend_CitizenSpeak.models.CommunityAgent;
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static com.mongodb.client.model.Filters.eq;
+
+/**
+ * Moves accounts from the per-role collections ({@code citizens}, {@code agents}, {@code admins},
+ * {@code analysts}) into {@code users}, where they are stored as their subclass.
+ *
+ * Each role document is merged with the {@code users} document of the same email: the role
+ * document keeps its id, since complaints, comments and interventions point to it, and takes the
+ * login fields (password, role, activation, backup and reset codes) from the account. The old
+ * account id is kept in {@code legacyUserId} until every reference to it (notifications, device
+ * tokens, status history, broadcast read markers, pending outbox events) and every reference to
+ * a role collection has been rewritten to {@code users}. Every step can be repeated, so an
+ * interrupted migration finishes on the next start, and once done the migration only checks
+ * that there is nothing left to move. Run by {@link StartupMigrations} before the server takes
+ * requests, since the role repositories only see documents already moved.
+ */
+@Component
+public class UserDirectoryMigration {
+
+    private static final String USERS = "users";
+    private static final String LEGACY_USER_ID = "legacyUserId";
+    private static final int BATCH_SIZE = 1000;
+
+    private static final Map<String, String> LEGACY_COLLECTIONS = new LinkedHashMap<>();
+    static {
+        LEGACY_COLLECTIONS.put("citizens", Citizen.TYPE);
+        LEGACY_COLLECTIONS.put("agents", CommunityAgent.TYPE);
+        LEGACY_COLLECTIONS.put("admins", Admin.TYPE);
+        LEGACY_COLLECTIONS.put("analysts", Analyst.TYPE);
+    }
+
+    /** Only ever written through the login and account flows, i.e. to the {@code users} copy. */
+    private static final List<String> ACCOUNT_FIELDS = List.of(
+            "password", "role", "active", "backupCodes", "resetToken", "resetTokenExpiry");
+
+    /** Profile fields taken from the account only when the role document has none. */
+    private static final List<String> PROFILE_FIELDS = List.of("name", "phone", "photo");
+
+    /** {collection, field} of every DBRef to a user. */
+    private static final String[][] USER_REFERENCES = {
+            {"complaints", "citizen"},
+            {"complaints", "assignedAgent"},
+            {"comments", "citizen"},
+            {"comments", "agent"},
+            {"interventions", "agents"},
+            {"notifications", "recipient"},
+            {"device_tokens", "user"},
+            {"status_histories", "updatedBy"},
+    };
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public UserDirectoryMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void migrate() {
+        try {
+            long moved = 0;
+            long skipped = 0;
+            for (Map.Entry<String, String> legacy : LEGACY_COLLECTIONS.entrySet()) {
+                if (!mongoTemplate.collectionExists(legacy.getKey())) {
+                    continue;
+                }
+                try (MongoCursor<Document> cursor = mongoTemplate.getCollection(legacy.getKey())
+                        .find().batchSize(BATCH_SIZE).iterator()) {
+                    while (cursor.hasNext()) {
+                        if (moveToUsers(legacy.getKey(), legacy.getValue(), cursor.next())) {
+                            moved++;
+                        } else {
+                            skipped++;
+                        }
+                    }
+                }
+            }
+            long typed = typeAccountsByRole();
+            long rewritten = rewriteReferences();
+
+            if (moved + typed + rewritten > 0) {
+                System.out.println("Annuaire unifié: " + moved + " profils déplacés dans users, "
+                        + typed + " comptes typés, " + rewritten + " références réécrites");
+            }
+            if (skipped > 0) {
+                System.err.println("Annuaire unifié: " + skipped
+                        + " profils sans email laissés dans les anciennes collections");
+            }
+        } catch (Exception e) {
+            System.err.println("Échec de la migration vers l'annuaire unifié: " + e.getMessage());
+        }
+        ensureIndexes();
+    }
+
+    /**
+     * Merges one role document with its account and stores it in {@code users} under the role
+     * document's id. The merged version is written back to the role collection first, so a crash
+     * after the account is deleted does not lose its login fields.
+     */
+    private boolean moveToUsers(String legacyCollection, String type, Document profile) {
+        Object id = profile.get("_id");
+        String email = profile.getString("email");
+        if (email == null) {
+            return false;
+        }
+
+        Document merged = new Document(profile);
+        Document account = mongoTemplate.getCollection(USERS).find(new Document("email", email)
+                .append("_id", new Document("$ne", id))
+                .append("_class", new Document("$nin", List.copyOf(LEGACY_COLLECTIONS.values()))))
+                .first();
+        if (account != null) {
+            for (String field : ACCOUNT_FIELDS) {
+                if (account.containsKey(field)) {
+                    merged.put(field, account.get(field));
+                }
+            }
+            for (String field : PROFILE_FIELDS) {
+                if (merged.get(field) == null && account.get(field) != null) {
+                    merged.put(field, account.get(field));
+                }
+            }
+            merged.put(LEGACY_USER_ID, account.get("_id"));
+        }
+        merged.put("_class", type);
+        merged.remove("otp");
+
+        MongoCollection<Document> legacy = mongoTemplate.getCollection(legacyCollection);
+        legacy.replaceOne(eq("_id", id), merged);
+        if (account != null) {
+            mongoTemplate.getCollection(USERS).deleteOne(eq("_id", account.get("_id")));
+        }
+        mongoTemplate.getCollection(USERS).replaceOne(eq("_id", id), merged, new ReplaceOptions().upsert(true));
+        legacy.deleteOne(eq("_id", id));
+        return true;
+    }
+
+    /**
+     * Accounts that never had a usable role document are typed from their role.
+     */
+    private long typeAccountsByRole() {
+        long typed = 0;
+        for (String type : LEGACY_COLLECTIONS.values()) {
+            typed += mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_class").nin(LEGACY_COLLECTIONS.values())
+                            .and("role").regex("^" + Pattern.quote(type) + "$", "i")),
+                    new Update().set("_class", type),
+                    USERS).getModifiedCount();
+        }
+        return typed;
+    }
+
+    /**
+     * Points every reference at {@code users}: references to a role collection keep their id,
+     * references to a merged account get the id of the document it was merged into.
+     */
+    private long rewriteReferences() {
+        Map<Object, Object> mergedIds = new HashMap<>();
+        Query legacyAccounts = Query.query(Criteria.where(LEGACY_USER_ID).exists(true));
+        legacyAccounts.fields().include("_id").include(LEGACY_USER_ID);
+        legacyAccounts.cursorBatchSize(BATCH_SIZE);
+        try (Stream<Document> users = mongoTemplate.stream(legacyAccounts, Document.class, USERS)) {
+            users.forEach(user -> mergedIds.put(user.get(LEGACY_USER_ID), user.get("_id")));
+        }
+
+        long rewritten = 0;
+        List<Object> oldIds = new ArrayList<>(mergedIds.keySet());
+        for (String[] reference : USER_REFERENCES) {
+            String collection = reference[0];
+            String field = reference[1];
+            rewritten += rewrite(collection, field,
+                    Criteria.where(field + ".$ref").in(LEGACY_COLLECTIONS.keySet()), mergedIds);
+            for (int from = 0; from < oldIds.size(); from += BATCH_SIZE) {
+                List<Object> batch = oldIds.subList(from, Math.min(oldIds.size(), from + BATCH_SIZE));
+                rewritten += rewrite(collection, field,
+                        Criteria.where(field + ".$ref").is(USERS).and(field + ".$id").in(batch), mergedIds);
+            }
+        }
+
+        for (Map.Entry<Object, Object> ids : mergedIds.entrySet()) {
+            String oldId = ids.getKey().toString();
+            String newId = ids.getValue().toString();
+            Document readState = mongoTemplate.getCollection("broadcast_read_states").find(eq("_id", oldId)).first();
+            if (readState != null) {
+                readState.put("_id", newId);
+                mongoTemplate.getCollection("broadcast_read_states")
+                        .replaceOne(eq("_id", newId), readState, new ReplaceOptions().upsert(true));
+                mongoTemplate.getCollection("broadcast_read_states").deleteOne(eq("_id", oldId));
+            }
+            // Counters re-seed from the notifications on the next read.
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(oldId, newId)), "notification_unread_counters");
+            mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("recipientIds").is(oldId).and("status").ne("DONE")),
+                    new Update().set("recipientIds.$", newId),
+                    "notification_outbox");
+        }
+
+        if (!mergedIds.isEmpty()) {
+            mongoTemplate.updateMulti(Query.query(Criteria.where(LEGACY_USER_ID).exists(true)),
+                    new Update().unset(LEGACY_USER_ID), USERS);
+        }
+        return rewritten;
+    }
+
+    private long rewrite(String collection, String field, Criteria criteria, Map<Object, Object> mergedIds) {
+        Query query = Query.query(criteria);
+        query.fields().include(field);
+        query.cursorBatchSize(BATCH_SIZE);
+
+        long rewritten = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        int pending = 0;
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))),
+                        new Update().set(field, rewriteValue(document.get(field), mergedIds)));
+                rewritten++;
+                if (++pending == BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+        return rewritten;
+    }
+
+    private Object rewriteValue(Object value, Map<Object, Object> mergedIds) {
+        if (value instanceof List<?> list) {
+            List<Object> rewritten = new ArrayList<>(list.size());
+            for (Object element : list) {
+                rewritten.add(rewriteValue(element, mergedIds));
+            }
+            return rewritten;
+        }
+        if (value instanceof DBRef ref) {
+            if (LEGACY_COLLECTIONS.containsKey(ref.getCollectionName())) {
+                return new DBRef(USERS, ref.getId());
+            }
+            if (USERS.equals(ref.getCollectionName()) && mergedIds.containsKey(ref.getId())) {
+                return new DBRef(USERS, mergedIds.get(ref.getId()));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Email is unique once the duplicates are gone; if old data still has two accounts with one
+     * email, the index is created without the constraint so lookups stay indexed.
+     */
+    private void ensureIndexes() {
+        try {
+            var indexOps = mongoTemplate.indexOps(USERS);
+            try {
+                indexOps.ensureIndex(new Index().on("email", Sort.Direction.ASC).unique()
+                        .partial(PartialIndexFilter.of(Criteria.where("email").type(2)))
+                        .named("users_email"));
+            } catch (Exception e) {
+                System.err.println("Emails en double dans users, index non unique: " + e.getMessage());
+                indexOps.ensureIndex(new Index().on("email", Sort.Direction.ASC).named("users_email_non_unique"));
+            }
+            indexOps.ensureIndex(new Index().on("role", Sort.Direction.ASC).named("users_role"));
+            indexOps.ensureIndex(new Index().on("_class", Sort.Direction.ASC).on("name", Sort.Direction.ASC)
+                    .named("users_class_name"));
+            indexOps.ensureIndex(new Index().on("resetToken", Sort.Direction.ASC)
+                    .partial(PartialIndexFilter.of(Criteria.where("resetToken").type(2)))
+                    .named("users_reset_token"));
+        } catch (Exception e) {
+            System.err.println("Impossible de créer les index des utilisateurs: " + e.getMessage());
+        }
+    }
+}
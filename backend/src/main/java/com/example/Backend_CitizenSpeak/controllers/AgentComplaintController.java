@@ -7,7 +7,6 @@ import com.example.Backend_CitizenSpeak.dto.InterventionRequest;
 import com.example.Backend_CitizenSpeak.dto.InterventionResponse;
 import com.example.Backend_CitizenSpeak.exceptions.ResourceNotFoundException;
 import com.example.Backend_CitizenSpeak.models.*;
-import com.example.Backend_CitizenSpeak.repositories.AgentRepository;
 import com.example.Backend_CitizenSpeak.services.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -28,30 +27,25 @@ public class AgentComplaintController {
     private final CommentService commentService;
     private final StatusHistoryService statusHistoryService;
     private final InterventionService interventionService;
-    private final UserService userService;
-    private final AgentRepository agentRepository;
+    private final CurrentUserService currentUserService;
 
     @Autowired
     public AgentComplaintController(ComplaintService complaintService,
                                     CommentService commentService,
                                     StatusHistoryService statusHistoryService,
                                     InterventionService interventionService,
-                                    UserService userService,
-                                    AgentRepository agentRepository) {
+                                    CurrentUserService currentUserService) {
         this.complaintService = complaintService;
         this.commentService = commentService;
         this.statusHistoryService = statusHistoryService;
         this.interventionService = interventionService;
-        this.userService = userService;
-        this.agentRepository = agentRepository;
+        this.currentUserService = currentUserService;
     }
 
     @GetMapping("/assigned")
     public ResponseEntity<List<ComplaintResponse>> getAssignedComplaints(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            CommunityAgent agent = agentRepository.findByEmail(email)
-                    .orElseThrow(() -> new ResourceNotFoundException("Agent not found"));
+            CommunityAgent agent = currentUserService.getAgent(authentication);
 
             List<Complaint> assignedComplaints = complaintService.getComplaintsByAssignedAgent(agent);
 
@@ -73,9 +67,7 @@ public class AgentComplaintController {
     @GetMapping("/{id}")
     public ResponseEntity<ComplaintResponse> getComplaintDetails(@PathVariable String id, Authentication authentication) {
         try {
-            String email = authentication.getName();
-            CommunityAgent agent = agentRepository.findByEmail(email)
-                    .orElseThrow(() -> new ResourceNotFoundException("Agent not found"));
+            CommunityAgent agent = currentUserService.getAgent(authentication);
 
             Complaint complaintResponse = complaintService.getComplaintById(id);
 
@@ -108,9 +100,7 @@ public class AgentComplaintController {
             Authentication authentication) {
 
         try {
-            String email = authentication.getName();
-            CommunityAgent agent = agentRepository.findByEmail(email)
-                    .orElseThrow(() -> new ResourceNotFoundException("Agent not found"));
+            CommunityAgent agent = currentUserService.getAgent(authentication);
 
             String newStatus = request.get("status");
             String notes = request.get("notes");
@@ -119,6 +109,10 @@ public class AgentComplaintController {
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "Status is required"));
             }
+            if (ComplaintStatus.parseOrNull(newStatus) == null) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Unknown status: " + newStatus));
+            }
 
             Complaint complaint = complaintService.getComplaintEntityById(id);
 
@@ -153,9 +147,7 @@ public class AgentComplaintController {
             Authentication authentication) {
 
         try {
-            String email = authentication.getName();
-            CommunityAgent agent = agentRepository.findByEmail(email)
-                    .orElseThrow(() -> new ResourceNotFoundException("Agent not found"));
+            CommunityAgent agent = currentUserService.getAgent(authentication);
 
             String description = payload.get("description");
             if (description == null || description.trim().isEmpty()) {
@@ -188,9 +180,7 @@ public class AgentComplaintController {
             Authentication authentication) {
 
         try {
-            String email = authentication.getName();
-            CommunityAgent agent = agentRepository.findByEmail(email)
-                    .orElseThrow(() -> new ResourceNotFoundException("Agent not found"));
+            CommunityAgent agent = currentUserService.getAgent(authentication);
 
             Complaint complaint = complaintService.getComplaintEntityById(id);
 
@@ -215,9 +205,7 @@ public class AgentComplaintController {
     @GetMapping("/{id}/interventions")
     public ResponseEntity<List<InterventionResponse>> getInterventions(@PathVariable String id, Authentication authentication) {
         try {
-            String email = authentication.getName();
-            CommunityAgent agent = agentRepository.findByEmail(email)
-                    .orElseThrow(() -> new ResourceNotFoundException("Agent not found"));
+            CommunityAgent agent = currentUserService.getAgent(authentication);
 
             Complaint complaint = complaintService.getComplaintEntityById(id);
 
@@ -248,9 +236,7 @@ public class AgentComplaintController {
             Authentication authentication) {
 
         try {
-            String email = authentication.getName();
-            CommunityAgent agent = agentRepository.findByEmail(email)
-                    .orElseThrow(() -> new ResourceNotFoundException("Agent not found"));
+            CommunityAgent agent = currentUserService.getAgent(authentication);
 
             Intervention intervention = interventionService.getInterventionById(interventionId);
 
@@ -275,9 +261,7 @@ public class AgentComplaintController {
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Object>> getAgentStatistics(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            CommunityAgent agent = agentRepository.findByEmail(email)
-                    .orElseThrow(() -> new ResourceNotFoundException("Agent not found"));
+            CommunityAgent agent = currentUserService.getAgent(authentication);
 
             List<Complaint> assignedComplaints = complaintService.getComplaintsByAssignedAgent(agent);
 
@@ -286,9 +270,9 @@ public class AgentComplaintController {
 
             Map<String, Object> statistics = new HashMap<>();
             statistics.put("totalAssigned", assignedComplaints.size());
-            statistics.put("inProgress", statusCounts.getOrDefault("In Progress", 0L));
-            statistics.put("resolved", statusCounts.getOrDefault("Resolved", 0L));
-            statistics.put("assigned", statusCounts.getOrDefault("Assigned", 0L));
+            statistics.put("inProgress", statusCounts.getOrDefault(ComplaintStatus.IN_PROGRESS.getLabel(), 0L));
+            statistics.put("resolved", statusCounts.getOrDefault(ComplaintStatus.RESOLVED.getLabel(), 0L));
+            statistics.put("assigned", statusCounts.getOrDefault(ComplaintStatus.ASSIGNED.getLabel(), 0L));
             statistics.put("statusBreakdown", statusCounts);
 
             return ResponseEntity.ok(statistics);
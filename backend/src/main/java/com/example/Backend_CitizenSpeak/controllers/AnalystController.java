@@ -27,16 +27,16 @@ public class AnalystController {
     private final ComplaintService complaintService;
     private final CategoryService categoryService;
     private final DepartmentService departmentService;
-    private final UserService userService;
+    private final CurrentUserService currentUserService;
 
     public AnalystController(ComplaintService complaintService,
                              CategoryService categoryService,
                              DepartmentService departmentService,
-                             UserService userService) {
+                             CurrentUserService currentUserService) {
         this.complaintService = complaintService;
         this.categoryService = categoryService;
         this.departmentService = departmentService;
-        this.userService = userService;
+        this.currentUserService = currentUserService;
     }
 
     @GetMapping("/dashboard/stats")
@@ -81,8 +81,7 @@ public class AnalystController {
     @GetMapping("/geographical-distribution")
     public ResponseEntity<List<Map<String, Object>>> getGeographicalDistribution(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
 
             if (!"Analyst".equalsIgnoreCase(currentUser.getRole()) && !"Admin".equalsIgnoreCase(currentUser.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -319,8 +318,7 @@ public class AnalystController {
             Authentication authentication) {
 
         try {
-            String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
 
             if (!"Analyst".equalsIgnoreCase(currentUser.getRole()) && !"Admin".equalsIgnoreCase(currentUser.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -343,10 +341,10 @@ public class AnalystController {
 
             analytics.put("totalComplaints", filteredComplaints.size());
             analytics.put("resolvedComplaints", filteredComplaints.stream()
-                    .mapToInt(c -> (c.getStatus().equals("Resolved") || c.getStatus().equals("Closed")) ? 1 : 0)
+                    .mapToInt(c -> c.isResolved() ? 1 : 0)
                     .sum());
             analytics.put("pendingComplaints", filteredComplaints.stream()
-                    .mapToInt(c -> (!c.getStatus().equals("Resolved") && !c.getStatus().equals("Closed")) ? 1 : 0)
+                    .mapToInt(c -> !c.isResolved() ? 1 : 0)
                     .sum());
 
             Map<String, Long> categoryStats = filteredComplaints.stream()
@@ -421,8 +419,7 @@ public class AnalystController {
     @GetMapping("/urgent-complaints")
     public ResponseEntity<List<ComplaintResponse>> getUrgentComplaints(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
 
             if (!"Analyst".equalsIgnoreCase(currentUser.getRole()) && !"Admin".equalsIgnoreCase(currentUser.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -432,7 +429,7 @@ public class AnalystController {
 
             List<Complaint> urgentComplaints = allComplaints.stream()
                     .filter(c -> c.getPriorityLevel() == 1)
-                    .filter(c -> !c.getStatus().equals("Resolved") && !c.getStatus().equals("Closed"))
+                    .filter(c -> !c.isResolved())
                     .sorted((c1, c2) -> c2.getCreationDate().compareTo(c1.getCreationDate()))
                     .collect(Collectors.toList());
 
@@ -455,8 +452,7 @@ public class AnalystController {
     @GetMapping("/department-performance")
     public ResponseEntity<List<Map<String, Object>>> getDepartmentPerformance(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
 
             if (!"Analyst".equalsIgnoreCase(currentUser.getRole()) && !"Admin".equalsIgnoreCase(currentUser.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -475,7 +471,7 @@ public class AnalystController {
 
                         long totalComplaints = complaints.size();
                         long resolvedComplaints = complaints.stream()
-                                .mapToLong(c -> (c.getStatus().equals("Resolved") || c.getStatus().equals("Closed")) ? 1 : 0)
+                                .mapToLong(c -> c.isResolved() ? 1 : 0)
                                 .sum();
 
                         double resolutionRate = totalComplaints > 0 ? (resolvedComplaints * 100.0) / totalComplaints : 0;
@@ -511,8 +507,7 @@ public class AnalystController {
             Authentication authentication) {
 
         try {
-            String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
 
             if (!"Analyst".equalsIgnoreCase(currentUser.getRole()) && !"Admin".equalsIgnoreCase(currentUser.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -628,7 +623,7 @@ public class AnalystController {
 
     private double calculateAverageResolutionTime(List<Complaint> complaints) {
         List<Complaint> resolvedComplaints = complaints.stream()
-                .filter(c -> (c.getStatus().equals("Resolved") || c.getStatus().equals("Closed")) &&
+                .filter(c -> c.isResolved() &&
                         c.getClosureDate() != null)
                 .collect(Collectors.toList());
 
@@ -652,7 +647,7 @@ public class AnalystController {
             Authentication authentication) {
         try {
             String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
 
             if (!"Analyst".equalsIgnoreCase(currentUser.getRole()) && !"Admin".equalsIgnoreCase(currentUser.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -731,8 +726,7 @@ public class AnalystController {
             @RequestParam(defaultValue = "2025") int year,
             Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
 
             if (!"Analyst".equalsIgnoreCase(currentUser.getRole()) && !"Admin".equalsIgnoreCase(currentUser.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -5,13 +5,15 @@ import com.example.Backend_CitizenSpeak.dto.MobileLoginRequest;
 import com.example.Backend_CitizenSpeak.dto.OtpVerificationRequest;
 import com.example.Backend_CitizenSpeak.dto.SignupRequest;
 import com.example.Backend_CitizenSpeak.models.User;
-import com.example.Backend_CitizenSpeak.services.TokenService;
+import com.example.Backend_CitizenSpeak.services.CurrentUserService;
+import com.example.Backend_CitizenSpeak.services.LoginThrottleService;
 import com.example.Backend_CitizenSpeak.services.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -23,12 +25,16 @@ import java.util.Map;
 public class AuthController {
 
     private final UserService userService;
-    private final TokenService tokenService;
+    private final CurrentUserService currentUserService;
+    private final LoginThrottleService loginThrottleService;
 
     @Autowired
-    public AuthController(UserService userService, TokenService tokenService) {
+    public AuthController(UserService userService,
+                          CurrentUserService currentUserService,
+                          LoginThrottleService loginThrottleService) {
         this.userService = userService;
-        this.tokenService = tokenService;
+        this.currentUserService = currentUserService;
+        this.loginThrottleService = loginThrottleService;
     }
 
 
@@ -51,12 +57,14 @@ public class AuthController {
     }
 
     @PostMapping("/mobile-login")
-    public ResponseEntity<Map<String, Object>> mobileLogin(@Valid @RequestBody MobileLoginRequest request) {
+    public ResponseEntity<Map<String, Object>> mobileLogin(@Valid @RequestBody MobileLoginRequest request,
+                                                           HttpServletRequest httpRequest) {
+        loginThrottleService.check(httpRequest, request.getEmail());
         userService.validateCredentials(request.getEmail(), request.getPassword());
 
         User user = userService.getUserByEmail(request.getEmail());
 
-        String token = tokenService.generateToken(request.getEmail(), user.getRole());
+        String token = currentUserService.issueToken(user);
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -74,32 +82,15 @@ public class AuthController {
     }
 
     @GetMapping(value = {"/me", "/me/"})
-    public ResponseEntity<Map<String, Object>> getCurrentUser(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> getCurrentUser(Authentication authentication) {
         try {
-            System.out.println("=== Request for current user info ===");
-
-            String authHeader = request.getHeader("Authorization");
-            System.out.println("Authorization header: " + authHeader);
-
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                System.err.println("No valid Authorization header found");
+            // The resource server has already verified the token; no need to parse it again.
+            if (authentication == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Authorization header missing or invalid"));
             }
 
-            String token = authHeader.substring(7);
-            System.out.println("Extracted token: " + token.substring(0, Math.min(20, token.length())) + "...");
-
-            String email = tokenService.extractEmailFromToken(token);
-            System.out.println("Email from token: " + email);
-
-            if (email == null || email.isEmpty()) {
-                System.err.println("Invalid or expired token");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(Map.of("error", "Invalid or expired token"));
-            }
-
-            User user = userService.getUserByEmail(email);
+            User user = currentUserService.getUser(authentication);
 
             Map<String, Object> userInfo = new HashMap<>();
             userInfo.put("id", user.getUserId());
@@ -121,7 +112,9 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<Map<String, String>> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<Map<String, String>> login(@Valid @RequestBody LoginRequest request,
+                                                     HttpServletRequest httpRequest) {
+        loginThrottleService.check(httpRequest, request.getEmail());
         String tempToken = userService.processLogin(request.getEmail(), request.getPassword());
         return ResponseEntity.ok(Map.of(
                 "message", "OTP has been sent to your email",
@@ -132,8 +125,9 @@ public class AuthController {
     @PostMapping("/verify-otp")
     public ResponseEntity<Map<String, Object>> verifyOtp(@Valid @RequestBody OtpVerificationRequest request) {
         String email = userService.verifyOtp(request.getToken(), request.getOtp());
-        String role = userService.getUserByEmail(email).getRole();
-        String token = tokenService.generateToken(email, role);
+        User user = userService.getUserByEmail(email);
+        String role = user.getRole();
+        String token = currentUserService.issueToken(user);
         return ResponseEntity.ok(Map.of(
                 "message", "OTP verified successfully. Login completed.",
                 "token", token,
@@ -156,8 +150,9 @@ public class AuthController {
         String backupCode = payload.get("backupCode");
 
         userService.verifyBackupCode(email, backupCode);
-        String role = userService.getUserByEmail(email).getRole();
-        String token = tokenService.generateToken(email, role);
+        User user = userService.getUserByEmail(email);
+        String role = user.getRole();
+        String token = currentUserService.issueToken(user);
 
         return ResponseEntity.ok(Map.of(
                 "message", "Backup code verified successfully.",
@@ -5,9 +5,8 @@ import com.example.Backend_CitizenSpeak.exceptions.ResourceNotFoundException;
 import com.example.Backend_CitizenSpeak.models.Citizen;
 import com.example.Backend_CitizenSpeak.models.Comment;
 import com.example.Backend_CitizenSpeak.models.CommunityAgent;
-import com.example.Backend_CitizenSpeak.services.CitizenService;
 import com.example.Backend_CitizenSpeak.services.CommentService;
-import com.example.Backend_CitizenSpeak.services.CommunityAgentService;
+import com.example.Backend_CitizenSpeak.services.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,16 +22,13 @@ import java.util.Map;
 public class CommentController {
 
     private final CommentService commentService;
-    private final CitizenService citizenService;
-    private final CommunityAgentService communityAgentService;
+    private final CurrentUserService currentUserService;
 
     @Autowired
     public CommentController(CommentService commentService,
-                             CitizenService citizenService,
-                             CommunityAgentService communityAgentService) {
+                             CurrentUserService currentUserService) {
         this.commentService = commentService;
-        this.citizenService = citizenService;
-        this.communityAgentService = communityAgentService;
+        this.currentUserService = currentUserService;
     }
 
     @GetMapping(value = {"/{commentId}", "/{commentId}/"})
@@ -75,15 +71,13 @@ public class CommentController {
                 return ResponseEntity.badRequest().build();
             }
 
-            String email = authentication.getName();
-
             Comment existingComment = commentService.getCommentById(commentId);
 
             boolean isAuthorized = false;
 
             if ("CITIZEN".equals(existingComment.getAuthorType())) {
                 try {
-                    Citizen currentUser = citizenService.getCitizenByEmail(email);
+                    Citizen currentUser = currentUserService.getCitizen(authentication);
                     isAuthorized = existingComment.getCitizen() != null &&
                             existingComment.getCitizen().getUserId().equals(currentUser.getUserId());
                 } catch (Exception e) {
@@ -91,7 +85,7 @@ public class CommentController {
                 }
             } else if ("AGENT".equals(existingComment.getAuthorType())) {
                 try {
-                    CommunityAgent currentAgent = communityAgentService.getAgentByEmail(email);
+                    CommunityAgent currentAgent = currentUserService.getAgent(authentication);
                     isAuthorized = existingComment.getAgent() != null &&
                             existingComment.getAgent().getUserId().equals(currentAgent.getUserId());
                 } catch (Exception e) {
@@ -133,8 +127,6 @@ public class CommentController {
             System.out.println("Request to delete comment: " + commentId);
             System.out.println("Authentication: " + authentication.getName());
 
-            String email = authentication.getName();
-
             Comment existingComment = commentService.getCommentById(commentId);
 
             boolean isAuthorized = false;
@@ -142,7 +134,7 @@ public class CommentController {
 
             if ("CITIZEN".equals(existingComment.getAuthorType())) {
                 try {
-                    Citizen currentUser = citizenService.getCitizenByEmail(email);
+                    Citizen currentUser = currentUserService.getCitizen(authentication);
                     isAuthorized = existingComment.getCitizen() != null &&
                             existingComment.getCitizen().getUserId().equals(currentUser.getUserId());
                     isAdmin = "Admin".equals(currentUser.getRole());
@@ -151,13 +143,13 @@ public class CommentController {
                 }
             } else if ("AGENT".equals(existingComment.getAuthorType())) {
                 try {
-                    CommunityAgent currentAgent = communityAgentService.getAgentByEmail(email);
+                    CommunityAgent currentAgent = currentUserService.getAgent(authentication);
                     isAuthorized = existingComment.getAgent() != null &&
                             existingComment.getAgent().getUserId().equals(currentAgent.getUserId());
                 } catch (Exception e) {
                     System.out.println("User is not an agent");
                     try {
-                        Citizen currentUser = citizenService.getCitizenByEmail(email);
+                        Citizen currentUser = currentUserService.getCitizen(authentication);
                         isAdmin = "Admin".equals(currentUser.getRole());
                     } catch (Exception ex) {
                         System.out.println("User is neither citizen nor agent");
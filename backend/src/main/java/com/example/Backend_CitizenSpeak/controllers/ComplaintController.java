@@ -28,44 +28,37 @@ import java.util.stream.Collectors;
 public class ComplaintController {
 
     private final ComplaintService complaintService;
-    private final CitizenService citizenService;
+    private final CurrentUserService currentUserService;
     private final CategoryService categoryService;
     private final MediaService mediaService;
     private final CommentService commentService;
     private final StatusHistoryService statusHistoryService;
-    private final CommunityAgentService communityAgentService;
     private final AgentRepository agentRepository;
     private final DepartmentRepository departmentRepository;
-    private final UserService userService;
 
     @Autowired
     public ComplaintController(ComplaintService complaintService,
-                               CitizenService citizenService,
+                               CurrentUserService currentUserService,
                                CategoryService categoryService,
                                MediaService mediaService,
                                CommentService commentService,
                                StatusHistoryService statusHistoryService,
-                               CommunityAgentService communityAgentService,
                                AgentRepository agentRepository,
-                               DepartmentRepository departmentRepository,
-                               UserService userService) {
+                               DepartmentRepository departmentRepository) {
         this.complaintService = complaintService;
-        this.citizenService = citizenService;
+        this.currentUserService = currentUserService;
         this.categoryService = categoryService;
         this.mediaService = mediaService;
         this.commentService = commentService;
         this.statusHistoryService = statusHistoryService;
-        this.communityAgentService = communityAgentService;
         this.agentRepository = agentRepository;
         this.departmentRepository = departmentRepository;
-        this.userService = userService;
     }
 
     @GetMapping(value = {"", "/"})
     public ResponseEntity<List<ComplaintResponse>> getAllComplaints(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            Citizen citizen = citizenService.getCitizenByEmail(email);
+            Citizen citizen = currentUserService.getCitizen(authentication);
 
             List<Complaint> complaints = complaintService.getComplaintsByCitizen(citizen);
             List<ComplaintResponse> responseList = complaints.stream()
@@ -192,7 +185,7 @@ public class ComplaintController {
             ComplaintRequest complaintRequest = objectMapper.readValue(complaintJson, ComplaintRequest.class);
 
             String email = authentication.getName();
-            Citizen citizen = citizenService.getCitizenByEmail(email);
+            Citizen citizen = currentUserService.getCitizen(authentication);
 
             System.out.println("Creating complaint for citizen: " + citizen.getName() + " (" + email + ")");
 
@@ -259,12 +252,12 @@ public class ComplaintController {
                 System.out.println("Found complaint: " + complaint.getTitle());
 
                 try {
-                    Citizen citizen = citizenService.getCitizenByEmail(email);
+                    Citizen citizen = currentUserService.getCitizen(authentication);
                     System.out.println("Comment will be created by citizen: " + citizen.getName() + " (" + email + ")");
                     comment = commentService.createCommentByCitizen(description, citizen, complaint);
                 } catch (Exception e) {
                     try {
-                        CommunityAgent agent = communityAgentService.getAgentByEmail(email);
+                        CommunityAgent agent = currentUserService.getAgent(authentication);
                         System.out.println("Comment will be created by agent: " + agent.getName() + " (" + email + ")");
                         comment = commentService.createCommentByAgent(description, agent, complaint);
                     } catch (Exception ex) {
@@ -274,7 +267,7 @@ public class ComplaintController {
                 }
             } catch (Exception fallbackException) {
                 try {
-                    Citizen citizen = citizenService.getCitizenByEmail(email);
+                    Citizen citizen = currentUserService.getCitizen(authentication);
                     System.out.println("Comment will be created by citizen: " + citizen.getName() + " (" + email + ")");
 
                     Complaint complaint = complaintService.getComplaintEntityById(complaintId);
@@ -327,14 +320,13 @@ public class ComplaintController {
                 return ResponseEntity.badRequest().build();
             }
 
-            String email = authentication.getName();
             Comment existingComment = commentService.getCommentById(commentId);
 
             boolean isAuthorized = false;
 
             if ("CITIZEN".equals(existingComment.getAuthorType())) {
                 try {
-                    Citizen currentUser = citizenService.getCitizenByEmail(email);
+                    Citizen currentUser = currentUserService.getCitizen(authentication);
                     isAuthorized = existingComment.getCitizen() != null &&
                             existingComment.getCitizen().getUserId().equals(currentUser.getUserId());
                 } catch (Exception e) {
@@ -342,7 +334,7 @@ public class ComplaintController {
                 }
             } else if ("AGENT".equals(existingComment.getAuthorType())) {
                 try {
-                    CommunityAgent currentAgent = communityAgentService.getAgentByEmail(email);
+                    CommunityAgent currentAgent = currentUserService.getAgent(authentication);
                     isAuthorized = existingComment.getAgent() != null &&
                             existingComment.getAgent().getUserId().equals(currentAgent.getUserId());
                 } catch (Exception e) {
@@ -384,7 +376,6 @@ public class ComplaintController {
             System.out.println("Request to delete comment: " + commentId);
             System.out.println("Authentication: " + authentication.getName());
 
-            String email = authentication.getName();
             Comment existingComment = commentService.getCommentById(commentId);
 
             boolean isAuthorized = false;
@@ -392,7 +383,7 @@ public class ComplaintController {
 
             if ("CITIZEN".equals(existingComment.getAuthorType())) {
                 try {
-                    Citizen currentUser = citizenService.getCitizenByEmail(email);
+                    Citizen currentUser = currentUserService.getCitizen(authentication);
                     isAuthorized = existingComment.getCitizen() != null &&
                             existingComment.getCitizen().getUserId().equals(currentUser.getUserId());
                     isAdmin = "Admin".equals(currentUser.getRole()) || "Admin".equalsIgnoreCase(currentUser.getRole());
@@ -401,13 +392,13 @@ public class ComplaintController {
                 }
             } else if ("AGENT".equals(existingComment.getAuthorType())) {
                 try {
-                    CommunityAgent currentAgent = communityAgentService.getAgentByEmail(email);
+                    CommunityAgent currentAgent = currentUserService.getAgent(authentication);
                     isAuthorized = existingComment.getAgent() != null &&
                             existingComment.getAgent().getUserId().equals(currentAgent.getUserId());
                 } catch (Exception e) {
                     System.out.println("User is not an agent");
                     try {
-                        Citizen currentUser = citizenService.getCitizenByEmail(email);
+                        Citizen currentUser = currentUserService.getCitizen(authentication);
                         isAdmin = "Admin".equals(currentUser.getRole()) || "Admin".equalsIgnoreCase(currentUser.getRole());
                     } catch (Exception ex) {
                         System.out.println("User is neither citizen nor agent");
@@ -446,8 +437,7 @@ public class ComplaintController {
             Authentication authentication) {
 
         try {
-            String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
 
             if (!"Admin".equalsIgnoreCase(currentUser.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
@@ -514,13 +504,12 @@ public class ComplaintController {
         String status = request.getStatus();
         String notes = request.getNotes();
 
-        if (status == null || status.trim().isEmpty()) {
+        if (status == null || status.trim().isEmpty() || ComplaintStatus.parseOrNull(status) == null) {
             return ResponseEntity.badRequest().build();
         }
 
         try {
-            String email = authentication.getName();
-            Citizen citizen = citizenService.getCitizenByEmail(email);
+            Citizen citizen = currentUserService.getCitizen(authentication);
 
             if (!"Admin".equals(citizen.getRole()) && !"Admin".equalsIgnoreCase(citizen.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -627,8 +616,7 @@ public class ComplaintController {
                         .body(Map.of("error", "Priorité requise"));
             }
 
-            String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
             String userRole = currentUser != null ? currentUser.getRole() : "";
             boolean isAdmin = "admin".equalsIgnoreCase(userRole);
 
@@ -711,8 +699,7 @@ public class ComplaintController {
     @GetMapping("/admin-dashboard")
     public ResponseEntity<List<ComplaintResponse>> getComplaintsForAdminDashboard(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
 
             if (!"Admin".equalsIgnoreCase(currentUser.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -888,8 +875,7 @@ public class ComplaintController {
                         .body(Map.of("error", "Agent ID et Department ID sont requis"));
             }
 
-            String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
 
             if (!"Admin".equalsIgnoreCase(currentUser.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
@@ -972,8 +958,7 @@ public class ComplaintController {
             Authentication authentication) {
 
         try {
-            String email = authentication.getName();
-            User currentUser = userService.getUserByEmail(email);
+            User currentUser = currentUserService.getUser(authentication);
 
             if (!"Admin".equalsIgnoreCase(currentUser.getRole())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
@@ -1119,6 +1104,7 @@ public class ComplaintController {
                         }
                         mediaMap.put("url", mediaUrl);
                         mediaMap.put("captureDate", media.getCaptureDate());
+                        putThumbnailUrls(mediaMap, mediaUrl, media.getMediaFile());
                         return mediaMap;
                     })
                     .collect(Collectors.toList());
@@ -1128,6 +1114,14 @@ public class ComplaintController {
         return response;
     }
 
+    private void putThumbnailUrls(Map<String, Object> mediaMap, String mediaUrl, String filename) {
+        Map<String, String> thumbnails = mediaService.getThumbnailUrls(mediaUrl, filename);
+        if (!thumbnails.isEmpty()) {
+            mediaMap.put("thumbnails", thumbnails);
+            mediaMap.put("thumbnailUrl", thumbnails.get("thumb"));
+        }
+    }
+
     private ComplaintResponse convertToComplaintResponseSimple(Complaint complaint) {
         ComplaintResponse response = new ComplaintResponse();
         response.setComplaintId(complaint.getComplaintId());
@@ -1183,13 +1177,15 @@ public class ComplaintController {
                     .map(media -> {
                         Map<String, Object> mediaMap = new HashMap<>();
                         mediaMap.put("id", media.getMediaId());
-                        mediaMap.put("url", "http://localhost:8080/api/media/file/" + media.getMediaId());
+                        String mediaUrl = "http://localhost:8080/api/media/file/" + media.getMediaId();
+                        mediaMap.put("url", mediaUrl);
                         mediaMap.put("captureDate", media.getCaptureDate());
                         try {
                             mediaMap.put("filename", media.getMediaFile());
                         } catch (Exception e) {
 
                         }
+                        putThumbnailUrls(mediaMap, mediaUrl, media.getMediaFile());
                         return mediaMap;
                     })
                     .collect(Collectors.toList());
@@ -1,7 +1,9 @@
 package com.example.Backend_CitizenSpeak.controllers;
 
+import com.example.Backend_CitizenSpeak.models.CommunityAgent;
+import com.example.Backend_CitizenSpeak.models.ComplaintStatus;
 import com.example.Backend_CitizenSpeak.repositories.AgentRepository;
-import com.example.Backend_CitizenSpeak.repositories.ComplaintRepository;
+import com.example.Backend_CitizenSpeak.services.DashboardCounterService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
@@ -15,6 +17,7 @@ import java.util.stream.Collectors;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -24,134 +27,31 @@ import java.util.Map;
 @RequestMapping("/api/dashboard")
 public class DashboardController {
 
-    @Autowired
-    private ComplaintRepository complaintRepository;
-
     @Autowired
     private AgentRepository agentRepository;
 
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    @Autowired
+    private DashboardCounterService dashboardCounterService;
+
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
-        long totalComplaints = complaintRepository.count();
-        long resolvedComplaints;
-        long pendingComplaints;
-        long activeAgents = agentRepository.count();
-
-        try {
-            resolvedComplaints = complaintRepository.countByStatus("Resolved");
-        } catch (Exception e) {
-            try {
-                resolvedComplaints = complaintRepository.countByStatus("résolue");
-            } catch (Exception ex) {
-                resolvedComplaints = 0;
-            }
-        }
-
-        try {
-            pendingComplaints = complaintRepository.countByStatus("Pending");
-        } catch (Exception e) {
-            try {
-                pendingComplaints = complaintRepository.countByStatus("en attente");
-            } catch (Exception ex) {
-                pendingComplaints = 0;
-            }
-        }
+        Map<String, Long> counts = dashboardCounterService.getCounts();
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("total", totalComplaints);
-        stats.put("resolved", resolvedComplaints);
-        stats.put("pending", pendingComplaints);
-        stats.put("agents", activeAgents);
+        stats.put("total", counts.getOrDefault("complaints", 0L));
+        stats.put("resolved", counts.getOrDefault("complaints:" + ComplaintStatus.RESOLVED.code(), 0L));
+        stats.put("pending", counts.getOrDefault("complaints:" + ComplaintStatus.PENDING.code(), 0L));
+        stats.put("agents", counts.getOrDefault("agents", 0L));
 
         return ResponseEntity.ok(stats);
     }
 
     @GetMapping("/overview")
     public Map<String, Object> getDashboardOverview() {
-        Map<String, Object> stats = new HashMap<>();
-
-        long totalComplaints = mongoTemplate.count(new Query(), "complaints");
-        long resolvedComplaints = 0;
-        long pendingComplaints = 0;
-        long newComplaints = 0;
-        long inProgressComplaints = 0;
-
-        try {
-            resolvedComplaints = mongoTemplate.count(
-                    new Query(Criteria.where("status").is("Resolved")), "complaints");
-        } catch (Exception e) {
-            try {
-                resolvedComplaints = mongoTemplate.count(
-                        new Query(Criteria.where("status").is("résolue")), "complaints");
-            } catch (Exception ex) {
-                resolvedComplaints = 0;
-            }
-        }
-
-        try {
-            pendingComplaints = mongoTemplate.count(
-                    new Query(Criteria.where("status").is("Pending")), "complaints");
-        } catch (Exception e) {
-            try {
-                pendingComplaints = mongoTemplate.count(
-                        new Query(Criteria.where("status").is("en attente")), "complaints");
-            } catch (Exception ex) {
-                pendingComplaints = 0;
-            }
-        }
-
-        try {
-            newComplaints = mongoTemplate.count(
-                    new Query(Criteria.where("status").is("New")), "complaints");
-        } catch (Exception e) {
-            try {
-                newComplaints = mongoTemplate.count(
-                        new Query(Criteria.where("status").is("nouvelle")), "complaints");
-            } catch (Exception ex) {
-                newComplaints = 0;
-            }
-        }
-
-        try {
-            inProgressComplaints = mongoTemplate.count(
-                    new Query(Criteria.where("status").is("In Progress")), "complaints");
-        } catch (Exception e) {
-            try {
-                inProgressComplaints = mongoTemplate.count(
-                        new Query(Criteria.where("status").is("en cours")), "complaints");
-            } catch (Exception ex) {
-                inProgressComplaints = 0;
-            }
-        }
-
-        long activeAgents = mongoTemplate.count(
-                new Query(Criteria.where("active").is(true)), "agents");
-        long activeOrgs = mongoTemplate.count(
-                new Query(Criteria.where("active").is(true)), "organizations");
-        long totalCitizens = mongoTemplate.count(new Query(), "citizens");
-        long activeInterventions = mongoTemplate.count(
-                new Query(Criteria.where("status").nin("Completed", "Cancelled")),
-                "interventions");
-
-        double resolutionRate = totalComplaints > 0
-                ? (double) resolvedComplaints / totalComplaints * 100
-                : 0;
-
-        stats.put("totalComplaints", totalComplaints);
-        stats.put("newComplaints", newComplaints);
-        stats.put("resolvedComplaints", resolvedComplaints);
-        stats.put("pendingComplaints", pendingComplaints);
-        stats.put("inProgressComplaints", inProgressComplaints);
-        stats.put("activeAgents", activeAgents);
-        stats.put("activeOrganizations", activeOrgs);
-        stats.put("totalCitizens", totalCitizens);
-        stats.put("activeInterventions", activeInterventions);
-        stats.put("resolutionRate", Math.round(resolutionRate * 100.0) / 100.0);
-
-        return stats;
+        return overview(dashboardCounterService.getCounts(), "complaints");
     }
 
     private Date getYearStartDate(int year) {
@@ -164,90 +64,38 @@ public class DashboardController {
 
     @GetMapping("/overview/{year}")
     public Map<String, Object> getDashboardOverviewByYear(@PathVariable int year) {
-        Map<String, Object> stats = new HashMap<>();
-
-        Date startDate = getYearStartDate(year);
-        Date endDate = getYearEndDate(year);
-        Criteria yearCriteria = Criteria.where("creationDate").gte(startDate).lte(endDate);
-
-        long totalComplaints = mongoTemplate.count(new Query(yearCriteria), "complaints");
-        long resolvedComplaints = 0;
-        long pendingComplaints = 0;
-        long newComplaints = 0;
-        long inProgressComplaints = 0;
-
-        try {
-            resolvedComplaints = mongoTemplate.count(
-                    new Query(yearCriteria.and("status").is("Resolved")), "complaints");
-        } catch (Exception e) {
-            try {
-                resolvedComplaints = mongoTemplate.count(
-                        new Query(yearCriteria.and("status").is("résolue")), "complaints");
-            } catch (Exception ex) {
-                resolvedComplaints = 0;
-            }
-        }
-
-        try {
-            pendingComplaints = mongoTemplate.count(
-                    new Query(yearCriteria.and("status").is("Pending")), "complaints");
-        } catch (Exception e) {
-            try {
-                pendingComplaints = mongoTemplate.count(
-                        new Query(yearCriteria.and("status").is("en attente")), "complaints");
-            } catch (Exception ex) {
-                pendingComplaints = 0;
-            }
-        }
-
-        try {
-            newComplaints = mongoTemplate.count(
-                    new Query(yearCriteria.and("status").is("New")), "complaints");
-        } catch (Exception e) {
-            try {
-                newComplaints = mongoTemplate.count(
-                        new Query(yearCriteria.and("status").is("nouvelle")), "complaints");
-            } catch (Exception ex) {
-                newComplaints = 0;
-            }
-        }
+        Map<String, Object> stats = overview(dashboardCounterService.getCounts(), "complaints:" + year);
+        stats.put("year", year);
+        return stats;
+    }
 
-        try {
-            inProgressComplaints = mongoTemplate.count(
-                    new Query(yearCriteria.and("status").is("In Progress")), "complaints");
-        } catch (Exception e) {
-            try {
-                inProgressComplaints = mongoTemplate.count(
-                        new Query(yearCriteria.and("status").is("en cours")), "complaints");
-            } catch (Exception ex) {
-                inProgressComplaints = 0;
-            }
-        }
+    /**
+     * The overview from the materialized counters; {@code complaintPrefix} selects all complaints
+     * or those created in one year.
+     */
+    private Map<String, Object> overview(Map<String, Long> counts, String complaintPrefix) {
+        Map<String, Object> stats = new HashMap<>();
 
-        long activeAgents = mongoTemplate.count(
-                new Query(Criteria.where("active").is(true)), "agents");
-        long activeOrgs = mongoTemplate.count(
-                new Query(Criteria.where("active").is(true)), "organizations");
-        long totalCitizens = mongoTemplate.count(new Query(), "citizens");
-        long activeInterventions = mongoTemplate.count(
-                new Query(Criteria.where("status").nin("Completed", "Cancelled")),
-                "interventions");
+        long totalComplaints = counts.getOrDefault(complaintPrefix, 0L);
+        long resolvedComplaints = counts.getOrDefault(complaintPrefix + ":" + ComplaintStatus.RESOLVED.code(), 0L);
+        long activeInterventions = counts.getOrDefault("interventions", 0L)
+                - counts.getOrDefault("interventions:Completed", 0L)
+                - counts.getOrDefault("interventions:Cancelled", 0L);
 
         double resolutionRate = totalComplaints > 0
                 ? (double) resolvedComplaints / totalComplaints * 100
                 : 0;
 
         stats.put("totalComplaints", totalComplaints);
-        stats.put("newComplaints", newComplaints);
+        stats.put("newComplaints", counts.getOrDefault(complaintPrefix + ":" + ComplaintStatus.NEW.code(), 0L));
         stats.put("resolvedComplaints", resolvedComplaints);
-        stats.put("pendingComplaints", pendingComplaints);
-        stats.put("inProgressComplaints", inProgressComplaints);
-        stats.put("activeAgents", activeAgents);
-        stats.put("activeOrganizations", activeOrgs);
-        stats.put("totalCitizens", totalCitizens);
+        stats.put("pendingComplaints", counts.getOrDefault(complaintPrefix + ":" + ComplaintStatus.PENDING.code(), 0L));
+        stats.put("inProgressComplaints", counts.getOrDefault(complaintPrefix + ":" + ComplaintStatus.IN_PROGRESS.code(), 0L));
+        stats.put("activeAgents", counts.getOrDefault("agents:active", 0L));
+        stats.put("activeOrganizations", counts.getOrDefault("organizations:active", 0L));
+        stats.put("totalCitizens", counts.getOrDefault("citizens", 0L));
         stats.put("activeInterventions", activeInterventions);
         stats.put("resolutionRate", Math.round(resolutionRate * 100.0) / 100.0);
-        stats.put("year", year);
 
         return stats;
     }
@@ -261,19 +109,19 @@ public class DashboardController {
         try {
             Aggregation agg = Aggregation.newAggregation(
                     Aggregation.match(Criteria.where("creationDate").gte(startDate).lte(endDate)),
-                    Aggregation.lookup("agents", "assignedAgent", "_id", "agent"),
+                    Aggregation.lookup("users", "assignedAgent", "_id", "agent"),
                     Aggregation.unwind("agent", false),
                     Aggregation.lookup("departments", "agent.department", "_id", "department"),
                     Aggregation.unwind("department", false),
                     Aggregation.group("department.name")
                             .count().as("total")
-                            .sum(ConditionalOperators.when(Criteria.where("status").is("Resolved"))
+                            .sum(ConditionalOperators.when(Criteria.where("status").is(ComplaintStatus.RESOLVED.code()))
                                     .then(1).otherwise(0))
                             .as("resolved")
-                            .sum(ConditionalOperators.when(Criteria.where("status").is("Pending"))
+                            .sum(ConditionalOperators.when(Criteria.where("status").is(ComplaintStatus.PENDING.code()))
                                     .then(1).otherwise(0))
                             .as("pending")
-                            .sum(ConditionalOperators.when(Criteria.where("status").is("In Progress"))
+                            .sum(ConditionalOperators.when(Criteria.where("status").is(ComplaintStatus.IN_PROGRESS.code()))
                                     .then(1).otherwise(0))
                             .as("inProgress"),
                     Aggregation.project("total", "resolved", "pending", "inProgress")
@@ -282,32 +130,7 @@ public class DashboardController {
             return (List<Map<String, Object>>) (List<?>) mongoTemplate.aggregate(agg, "complaints", Map.class)
                     .getMappedResults();
         } catch (Exception e) {
-            try {
-                Aggregation agg = Aggregation.newAggregation(
-                        Aggregation.match(Criteria.where("creationDate").gte(startDate).lte(endDate)),
-                        Aggregation.lookup("agents", "assignedAgent", "_id", "agent"),
-                        Aggregation.unwind("agent", false),
-                        Aggregation.lookup("departments", "agent.department", "_id", "department"),
-                        Aggregation.unwind("department", false),
-                        Aggregation.group("department.name")
-                                .count().as("total")
-                                .sum(ConditionalOperators.when(Criteria.where("status").is("résolue"))
-                                        .then(1).otherwise(0))
-                                .as("resolved")
-                                .sum(ConditionalOperators.when(Criteria.where("status").is("en attente"))
-                                        .then(1).otherwise(0))
-                                .as("pending")
-                                .sum(ConditionalOperators.when(Criteria.where("status").is("en cours"))
-                                        .then(1).otherwise(0))
-                                .as("inProgress"),
-                        Aggregation.project("total", "resolved", "pending", "inProgress")
-                                .and("_id").as("name")
-                );
-                return (List<Map<String, Object>>) (List<?>) mongoTemplate.aggregate(agg, "complaints", Map.class)
-                        .getMappedResults();
-            } catch (Exception ex) {
-                return List.of();
-            }
+            return List.of();
         }
     }
 
@@ -322,8 +145,17 @@ public class DashboardController {
                 Aggregation.group("status").count().as("count"),
                 Aggregation.project("count").and("_id").as("status")
         );
-        return (List<Map<String, Object>>) (List<?>) mongoTemplate.aggregate(agg, "complaints", Map.class)
-                .getMappedResults();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map<String, Object> row : mongoTemplate.aggregate(agg, "complaints", Map.class).getMappedResults()) {
+            // Statuses are stored as codes; the dashboard shows the labels.
+            Map<String, Object> labelled = new HashMap<>(row);
+            ComplaintStatus status = row.get("status") instanceof String code ? ComplaintStatus.parseOrNull(code) : null;
+            if (status != null) {
+                labelled.put("status", status.getLabel());
+            }
+            result.add(labelled);
+        }
+        return result;
     }
 
     @SuppressWarnings("unchecked")
@@ -342,7 +174,7 @@ public class DashboardController {
                             .as("monthYear"),
                     Aggregation.group("monthYear")
                             .count().as("nouvelles")
-                            .sum(ConditionalOperators.when(Criteria.where("status").is("Resolved"))
+                            .sum(ConditionalOperators.when(Criteria.where("status").is(ComplaintStatus.RESOLVED.code()))
                                     .then(1).otherwise(0))
                             .as("resolues"),
                     Aggregation.sort(Sort.Direction.ASC, "_id"),
@@ -352,28 +184,7 @@ public class DashboardController {
             return (List<Map<String, Object>>) (List<?>) mongoTemplate.aggregate(agg, "complaints", Map.class)
                     .getMappedResults();
         } catch (Exception e) {
-            try {
-                Aggregation agg = Aggregation.newAggregation(
-                        Aggregation.match(Criteria.where("creationDate").gte(startDate).lte(endDate)),
-                        Aggregation.project()
-                                .and("status").as("status")
-                                .and(DateOperators.DateToString.dateOf("creationDate")
-                                        .toString("%Y-%m"))
-                                .as("monthYear"),
-                        Aggregation.group("monthYear")
-                                .count().as("nouvelles")
-                                .sum(ConditionalOperators.when(Criteria.where("status").is("résolue"))
-                                        .then(1).otherwise(0))
-                                .as("resolues"),
-                        Aggregation.sort(Sort.Direction.ASC, "_id"),
-                        Aggregation.project("nouvelles", "resolues")
-                                .and("_id").as("month")
-                );
-                return (List<Map<String, Object>>) (List<?>) mongoTemplate.aggregate(agg, "complaints", Map.class)
-                        .getMappedResults();
-            } catch (Exception ex) {
-                return List.of();
-            }
+            return List.of();
         }
     }
 
@@ -419,6 +230,7 @@ public class DashboardController {
     public List<Map<String, Object>> getAgentsPerformance() {
         try {
             Aggregation agg = Aggregation.newAggregation(
+                    Aggregation.match(Criteria.where("_class").is(CommunityAgent.TYPE)),
                     Aggregation.lookup("departments", "department", "_id", "dept"),
                     Aggregation.unwind("dept", true),
                     Aggregation.addFields()
@@ -435,12 +247,12 @@ public class DashboardController {
                     Aggregation.project("agentCount", "activeRate")
                             .and("_id").as("department")
             );
-            return (List<Map<String, Object>>) (List<?>) mongoTemplate.aggregate(agg, "agents", Map.class)
+            return (List<Map<String, Object>>) (List<?>) mongoTemplate.aggregate(agg, "users", Map.class)
                     .getMappedResults();
         } catch (Exception e) {
             Map<String, Object> defaultDept = new HashMap<>();
             defaultDept.put("department", "Département par défaut");
-            defaultDept.put("agentCount", mongoTemplate.count(new Query(), "agents"));
+            defaultDept.put("agentCount", agentRepository.countAgents());
             defaultDept.put("activeRate", 0.8);
             return List.of(defaultDept);
         }
@@ -455,7 +267,7 @@ public class DashboardController {
         try {
             Aggregation aggregation = Aggregation.newAggregation(
                     Aggregation.match(Criteria.where("creationDate").gte(startDate).lte(endDate)),
-                    Aggregation.lookup("citizens", "citizen", "_id", "citizenInfo"),
+                    Aggregation.lookup("users", "citizen", "_id", "citizenInfo"),
                     Aggregation.unwind("citizenInfo", true),
                     Aggregation.addFields()
                             .addField("area")
@@ -495,18 +307,13 @@ public class DashboardController {
         Date endDate = getYearEndDate(year);
 
         try {
-            Criteria resolvedCriteria = Criteria.where("creationDate").gte(startDate).lte(endDate)
+            Criteria resolvedCriteria = Criteria.where("status").is(ComplaintStatus.RESOLVED.code())
+                    .and("creationDate").gte(startDate).lte(endDate)
                     .and("closureDate").exists(true);
 
-            try {
-                resolvedCriteria.and("status").is("Resolved");
-            } catch (Exception e) {
-                resolvedCriteria.and("status").is("résolue");
-            }
-
             Aggregation agg = Aggregation.newAggregation(
                     Aggregation.match(resolvedCriteria),
-                    Aggregation.lookup("agents", "assignedAgent", "_id", "agent"),
+                    Aggregation.lookup("users", "assignedAgent", "_id", "agent"),
                     Aggregation.unwind("agent", true),
                     Aggregation.lookup("departments", "agent.department", "_id", "department"),
                     Aggregation.unwind("department", true),
@@ -0,0 +1,28 @@
+package com.example.Backend_CitizenSpeak.controllers;
+
+import com.example.Backend_CitizenSpeak.services.MediaGarbageCollector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/media")
+public class MediaAdminController {
+
+    private final MediaGarbageCollector mediaGarbageCollector;
+
+    @Autowired
+    public MediaAdminController(MediaGarbageCollector mediaGarbageCollector) {
+        this.mediaGarbageCollector = mediaGarbageCollector;
+    }
+
+    /**
+     * Admins only: {@code /api/admin/**} requires the ADMIN role (see {@code SecurityConfig}).
+     */
+    @PostMapping("/gc")
+    public ResponseEntity<Map<String, Object>> collectOrphans(@RequestParam(defaultValue = "true") boolean dryRun) {
+        return ResponseEntity.ok(mediaGarbageCollector.collect(dryRun));
+    }
+}
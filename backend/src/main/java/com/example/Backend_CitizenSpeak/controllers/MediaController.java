@@ -1,59 +1,225 @@
 package com.example.Backend_CitizenSpeak.controllers;
 
+import com.example.Backend_CitizenSpeak.dto.MediaFileInfo;
+import com.example.Backend_CitizenSpeak.exceptions.ResourceNotFoundException;
+import com.example.Backend_CitizenSpeak.services.ImageDerivativeService;
 import com.example.Backend_CitizenSpeak.services.MediaService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/media")
 public class MediaController {
 
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+    private static final String NO_CACHE = "no-cache";
+
     private final MediaService mediaService;
-    private final Path fileStorageLocation;
+    private final String cacheControl;
+    private final long sendfileThreshold;
 
     @Autowired
     public MediaController(MediaService mediaService,
-                           @Value("${file.upload-dir:uploads}") String uploadDir) {
+                           @Value("${media.cache.max-age-seconds:604800}") long cacheMaxAgeSeconds,
+                           @Value("${media.sendfile-threshold:49152}") long sendfileThreshold) {
         this.mediaService = mediaService;
-        this.fileStorageLocation = Paths.get(uploadDir)
-                .toAbsolutePath().normalize();
+        this.cacheControl = CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS).cachePublic().getHeaderValue();
+        this.sendfileThreshold = sendfileThreshold;
+    }
+
+    @GetMapping({"/{id}", "/file/{id}"})
+    @PreAuthorize("permitAll()")
+    public void getMediaFile(@PathVariable String id,
+                             @RequestParam(required = false) String variant,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        MediaFileInfo original;
+        MediaFileInfo info;
+        try {
+            original = mediaService.getMediaFileInfo(id);
+            info = resolveVariant(original, variant);
+        } catch (ResourceNotFoundException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        serveFile(info, request, response, isFallback(original, info, variant) ? NO_CACHE : cacheControl);
+    }
+
+    @GetMapping("/filename/{filename:.+}")
+    @PreAuthorize("permitAll()")
+    public void getMediaFileByName(@PathVariable String filename,
+                                   @RequestParam(required = false) String variant,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        MediaFileInfo original;
+        MediaFileInfo info;
+        try {
+            original = mediaService.getMediaFileInfoByFilename(filename);
+            info = resolveVariant(original, variant);
+        } catch (ResourceNotFoundException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        serveFile(info, request, response, isFallback(original, info, variant) ? NO_CACHE : cacheControl);
     }
 
-    @GetMapping("/{id}")
+    @GetMapping("/photos/{filename:.+}")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<Resource> getMediaFile(@PathVariable String id) {
+    public void getProfilePhoto(@PathVariable String filename,
+                                HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        MediaFileInfo info;
         try {
-            com.example.Backend_CitizenSpeak.models.Media media = mediaService.getMediaById(id);
-            String filename = media.getMediaFile();
+            info = mediaService.getProfilePhotoFileInfo(filename);
+        } catch (ResourceNotFoundException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        serveFile(info, request, response, cacheControl);
+    }
+
+    /**
+     * Answers conditional requests with 304, honours a single byte range (206) and otherwise
+     * streams the whole file. The body goes through Tomcat's sendfile when the connector
+     * supports it, or through {@link FileChannel#transferTo} so no heap buffer is involved.
+     * Files in a remote store are answered with a redirect to a presigned URL when enabled,
+     * otherwise streamed from the store.
+     */
+    private void serveFile(MediaFileInfo info, HttpServletRequest request, HttpServletResponse response,
+                           String cacheHeader) throws IOException {
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (webRequest.checkNotModified(info.getETag(), info.getLastModified())) {
+            return;
+        }
 
-            Resource resource = mediaService.loadFileAsResource(filename);
+        URI directUrl = mediaService.getDirectDownloadUrl(info);
+        if (directUrl != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, NO_CACHE);
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader(HttpHeaders.LOCATION, directUrl.toString());
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheHeader);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + info.getFilename() + "\"");
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        response.setContentType(info.getContentType());
+
+        long size = info.getSize();
+        long start = 0;
+        long length = size;
 
-            String contentType = null;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isRangeApplicable(request, info)) {
             try {
-                Path filePath = this.fileStorageLocation.resolve(filename).normalize();
-                contentType = Files.probeContentType(filePath);
-            } catch (IOException ex) {
-                contentType = "application/octet-stream";
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    long end = ranges.get(0).getRangeEnd(size);
+                    if (start >= size) {
+                        // HttpRange only checks the syntax; a range starting past the end is unsatisfiable.
+                        throw new IllegalArgumentException("Range starts past the end of the file");
+                    }
+                    length = end - start + 1;
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
             }
+        }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                    .header(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*")
-                    .body(resource);
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+        response.setContentLengthLong(length);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (info.getPath() == null) {
+            try (InputStream in = mediaService.openMediaStream(info, start, length)) {
+                in.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        if (length >= sendfileThreshold && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, info.getPath().toString());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(info.getPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    private MediaFileInfo resolveVariant(MediaFileInfo info, String variant) {
+        if (variant == null || variant.isBlank()) {
+            return info;
+        }
+        ImageDerivativeService.ImageVariant imageVariant = ImageDerivativeService.ImageVariant.fromSuffix(variant);
+        if (imageVariant == null) {
+            throw new ResourceNotFoundException("Variante inconnue: " + variant);
+        }
+        return mediaService.getDerivativeFileInfo(info, imageVariant);
+    }
+
+    /**
+     * Whether the original is served in place of a requested variant that is still being
+     * generated. It must not be cached under the variant URL; with {@code no-cache} the client
+     * revalidates and gets the variant once it exists, since its ETag differs.
+     */
+    private boolean isFallback(MediaFileInfo original, MediaFileInfo served, String variant) {
+        return variant != null && !variant.isBlank() && served == original;
+    }
+
+    private boolean isRangeApplicable(HttpServletRequest request, MediaFileInfo info) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(info.getETag());
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == info.getLastModified() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.example.Backend_CitizenSpeak.controllers;
+
+import com.example.Backend_CitizenSpeak.services.NotificationDispatcher;
+import com.example.Backend_CitizenSpeak.services.NotificationOutboxService;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/admin/notifications")
+public class NotificationAdminController {
+
+    private final NotificationOutboxService outboxService;
+    private final NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    public NotificationAdminController(NotificationOutboxService outboxService,
+                                       NotificationDispatcher notificationDispatcher) {
+        this.outboxService = outboxService;
+        this.notificationDispatcher = notificationDispatcher;
+    }
+
+    /**
+     * Admins only: {@code /api/admin/**} requires the ADMIN role (see {@code SecurityConfig}).
+     */
+    @GetMapping("/outbox")
+    public ResponseEntity<Map<String, Object>> getOutboxStatistics() {
+        Map<String, Object> stats = outboxService.getStatistics();
+        Timer lag = notificationDispatcher.getLagTimer();
+        stats.put("dispatchedSinceStart", lag.count());
+        stats.put("meanLagMs", lag.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxLagMs", lag.max(TimeUnit.MILLISECONDS));
+        return ResponseEntity.ok(stats);
+    }
+
+    @PostMapping("/outbox/retry-failed")
+    public ResponseEntity<Map<String, Object>> retryFailed() {
+        long requeued = outboxService.retryFailed();
+        notificationDispatcher.poll();
+        return ResponseEntity.ok(Map.of("requeued", requeued));
+    }
+}
@@ -6,15 +6,18 @@ import com.example.Backend_CitizenSpeak.models.Citizen;
 import com.example.Backend_CitizenSpeak.models.Notification;
 import com.example.Backend_CitizenSpeak.models.User;
 import com.example.Backend_CitizenSpeak.repositories.NotificationRepository;
-import com.example.Backend_CitizenSpeak.services.CitizenService;
+import com.example.Backend_CitizenSpeak.services.CurrentUserService;
 import com.example.Backend_CitizenSpeak.services.NotificationService;
-import com.example.Backend_CitizenSpeak.services.UserService;
+import com.example.Backend_CitizenSpeak.services.NotificationStreamService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -25,33 +28,58 @@ import java.util.stream.Collectors;
 public class NotificationController {
 
     private final NotificationService notificationService;
-    private final CitizenService citizenService;
-    private final UserService userService;
+    private final CurrentUserService currentUserService;
     private final NotificationRepository notificationRepository;
+    private final NotificationStreamService notificationStreamService;
 
     @Autowired
     public NotificationController(NotificationService notificationService,
-                                  CitizenService citizenService,
-                                  UserService userService,
-                                  NotificationRepository notificationRepository) {
+                                  CurrentUserService currentUserService,
+                                  NotificationRepository notificationRepository,
+                                  NotificationStreamService notificationStreamService) {
         this.notificationService = notificationService;
-        this.citizenService = citizenService;
-        this.userService = userService;
+        this.currentUserService = currentUserService;
         this.notificationRepository = notificationRepository;
+        this.notificationStreamService = notificationStreamService;
+    }
+
+    /**
+     * Live notifications as server-sent events: a {@code ready} event with the unread count, then
+     * one {@code notification} event per new notification. Browsers' EventSource cannot set
+     * headers, so the JWT may also be passed as the {@code access_token} query parameter.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(Authentication authentication) {
+        User user;
+        try {
+            user = currentUserService.getNotificationUser(authentication);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+
+        Date tokenExpiry = null;
+        if (authentication instanceof JwtAuthenticationToken jwtAuthentication
+                && jwtAuthentication.getToken().getExpiresAt() != null) {
+            tokenExpiry = Date.from(jwtAuthentication.getToken().getExpiresAt());
+        }
+        return notificationStreamService.subscribe(user, tokenExpiry, notificationService.getUnreadCount(user));
     }
 
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getNotifications(Authentication authentication) {
+    public ResponseEntity<List<Map<String, Object>>> getNotifications(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "0") int size,
+            Authentication authentication) {
         try {
             String email = authentication.getName();
 
             try {
-                User user = notificationService.getCorrectUserReference(email);
+                User user = currentUserService.getNotificationUser(authentication);
                 System.out.println("GET NOTIFICATIONS");
                 System.out.println("Email: " + email);
                 System.out.println("User trouvé: " + user.getUserId() + " (classe: " + user.getClass().getSimpleName() + ")");
 
-                List<Notification> notifications = notificationService.getNotificationsForUser(user);
+                List<Notification> notifications = notificationService.getNotificationsForUser(user, page, size);
                 List<Map<String, Object>> notificationDTOs = notifications.stream()
                         .map(this::convertToDTOAdvanced)
                         .collect(Collectors.toList());
@@ -59,8 +87,8 @@ public class NotificationController {
                 System.out.println("Notifications retournées: " + notificationDTOs.size());
                 return ResponseEntity.ok(notificationDTOs);
             } catch (Exception e) {
-                Citizen citizen = citizenService.getCitizenByEmail(email);
-                List<Notification> notifications = notificationService.getNotificationsByUser(citizen);
+                Citizen citizen = currentUserService.getCitizen(authentication);
+                List<Notification> notifications = notificationService.getNotificationsForUser(citizen, page, size);
                 List<Map<String, Object>> notificationDTOs = notifications.stream()
                         .map(this::convertToDTOSimple)
                         .collect(Collectors.toList());
@@ -77,25 +105,22 @@ public class NotificationController {
     }
 
     @GetMapping("/unread")
-    public ResponseEntity<List<Map<String, Object>>> getUnreadNotifications(Authentication authentication) {
+    public ResponseEntity<List<Map<String, Object>>> getUnreadNotifications(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "0") int size,
+            Authentication authentication) {
         try {
-            String email = authentication.getName();
-
             try {
-                User user = notificationService.getCorrectUserReference(email);
-                List<Notification> notifications = notificationService.getUnreadNotificationsForUser(user);
+                User user = currentUserService.getNotificationUser(authentication);
+                List<Notification> notifications = notificationService.getUnreadNotificationsForUser(user, page, size);
                 List<Map<String, Object>> notificationDTOs = notifications.stream()
                         .map(this::convertToDTOAdvanced)
                         .collect(Collectors.toList());
                 return ResponseEntity.ok(notificationDTOs);
             } catch (Exception e) {
-                Citizen citizen = citizenService.getCitizenByEmail(email);
-                List<Notification> notifications = notificationService.getNotificationsByUser(citizen);
+                Citizen citizen = currentUserService.getCitizen(authentication);
+                List<Notification> notifications = notificationService.getUnreadNotificationsForUser(citizen, page, size);
                 List<Map<String, Object>> notificationDTOs = notifications.stream()
-                        .filter(dto -> {
-                            Map<String, Object> map = convertToDTOSimple((Notification) dto);
-                            return !(Boolean) map.get("isRead");
-                        })
                         .map(this::convertToDTOSimple)
                         .collect(Collectors.toList());
                 return ResponseEntity.ok(notificationDTOs);
@@ -109,17 +134,15 @@ public class NotificationController {
     @GetMapping("/count")
     public ResponseEntity<Map<String, Object>> getUnreadCount(Authentication authentication) {
         try {
-            String email = authentication.getName();
-
             try {
-                User user = notificationService.getCorrectUserReference(email);
+                User user = currentUserService.getNotificationUser(authentication);
                 long unreadCount = notificationService.getUnreadCount(user);
                 Map<String, Object> response = new HashMap<>();
                 response.put("unreadCount", unreadCount);
                 response.put("count", unreadCount);
                 return ResponseEntity.ok(response);
             } catch (Exception e) {
-                Citizen citizen = citizenService.getCitizenByEmail(email);
+                Citizen citizen = currentUserService.getCitizen(authentication);
                 long unreadCount = notificationService.getUnreadCount(citizen);
                 Map<String, Object> response = new HashMap<>();
                 response.put("unreadCount", unreadCount);
@@ -139,14 +162,12 @@ public class NotificationController {
     @GetMapping("/unread-count")
     public ResponseEntity<Map<String, Long>> getUnreadCountLegacy(Authentication authentication) {
         try {
-            String email = authentication.getName();
-
             try {
-                User user = notificationService.getCorrectUserReference(email);
+                User user = currentUserService.getNotificationUser(authentication);
                 long unreadCount = notificationService.getUnreadCount(user);
                 return ResponseEntity.ok(Map.of("count", unreadCount));
             } catch (Exception e) {
-                Citizen citizen = citizenService.getCitizenByEmail(email);
+                Citizen citizen = currentUserService.getCitizen(authentication);
                 long unreadCount = notificationService.getUnreadCount(citizen);
                 return ResponseEntity.ok(Map.of("count", unreadCount));
             }
@@ -166,14 +187,16 @@ public class NotificationController {
             Authentication authentication) {
         try {
             try {
-                notificationService.markAsRead(notificationId);
+                if (!notificationService.markAsRead(notificationId)) {
+                    User user = currentUserService.getNotificationUser(authentication);
+                    notificationService.markBroadcastAsRead(notificationId, user);
+                }
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", true);
                 response.put("message", "Notification marquée comme lue");
                 return ResponseEntity.ok(response);
             } catch (Exception e) {
-                String email = authentication.getName();
-                Citizen citizen = citizenService.getCitizenByEmail(email);
+                Citizen citizen = currentUserService.getCitizen(authentication);
                 Notification notification = notificationService.markAsRead(notificationId, citizen);
                 Map<String, Object> response = convertToDTOSimple(notification);
                 return ResponseEntity.ok(response);
@@ -191,14 +214,12 @@ public class NotificationController {
     @PutMapping("/read-all")
     public ResponseEntity<Map<String, String>> markAllAsRead(Authentication authentication) {
         try {
-            String email = authentication.getName();
-
             try {
-                User user = userService.getUserByEmail(email);
+                User user = currentUserService.getUser(authentication);
                 notificationService.markAllAsReadForUser(user);
                 return ResponseEntity.ok(Map.of("message", "All notifications marked as read"));
             } catch (Exception e) {
-                Citizen citizen = citizenService.getCitizenByEmail(email);
+                Citizen citizen = currentUserService.getCitizen(authentication);
                 notificationService.markAllAsRead(citizen);
                 return ResponseEntity.ok(Map.of("message", "All notifications marked as read"));
             }
@@ -215,17 +236,15 @@ public class NotificationController {
     @PutMapping("/mark-all-read")
     public ResponseEntity<Map<String, Object>> markAllAsReadAdvanced(Authentication authentication) {
         try {
-            String email = authentication.getName();
-
             try {
-                User user = userService.getUserByEmail(email);
+                User user = currentUserService.getUser(authentication);
                 notificationService.markAllAsReadForUser(user);
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", true);
                 response.put("message", "Toutes les notifications ont été marquées comme lues");
                 return ResponseEntity.ok(response);
             } catch (Exception e) {
-                Citizen citizen = citizenService.getCitizenByEmail(email);
+                Citizen citizen = currentUserService.getCitizen(authentication);
                 notificationService.markAllAsRead(citizen);
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", true);
@@ -242,8 +261,7 @@ public class NotificationController {
             @PathVariable String notificationId,
             Authentication authentication) {
         try {
-            String email = authentication.getName();
-            Citizen citizen = citizenService.getCitizenByEmail(email);
+            Citizen citizen = currentUserService.getCitizen(authentication);
 
             notificationService.deleteNotification(notificationId, citizen);
             return ResponseEntity.ok(Map.of("message", "Notification deleted successfully"));
@@ -262,8 +280,7 @@ public class NotificationController {
             @RequestBody DeviceTokenRequest request,
             Authentication authentication) {
         try {
-            String email = authentication.getName();
-            Citizen citizen = citizenService.getCitizenByEmail(email);
+            Citizen citizen = currentUserService.getCitizen(authentication);
 
             notificationService.registerDeviceToken(citizen, request.getToken(), request.getDeviceType());
             return ResponseEntity.ok(Map.of("message", "Device token registered successfully"));
@@ -282,10 +299,8 @@ public class NotificationController {
             @PathVariable String type,
             Authentication authentication) {
         try {
-            String email = authentication.getName();
-
             try {
-                User user = userService.getUserByEmail(email);
+                User user = currentUserService.getUser(authentication);
                 List<Notification> notifications = notificationService.getNotificationsByType(user, type);
                 List<Map<String, Object>> notificationDTOs = notifications.stream()
                         .map(this::convertToDTOAdvanced)
@@ -302,10 +317,8 @@ public class NotificationController {
     @GetMapping("/high-priority")
     public ResponseEntity<List<Map<String, Object>>> getHighPriorityNotifications(Authentication authentication) {
         try {
-            String email = authentication.getName();
-
             try {
-                User user = userService.getUserByEmail(email);
+                User user = currentUserService.getUser(authentication);
                 List<Notification> notifications = notificationService.getHighPriorityNotifications(user);
                 List<Map<String, Object>> notificationDTOs = notifications.stream()
                         .map(this::convertToDTOAdvanced)
@@ -322,10 +335,8 @@ public class NotificationController {
     @GetMapping("/debug-raw")
     public ResponseEntity<List<Notification>> getNotificationsRaw(Authentication authentication) {
         try {
-            String email = authentication.getName();
-
             try {
-                User user = userService.getUserByEmail(email);
+                User user = currentUserService.getUser(authentication);
                 List<Notification> notifications = notificationService.getNotificationsForUser(user);
                 System.out.println("DEBUG NOTIFICATIONS RAW");
                 System.out.println("User: " + user.getEmail());
@@ -357,7 +368,7 @@ public class NotificationController {
             String email = authentication.getName();
 
             try {
-                User correctUser = notificationService.getCorrectUserReference(email);
+                User correctUser = currentUserService.getNotificationUser(authentication);
 
                 System.out.println("TEST UTILISATEUR CORRECT");
                 System.out.println("Email: " + email);
@@ -373,7 +384,7 @@ public class NotificationController {
                 testNotif.setRead(false);
                 testNotif.setCreatedDate(new Date());
 
-                Notification saved = notificationRepository.save(testNotif);
+                Notification saved = notificationService.saveNotification(testNotif);
                 List<Notification> check = notificationService.getNotificationsForUser(correctUser);
 
                 Map<String, Object> response = new HashMap<>();
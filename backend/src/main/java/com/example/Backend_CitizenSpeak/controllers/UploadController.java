@@ -0,0 +1,129 @@
+package com.example.Backend_CitizenSpeak.controllers;
+
+import com.example.Backend_CitizenSpeak.models.Complaint;
+import com.example.Backend_CitizenSpeak.models.Media;
+import com.example.Backend_CitizenSpeak.models.UploadSession;
+import com.example.Backend_CitizenSpeak.models.User;
+import com.example.Backend_CitizenSpeak.services.ChunkedUploadService;
+import com.example.Backend_CitizenSpeak.services.ComplaintService;
+import com.example.Backend_CitizenSpeak.services.CurrentUserService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+    private final ComplaintService complaintService;
+    private final CurrentUserService currentUserService;
+
+    @Autowired
+    public UploadController(ChunkedUploadService chunkedUploadService,
+                            ComplaintService complaintService,
+                            CurrentUserService currentUserService) {
+        this.chunkedUploadService = chunkedUploadService;
+        this.complaintService = complaintService;
+        this.currentUserService = currentUserService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> initiateUpload(@RequestBody Map<String, Object> payload,
+                                                              Authentication authentication) {
+        String filename = (String) payload.get("filename");
+        long totalSize = payload.get("totalSize") instanceof Number number ? number.longValue() : -1;
+
+        UploadSession session = chunkedUploadService.initiateUpload(filename, totalSize, authentication.getName());
+        return new ResponseEntity<>(toResponse(session), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> getUploadStatus(@PathVariable String uploadId,
+                                                               Authentication authentication) {
+        UploadSession session = chunkedUploadService.getUploadSession(uploadId, authentication.getName());
+        return ResponseEntity.ok(toResponse(session));
+    }
+
+    @PutMapping(value = "/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Map<String, Object>> appendChunk(@PathVariable String uploadId,
+                                                           @RequestParam long offset,
+                                                           HttpServletRequest request,
+                                                           Authentication authentication) throws IOException {
+        UploadSession session = chunkedUploadService.appendChunk(
+                uploadId, offset, request.getInputStream(), authentication.getName());
+        return ResponseEntity.ok(toResponse(session));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<Map<String, Object>> completeUpload(@PathVariable String uploadId,
+                                                              @RequestBody(required = false) Map<String, String> payload,
+                                                              Authentication authentication) throws IOException {
+        String complaintId = payload != null ? payload.get("complaintId") : null;
+        String sha256 = payload != null ? payload.get("sha256") : null;
+
+        Complaint complaint = complaintId != null ? complaintService.getComplaintById(complaintId) : null;
+        if (complaint != null && !mayAttachTo(complaint, currentUserService.getUser(authentication))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Media media = chunkedUploadService.completeUpload(
+                uploadId, sha256, complaint != null ? complaint.getComplaintId() : null, authentication.getName());
+
+        if (complaint != null) {
+            if (complaint.getMedia() == null) {
+                complaint.setMedia(new ArrayList<>());
+            }
+            // A retried completion returns the media already attached.
+            boolean attached = complaint.getMedia().stream()
+                    .anyMatch(existing -> existing != null && media.getMediaId().equals(existing.getMediaId()));
+            if (!attached) {
+                complaint.getMedia().add(media);
+                complaintService.updateComplaint(complaint);
+            }
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("mediaId", media.getMediaId());
+        response.put("mediaFile", media.getMediaFile());
+        response.put("sha256", media.getContentHash());
+        response.put("size", media.getFileSize());
+        response.put("complaintId", media.getComplaintId());
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abortUpload(@PathVariable String uploadId, Authentication authentication) {
+        chunkedUploadService.abortUpload(uploadId, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Only the citizen who filed the complaint and the agent it is assigned to may add media to it.
+     */
+    private boolean mayAttachTo(Complaint complaint, User user) {
+        String userId = user.getUserId();
+        return (complaint.getCitizen() != null && userId.equals(complaint.getCitizen().getUserId()))
+                || (complaint.getAssignedAgent() != null && userId.equals(complaint.getAssignedAgent().getUserId()));
+    }
+
+    private Map<String, Object> toResponse(UploadSession session) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("uploadId", session.getUploadId());
+        response.put("filename", session.getOriginalFilename());
+        response.put("totalSize", session.getTotalSize());
+        response.put("bytesReceived", session.getBytesReceived());
+        response.put("status", session.getStatus());
+        response.put("maxChunkSize", chunkedUploadService.getMaxChunkSize());
+        response.put("mediaId", session.getMediaId());
+        return response;
+    }
+}
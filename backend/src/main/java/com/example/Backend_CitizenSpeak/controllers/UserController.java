@@ -13,16 +13,10 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -45,10 +39,7 @@ public class UserController {
     private DepartmentRepository departmentRepository;
 
     @Autowired
-    private AdminRepository adminRepository;
-
-    @Autowired
-    private AnalystRepository analystRepository;
+    private MediaService mediaService;
 
     @GetMapping("/profile")
     public ResponseEntity<?> getProfile(@RequestParam(required = false) String email, Authentication authentication) {
@@ -230,38 +221,18 @@ public class UserController {
         return ResponseEntity.ok("Utilisateur supprimé");
     }
 
+    /**
+     * One page of users, optionally of a single role. {@code size=0} returns the first
+     * {@value UserService#MAX_LISTING_PAGE_SIZE} users; the total is sent in {@code X-Total-Count}.
+     */
     @GetMapping("/all")
-    public List<Map<String, Object>> getAllUsers() {
-        List<User> baseUsers = userRepository.findAll();
-        List<Map<String, Object>> result = new ArrayList<>();
-
-        for (User u : baseUsers) {
-            Map<String, Object> m = new HashMap<>();
-            m.put("userId", u.getUserId());
-            m.put("name", u.getName());
-            m.put("email", u.getEmail());
-            m.put("phone", u.getPhone());
-            m.put("role", u.getRole());
-            m.put("active", u.isActive());
-
-            if ("agent".equalsIgnoreCase(u.getRole())) {
-                agentRepository.findByEmail(u.getEmail())
-                        .ifPresent(ag -> {
-                            m.put("service", ag.getService());
-                            Department d = ag.getDepartment();
-                            if (d != null) {
-                                Map<String, String> dept = new HashMap<>();
-                                dept.put("id", d.getDepartmentId());
-                                dept.put("name", d.getName());
-                                m.put("department", dept);
-                            }
-                        });
-            }
-
-            result.add(m);
-        }
-
-        return result;
+    public ResponseEntity<List<Map<String, Object>>> getAllUsers(@RequestParam(required = false) String role,
+                                                                 @RequestParam(defaultValue = "0") int page,
+                                                                 @RequestParam(defaultValue = "0") int size) {
+        int pageSize = size > 0 ? Math.min(size, UserService.MAX_LISTING_PAGE_SIZE) : UserService.MAX_LISTING_PAGE_SIZE;
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(userService.countUsers(role)))
+                .body(userService.getUserListing(role, page, pageSize));
     }
 
     @PostMapping("/update-photo")
@@ -274,19 +245,8 @@ public class UserController {
                 return ResponseEntity.badRequest().body("Utilisateur non trouvé avec cet email: " + email);
             }
 
-            String uploadDir = "uploads/photos";
-            Path uploadPath = Paths.get(uploadDir);
-
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
-            String filename = UUID.randomUUID() + "_" + file.getOriginalFilename();
-            Path filePath = uploadPath.resolve(filename);
-
-            Files.copy(file.getInputStream(), filePath);
-
-            String photoUrl = uploadDir + "/" + filename;
+            // The mobile client expects the path without its leading slash.
+            String photoUrl = mediaService.storeProfilePhoto(file).substring(1);
             user.setPhoto(photoUrl);
             userRepository.save(user);
 
@@ -295,7 +255,7 @@ public class UserController {
             response.put("message", "Photo mise à jour avec succès");
 
             return ResponseEntity.ok(response);
-        } catch (IOException e) {
+        } catch (FileStorageException e) {
             return ResponseEntity.badRequest().body("Erreur lors de l'upload de la photo: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erreur: " + e.getMessage());
@@ -311,36 +271,14 @@ public class UserController {
         User user = userService.getUserByEmail(email);
         if (payload.containsKey("fullName")) user.setName(payload.get("fullName"));
         if (payload.containsKey("phone")) user.setPhone(payload.get("phone"));
-        userRepository.save(user);
-
-        String role = user.getRole().toLowerCase();
-        switch (role) {
-            case "agent" -> agentRepository.findByEmail(email).ifPresent(agent -> {
-                if (payload.containsKey("fullName")) agent.setName(payload.get("fullName"));
-                if (payload.containsKey("phone")) agent.setPhone(payload.get("phone"));
-                if (payload.containsKey("service")) agent.setService(payload.get("service"));
-                if (payload.containsKey("departmentId")) {
-                    departmentRepository.findById(payload.get("departmentId"))
-                            .ifPresent(agent::setDepartment);
-                }
-                agentRepository.save(agent);
-            });
-
-            case "analyst" -> analystRepository.findByEmail(email).ifPresent(analyst -> {
-                if (payload.containsKey("fullName")) analyst.setName(payload.get("fullName"));
-                if (payload.containsKey("phone")) analyst.setPhone(payload.get("phone"));
-                analystRepository.save(analyst);
-            });
-
-            case "admin" -> adminRepository.findByEmail(email).ifPresent(admin -> {
-                if (payload.containsKey("fullName")) admin.setName(payload.get("fullName"));
-                if (payload.containsKey("phone")) admin.setPhone(payload.get("phone"));
-                adminRepository.save(admin);
-            });
-
-            default -> {
+        if (user instanceof CommunityAgent agent) {
+            if (payload.containsKey("service")) agent.setService(payload.get("service"));
+            if (payload.containsKey("departmentId")) {
+                departmentRepository.findById(payload.get("departmentId"))
+                        .ifPresent(agent::setDepartment);
             }
         }
+        userRepository.save(user);
 
         return ResponseEntity.ok(Map.of("message", "Profil mis à jour avec succès"));
     }
@@ -354,43 +292,10 @@ public class UserController {
 
         User user = userService.getUserByEmail(email);
 
-        String original = StringUtils.cleanPath(file.getOriginalFilename());
-        String ext = "";
-        if (original.contains(".")) {
-            ext = original.substring(original.lastIndexOf("."));
-        }
-        String filename = UUID.randomUUID() + ext;
-        Path uploadDir = Paths.get("uploads/photos").toAbsolutePath().normalize();
-        try {
-            Files.createDirectories(uploadDir);
-            Path target = uploadDir.resolve(filename);
-            Files.copy(file.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException e) {
-            throw new FileStorageException("Impossible de stocker la photo", e);
-        }
-
-        String photoUrl = "/uploads/photos/" + filename;
+        String photoUrl = mediaService.storeProfilePhoto(file);
         user.setPhoto(photoUrl);
         userRepository.save(user);
 
-        String role = user.getRole().toLowerCase();
-        switch (role) {
-            case "agent" -> agentRepository.findByEmail(email).ifPresent(agent -> {
-                agent.setPhoto(photoUrl);
-                agentRepository.save(agent);
-            });
-            case "analyst" -> analystRepository.findByEmail(email).ifPresent(analyst -> {
-                analyst.setPhoto(photoUrl);
-                analystRepository.save(analyst);
-            });
-            case "admin" -> adminRepository.findByEmail(email).ifPresent(admin -> {
-                admin.setPhoto(photoUrl);
-                adminRepository.save(admin);
-            });
-            default -> {
-            }
-        }
-
         Map<String, String> resp = new HashMap<>();
         resp.put("photoUrl", photoUrl);
         return ResponseEntity.ok(resp);
@@ -0,0 +1,31 @@
+package com.example.Backend_CitizenSpeak.dto;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+@Getter
+public class MediaFileInfo {
+    private final String filename;
+    private final String storageKey;
+    /** The file on this node's disk, or {@code null} when the store is remote. */
+    private final Path path;
+    private final String contentType;
+    private final long size;
+    private final String contentHash;
+    private final long lastModified;
+
+    public MediaFileInfo(String filename, String storageKey, Path path, String contentType, long size, String contentHash, long lastModified) {
+        this.filename = filename;
+        this.storageKey = storageKey;
+        this.path = path;
+        this.contentType = contentType;
+        this.size = size;
+        this.contentHash = contentHash;
+        this.lastModified = lastModified;
+    }
+
+    public String getETag() {
+        return "\"" + contentHash + "\"";
+    }
+}
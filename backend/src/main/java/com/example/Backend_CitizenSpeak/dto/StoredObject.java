@@ -0,0 +1,21 @@
+package com.example.Backend_CitizenSpeak.dto;
+
+import lombok.Getter;
+
+@Getter
+public class StoredObject {
+    private final String key;
+    private final long size;
+    private final long lastModified;
+
+    public StoredObject(String key, long size, long lastModified) {
+        this.key = key;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public String getFilename() {
+        int slash = key.lastIndexOf('/');
+        return slash >= 0 ? key.substring(slash + 1) : key;
+    }
+}
@@ -116,7 +116,7 @@ public class GlobalExceptionHandler {
         }
 
         response.put("userMessage", "Une erreur s'est produite. Veuillez réessayer.");
-        return new ResponseEntity<>(response, httpStatus);
+        return new ResponseEntity<>(response, ex.getHeaders(), httpStatus);
     }
 
     @ExceptionHandler(RuntimeException.class)
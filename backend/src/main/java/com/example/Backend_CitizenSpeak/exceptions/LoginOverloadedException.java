@@ -0,0 +1,26 @@
+package com.example.Backend_CitizenSpeak.exceptions;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 503 with a {@code Retry-After} header: the login endpoints are shedding load, through no fault
+ * of this client.
+ */
+public class LoginOverloadedException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public LoginOverloadedException(String reason, long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.Backend_CitizenSpeak.exceptions;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 429 with a {@code Retry-After} header telling the client when it may try again.
+ */
+public class TooManyAttemptsException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyAttemptsException(String reason, long retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.Backend_CitizenSpeak.listeners;
+
+import com.example.Backend_CitizenSpeak.services.AnalyticsResponseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Moves the analytics data version whenever a document the dashboards read is saved or deleted
+ * through a repository.
+ */
+@Component
+public class AnalyticsCacheInvalidationListener extends AbstractMongoEventListener<Object> {
+
+    private static final Set<String> ANALYTICS_COLLECTIONS = Set.of(
+            "complaints", "interventions", "users", "organizations", "departments", "categories",
+            "status_histories");
+
+    private final AnalyticsResponseCache analyticsResponseCache;
+
+    @Autowired
+    public AnalyticsCacheInvalidationListener(AnalyticsResponseCache analyticsResponseCache) {
+        this.analyticsResponseCache = analyticsResponseCache;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        invalidate(event.getCollectionName());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        invalidate(event.getCollectionName());
+    }
+
+    private void invalidate(String collection) {
+        if (collection != null && ANALYTICS_COLLECTIONS.contains(collection)) {
+            analyticsResponseCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.Backend_CitizenSpeak.listeners;
+
+import com.example.Backend_CitizenSpeak.services.DashboardCounterService;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the dashboard counters in step with repository saves and deletes. The state a document
+ * had before a save is read in {@code BeforeSave} and the counters are only moved in
+ * {@code AfterSave}, so a save that fails (a duplicate key, a lost connection) does not count.
+ * A failure here never fails the write itself; the periodic reconciliation corrects the counters
+ * instead.
+ */
+@Component
+public class DashboardCounterListener extends AbstractMongoEventListener<Object> {
+
+    /**
+     * The save in progress on this thread: events for one save come on the calling thread, with
+     * the same entity, and saves do not nest.
+     */
+    private record PendingSave(Object entity, Document before) {}
+
+    private final DashboardCounterService dashboardCounterService;
+    private final ThreadLocal<PendingSave> pendingSave = new ThreadLocal<>();
+
+    @Autowired
+    public DashboardCounterListener(DashboardCounterService dashboardCounterService) {
+        this.dashboardCounterService = dashboardCounterService;
+    }
+
+    @Override
+    public void onBeforeSave(BeforeSaveEvent<Object> event) {
+        // Left over from a save that failed.
+        pendingSave.remove();
+        if (!isTracked(event.getCollectionName()) || event.getDocument() == null) {
+            return;
+        }
+        try {
+            Document before = dashboardCounterService.stateBeforeSave(event.getCollectionName(), event.getDocument());
+            pendingSave.set(new PendingSave(event.getSource(), before));
+        } catch (Exception e) {
+            System.err.println("Mise à jour des compteurs du tableau de bord impossible: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        PendingSave pending = pendingSave.get();
+        if (pending == null || pending.entity() != event.getSource()) {
+            return;
+        }
+        pendingSave.remove();
+        try {
+            dashboardCounterService.afterSave(event.getCollectionName(), pending.before(), event.getDocument());
+        } catch (Exception e) {
+            System.err.println("Mise à jour des compteurs du tableau de bord impossible: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onBeforeDelete(BeforeDeleteEvent<Object> event) {
+        if (!isTracked(event.getCollectionName())) {
+            return;
+        }
+        try {
+            dashboardCounterService.beforeDelete(event.getCollectionName(), event.getDocument());
+        } catch (Exception e) {
+            System.err.println("Mise à jour des compteurs du tableau de bord impossible: " + e.getMessage());
+        }
+    }
+
+    private boolean isTracked(String collection) {
+        return collection != null && DashboardCounterService.TRACKED_COLLECTIONS.contains(collection);
+    }
+}
@@ -2,65 +2,50 @@ package com.example.Backend_CitizenSpeak.listeners;
 
 import com.example.Backend_CitizenSpeak.models.NotificationEvent;
 import com.example.Backend_CitizenSpeak.models.Notification;
-import com.example.Backend_CitizenSpeak.models.DeviceToken;
-import com.example.Backend_CitizenSpeak.repositories.DeviceTokenRepository;
 import com.example.Backend_CitizenSpeak.services.PushNotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class NotificationEventListener {
 
     private final PushNotificationService pushNotificationService;
-    private final DeviceTokenRepository deviceTokenRepository;
 
     @Autowired
-    public NotificationEventListener(PushNotificationService pushNotificationService,
-                                     DeviceTokenRepository deviceTokenRepository) {
+    public NotificationEventListener(PushNotificationService pushNotificationService) {
         this.pushNotificationService = pushNotificationService;
-        this.deviceTokenRepository = deviceTokenRepository;
     }
 
+    /**
+     * Runs on the dispatcher thread, so it only hands the batch over: notifications with the same
+     * content become one message for all their recipients, queued without blocking. The push
+     * workers look the device tokens up and send.
+     */
     @EventListener
-    @Async
     public void handleNotificationEvent(NotificationEvent event) {
         try {
-            Notification notification = event.getNotification();
-            System.out.println("Processing notification event for user: " + notification.getUser().getUserId());
-
-            List<DeviceToken> deviceTokens = deviceTokenRepository.findByUserAndActiveTrue(notification.getUser());
-
-            if (deviceTokens.isEmpty()) {
-                System.out.println("No active device tokens found for user: " + notification.getUser().getUserId());
-                return;
-            }
-
-            for (DeviceToken deviceToken : deviceTokens) {
-                try {
-                    pushNotificationService.sendPushNotification(
-                            deviceToken.getToken(),
-                            getNotificationTitle(notification.getNotificationType()),
-                            notification.getContent(),
-                            notification.getComplaintId()
-                    );
-
-                    System.out.println("Push notification sent to device: " + deviceToken.getTokenId());
-                } catch (Exception e) {
-                    System.err.println("Failed to send push notification to device " +
-                            deviceToken.getTokenId() + ": " + e.getMessage());
-
-                    if (e.getMessage().contains("invalid token") || e.getMessage().contains("not registered")) {
-                        deviceToken.setActive(false);
-                        deviceTokenRepository.save(deviceToken);
-                        System.out.println("Marked device token as inactive: " + deviceToken.getTokenId());
-                    }
+            Map<List<String>, List<String>> recipientsByContent = new LinkedHashMap<>();
+            for (Notification notification : event.getNotifications()) {
+                if (notification.getRecipient() == null || notification.getRecipient().getUserId() == null) {
+                    continue;
                 }
+                List<String> content = Arrays.asList(
+                        getNotificationTitle(notification.getNotificationType()),
+                        notification.getContent(),
+                        notification.getComplaintId());
+                recipientsByContent.computeIfAbsent(content, key -> new ArrayList<>())
+                        .add(notification.getRecipient().getUserId());
             }
 
+            recipientsByContent.forEach((content, userIds) -> pushNotificationService.sendToUsers(
+                    userIds, content.get(0), content.get(1), content.get(2)));
         } catch (Exception e) {
             System.err.println("Error handling notification event: " + e.getMessage());
             e.printStackTrace();
@@ -68,6 +53,9 @@ public class NotificationEventListener {
     }
 
     private String getNotificationTitle(String notificationType) {
+        if (notificationType == null) {
+            return "CitizenSpeak";
+        }
         switch (notificationType) {
             case "STATUS_UPDATE":
                 return "Plainte mise à jour";
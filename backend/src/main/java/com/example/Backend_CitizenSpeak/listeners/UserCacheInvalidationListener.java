@@ -0,0 +1,40 @@
+package com.example.Backend_CitizenSpeak.listeners;
+
+import com.example.Backend_CitizenSpeak.models.User;
+import com.example.Backend_CitizenSpeak.services.CurrentUserService;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts cached principals whenever a user document of any role is saved or deleted through a
+ * repository, so profile, role and activation changes apply to the next request.
+ */
+@Component
+public class UserCacheInvalidationListener extends AbstractMongoEventListener<User> {
+
+    private final CurrentUserService currentUserService;
+
+    @Autowired
+    public UserCacheInvalidationListener(CurrentUserService currentUserService) {
+        this.currentUserService = currentUserService;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        currentUserService.invalidate(event.getSource().getEmail());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        Document query = event.getSource();
+        if (query.get("email") instanceof String email) {
+            currentUserService.invalidate(email);
+        } else {
+            currentUserService.invalidateById(query.get("_id"));
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.Backend_CitizenSpeak.models;
 
+import org.springframework.data.annotation.TypeAlias;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-@Document(collection = "admins")
+@Document(collection = "users")
+@TypeAlias(Admin.TYPE)
 public class Admin extends User {
+
+    public static final String TYPE = "admin";
     public Admin() {
         super();
     }
@@ -1,10 +1,14 @@
 package com.example.Backend_CitizenSpeak.models;
 
+import org.springframework.data.annotation.TypeAlias;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-@Document(collection = "analysts")
+@Document(collection = "users")
+@TypeAlias(Analyst.TYPE)
 public class Analyst extends User {
 
+    public static final String TYPE = "analyst";
+
     public Analyst() {
         super();
     }
@@ -0,0 +1,34 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * A notification addressed to every user of a role (admins, analysts), stored once. Whether a
+ * given user has read it lives in their {@link BroadcastReadState}.
+ */
+@Getter
+@Setter
+@Document(collection = "broadcast_notifications")
+public class BroadcastNotification {
+    @Id
+    private String broadcastId;
+    private String role;
+    private String type;
+    private String title;
+    private String message;
+    private String priority;
+    private String iconType;
+    private String actionUrl;
+    private String relatedEntityId;
+    private String relatedEntityType;
+    private String relatedComplaintId;
+    private String relatedComplaintTitle;
+    private Date createdDate;
+
+    public BroadcastNotification() {}
+}
@@ -0,0 +1,26 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Per-user read marker for broadcasts: everything created up to {@code readUpTo} is read, and
+ * so is every broadcast listed in {@code readIds}.
+ */
+@Getter
+@Setter
+@Document(collection = "broadcast_read_states")
+public class BroadcastReadState {
+    @Id
+    private String userId;
+    private Date readUpTo;
+    private List<String> readIds = new ArrayList<>();
+
+    public BroadcastReadState() {}
+}
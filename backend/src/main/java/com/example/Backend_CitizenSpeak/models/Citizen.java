@@ -1,15 +1,19 @@
 package com.example.Backend_CitizenSpeak.models;
 
+import org.springframework.data.annotation.TypeAlias;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-@Document(collection = "citizens")
+@Document(collection = "users")
+@TypeAlias(Citizen.TYPE)
 public class Citizen extends User {
 
+    public static final String TYPE = "citizen";
+
     public Citizen() {
         super();
     }
     public Citizen(String name, String email, String encodedPassword, String phone, String extra) {
-        super();
+        super(name, email, encodedPassword, phone, "Citizen");
     }
 
     public Citizen(String name,
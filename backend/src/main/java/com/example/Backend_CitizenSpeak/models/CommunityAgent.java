@@ -2,13 +2,18 @@ package com.example.Backend_CitizenSpeak.models;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.data.annotation.TypeAlias;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Setter
 @Getter
-@Document(collection = "agents")
+@Document(collection = "users")
+@TypeAlias(CommunityAgent.TYPE)
 public class CommunityAgent extends User {
+
+    public static final String TYPE = "agent";
+
     private String service;
 
     @DBRef(lazy = false)
@@ -19,7 +19,7 @@ public class Complaint {
     private String title;
     private String description;
     private Date creationDate;
-    private String status;
+    private ComplaintStatus status;
     private double latitude;
     private double longitude;
     private Date closureDate;
@@ -63,7 +63,7 @@ public class Complaint {
         this.title = title;
         this.description = description;
         this.creationDate = creationDate;
-        this.status = status;
+        this.status = ComplaintStatus.fromValue(status);
         this.latitude = latitude;
         this.longitude = longitude;
         this.citizen = citizen;
@@ -105,13 +105,13 @@ public class Complaint {
 
         updateLastModified();
 
-        if (this.assignedAgent != null && "New".equals(this.status)) {
-            this.status = "In Progress";
+        if (this.assignedAgent != null && this.status == ComplaintStatus.NEW) {
+            this.status = ComplaintStatus.IN_PROGRESS;
         }
     }
 
     public void changeStatus(String status) {
-        this.status = status;
+        this.status = ComplaintStatus.fromValue(status);
         updateLastModified();
     }
 
@@ -123,11 +123,31 @@ public class Complaint {
         return this.assignedAgent != null && this.assignedDepartment != null;
     }
 
+    /**
+     * The status label, as the API has always returned it.
+     */
+    public String getStatus() {
+        return status != null ? status.getLabel() : null;
+    }
+
+    public ComplaintStatus getStatusCode() {
+        return status;
+    }
+
+    /**
+     * Accepts a code, label or legacy spelling.
+     *
+     * @throws IllegalArgumentException for an unknown status
+     */
     public void setStatus(String status) {
+        setStatusCode(ComplaintStatus.fromValue(status));
+    }
+
+    public void setStatusCode(ComplaintStatus status) {
         this.status = status;
         updateLastModified();
 
-        if (("Resolved".equals(status) || "Closed".equals(status)) && this.closureDate == null) {
+        if (status != null && status.isClosed() && this.closureDate == null) {
             this.closureDate = new Date();
         }
     }
@@ -155,7 +175,7 @@ public class Complaint {
     }
 
     public boolean isClosed() {
-        return "Resolved".equals(this.status) || "Closed".equals(this.status);
+        return this.status != null && this.status.isClosed();
     }
     public String getPriorityString() {
         switch (this.priorityLevel) {
@@ -170,7 +190,7 @@ public class Complaint {
     }
 
     public boolean isResolved() {
-        return "Resolved".equals(this.status) || "Closed".equals(this.status);
+        return this.status != null && this.status.isClosed();
     }
 
     public long getResolutionTimeInDays() {
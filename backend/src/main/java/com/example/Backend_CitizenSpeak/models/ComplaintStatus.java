@@ -0,0 +1,85 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lifecycle status of a complaint. Stored as the constant name ({@code IN_PROGRESS}); the API
+ * keeps returning the English label ({@code In Progress}). {@link #fromValue(String)} accepts the
+ * name, the label and the French spellings found in older documents and clients.
+ */
+public enum ComplaintStatus {
+    NEW("New", "nouvelle", "nouveau"),
+    ASSIGNED("Assigned", "assignée", "assigné"),
+    IN_PROGRESS("In Progress", "en cours"),
+    PENDING("Pending", "en attente"),
+    RESOLVED("Resolved", "résolue", "résolu"),
+    CLOSED("Closed", "fermée", "clôturée"),
+    REJECTED("Rejected", "rejetée", "rejeté");
+
+    private static final Map<String, ComplaintStatus> BY_VALUE = new HashMap<>();
+
+    static {
+        for (ComplaintStatus status : values()) {
+            BY_VALUE.put(normalize(status.name()), status);
+            BY_VALUE.put(normalize(status.label), status);
+            for (String alias : status.aliases) {
+                BY_VALUE.put(normalize(alias), status);
+            }
+        }
+    }
+
+    private final String label;
+    private final String[] aliases;
+
+    ComplaintStatus(String label, String... aliases) {
+        this.label = label;
+        this.aliases = aliases;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * The stored code, for raw queries and aggregations.
+     */
+    public String code() {
+        return name();
+    }
+
+    public boolean isClosed() {
+        return this == RESOLVED || this == CLOSED;
+    }
+
+    /**
+     * The status for a code, label or known spelling; {@code null} for {@code null}.
+     *
+     * @throws IllegalArgumentException for any other value
+     */
+    public static ComplaintStatus fromValue(String value) {
+        if (value == null) {
+            return null;
+        }
+        ComplaintStatus status = BY_VALUE.get(normalize(value));
+        if (status == null) {
+            throw new IllegalArgumentException("Statut de plainte inconnu: " + value);
+        }
+        return status;
+    }
+
+    /**
+     * Like {@link #fromValue(String)}, but {@code null} for unknown values.
+     */
+    public static ComplaintStatus parseOrNull(String value) {
+        return value != null ? BY_VALUE.get(normalize(value)) : null;
+    }
+
+    private static String normalize(String value) {
+        // "In Progress", "IN_PROGRESS", "in-progress" and "En Cours" all compare equal to their spelling.
+        String stripped = Normalizer.normalize(value.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase(Locale.ROOT).replaceAll("[\\s_-]+", " ");
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running totals behind the admin dashboard, kept up to date with {@code $inc} and periodically
+ * recomputed from the collections. Keys are described in {@code DashboardCounterService}.
+ */
+@Getter
+@Setter
+@Document(collection = "dashboard_counters")
+public class DashboardCounters {
+
+    public static final String GLOBAL_ID = "global";
+
+    @Id
+    private String counterId;
+    private Map<String, Long> counts = new HashMap<>();
+    private Date reconciledDate;
+
+    public DashboardCounters() {}
+}
@@ -0,0 +1,24 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Login attempts counted for one throttle key (an IP, an email or the global counter): the
+ * number of the current fixed window and the counts of that window and the one before it.
+ */
+@Getter
+@Setter
+@Document(collection = "login_attempt_windows")
+public class LoginAttemptWindow {
+    @Id
+    private String key;
+    private long windowIndex;
+    private int previous;
+    private int current;
+    private Date expiresAt;
+}
@@ -13,6 +13,10 @@ public class Media {
     private String mediaFile;
     private Date captureDate;
     private String complaintId;
+    private String contentHash;
+    private Long fileSize;
+    private String contentType;
+    private Integer refCount;
 
     public Media() {}
 
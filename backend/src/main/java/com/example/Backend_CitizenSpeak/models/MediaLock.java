@@ -0,0 +1,20 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Setter
+@Getter
+@Document(collection = "media_locks")
+public class MediaLock {
+    @Id
+    private String lockKey;
+    private String owner;
+    private Date lockedUntil;
+
+    public MediaLock() {}
+}
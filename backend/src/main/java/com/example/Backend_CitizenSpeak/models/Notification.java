@@ -25,8 +25,6 @@ public class Notification {
     private Date createdDate;
     private String priority;
 
-    @DBRef
-    private User user;
     @DBRef
     private User recipient;
     @DBRef
@@ -41,14 +39,19 @@ public class Notification {
     private String actionUrl;
     private String iconType;
 
+    /** Removed by the TTL index once past; see NotificationRetentionService. */
+    private Date expiresAt;
+    private Date archivedDate;
+
     public Notification() {}
 
-    public Notification(String notificationType, Date sentDate, String content, boolean isRead, User user) {
+    public Notification(String notificationType, Date sentDate, String content, boolean isRead, User recipient) {
         this.notificationType = notificationType;
         this.sentDate = sentDate;
+        this.createdDate = sentDate;
         this.content = content;
         this.isRead = isRead;
-        this.user = user;
+        this.recipient = recipient;
     }
     public Notification(String type, String title, String message, User recipient) {
         this();
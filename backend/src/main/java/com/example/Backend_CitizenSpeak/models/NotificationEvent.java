@@ -3,13 +3,23 @@ package com.example.Backend_CitizenSpeak.models;
 import lombok.Getter;
 import org.springframework.context.ApplicationEvent;
 
+import java.util.List;
+
+/**
+ * Published once per stored batch with the notifications to push, so their device tokens can be
+ * looked up together rather than once per notification.
+ */
 @Getter
 public class NotificationEvent extends ApplicationEvent {
-    private final Notification notification;
+    private final List<Notification> notifications;
 
     public NotificationEvent(Notification notification) {
-        super(notification);
-        this.notification = notification;
+        this(List.of(notification));
+    }
+
+    public NotificationEvent(List<Notification> notifications) {
+        super(notifications);
+        this.notifications = notifications;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One notification-worthy domain event, written by the operation that caused it and expanded
+ * into {@link Notification} documents by the dispatcher.
+ *
+ * Recipients are either explicit user ids ({@code recipientIds}, all of {@code recipientType})
+ * or a whole role ({@code recipientRole}), which the dispatcher stores once as a
+ * {@link BroadcastNotification} instead of copying it to every user of the role.
+ */
+@Getter
+@Setter
+@Document(collection = "notification_outbox")
+public class NotificationOutboxEvent {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    public static final String ROLE_ADMIN = "ADMIN";
+    public static final String ROLE_ANALYST = "ANALYST";
+
+    @Id
+    private String eventId;
+    private String dedupKey;
+
+    /**
+     * Events with the same key that are still pending are merged into one: the newest content
+     * wins and {@code coalescedCount} grows, or, for a digest, each event adds a line to
+     * {@code digestItems}.
+     */
+    private String coalesceKey;
+    private int coalescedCount = 1;
+    private List<String> mergedDedupKeys = new ArrayList<>();
+    private List<String> digestItems = new ArrayList<>();
+
+    private String recipientType;
+    private List<String> recipientIds = new ArrayList<>();
+    private String recipientRole;
+
+    /** Citizen-app format: {@code user}, {@code notificationType}, {@code content}, {@code sentDate}. */
+    private boolean legacyFormat;
+    private boolean push;
+
+    private String notificationType;
+    private String content;
+    private String type;
+    private String title;
+    private String message;
+    private String priority;
+    private String iconType;
+    private String actionUrl;
+    private String complaintId;
+    private String relatedComplaintId;
+    private String relatedComplaintTitle;
+    private String relatedInterventionId;
+    private String relatedEntityId;
+    private String relatedEntityType;
+
+    private String status = STATUS_PENDING;
+    private int attempts;
+    private Date createdDate;
+    private Date nextAttemptAt;
+    private Date lockedUntil;
+    private Date processedDate;
+    private String lastError;
+    private int deliveredCount;
+
+    public NotificationOutboxEvent() {}
+
+    public NotificationOutboxEvent(String dedupKey) {
+        this.dedupKey = dedupKey;
+    }
+
+    public NotificationOutboxEvent addRecipient(User user) {
+        if (user != null && user.getUserId() != null) {
+            this.recipientType = user.getClass().getSimpleName();
+            this.recipientIds.add(user.getUserId());
+        }
+        return this;
+    }
+
+    public boolean hasRecipients() {
+        return recipientRole != null || !recipientIds.isEmpty();
+    }
+}
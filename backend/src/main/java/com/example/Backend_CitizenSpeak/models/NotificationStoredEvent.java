@@ -0,0 +1,31 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published once a notification is stored, for every recipient ({@code recipientId}) or, for a
+ * broadcast, once for the whole role ({@code recipientRole}). Feeds the live notification stream.
+ * The storing node publishes it directly; {@code fromChangeFeed} marks the copy every node
+ * publishes from the MongoDB change stream.
+ */
+@Getter
+public class NotificationStoredEvent extends ApplicationEvent {
+    private final Notification notification;
+    private final String recipientId;
+    private final String recipientRole;
+    private final boolean fromChangeFeed;
+
+    public NotificationStoredEvent(Notification notification, String recipientId, String recipientRole) {
+        this(notification, recipientId, recipientRole, false);
+    }
+
+    public NotificationStoredEvent(Notification notification, String recipientId, String recipientRole,
+                                   boolean fromChangeFeed) {
+        super(notification);
+        this.notification = notification;
+        this.recipientId = recipientId;
+        this.recipientRole = recipientRole;
+        this.fromChangeFeed = fromChangeFeed;
+    }
+}
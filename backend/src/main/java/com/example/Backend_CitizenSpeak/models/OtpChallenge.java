@@ -0,0 +1,37 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * A login waiting for its OTP: the temporary token handed to the client, the code that was mailed
+ * and how many wrong codes have been tried.
+ */
+@Getter
+@Setter
+@Document(collection = "otp_challenges")
+public class OtpChallenge {
+    @Id
+    private String token;
+    private String email;
+    private String otp;
+    private int attempts;
+    private Date expiresAt;
+
+    public OtpChallenge() {}
+
+    public OtpChallenge(String token, String email, String otp, Date expiresAt) {
+        this.token = token;
+        this.email = email;
+        this.otp = otp;
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt.getTime() <= now;
+    }
+}
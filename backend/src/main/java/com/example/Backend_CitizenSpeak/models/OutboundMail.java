@@ -0,0 +1,53 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One email waiting to be sent by {@code MailService}. Only the template name and its variables
+ * are stored; the message is rendered when it is sent. Variables are removed once the mail has
+ * gone out, and the document itself once {@code expiresAt} has passed.
+ */
+@Getter
+@Setter
+@Document(collection = "mail_outbox")
+public class OutboundMail {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    private String mailId;
+    private String template;
+    private String recipient;
+    private Map<String, String> variables = new HashMap<>();
+
+    private String status;
+    private int attempts;
+    private Date createdDate;
+    private Date nextAttemptAt;
+    private Date lockedUntil;
+    private Date sentDate;
+    private String lastError;
+
+    /** After this the mail is no longer worth sending (the OTP or reset link has expired). */
+    private Date expiresAt;
+
+    public OutboundMail() {
+    }
+
+    public OutboundMail(String template, String recipient, Map<String, String> variables, Date expiresAt) {
+        this.template = template;
+        this.recipient = recipient;
+        this.variables = new HashMap<>(variables);
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Number of unread personal notifications of one user, kept up to date with {@code $inc}.
+ */
+@Getter
+@Setter
+@Document(collection = "notification_unread_counters")
+public class UnreadCounter {
+    @Id
+    private String userId;
+    private long unread;
+    private Date seededDate;
+
+    public UnreadCounter() {}
+}
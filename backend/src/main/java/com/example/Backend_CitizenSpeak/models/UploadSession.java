@@ -0,0 +1,45 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Setter
+@Getter
+@Document(collection = "upload_sessions")
+public class UploadSession {
+    public static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    @Id
+    private String uploadId;
+    private String ownerEmail;
+    private String originalFilename;
+    private String extension;
+    private long totalSize;
+    private long bytesReceived;
+    private String status;
+    private String mediaId;
+    private Date createdDate;
+    private Date lastUpdated;
+
+    public UploadSession() {}
+
+    public UploadSession(String ownerEmail, String originalFilename, String extension, long totalSize) {
+        this.ownerEmail = ownerEmail;
+        this.originalFilename = originalFilename;
+        this.extension = extension;
+        this.totalSize = totalSize;
+        this.bytesReceived = 0;
+        this.status = STATUS_IN_PROGRESS;
+        this.createdDate = new Date();
+        this.lastUpdated = this.createdDate;
+    }
+
+    public boolean isComplete() {
+        return bytesReceived == totalSize;
+    }
+}
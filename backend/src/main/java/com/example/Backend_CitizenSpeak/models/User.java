@@ -8,6 +8,11 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.Instant;
 import java.util.List;
 
+/**
+ * Every account lives in the {@code users} collection. Citizens, agents, admins and analysts are
+ * stored there as their subclass, told apart by the {@code _class} alias ({@link Citizen#TYPE},
+ * {@link CommunityAgent#TYPE}, ...), so reading a user through any repository yields the subclass.
+ */
 @Getter
 @Document(collection = "users")
 public class User {
@@ -56,4 +61,20 @@ public class User {
         this.role = role;
         this.photo = photo;
     }
+
+    /**
+     * The {@code _class} alias for a role name, whatever its case, or {@code null} for an unknown role.
+     */
+    public static String typeForRole(String role) {
+        if (role == null) {
+            return null;
+        }
+        return switch (role.toLowerCase()) {
+            case "citizen" -> Citizen.TYPE;
+            case "agent" -> CommunityAgent.TYPE;
+            case "admin" -> Admin.TYPE;
+            case "analyst" -> Analyst.TYPE;
+            default -> null;
+        };
+    }
 }
@@ -3,12 +3,46 @@ package com.example.Backend_CitizenSpeak.repositories;
 import com.example.Backend_CitizenSpeak.models.Admin;
 import com.example.Backend_CitizenSpeak.models.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
+
+/**
+ * Admins in the shared {@code users} collection; every query is restricted to the admin type.
+ */
 public interface AdminRepository extends MongoRepository<Admin, String> {
+    @Query("{ '_class': 'admin', 'role': ?0 }")
     List<User> findByRole(String role);
+
+    @Query(value = "{ '_class': 'admin', 'email': ?0 }", delete = true)
     void deleteByEmail(String email);
 
+    @Query("{ '_class': 'admin', 'email': ?0 }")
     Optional<Admin> findByEmail(String email);
+
+    // The inherited CRUD queries would match every user in the collection.
+    @Override
+    @Query("{ '_id': ?0, '_class': 'admin' }")
+    Optional<Admin> findById(String id);
+
+    @Override
+    @Query(value = "{ '_id': ?0, '_class': 'admin' }", exists = true)
+    boolean existsById(String id);
+
+    @Override
+    @Query("{ '_class': 'admin' }")
+    List<Admin> findAll();
+
+    @Override
+    @Query("{ '_id': { '$in': ?0 }, '_class': 'admin' }")
+    List<Admin> findAllById(Iterable<String> ids);
+
+    @Override
+    @Query(value = "{ '_class': 'admin' }", count = true)
+    long count();
+
+    @Override
+    @Query(value = "{ '_id': ?0, '_class': 'admin' }", delete = true)
+    void deleteById(String id);
 }
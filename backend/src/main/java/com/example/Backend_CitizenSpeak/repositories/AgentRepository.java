@@ -3,16 +3,34 @@ package com.example.Backend_CitizenSpeak.repositories;
 import com.example.Backend_CitizenSpeak.models.CommunityAgent;
 import com.example.Backend_CitizenSpeak.models.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Agents in the shared {@code users} collection; every query is restricted to the agent type.
+ */
 public interface AgentRepository extends MongoRepository<CommunityAgent, String> {
+    @Query("{ '_class': 'agent', 'role': ?0 }")
     List<User> findByRole(String role);
+
+    @Query(value = "{ '_class': 'agent', 'email': ?0 }", delete = true)
     void deleteByEmail(String email);
+
+    @Query("{ '_class': 'agent', 'email': ?0 }")
     Optional<CommunityAgent> findByEmail(String email);
+
+    @Query("{ '_class': 'agent', 'service': ?0 }")
     List<CommunityAgent> findByService(String service);
+
+    @Query("{ '_class': 'agent', 'department.$id': ?0 }")
     List<CommunityAgent> findByDepartment_DepartmentId(String departmentId);
+
+    @Query("{ '_id': ?0, '_class': 'agent' }")
     Optional<CommunityAgent> findById(String id);
 
+    @Query(value = "{ '_class': 'agent' }", count = true)
+    long countAgents();
+
 }
@@ -3,12 +3,46 @@ package com.example.Backend_CitizenSpeak.repositories;
 import com.example.Backend_CitizenSpeak.models.Analyst;
 import com.example.Backend_CitizenSpeak.models.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Analysts in the shared {@code users} collection; every query is restricted to the analyst type.
+ */
 public interface AnalystRepository extends MongoRepository<Analyst, String> {
+    @Query("{ '_class': 'analyst', 'role': ?0 }")
     List<User> findByRole(String role);
+
+    @Query(value = "{ '_class': 'analyst', 'email': ?0 }", delete = true)
     void deleteByEmail(String email);
+
+    @Query("{ '_class': 'analyst', 'email': ?0 }")
     Optional<Analyst> findByEmail(String email);
+
+    // The inherited CRUD queries would match every user in the collection.
+    @Override
+    @Query("{ '_id': ?0, '_class': 'analyst' }")
+    Optional<Analyst> findById(String id);
+
+    @Override
+    @Query(value = "{ '_id': ?0, '_class': 'analyst' }", exists = true)
+    boolean existsById(String id);
+
+    @Override
+    @Query("{ '_class': 'analyst' }")
+    List<Analyst> findAll();
+
+    @Override
+    @Query("{ '_id': { '$in': ?0 }, '_class': 'analyst' }")
+    List<Analyst> findAllById(Iterable<String> ids);
+
+    @Override
+    @Query(value = "{ '_class': 'analyst' }", count = true)
+    long count();
+
+    @Override
+    @Query(value = "{ '_id': ?0, '_class': 'analyst' }", delete = true)
+    void deleteById(String id);
 }
@@ -0,0 +1,9 @@
+package com.example.Backend_CitizenSpeak.repositories;
+
+import com.example.Backend_CitizenSpeak.models.BroadcastReadState;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BroadcastReadStateRepository extends MongoRepository<BroadcastReadState, String> {
+}
@@ -2,9 +2,43 @@ package com.example.Backend_CitizenSpeak.repositories;
 
 import com.example.Backend_CitizenSpeak.models.Citizen;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Citizens in the shared {@code users} collection; every query is restricted to the citizen type.
+ */
 public interface CitizenRepository extends MongoRepository<Citizen, String> {
+    @Query("{ '_class': 'citizen', 'email': ?0 }")
     Optional<Citizen> findByEmail(String email);
+
+    @Query(value = "{ '_class': 'citizen', 'email': ?0 }", delete = true)
     void deleteByEmail(String email);
-}
\ No newline at end of file
+
+    // The inherited CRUD queries would match every user in the collection.
+    @Override
+    @Query("{ '_id': ?0, '_class': 'citizen' }")
+    Optional<Citizen> findById(String id);
+
+    @Override
+    @Query(value = "{ '_id': ?0, '_class': 'citizen' }", exists = true)
+    boolean existsById(String id);
+
+    @Override
+    @Query("{ '_class': 'citizen' }")
+    List<Citizen> findAll();
+
+    @Override
+    @Query("{ '_id': { '$in': ?0 }, '_class': 'citizen' }")
+    List<Citizen> findAllById(Iterable<String> ids);
+
+    @Override
+    @Query(value = "{ '_class': 'citizen' }", count = true)
+    long count();
+
+    @Override
+    @Query(value = "{ '_id': ?0, '_class': 'citizen' }", delete = true)
+    void deleteById(String id);
+}
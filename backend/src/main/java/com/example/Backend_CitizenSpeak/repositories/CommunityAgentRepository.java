@@ -8,39 +8,104 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Agents in the shared {@code users} collection. Every query is restricted to the agent type,
+ * the inherited ones included.
+ */
 @Repository
 public interface CommunityAgentRepository extends MongoRepository<CommunityAgent, String> {
 
+    @Query("{ '_class': 'agent' }")
+    List<CommunityAgent> findAllAgents();
+
+    @Query(value = "{ '_class': 'agent' }", count = true)
+    long countAgents();
+
+    @Query("{ '_class': 'agent', 'email': ?0 }")
     Optional<CommunityAgent> findByEmail(String email);
+
+    @Query(value = "{ '_class': 'agent', 'email': ?0 }", exists = true)
     boolean existsByEmail(String email);
 
+    @Query("{ '_class': 'agent', 'active': true }")
     List<CommunityAgent> findByActiveTrue();
+
+    @Query("{ '_class': 'agent', 'active': false }")
     List<CommunityAgent> findByActiveFalse();
+
+    @Query(value = "{ '_class': 'agent', 'active': true }", count = true)
     long countByActiveTrue();
+
+    @Query(value = "{ '_class': 'agent', 'active': false }", count = true)
     long countByActiveFalse();
 
+    @Query("{ '_class': 'agent', 'service': ?0 }")
     List<CommunityAgent> findByService(String service);
+
+    @Query(value = "{ '_class': 'agent', 'service': ?0 }", count = true)
     long countByService(String service);
+
+    @Query("{ '_class': 'agent', 'service': ?0, 'active': true }")
     List<CommunityAgent> findByServiceAndActiveTrue(String service);
 
-    @Query("{ 'department.$id' : ?0 }")
+    @Query("{ '_class': 'agent', 'department.$id' : ?0 }")
     List<CommunityAgent> findByDepartmentDepartmentId(String departmentId);
 
-    @Query(value = "{ 'department.$id' : ?0 }", count = true)
+    @Query(value = "{ '_class': 'agent', 'department.$id' : ?0 }", count = true)
     long countByDepartmentDepartmentId(String departmentId);
 
+    @Query("{ '_class': 'agent', 'role': ?0 }")
     List<CommunityAgent> findByRole(String role);
+
+    @Query(value = "{ '_class': 'agent', 'role': ?0 }", count = true)
     long countByRole(String role);
+
+    @Query("{ '_class': 'agent', 'role': ?0, 'active': true }")
     List<CommunityAgent> findByRoleAndActiveTrue(String role);
 
+    @Query("{ '_class': 'agent', 'service': ?0, 'role': ?1 }")
     List<CommunityAgent> findByServiceAndRole(String service, String role);
 
+    @Query("{ '_class': 'agent', 'name': { '$regex': ?0, '$options': 'i' } }")
     List<CommunityAgent> findByNameContainingIgnoreCase(String name);
+
+    @Query("{ '_class': 'agent', 'name': ?0 }")
     Optional<CommunityAgent> findByName(String name);
 
+    @Query("{ '_class': 'agent', 'phone': ?0 }")
     Optional<CommunityAgent> findByPhone(String phone);
+
+    @Query(value = "{ '_class': 'agent', 'phone': ?0 }", exists = true)
     boolean existsByPhone(String phone);
 
+    @Query("{ '_id': ?0, '_class': 'agent' }")
     Optional<CommunityAgent> findByUserId(String userId);
+
+    @Query(value = "{ '_id': ?0, '_class': 'agent' }", exists = true)
     boolean existsByUserId(String userId);
-}
\ No newline at end of file
+
+    // The inherited CRUD queries would match every user in the collection.
+    @Override
+    @Query("{ '_id': ?0, '_class': 'agent' }")
+    Optional<CommunityAgent> findById(String id);
+
+    @Override
+    @Query(value = "{ '_id': ?0, '_class': 'agent' }", exists = true)
+    boolean existsById(String id);
+
+    @Override
+    @Query("{ '_class': 'agent' }")
+    List<CommunityAgent> findAll();
+
+    @Override
+    @Query("{ '_id': { '$in': ?0 }, '_class': 'agent' }")
+    List<CommunityAgent> findAllById(Iterable<String> ids);
+
+    @Override
+    @Query(value = "{ '_class': 'agent' }", count = true)
+    long count();
+
+    @Override
+    @Query(value = "{ '_id': ?0, '_class': 'agent' }", delete = true)
+    void deleteById(String id);
+}
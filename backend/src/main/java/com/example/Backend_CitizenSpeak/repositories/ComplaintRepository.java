@@ -12,9 +12,9 @@ import java.util.Optional;
 
 public interface ComplaintRepository extends MongoRepository<Complaint, String> {
 
-    long countByStatus(String status);
+    long countByStatus(ComplaintStatus status);
     List<Complaint> findByCitizen(Citizen citizen);
-    List<Complaint> findByStatus(String status);
+    List<Complaint> findByStatus(ComplaintStatus status);
     List<Complaint> findByCategory(Category category);
     List<Complaint> findByPriorityLevel(int priorityLevel);
     List<Complaint> findByIsVerified(int isVerified);
@@ -22,25 +22,25 @@ public interface ComplaintRepository extends MongoRepository<Complaint, String>
 
     List<Complaint> findAllByOrderByCreationDateDesc();
     List<Complaint> findByCitizenOrderByCreationDateDesc(Citizen citizen);
-    List<Complaint> findByStatusOrderByCreationDateDesc(String status);
+    List<Complaint> findByStatusOrderByCreationDateDesc(ComplaintStatus status);
     List<Complaint> findTop10ByOrderByCreationDateDesc();
 
     Optional<Complaint> findByComplaintId(String complaintId);
 
     List<Complaint> findByAssignedAgent(CommunityAgent agent);
-    List<Complaint> findByAssignedAgentAndStatus(CommunityAgent agent, String status);
+    List<Complaint> findByAssignedAgentAndStatus(CommunityAgent agent, ComplaintStatus status);
     List<Complaint> findByAssignedAgentOrderByCreationDateDesc(CommunityAgent agent);
     long countByAssignedAgent(CommunityAgent agent);
-    long countByAssignedAgentAndStatus(CommunityAgent agent, String status);
+    long countByAssignedAgentAndStatus(CommunityAgent agent, ComplaintStatus status);
 
     List<Complaint> findByAssignedDepartment(Department department);
-    List<Complaint> findByAssignedDepartmentAndStatus(Department department, String status);
+    List<Complaint> findByAssignedDepartmentAndStatus(Department department, ComplaintStatus status);
     long countByAssignedDepartment(Department department);
 
     List<Complaint> findByCreationDateBetween(Date startDate, Date endDate);
     long countByCreationDateBetween(Date startDate, Date endDate);
-    List<Complaint> findByStatusAndCreationDateBetween(String status, Date startDate, Date endDate);
-    long countByStatusAndCreationDateBetween(String status, Date startDate, Date endDate);
+    List<Complaint> findByStatusAndCreationDateBetween(ComplaintStatus status, Date startDate, Date endDate);
+    long countByStatusAndCreationDateBetween(ComplaintStatus status, Date startDate, Date endDate);
     List<Complaint> findByCategoryAndCreationDateBetween(Category category, Date startDate, Date endDate);
 
     @Query("{ 'creationDate': { $gte: ?0 } }")
@@ -49,7 +49,7 @@ public interface ComplaintRepository extends MongoRepository<Complaint, String>
     @Query("{ 'creationDate': { $gte: ?0 }, 'priorityLevel': ?1 }")
     List<Complaint> findRecentComplaintsByPriority(Date fromDate, int priorityLevel);
 
-    @Query("{ 'status': 'Resolved', 'closureDate': { $ne: null } }")
+    @Query("{ 'status': 'RESOLVED', 'closureDate': { $ne: null } }")
     List<Complaint> findResolvedComplaintsWithClosureDate();
 
     @Query("{ 'latitude': { $ne: 0.0 }, 'longitude': { $ne: 0.0 } }")
@@ -58,7 +58,7 @@ public interface ComplaintRepository extends MongoRepository<Complaint, String>
     @Query("{ 'latitude': { $gte: ?0, $lte: ?1 }, 'longitude': { $gte: ?2, $lte: ?3 } }")
     List<Complaint> findComplaintsInArea(double minLat, double maxLat, double minLng, double maxLng);
 
-    List<Complaint> findByStatusAndCategory(String status, Category category);
+    List<Complaint> findByStatusAndCategory(ComplaintStatus status, Category category);
 
     @Query("{ 'assignedAgent': { $ne: null }, 'assignedDepartment': { $ne: null } }")
     List<Complaint> findAssignedComplaints();
@@ -93,7 +93,7 @@ public interface ComplaintRepository extends MongoRepository<Complaint, String>
     @Query("{ 'creationDate': { $gte: ?0, $lt: ?1 } }")
     List<Complaint> findByMonthAndYear(Date startOfMonth, Date startOfNextMonth);
 
-    @Query("{'status': 'Resolved', 'closureDate': {$gte: ?0, $lte: ?1}}")
+    @Query("{'status': 'RESOLVED', 'closureDate': {$gte: ?0, $lte: ?1}}")
     List<Complaint> findResolvedComplaintsByClosureDateBetween(Date startDate, Date endDate);
 
     @Query("{'creationDate': {$gte: ?0, $lte: ?1}, 'latitude': {$ne: 0.0}, 'longitude': {$ne: 0.0}}")
@@ -109,15 +109,15 @@ public interface ComplaintRepository extends MongoRepository<Complaint, String>
     List<Complaint> findByAssignedAgentUserId(String agentUserId);
 
     @Query("{'assignedAgent.$id': ?0, 'status': ?1}")
-    List<Complaint> findByAssignedAgentUserIdAndStatus(String agentUserId, String status);
+    List<Complaint> findByAssignedAgentUserIdAndStatus(String agentUserId, ComplaintStatus status);
 
     @Query(value = "{'assignedAgent.$id': ?0}", count = true)
     long countByAssignedAgentUserId(String agentUserId);
 
     @Query(value = "{'assignedAgent.$id': ?0, 'status': ?1}", count = true)
-    long countByAssignedAgentUserIdAndStatus(String agentUserId, String status);
+    long countByAssignedAgentUserIdAndStatus(String agentUserId, ComplaintStatus status);
 
-    @Query("{'creationDate': {$lt: ?0}, 'status': {$nin: ['Resolved', 'Closed']}}")
+    @Query("{'creationDate': {$lt: ?0}, 'status': {$nin: ['RESOLVED', 'CLOSED']}}")
     List<Complaint> findOverdueComplaints(Date beforeDate);
 
     @Query("{'assignedAgent': {$ne: null}, 'lastUpdated': {$gte: ?0}}")
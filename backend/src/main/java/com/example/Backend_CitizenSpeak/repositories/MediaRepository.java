@@ -3,9 +3,19 @@ package com.example.Backend_CitizenSpeak.repositories;
 import com.example.Backend_CitizenSpeak.models.Media;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface MediaRepository extends MongoRepository<Media, String> {
     List<Media> findByComplaintId(String complaintId);
 
+    Optional<Media> findFirstByMediaFile(String mediaFile);
+
+    Optional<Media> findFirstByContentHashAndComplaintId(String contentHash, String complaintId);
+
+    long countByMediaFile(String mediaFile);
+
+    List<Media> findByMediaFileIn(Collection<String> mediaFiles);
+
 }
\ No newline at end of file
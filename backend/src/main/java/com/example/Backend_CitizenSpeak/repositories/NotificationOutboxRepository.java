@@ -0,0 +1,11 @@
+package com.example.Backend_CitizenSpeak.repositories;
+
+import com.example.Backend_CitizenSpeak.models.NotificationOutboxEvent;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationOutboxRepository extends MongoRepository<NotificationOutboxEvent, String> {
+
+    long countByStatus(String status);
+}
@@ -0,0 +1,14 @@
+package com.example.Backend_CitizenSpeak.repositories;
+
+import com.example.Backend_CitizenSpeak.models.UploadSession;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends MongoRepository<UploadSession, String> {
+
+    List<UploadSession> findByStatusAndLastUpdatedBefore(String status, Date before);
+}
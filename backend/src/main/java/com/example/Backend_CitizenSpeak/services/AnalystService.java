@@ -42,9 +42,6 @@ public class AnalystService {
     @Autowired
     private NotificationService notificationService;
 
-    @Autowired
-    private AnalystRepository analystRepository;
-
     private Date getYearStartDate(int year) {
         return Date.from(LocalDate.of(year, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant());
     }
@@ -79,15 +76,15 @@ public class AnalystService {
         List<Complaint> yearComplaints = getComplaintsByYear(year);
 
         long newComplaints = yearComplaints.stream()
-                .filter(c -> "New".equals(c.getStatus()))
+                .filter(c -> c.getStatusCode() == ComplaintStatus.NEW)
                 .count();
 
         long resolvedComplaints = yearComplaints.stream()
-                .filter(c -> "Resolved".equals(c.getStatus()))
+                .filter(c -> c.getStatusCode() == ComplaintStatus.RESOLVED)
                 .count();
 
         long inProgressComplaints = yearComplaints.stream()
-                .filter(c -> "In Progress".equals(c.getStatus()))
+                .filter(c -> c.getStatusCode() == ComplaintStatus.IN_PROGRESS)
                 .count();
 
         stats.put("totalComplaints", yearComplaints.size());
@@ -223,7 +220,7 @@ public class AnalystService {
 
         List<Complaint> yearComplaints = getComplaintsByYear(year);
         List<Complaint> resolvedComplaints = yearComplaints.stream()
-                .filter(c -> "Resolved".equals(c.getStatus()) && c.getClosureDate() != null)
+                .filter(c -> c.getStatusCode() == ComplaintStatus.RESOLVED && c.getClosureDate() != null)
                 .collect(Collectors.toList());
 
         List<Map<String, Object>> analysis = new ArrayList<>();
@@ -412,10 +409,7 @@ public class AnalystService {
 
             byte[] reportBytes = pdfService.generateAnalysisReport(reportData);
 
-            List<Analyst> analysts = analystRepository.findAll();
-            for (Analyst analyst : analysts) {
-                notificationService.notifyAnalystReportGenerated(analyst, "Rapport " + year);
-            }
+            notificationService.notifyAnalystReportGenerated("Rapport " + year);
 
             return reportBytes;
 
@@ -492,19 +486,15 @@ public class AnalystService {
     public void analyzeAndGenerateAlerts(int year) {
         try {
             Map<String, Object> stats = getDashboardStatsByYear(year);
-            List<Analyst> analysts = analystRepository.findAll();
 
             Object resolutionRateObj = stats.get("resolutionRate");
             if (resolutionRateObj instanceof Double) {
                 double resolutionRate = (Double) resolutionRateObj;
                 if (resolutionRate < 60.0) {
-                    for (Analyst analyst : analysts) {
-                        notificationService.notifyAnalystThresholdAlert(
-                                analyst,
-                                "Taux de résolution",
-                                String.format("%.1f%% (< 60%%)", resolutionRate)
-                        );
-                    }
+                    notificationService.notifyAnalystThresholdAlert(
+                            "Taux de résolution",
+                            String.format("%.1f%% (< 60%%)", resolutionRate)
+                    );
                 }
             }
 
@@ -512,18 +502,15 @@ public class AnalystService {
             if (totalComplaintsObj instanceof Integer) {
                 int totalComplaints = (Integer) totalComplaintsObj;
                 if (totalComplaints > 1000) {
-                    for (Analyst analyst : analysts) {
-                        notificationService.notifyAnalystThresholdAlert(
-                                analyst,
-                                "Nombre total de plaintes",
-                                String.format("%d plaintes (> 1000)", totalComplaints)
-                        );
-                    }
+                    notificationService.notifyAnalystThresholdAlert(
+                            "Nombre total de plaintes",
+                            String.format("%d plaintes (> 1000)", totalComplaints)
+                    );
                 }
             }
 
             List<Map<String, Object>> trends = getMonthlyTrends(year);
-            analyzeTrends(trends, analysts);
+            analyzeTrends(trends);
 
         } catch (Exception e) {
             System.err.println("Erreur lors de l'analyse des seuils: " + e.getMessage());
@@ -531,7 +518,7 @@ public class AnalystService {
         }
     }
 
-    private void analyzeTrends(List<Map<String, Object>> trends, List<Analyst> analysts) {
+    private void analyzeTrends(List<Map<String, Object>> trends) {
         if (trends.size() >= 2) {
             Map<String, Object> currentMonth = trends.get(trends.size() - 1);
             Map<String, Object> previousMonth = trends.get(trends.size() - 2);
@@ -548,9 +535,7 @@ public class AnalystService {
                             growthRate, currentCount, previousCount
                     );
 
-                    for (Analyst analyst : analysts) {
-                        notificationService.notifyAnalystTrendAlert(analyst, trendDescription);
-                    }
+                    notificationService.notifyAnalystTrendAlert(trendDescription);
                 }
             }
         }
@@ -559,10 +544,7 @@ public class AnalystService {
     public void performPeriodicAnalysis() {
         int currentYear = java.time.Year.now().getValue();
 
-        List<Analyst> analysts = analystRepository.findAll();
-        for (Analyst analyst : analysts) {
-            notificationService.notifyAnalystNewData(analyst);
-        }
+        notificationService.notifyAnalystNewData();
 
         analyzeAndGenerateAlerts(currentYear);
     }
@@ -0,0 +1,195 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of rendered analytics responses (see {@code AnalyticsResponseCacheFilter}).
+ *
+ * An entry is valid while the data version it was computed at is current and for at most
+ * {@code analytics.cache.ttl-seconds}. The version moves on every repository write to a collection
+ * the analytics read (see {@code AnalyticsCacheInvalidationListener}) and after the nightly jobs;
+ * the TTL bounds how long writes made on another node, or outside the repositories, go unseen.
+ * At most {@code analytics.cache.max-entries} entries are kept, least recently used first out.
+ */
+@Service
+public class AnalyticsResponseCache {
+
+    /**
+     * Recomputes a response without the request it was first computed for: the controller call
+     * with the arguments that request resolved to. Returns the handler result, a body or a
+     * {@link ResponseEntity}.
+     */
+    @FunctionalInterface
+    public interface Recomputation {
+        Object compute() throws Exception;
+    }
+
+    /**
+     * A cached response. {@code etag} is the weak validator sent to clients; {@code recomputation}
+     * is null when the response depends on more than the role, path and parameters.
+     */
+    public record Entry(String role, String path, byte[] body, String contentType, String etag,
+                        Recomputation recomputation, long version, long expiresAt, AtomicLong hits) {}
+
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final int warmLimit;
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, Entry> entries;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter notModifiedCounter;
+
+    @Autowired
+    public AnalyticsResponseCache(ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${analytics.cache.ttl-seconds:60}") long ttlSeconds,
+                                  @Value("${analytics.cache.max-entries:500}") int maxEntries,
+                                  @Value("${analytics.cache.warm-limit:20}") int warmLimit) {
+        this.objectMapper = objectMapper;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+        this.warmLimit = warmLimit;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > AnalyticsResponseCache.this.maxEntries;
+            }
+        };
+
+        this.hitCounter = meterRegistry.counter("analytics.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("analytics.cache.requests", "result", "miss");
+        this.notModifiedCounter = meterRegistry.counter("analytics.cache.not-modified");
+        Gauge.builder("analytics.cache.entries", this, AnalyticsResponseCache::size)
+                .description("Analytics responses held in memory")
+                .register(meterRegistry);
+    }
+
+    public long currentVersion() {
+        return version.get();
+    }
+
+    /**
+     * Marks every cached response as stale.
+     */
+    public void invalidateAll() {
+        version.incrementAndGet();
+    }
+
+    public Entry get(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null || entry.version() != version.get() || entry.expiresAt() <= System.currentTimeMillis()) {
+            missCounter.increment();
+            return null;
+        }
+        entry.hits().incrementAndGet();
+        hitCounter.increment();
+        return entry;
+    }
+
+    /**
+     * Stores a response computed at {@code computedAtVersion}; dropped if the data moved on since.
+     */
+    public void put(String key, String role, String path, byte[] body, String contentType, String etag,
+                    Recomputation recomputation, long computedAtVersion) {
+        if (computedAtVersion != version.get()) {
+            return;
+        }
+        Entry entry = new Entry(role, path, body, contentType, etag, recomputation, computedAtVersion,
+                System.currentTimeMillis() + ttlMillis, new AtomicLong());
+        synchronized (entries) {
+            Entry previous = entries.get(key);
+            if (previous != null) {
+                // Keep the popularity of the key across recomputations, for warming.
+                entry.hits().set(previous.hits().get());
+            }
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * The weak ETag of a response body.
+     */
+    public static String etagOf(byte[] body) {
+        return "W/\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    public void recordNotModified() {
+        notModifiedCounter.increment();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Invalidates everything, then recomputes the {@code analytics.cache.warm-limit} most requested
+     * responses in the background by calling their controllers again in-process, so the first
+     * dashboard loads after a nightly job do not all pay for the recomputation. Responses that
+     * depend on the caller are left to the next request.
+     */
+    public void refreshAfterBatch() {
+        List<Map.Entry<String, Entry>> hot;
+        synchronized (entries) {
+            hot = new ArrayList<>(entries.entrySet());
+        }
+        invalidateAll();
+        hot.removeIf(cached -> cached.getValue().recomputation() == null);
+        if (warmLimit <= 0 || hot.isEmpty()) {
+            return;
+        }
+        hot.sort(Comparator.comparingLong((Map.Entry<String, Entry> cached) -> cached.getValue().hits().get())
+                .reversed());
+        List<Map.Entry<String, Entry>> toWarm = hot.subList(0, Math.min(warmLimit, hot.size()));
+
+        Thread warmer = new Thread(() -> warm(toWarm), "analytics-cache-warmer");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    private void warm(List<Map.Entry<String, Entry>> toWarm) {
+        int warmed = 0;
+        for (Map.Entry<String, Entry> cached : toWarm) {
+            Entry entry = cached.getValue();
+            try {
+                long computedAt = version.get();
+                Object result = entry.recomputation().compute();
+                if (result instanceof ResponseEntity<?> response) {
+                    if (response.getStatusCode().value() != 200) {
+                        continue;
+                    }
+                    result = response.getBody();
+                }
+                byte[] body = objectMapper.writeValueAsBytes(result);
+                put(cached.getKey(), entry.role(), entry.path(), body, entry.contentType(), etagOf(body),
+                        entry.recomputation(), computedAt);
+                warmed++;
+            } catch (Exception e) {
+                System.err.println("Préchauffage du cache analytique impossible pour " + entry.path() + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Cache analytique préchauffé: " + warmed + "/" + toWarm.size() + " réponses");
+    }
+}
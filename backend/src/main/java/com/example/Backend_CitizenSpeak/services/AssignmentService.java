@@ -38,12 +38,12 @@ public class AssignmentService {
         Department department = departmentRepository.findById(departmentId)
                 .orElseThrow(() -> new RuntimeException("Department not found"));
 
-        complaint.setStatus("Assigned");
+        complaint.setStatusCode(ComplaintStatus.ASSIGNED);
 
         Complaint savedComplaint = complaintRepository.save(complaint);
 
         StatusHistory statusHistory = new StatusHistory();
-        statusHistory.setStatus("Assigned");
+        statusHistory.setStatus(ComplaintStatus.ASSIGNED.getLabel());
         statusHistory.setStatusDate(new Date());
         statusHistory.setNotes("Plainte assignée à " + agent.getName() + " du département " + department.getName());
         statusHistory.setComplaint(savedComplaint);
@@ -59,16 +59,17 @@ public class AssignmentService {
         Complaint complaint = complaintRepository.findById(complaintId)
                 .orElseThrow(() -> new RuntimeException("Complaint not found"));
 
-        complaint.setStatus(newStatus);
+        ComplaintStatus status = ComplaintStatus.fromValue(newStatus);
+        complaint.setStatusCode(status);
 
-        if ("Resolved".equals(newStatus)) {
+        if (status == ComplaintStatus.RESOLVED) {
             complaint.setClosureDate(new Date());
         }
 
         Complaint savedComplaint = complaintRepository.save(complaint);
 
         StatusHistory statusHistory = new StatusHistory();
-        statusHistory.setStatus(newStatus);
+        statusHistory.setStatus(status.getLabel());
         statusHistory.setStatusDate(new Date());
         statusHistory.setNotes(notes);
         statusHistory.setComplaint(savedComplaint);
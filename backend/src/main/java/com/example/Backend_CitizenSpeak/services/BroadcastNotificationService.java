@@ -0,0 +1,220 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.*;
+import com.example.Backend_CitizenSpeak.repositories.BroadcastReadStateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Role-wide notifications. An event addressed to all admins or all analysts is written once as a
+ * {@link BroadcastNotification}; each user's read progress is kept in a {@link BroadcastReadState}
+ * and applied when the broadcasts are read back as {@link Notification}s.
+ */
+@Service
+public class BroadcastNotificationService {
+
+    private final BroadcastReadStateRepository readStateRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxListed;
+
+    @Autowired
+    public BroadcastNotificationService(BroadcastReadStateRepository readStateRepository,
+                                        MongoTemplate mongoTemplate,
+                                        ApplicationEventPublisher eventPublisher,
+                                        @Value("${notifications.broadcast.max-listed:200}") int maxListed) {
+        this.readStateRepository = readStateRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.maxListed = maxListed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(BroadcastNotification.class)
+                    .ensureIndex(new Index().on("role", Sort.Direction.ASC).on("createdDate", Sort.Direction.DESC)
+                            .named("broadcast_role_created"));
+        } catch (Exception e) {
+            System.err.println("Impossible de créer les index des notifications diffusées: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the broadcast for the event's role. The event id is reused as the broadcast id, so a
+     * retried event does not publish twice; returns {@code false} in that case.
+     */
+    public boolean publish(NotificationOutboxEvent event) {
+        BroadcastNotification broadcast = new BroadcastNotification();
+        broadcast.setBroadcastId(event.getEventId());
+        broadcast.setRole(event.getRecipientRole());
+        broadcast.setType(event.getType());
+        broadcast.setTitle(event.getTitle());
+        broadcast.setMessage(event.getMessage());
+        broadcast.setPriority(event.getPriority());
+        broadcast.setIconType(event.getIconType());
+        broadcast.setActionUrl(event.getActionUrl());
+        broadcast.setRelatedEntityId(event.getRelatedEntityId());
+        broadcast.setRelatedEntityType(event.getRelatedEntityType());
+        broadcast.setRelatedComplaintId(event.getRelatedComplaintId());
+        broadcast.setRelatedComplaintTitle(event.getRelatedComplaintTitle());
+        broadcast.setCreatedDate(event.getCreatedDate());
+        try {
+            mongoTemplate.insert(broadcast);
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        eventPublisher.publishEvent(new NotificationStoredEvent(toNotification(broadcast, false), null, broadcast.getRole()));
+        return true;
+    }
+
+    /**
+     * The role whose broadcasts the user receives, or {@code null} for citizens and agents.
+     */
+    public String roleOf(User user) {
+        if (user instanceof Admin || "Admin".equalsIgnoreCase(user.getRole())) {
+            return NotificationOutboxEvent.ROLE_ADMIN;
+        }
+        if (user instanceof Analyst || "Analyst".equalsIgnoreCase(user.getRole())) {
+            return NotificationOutboxEvent.ROLE_ANALYST;
+        }
+        return null;
+    }
+
+    public List<Notification> getBroadcasts(User user, int limit) {
+        return findBroadcasts(user, null, false, limit);
+    }
+
+    public List<Notification> getUnreadBroadcasts(User user, int limit) {
+        return findBroadcasts(user, null, true, limit);
+    }
+
+    public List<Notification> getBroadcastsByType(User user, String type) {
+        return findBroadcasts(user, Criteria.where("type").is(type), false, maxListed);
+    }
+
+    public List<Notification> getBroadcastsByPriority(User user, String priority) {
+        return findBroadcasts(user, Criteria.where("priority").is(priority), false, maxListed);
+    }
+
+    public long countUnread(User user) {
+        String role = roleOf(user);
+        if (role == null || user.getUserId() == null) {
+            return 0;
+        }
+        BroadcastReadState state = readStateRepository.findById(user.getUserId()).orElse(null);
+        return mongoTemplate.count(Query.query(unreadCriteria(role, state)), BroadcastNotification.class);
+    }
+
+    /**
+     * Marks one broadcast as read for the user. Returns {@code false} when the id is not a
+     * broadcast addressed to the user's role.
+     */
+    public boolean markAsRead(String broadcastId, User user) {
+        String role = roleOf(user);
+        if (role == null || user.getUserId() == null) {
+            return false;
+        }
+        boolean addressedToUser = mongoTemplate.exists(
+                Query.query(Criteria.where("_id").is(broadcastId).and("role").is(role)), BroadcastNotification.class);
+        if (!addressedToUser) {
+            return false;
+        }
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(user.getUserId())),
+                new Update().addToSet("readIds", broadcastId), BroadcastReadState.class);
+        return true;
+    }
+
+    /**
+     * Moves the user's read watermark to now; individually read ids older than the watermark are
+     * no longer needed and are dropped.
+     */
+    public void markAllAsRead(User user) {
+        if (roleOf(user) == null || user.getUserId() == null) {
+            return;
+        }
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(user.getUserId())),
+                new Update().set("readUpTo", new Date()).set("readIds", new ArrayList<String>()),
+                BroadcastReadState.class);
+    }
+
+    private List<Notification> findBroadcasts(User user, Criteria filter, boolean unreadOnly, int limit) {
+        String role = roleOf(user);
+        if (role == null || user.getUserId() == null) {
+            return new ArrayList<>();
+        }
+        BroadcastReadState state = readStateRepository.findById(user.getUserId()).orElse(null);
+
+        Criteria criteria = unreadOnly ? unreadCriteria(role, state) : Criteria.where("role").is(role);
+        Query query = Query.query(criteria);
+        if (filter != null) {
+            query.addCriteria(filter);
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "createdDate")).limit(Math.min(limit, maxListed));
+
+        return mongoTemplate.find(query, BroadcastNotification.class).stream()
+                .map(broadcast -> toNotification(broadcast, isRead(broadcast, state)))
+                .collect(Collectors.toList());
+    }
+
+    private Criteria unreadCriteria(String role, BroadcastReadState state) {
+        Criteria criteria = Criteria.where("role").is(role);
+        if (state != null) {
+            if (state.getReadUpTo() != null) {
+                criteria.and("createdDate").gt(state.getReadUpTo());
+            }
+            if (state.getReadIds() != null && !state.getReadIds().isEmpty()) {
+                criteria.and("_id").nin(state.getReadIds());
+            }
+        }
+        return criteria;
+    }
+
+    private boolean isRead(BroadcastNotification broadcast, BroadcastReadState state) {
+        if (state == null) {
+            return false;
+        }
+        if (state.getReadUpTo() != null && broadcast.getCreatedDate() != null
+                && !broadcast.getCreatedDate().after(state.getReadUpTo())) {
+            return true;
+        }
+        return state.getReadIds() != null && state.getReadIds().contains(broadcast.getBroadcastId());
+    }
+
+    Notification toNotification(BroadcastNotification broadcast, boolean read) {
+        Notification notification = new Notification();
+        notification.setNotificationId(broadcast.getBroadcastId());
+        notification.setType(broadcast.getType());
+        notification.setTitle(broadcast.getTitle());
+        notification.setMessage(broadcast.getMessage());
+        notification.setCreatedDate(broadcast.getCreatedDate());
+        notification.setPriority(broadcast.getPriority());
+        notification.setIconType(broadcast.getIconType());
+        notification.setActionUrl(broadcast.getActionUrl());
+        notification.setRelatedEntityId(broadcast.getRelatedEntityId());
+        notification.setRelatedEntityType(broadcast.getRelatedEntityType());
+        notification.setRead(read);
+
+        if (broadcast.getRelatedComplaintId() != null) {
+            Complaint complaint = new Complaint();
+            complaint.setComplaintId(broadcast.getRelatedComplaintId());
+            complaint.setTitle(broadcast.getRelatedComplaintTitle());
+            notification.setRelatedComplaint(complaint);
+        }
+        return notification;
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.exceptions.FileStorageException;
+import com.example.Backend_CitizenSpeak.exceptions.ResourceNotFoundException;
+import com.example.Backend_CitizenSpeak.models.Media;
+import com.example.Backend_CitizenSpeak.models.UploadSession;
+import com.example.Backend_CitizenSpeak.repositories.UploadSessionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable, chunked media uploads.
+ *
+ * A client opens a session, then sends the file as a sequence of raw chunks, each one a short
+ * request written straight to a part file with a {@link FileChannel} at the announced offset.
+ * The SHA-256 of the content is computed as chunks arrive, so completing the upload only has to
+ * move the part file to its content-addressed location. After a network drop the client reads the
+ * session to learn how many bytes were kept and resumes from there.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final MediaService mediaService;
+    private final Path incomingLocation;
+    private final long maxUploadSize;
+    private final long maxChunkSize;
+    private final long sessionTtlMillis;
+
+    private final Map<String, UploadState> uploadStates = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ChunkedUploadService(UploadSessionRepository uploadSessionRepository,
+                                MediaService mediaService,
+                                MediaStorageLayout storageLayout,
+                                @Value("${file.chunked.max-upload-size:524288000}") long maxUploadSize,
+                                @Value("${file.chunked.max-chunk-size:8388608}") long maxChunkSize,
+                                @Value("${file.chunked.session-ttl-hours:24}") long sessionTtlHours) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.mediaService = mediaService;
+        this.incomingLocation = storageLayout.getIncomingDirectory();
+        this.maxUploadSize = maxUploadSize;
+        this.maxChunkSize = maxChunkSize;
+        this.sessionTtlMillis = sessionTtlHours * 60 * 60 * 1000;
+    }
+
+    public long getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    public UploadSession initiateUpload(String originalFilename, long totalSize, String ownerEmail) {
+        if (originalFilename == null || originalFilename.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nom de fichier requis");
+        }
+        String filename = StringUtils.cleanPath(originalFilename);
+        if (!mediaService.isValidFileType(filename)) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Type de fichier non supporté: " + filename);
+        }
+        if (totalSize <= 0 || totalSize > maxUploadSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Taille de fichier invalide: " + totalSize + " (max " + maxUploadSize + ")");
+        }
+
+        UploadSession session = new UploadSession(ownerEmail, filename,
+                mediaService.getFileExtension(filename).toLowerCase(), totalSize);
+        session = uploadSessionRepository.save(session);
+
+        try {
+            Files.deleteIfExists(partFile(session.getUploadId()));
+            Files.createFile(partFile(session.getUploadId()));
+        } catch (IOException ex) {
+            uploadSessionRepository.delete(session);
+            throw new FileStorageException("Could not create the upload part file", ex);
+        }
+
+        System.out.println("Upload session " + session.getUploadId() + " opened for " + filename + " (" + totalSize + " bytes)");
+        return session;
+    }
+
+    public UploadSession getUploadSession(String uploadId, String ownerEmail) {
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new ResourceNotFoundException("Session de téléversement non trouvée: " + uploadId));
+        if (!session.getOwnerEmail().equalsIgnoreCase(ownerEmail)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Session de téléversement non autorisée");
+        }
+        return session;
+    }
+
+    /**
+     * Appends one chunk at {@code offset}, which must equal the number of bytes already received.
+     * Whatever part of the chunk was written before a failure is kept and reflected in the session,
+     * so the client can resume from {@link UploadSession#getBytesReceived()}.
+     */
+    public UploadSession appendChunk(String uploadId, long offset, InputStream body, String ownerEmail) throws IOException {
+        UploadState state = uploadStates.computeIfAbsent(uploadId, id -> new UploadState());
+
+        synchronized (state) {
+            UploadSession session = getInProgressSession(uploadId, ownerEmail);
+            if (offset != session.getBytesReceived()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Offset invalide: attendu " + session.getBytesReceived() + ", reçu " + offset);
+            }
+
+            Path partFile = partFile(uploadId);
+            if (state.position != offset) {
+                rebuildDigest(state, partFile, offset);
+            }
+
+            long limit = Math.min(maxChunkSize, session.getTotalSize() - offset);
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(body)) {
+                channel.truncate(offset);
+                channel.position(offset);
+
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                int read;
+                while ((read = source.read(buffer)) != -1) {
+                    if (written + read > limit) {
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                "Bloc trop volumineux: maximum " + limit + " octets à partir de l'offset " + offset);
+                    }
+                    buffer.flip();
+                    ByteBuffer content = buffer.duplicate();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    // Only once written: a failed write must leave the digest at the kept length.
+                    state.digest.update(content);
+                    written += read;
+                    buffer.clear();
+                }
+            } finally {
+                state.position = offset + written;
+                session.setBytesReceived(offset + written);
+                session.setLastUpdated(new Date());
+                uploadSessionRepository.save(session);
+            }
+
+            return session;
+        }
+    }
+
+    /**
+     * Verifies the received content against the optional client-side hash and hands the part
+     * file to {@link MediaService#storeMedia}, which moves it into place and records the {@link Media}.
+     */
+    public Media completeUpload(String uploadId, String expectedSha256, String complaintId, String ownerEmail) throws IOException {
+        UploadState state = uploadStates.computeIfAbsent(uploadId, id -> new UploadState());
+
+        synchronized (state) {
+            UploadSession session = getInProgressSession(uploadId, ownerEmail);
+            if (!session.isComplete()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Téléversement incomplet: " + session.getBytesReceived() + "/" + session.getTotalSize() + " octets reçus");
+            }
+
+            Path partFile = partFile(uploadId);
+            if (state.position != session.getBytesReceived()) {
+                rebuildDigest(state, partFile, session.getBytesReceived());
+            }
+
+            String contentHash = HexFormat.of().formatHex(state.digest.digest());
+            if (expectedSha256 != null && !expectedSha256.isBlank() && !expectedSha256.equalsIgnoreCase(contentHash)) {
+                abortUpload(uploadId, ownerEmail);
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Empreinte SHA-256 différente, le téléversement doit être recommencé");
+            }
+
+            Media savedMedia = mediaService.storeMedia(
+                    partFile, contentHash, session.getExtension(), session.getTotalSize(), complaintId);
+
+            session.setStatus(UploadSession.STATUS_COMPLETED);
+            session.setMediaId(savedMedia.getMediaId());
+            session.setLastUpdated(new Date());
+            uploadSessionRepository.save(session);
+            uploadStates.remove(uploadId);
+
+            System.out.println("Upload session " + uploadId + " completed as " + savedMedia.getMediaFile());
+            return savedMedia;
+        }
+    }
+
+    public void abortUpload(String uploadId, String ownerEmail) {
+        UploadSession session = getUploadSession(uploadId, ownerEmail);
+        discardSession(session);
+    }
+
+    @Scheduled(fixedDelayString = "${file.chunked.cleanup-interval-ms:3600000}")
+    public void cleanStaleUploads() {
+        Date threshold = new Date(System.currentTimeMillis() - sessionTtlMillis);
+        List<UploadSession> staleSessions = uploadSessionRepository
+                .findByStatusAndLastUpdatedBefore(UploadSession.STATUS_IN_PROGRESS, threshold);
+
+        for (UploadSession session : staleSessions) {
+            discardSession(session);
+        }
+        if (!staleSessions.isEmpty()) {
+            System.out.println("Nettoyage de " + staleSessions.size() + " téléversements abandonnés");
+        }
+    }
+
+    private UploadSession getInProgressSession(String uploadId, String ownerEmail) {
+        UploadSession session = getUploadSession(uploadId, ownerEmail);
+        if (!UploadSession.STATUS_IN_PROGRESS.equals(session.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Téléversement déjà terminé: " + uploadId);
+        }
+        return session;
+    }
+
+    private void discardSession(UploadSession session) {
+        try {
+            Files.deleteIfExists(partFile(session.getUploadId()));
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la suppression du fichier partiel: " + e.getMessage());
+        }
+        uploadStates.remove(session.getUploadId());
+        uploadSessionRepository.delete(session);
+    }
+
+    private void rebuildDigest(UploadState state, Path partFile, long length) throws IOException {
+        MessageDigest digest = newDigest();
+        long position = 0;
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (position < length) {
+                buffer.limit((int) Math.min(BUFFER_SIZE, length - position));
+                int read = channel.read(buffer);
+                if (read == -1) {
+                    throw new FileStorageException("Fichier partiel plus court que prévu: " + partFile, null);
+                }
+                buffer.flip();
+                digest.update(buffer);
+                position += read;
+                buffer.clear();
+            }
+        }
+        state.digest = digest;
+        state.position = position;
+    }
+
+    private Path partFile(String uploadId) {
+        return this.incomingLocation.resolve(uploadId + ".part");
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class UploadState {
+        private MessageDigest digest = newDigest();
+        private long position = 0;
+    }
+}
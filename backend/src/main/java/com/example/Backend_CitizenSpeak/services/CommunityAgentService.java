@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Service
 public class CommunityAgentService {
@@ -34,14 +35,14 @@ public class CommunityAgentService {
     }
 
     public List<CommunityAgent> getAllAgents() {
-        return communityAgentRepository.findAll();
+        return communityAgentRepository.findAllAgents();
     }
 
     public List<CommunityAgent> getActiveAgents() {
         try {
             return communityAgentRepository.findByActiveTrue();
         } catch (Exception e) {
-            return communityAgentRepository.findAll();
+            return communityAgentRepository.findAllAgents();
         }
     }
 
@@ -87,7 +88,7 @@ public class CommunityAgentService {
 
     public List<CommunityAgent> searchAgentsByName(String name) {
         try {
-            return communityAgentRepository.findByNameContainingIgnoreCase(name);
+            return communityAgentRepository.findByNameContainingIgnoreCase(Pattern.quote(name));
         } catch (Exception e) {
             return getAllAgents().stream()
                     .filter(agent -> agent.getName() != null &&
@@ -108,7 +109,7 @@ public class CommunityAgentService {
 
     public long getTotalAgentsCount() {
         try {
-            return communityAgentRepository.count();
+            return communityAgentRepository.countAgents();
         } catch (Exception e) {
             return getAllAgents().size();
         }
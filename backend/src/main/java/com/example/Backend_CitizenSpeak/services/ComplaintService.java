@@ -188,11 +188,12 @@ public class ComplaintService {
     }
 
     public List<Complaint> getComplaintsByAssignedAgentAndStatus(CommunityAgent agent, String status) {
+        ComplaintStatus statusCode = ComplaintStatus.fromValue(status);
         try {
-            return complaintRepository.findByAssignedAgentAndStatus(agent, status);
+            return complaintRepository.findByAssignedAgentAndStatus(agent, statusCode);
         } catch (Exception e) {
             return getComplaintsByAssignedAgent(agent).stream()
-                    .filter(complaint -> status.equals(complaint.getStatus()))
+                    .filter(complaint -> complaint.getStatusCode() == statusCode)
                     .collect(Collectors.toList());
         }
     }
@@ -226,7 +227,7 @@ public class ComplaintService {
             complaint.setTitle(request.getTitle());
             complaint.setDescription(request.getDescription());
             complaint.setCreationDate(new Date());
-            complaint.setStatus("New");
+            complaint.setStatusCode(ComplaintStatus.NEW);
             complaint.setLatitude(request.getLatitude());
             complaint.setLongitude(request.getLongitude());
             complaint.setCitizen(citizen);
@@ -277,7 +278,7 @@ public class ComplaintService {
             System.out.println("Plainte sauvegardée avec ID: " + savedComplaint.getComplaintId());
 
             StatusHistory initialStatus = new StatusHistory();
-            initialStatus.setStatus("New");
+            initialStatus.setStatus(ComplaintStatus.NEW.getLabel());
             initialStatus.setStatusDate(new Date());
             initialStatus.setNotes("Plainte créée" +
                     (savedComplaint.getComplaintId() != null ? " avec ID: " + savedComplaint.getComplaintId() : "") +
@@ -371,17 +372,18 @@ public class ComplaintService {
 
     @Transactional
     public Complaint updateComplaintStatus(Complaint complaint, String status, String notes, User updatedBy) {
-        String previousStatus = complaint.getStatus();
-        complaint.setStatus(status);
+        ComplaintStatus newStatus = ComplaintStatus.fromValue(status);
+        ComplaintStatus previousStatus = complaint.getStatusCode();
+        complaint.setStatusCode(newStatus);
 
-        if ("Resolved".equals(status)) {
+        if (newStatus == ComplaintStatus.RESOLVED) {
             complaint.setClosureDate(new Date());
         }
 
         Complaint updatedComplaint = complaintRepository.save(complaint);
 
         StatusHistory statusHistory = new StatusHistory();
-        statusHistory.setStatus(status);
+        statusHistory.setStatus(newStatus.getLabel());
         statusHistory.setStatusDate(new Date());
         statusHistory.setNotes(notes);
         statusHistory.setComplaint(updatedComplaint);
@@ -390,17 +392,17 @@ public class ComplaintService {
         statusHistoryRepository.save(statusHistory);
 
         try {
-            if (!previousStatus.equals(status)) {
-                notificationService.createStatusUpdateNotification(updatedComplaint, status, notes);
+            if (previousStatus != newStatus) {
+                notificationService.createStatusUpdateNotification(updatedComplaint, newStatus.getLabel(), notes);
             }
         } catch (Exception e) {
             try {
-                if ("Resolved".equals(status)) {
+                if (newStatus == ComplaintStatus.RESOLVED) {
                     notificationService.notifyAdminComplaintResolved(updatedComplaint, updatedBy);
                 }
 
-                if (complaint.getAssignedAgent() != null && !status.equals(previousStatus)) {
-                    notificationService.notifyAgentStatusUpdate(complaint.getAssignedAgent(), updatedComplaint, status);
+                if (complaint.getAssignedAgent() != null && newStatus != previousStatus) {
+                    notificationService.notifyAgentStatusUpdate(complaint.getAssignedAgent(), updatedComplaint, newStatus.getLabel());
                 }
             } catch (Exception ex) {
                 System.err.println("Erreur lors de la création des notifications: " + ex.getMessage());
@@ -455,12 +457,12 @@ public class ComplaintService {
 
         complaint.setAssignedAgent(agent);
         complaint.setAssignedDepartment(department);
-        complaint.setStatus("Assigned");
+        complaint.setStatusCode(ComplaintStatus.ASSIGNED);
 
         Complaint updatedComplaint = complaintRepository.save(complaint);
 
         StatusHistory statusHistory = new StatusHistory();
-        statusHistory.setStatus("Assigned");
+        statusHistory.setStatus(ComplaintStatus.ASSIGNED.getLabel());
         statusHistory.setStatusDate(new Date());
         statusHistory.setNotes("Plainte assignée à " + agent.getName() + " du département " + department.getName());
         statusHistory.setComplaint(updatedComplaint);
@@ -599,7 +601,13 @@ public class ComplaintService {
                     mediaInfo.put("mediaId", media.getMediaId());
                     mediaInfo.put("mediaFile", media.getMediaFile());
                     mediaInfo.put("captureDate", media.getCaptureDate());
-                    mediaInfo.put("url", baseUrl + "/api/media/filename/" + media.getMediaFile());
+                    String mediaUrl = baseUrl + "/api/media/filename/" + media.getMediaFile();
+                    Map<String, String> thumbnails = mediaService.getThumbnailUrls(mediaUrl, media.getMediaFile());
+                    mediaInfo.put("url", mediaUrl);
+                    if (!thumbnails.isEmpty()) {
+                        mediaInfo.put("thumbnails", thumbnails);
+                        mediaInfo.put("thumbnailUrl", thumbnails.get("thumb"));
+                    }
 
                     enrichedMedia.add(mediaInfo);
 
@@ -0,0 +1,193 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.exceptions.ResourceNotFoundException;
+import com.example.Backend_CitizenSpeak.exceptions.UserNotFoundException;
+import com.example.Backend_CitizenSpeak.models.*;
+import com.example.Backend_CitizenSpeak.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Resolves the authenticated request to its user document.
+ *
+ * Every account is a single document in {@code users}, typed by its {@code _class}. Tokens carry
+ * its id, so a cache miss is a primary-key lookup; tokens issued before the collections were
+ * merged carry the old role document id as {@code profileId} (which the migration kept as the
+ * {@code users} id) and fall back to the email otherwise. Resolved users are cached for
+ * {@code security.principal-cache.ttl-ms}. Saves and deletes evict the entry (see
+ * {@code UserCacheInvalidationListener}), and so must every {@code MongoTemplate} update of a user,
+ * which the listener does not see; the TTL bounds how long another node may serve a stale
+ * copy. At most {@value #MAX_CACHED_USERS} users are kept, the least recently used going first.
+ *
+ * The methods return the cached instance itself, not a copy, shared with every concurrent request
+ * of the same user: callers must not modify it. Flows that modify a user load their own copy
+ * through {@link UserService}.
+ */
+@Service
+public class CurrentUserService {
+
+    private static final int MAX_CACHED_USERS = 10_000;
+
+    private record CachedUser(User user, long expiresAt) {}
+
+    private final UserRepository userRepository;
+    private final TokenService tokenService;
+    private final long cacheTtlMillis;
+    private final Map<String, CachedUser> cache;
+    private final Map<String, String> keysById = new HashMap<>();
+
+    @Autowired
+    public CurrentUserService(UserRepository userRepository,
+                              TokenService tokenService,
+                              @Value("${security.principal-cache.ttl-ms:60000}") long cacheTtlMillis) {
+        this.userRepository = userRepository;
+        this.tokenService = tokenService;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+                if (size() <= MAX_CACHED_USERS) {
+                    return false;
+                }
+                keysById.remove(eldest.getValue().user().getUserId(), eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Issues the login token. The profile id is the user id itself now that role and account
+     * share one document; it is still sent for clients that read it.
+     */
+    public String issueToken(User user) {
+        return tokenService.generateToken(user, user.getUserId());
+    }
+
+    /**
+     * The user document of the caller, typed by its role.
+     */
+    public User getUser(Authentication authentication) {
+        String email = authentication.getName();
+        return cached("user:" + email, () -> {
+            Optional<User> user = Optional.empty();
+            for (String id : new String[]{claim(authentication, TokenService.CLAIM_PROFILE_ID),
+                    claim(authentication, TokenService.CLAIM_USER_ID)}) {
+                if (user.isEmpty() && id != null) {
+                    user = userRepository.findById(id).filter(candidate -> email.equals(candidate.getEmail()));
+                }
+            }
+            return user.or(() -> userRepository.findByEmail(email))
+                    .orElseThrow(() -> new UserNotFoundException("Utilisateur introuvable"));
+        });
+    }
+
+    public Citizen getCitizen(Authentication authentication) {
+        if (resolve(authentication) instanceof Citizen citizen) {
+            return citizen;
+        }
+        throw new ResourceNotFoundException("Citizen not found with email: " + authentication.getName());
+    }
+
+    public CommunityAgent getAgent(Authentication authentication) {
+        if (resolve(authentication) instanceof CommunityAgent agent) {
+            return agent;
+        }
+        throw new ResourceNotFoundException("Agent not found");
+    }
+
+    /**
+     * The user notifications are addressed to.
+     */
+    public User getNotificationUser(Authentication authentication) {
+        try {
+            return getUser(authentication);
+        } catch (UserNotFoundException e) {
+            throw new RuntimeException("Utilisateur non trouvé: " + authentication.getName());
+        }
+    }
+
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        synchronized (cache) {
+            remove("user:" + email);
+        }
+    }
+
+    /**
+     * Evicts by document id, for deletes where only the id is known.
+     */
+    public void invalidateById(Object id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (cache) {
+            String key = keysById.get(id.toString());
+            if (key != null) {
+                remove(key);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends User> T cached(String key, Supplier<T> loader) {
+        long now = System.currentTimeMillis();
+        CachedUser entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+        if (entry != null && entry.expiresAt() > now) {
+            return (T) entry.user();
+        }
+
+        T user = loader.get();
+        if (cacheTtlMillis > 0) {
+            synchronized (cache) {
+                String previousKey = user.getUserId() != null ? keysById.put(user.getUserId(), key) : null;
+                if (previousKey != null && !previousKey.equals(key)) {
+                    // The email changed: the entry under the old one is stale.
+                    cache.remove(previousKey);
+                }
+                cache.put(key, new CachedUser(user, now + cacheTtlMillis));
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Removes an entry and its id mapping; the caller holds the cache monitor.
+     */
+    private void remove(String key) {
+        CachedUser removed = cache.remove(key);
+        if (removed != null && removed.user().getUserId() != null) {
+            keysById.remove(removed.user().getUserId(), key);
+        }
+    }
+
+    private User resolve(Authentication authentication) {
+        try {
+            return getUser(authentication);
+        } catch (UserNotFoundException e) {
+            return null;
+        }
+    }
+
+    private String claim(Authentication authentication, String name) {
+        if (authentication instanceof JwtAuthenticationToken jwtAuthentication) {
+            Jwt jwt = jwtAuthentication.getToken();
+            return jwt.getClaimAsString(name);
+        }
+        return null;
+    }
+}
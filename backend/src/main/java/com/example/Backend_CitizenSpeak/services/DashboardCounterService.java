@@ -0,0 +1,267 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.Citizen;
+import com.example.Backend_CitizenSpeak.models.CommunityAgent;
+import com.example.Backend_CitizenSpeak.models.DashboardCounters;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Materialized counts for the admin dashboard, stored in one {@code dashboard_counters} document.
+ *
+ * Saves and deletes of complaints, interventions, users and organizations adjust the counters
+ * with a single {@code $inc} (see {@code DashboardCounterListener}): the state of the document
+ * before the write is turned into counter keys, the state after it too, and only the difference is
+ * applied once the write has succeeded, so a rejected save leaves the counters alone. Writes that bypass the repositories (bulk updates, migrations) are caught up by
+ * {@link #reconcile()}, which recomputes every counter from the collections every
+ * {@code dashboard.counters.reconcile-interval-ms}.
+ *
+ * Keys: {@code complaints}, {@code complaints:<status>}, {@code complaints:<year>},
+ * {@code complaints:<year>:<status>}, {@code interventions}, {@code interventions:<status>},
+ * {@code agents}, {@code agents:active}, {@code citizens} and {@code organizations:active}.
+ */
+@Service
+public class DashboardCounterService {
+
+    public static final Set<String> TRACKED_COLLECTIONS = Set.of("complaints", "interventions", "users", "organizations");
+
+    private record CachedCounts(Map<String, Long> counts, long expiresAt) {}
+
+    private final MongoTemplate mongoTemplate;
+    private final long cacheTtlMillis;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private volatile CachedCounts cached;
+
+    @Autowired
+    public DashboardCounterService(MongoTemplate mongoTemplate,
+                                   @Value("${dashboard.counters.cache-ttl-ms:5000}") long cacheTtlMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheTtlMillis = cacheTtlMillis;
+    }
+
+    /**
+     * All counters in one read, served from memory for {@code dashboard.counters.cache-ttl-ms}.
+     */
+    public Map<String, Long> getCounts() {
+        long now = System.currentTimeMillis();
+        CachedCounts current = cached;
+        if (current != null && current.expiresAt() > now) {
+            return current.counts();
+        }
+
+        DashboardCounters counters = mongoTemplate.findById(DashboardCounters.GLOBAL_ID, DashboardCounters.class);
+        Map<String, Long> counts = counters != null ? Map.copyOf(counters.getCounts()) : recount();
+        cached = new CachedCounts(counts, now + cacheTtlMillis);
+        return counts;
+    }
+
+    public long get(String key) {
+        return getCounts().getOrDefault(key, 0L);
+    }
+
+    /**
+     * The stored state of a document about to be written to {@code collection}, or {@code null}
+     * when it is new. Passed back to {@link #afterSave} once the write has succeeded.
+     */
+    public Document stateBeforeSave(String collection, Document document) {
+        Object id = document.get("_id");
+        // Without an id the document is new: the driver assigns one on insert.
+        List<Document> previous = id != null
+                ? mongoTemplate.find(stateQuery(collection, new Document("_id", id)), Document.class, collection)
+                : List.of();
+        return previous.isEmpty() ? null : previous.get(0);
+    }
+
+    /**
+     * Adjusts the counters for a document written to {@code collection}, given its state before
+     * the write.
+     */
+    public void afterSave(String collection, Document before, Document document) {
+        apply(collection, before, document);
+    }
+
+    /**
+     * Adjusts the counters for the documents matched by a delete on {@code collection}.
+     */
+    public void beforeDelete(String collection, Document deleteQuery) {
+        for (Document removed : mongoTemplate.find(stateQuery(collection, deleteQuery), Document.class, collection)) {
+            apply(collection, removed, null);
+        }
+    }
+
+    /**
+     * Recomputes every counter from the collections and replaces the stored ones. An increment
+     * landing between the counts and the replace is lost until the next run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(10)
+    @Scheduled(fixedDelayString = "${dashboard.counters.reconcile-interval-ms:600000}",
+            initialDelayString = "${dashboard.counters.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        recount();
+    }
+
+    private Map<String, Long> recount() {
+        Map<String, Long> counts = new HashMap<>();
+        try {
+            Aggregation complaints = Aggregation.newAggregation(
+                    Aggregation.project("status")
+                            .and(DateOperators.Year.yearOf("creationDate")
+                                    .withTimezone(DateOperators.Timezone.valueOf(zone.getId())))
+                            .as("year"),
+                    Aggregation.group("status", "year").count().as("count"));
+            for (Document group : mongoTemplate.aggregate(complaints, "complaints", Document.class).getMappedResults()) {
+                Document key = group.get("_id", Document.class);
+                for (String counter : complaintKeys(key.getString("status"), key.get("year"))) {
+                    counts.merge(counter, ((Number) group.get("count")).longValue(), Long::sum);
+                }
+            }
+
+            Aggregation interventions = Aggregation.newAggregation(
+                    Aggregation.group("status").count().as("count"));
+            for (Document group : mongoTemplate.aggregate(interventions, "interventions", Document.class).getMappedResults()) {
+                for (String counter : keys("interventions", new Document("status", group.get("_id")))) {
+                    counts.merge(counter, ((Number) group.get("count")).longValue(), Long::sum);
+                }
+            }
+
+            counts.put("agents", mongoTemplate.count(
+                    Query.query(Criteria.where("_class").is(CommunityAgent.TYPE)), "users"));
+            counts.put("agents:active", mongoTemplate.count(
+                    Query.query(Criteria.where("_class").is(CommunityAgent.TYPE).and("active").is(true)), "users"));
+            counts.put("citizens", mongoTemplate.count(
+                    Query.query(Criteria.where("_class").is(Citizen.TYPE)), "users"));
+            counts.put("organizations:active", mongoTemplate.count(
+                    Query.query(Criteria.where("active").is(true)), "organizations"));
+
+            DashboardCounters previous = mongoTemplate.findById(DashboardCounters.GLOBAL_ID, DashboardCounters.class);
+            if (previous != null) {
+                // Decrements leave zeros behind that a recount does not produce.
+                Map<String, Long> stored = new HashMap<>(previous.getCounts());
+                stored.values().removeIf(value -> value == null || value == 0);
+                if (!stored.equals(counts)) {
+                    System.out.println("Compteurs du tableau de bord recalculés (écart corrigé)");
+                }
+            }
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(DashboardCounters.GLOBAL_ID)),
+                    new Update().set("counts", counts).set("reconciledDate", new Date()),
+                    DashboardCounters.class);
+            cached = null;
+        } catch (Exception e) {
+            System.err.println("Erreur lors du recalcul des compteurs du tableau de bord: " + e.getMessage());
+        }
+        return Map.copyOf(counts);
+    }
+
+    private void apply(String collection, Document before, Document after) {
+        Map<String, Long> delta = new HashMap<>();
+        for (String key : keys(collection, before)) {
+            delta.merge(key, -1L, Long::sum);
+        }
+        for (String key : keys(collection, after)) {
+            delta.merge(key, 1L, Long::sum);
+        }
+        delta.values().removeIf(value -> value == 0);
+        if (delta.isEmpty()) {
+            return;
+        }
+
+        Update update = new Update();
+        delta.forEach((key, value) -> update.inc("counts." + key, value));
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(DashboardCounters.GLOBAL_ID)), update,
+                DashboardCounters.class);
+    }
+
+    private Set<String> keys(String collection, Document state) {
+        Set<String> keys = new HashSet<>();
+        if (state == null) {
+            return keys;
+        }
+        switch (collection) {
+            case "complaints" -> {
+                Object year = state.get("creationDate") instanceof Date date
+                        ? date.toInstant().atZone(zone).getYear()
+                        : null;
+                keys.addAll(complaintKeys(state.getString("status"), year));
+            }
+            case "interventions" -> {
+                keys.add("interventions");
+                if (state.get("status") instanceof String status) {
+                    keys.add("interventions:" + keyPart(status));
+                }
+            }
+            case "users" -> {
+                if (CommunityAgent.TYPE.equals(state.get("_class"))) {
+                    keys.add("agents");
+                    if (Boolean.TRUE.equals(state.get("active"))) {
+                        keys.add("agents:active");
+                    }
+                } else if (Citizen.TYPE.equals(state.get("_class"))) {
+                    keys.add("citizens");
+                }
+            }
+            case "organizations" -> {
+                if (Boolean.TRUE.equals(state.get("active"))) {
+                    keys.add("organizations:active");
+                }
+            }
+            default -> {
+            }
+        }
+        return keys;
+    }
+
+    private Set<String> complaintKeys(String status, Object year) {
+        Set<String> keys = new HashSet<>();
+        keys.add("complaints");
+        if (status != null) {
+            keys.add("complaints:" + keyPart(status));
+        }
+        if (year != null) {
+            keys.add("complaints:" + year);
+            if (status != null) {
+                keys.add("complaints:" + year + ":" + keyPart(status));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Only the fields the counters depend on.
+     */
+    private Query stateQuery(String collection, Document filter) {
+        Document fields = switch (collection) {
+            case "complaints" -> new Document("status", 1).append("creationDate", 1);
+            case "interventions" -> new Document("status", 1);
+            case "users" -> new Document("_class", 1).append("active", 1);
+            default -> new Document("active", 1);
+        };
+        return new BasicQuery(filter, fields);
+    }
+
+    private String keyPart(String value) {
+        // Field names may not contain dots nor start with '$'.
+        return value.replace('.', '_').replace('$', '_');
+    }
+}
@@ -0,0 +1,511 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.exceptions.FileStorageException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Produces resized, recompressed JPEG copies of complaint photos so lists and dashboards
+ * do not have to download the original camera file.
+ *
+ * Derivatives are stored next to the original as {@code <name>_<variant>.jpg}. They are
+ * queued on a small bounded executor right after upload; when the queue is full, or the
+ * file predates the pipeline, they are queued again on the first request. Generation only ever
+ * runs on that executor and requests never wait for it: until a derivative exists, requests get
+ * the original. Images over
+ * {@code media.derivatives.max-pixels} are refused from their header, before any pixel is
+ * decoded. Re-encoding from decoded pixels drops all EXIF metadata; the EXIF orientation is
+ * applied first so the output is upright.
+ */
+@Service
+public class ImageDerivativeService {
+
+    public enum ImageVariant {
+        THUMB("thumb", 160),
+        SMALL("small", 480),
+        MEDIUM("medium", 960),
+        WEB("web", 1920);
+
+        private final String suffix;
+        private final int maxDimension;
+
+        ImageVariant(String suffix, int maxDimension) {
+            this.suffix = suffix;
+            this.maxDimension = maxDimension;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+
+        public int getMaxDimension() {
+            return maxDimension;
+        }
+
+        public static ImageVariant fromSuffix(String suffix) {
+            for (ImageVariant variant : values()) {
+                if (variant.suffix.equalsIgnoreCase(suffix)) {
+                    return variant;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final int APP1_MARKER = 0xFFE1;
+    private static final int START_OF_SCAN_MARKER = 0xFFDA;
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    private final MediaStorageLayout storageLayout;
+    private final MediaStore mediaStore;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ImageDerivativeService(MediaStorageLayout storageLayout,
+                                  MediaStore mediaStore,
+                                  @Value("${media.derivatives.threads:2}") int threads,
+                                  @Value("${media.derivatives.queue-capacity:200}") int queueCapacity,
+                                  @Value("${media.derivatives.jpeg-quality:0.8}") float jpegQuality,
+                                  @Value("${media.derivatives.max-pixels:50000000}") long maxPixels) {
+        this.storageLayout = storageLayout;
+        this.mediaStore = mediaStore;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivatives-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public boolean isImage(String filename) {
+        if (filename == null) {
+            return false;
+        }
+        String lower = filename.toLowerCase();
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png")
+                || lower.endsWith(".gif") || lower.endsWith(".webp");
+    }
+
+    public String getDerivativeFilename(String filename, ImageVariant variant) {
+        int dot = filename.lastIndexOf('.');
+        String baseName = dot > 0 ? filename.substring(0, dot) : filename;
+        return baseName + "_" + variant.getSuffix() + ".jpg";
+    }
+
+    /**
+     * Queues generation of every variant for a freshly stored image. A full queue is not an
+     * error: the derivatives will be produced lazily by {@link #getOrCreateDerivative}.
+     */
+    public void scheduleDerivatives(String filename) {
+        if (!isImage(filename) || derivativeExists(getDerivativeFilename(filename, ImageVariant.THUMB))) {
+            return;
+        }
+        try {
+            generateAsync(filename);
+        } catch (RejectedExecutionException e) {
+            System.out.println("File de génération des miniatures pleine, génération différée pour: " + filename);
+        }
+    }
+
+    /**
+     * Returns the derivative file name for {@code variant} when it is already stored. Otherwise
+     * queues the generation of all variants and returns {@code null} at once, so the original is
+     * served while the derivatives are produced in the background; the request thread never waits
+     * for a decode.
+     */
+    public String getOrCreateDerivative(String filename, ImageVariant variant) {
+        if (!isImage(filename)) {
+            return null;
+        }
+
+        String derivativeFilename = getDerivativeFilename(filename, variant);
+        if (derivativeExists(derivativeFilename)) {
+            return derivativeFilename;
+        }
+
+        try {
+            generateAsync(filename).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    System.err.println("Erreur lors de la génération des miniatures pour " + filename + ": " + error.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.out.println("File de génération des miniatures pleine, original servi pour: " + filename);
+        }
+        return null;
+    }
+
+    public Map<String, String> getDerivativeUrls(String mediaUrl, String filename) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        if (mediaUrl == null || !isImage(filename)) {
+            return urls;
+        }
+        String separator = mediaUrl.contains("?") ? "&" : "?";
+        for (ImageVariant variant : ImageVariant.values()) {
+            urls.put(variant.getSuffix(), mediaUrl + separator + "variant=" + variant.getSuffix());
+        }
+        return urls;
+    }
+
+    public void deleteDerivatives(String filename) {
+        if (!isImage(filename)) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        for (ImageVariant variant : ImageVariant.values()) {
+            keys.add(storageLayout.keyFor(getDerivativeFilename(filename, variant)));
+        }
+        try {
+            mediaStore.deleteAll(keys);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la suppression de la miniature: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<Void> generateAsync(String filename) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(filename, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    generateAll(filename);
+                    future.complete(null);
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(filename, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(filename, future);
+            throw e;
+        }
+        return future;
+    }
+
+    private boolean derivativeExists(String derivativeFilename) {
+        try {
+            return mediaStore.stat(storageLayout.keyFor(derivativeFilename)) != null;
+        } catch (IOException e) {
+            System.err.println("Impossible de vérifier la miniature " + derivativeFilename + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void generateAll(String filename) {
+        String originalKey = storageLayout.keyFor(filename);
+        long start = System.currentTimeMillis();
+        Path original = null;
+        try {
+            if (mediaStore.stat(originalKey) == null) {
+                return;
+            }
+            original = mediaStore.fetchToLocal(originalKey);
+            BufferedImage source = readUpright(original);
+            if (source == null) {
+                System.out.println("Format d'image non pris en charge pour les miniatures: " + filename);
+                return;
+            }
+
+            // Largest first, so each smaller variant is scaled from the previous one.
+            BufferedImage current = source;
+            ImageVariant[] variants = ImageVariant.values();
+            for (int i = variants.length - 1; i >= 0; i--) {
+                ImageVariant variant = variants[i];
+                current = scaleDown(current, variant.getMaxDimension());
+                String derivativeFilename = getDerivativeFilename(filename, variant);
+                Path encoded = writeJpeg(current);
+                mediaStore.put(storageLayout.keyFor(derivativeFilename), encoded, "image/jpeg");
+            }
+
+            System.out.println("Miniatures générées pour " + filename + " en " + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException e) {
+            throw new FileStorageException("Could not generate image derivatives for " + filename, e);
+        } finally {
+            if (original != null && !original.equals(mediaStore.localPath(originalKey))) {
+                try {
+                    Files.deleteIfExists(original);
+                } catch (IOException e) {
+                    System.err.println("Impossible de supprimer la copie temporaire: " + original);
+                }
+            }
+        }
+    }
+
+    private BufferedImage readUpright(Path file) throws IOException {
+        BufferedImage image = readWithinPixelLimit(file);
+        if (image == null) {
+            return null;
+        }
+        return toRgb(applyOrientation(image, readExifOrientation(file)));
+    }
+
+    /**
+     * Decodes the image, or returns {@code null} when no reader supports it or when its header
+     * declares more than {@code maxPixels} pixels: a small file can declare huge dimensions, and
+     * decoding it would allocate width * height * 4 bytes.
+     */
+    private BufferedImage readWithinPixelLimit(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    System.err.println("Image trop grande pour les miniatures (" + reader.getWidth(0) + "x"
+                            + reader.getHeight(0) + "): " + file.getFileName());
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scans the JPEG segment headers for the EXIF APP1 block. Done by hand because the JDK
+     * JPEG metadata reader rejects files whose first segment is APP1, which is what phones write.
+     */
+    static int readExifOrientation(Path file) {
+        String lower = file.getFileName().toString().toLowerCase();
+        if (!lower.endsWith(".jpg") && !lower.endsWith(".jpeg")) {
+            return 1;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            if (channel.read(header, 0) < 2 || (header.getShort(0) & 0xFFFF) != 0xFFD8) {
+                return 1;
+            }
+
+            long position = 2;
+            while (position + 4 <= channel.size()) {
+                header.clear();
+                if (channel.read(header, position) < 4) {
+                    return 1;
+                }
+                int marker = header.getShort(0) & 0xFFFF;
+                int length = header.getShort(2) & 0xFFFF;
+                if ((marker & 0xFF00) != 0xFF00 || marker == START_OF_SCAN_MARKER || length < 2) {
+                    return 1;
+                }
+                if (marker == APP1_MARKER) {
+                    ByteBuffer segment = ByteBuffer.allocate(length - 2);
+                    channel.read(segment, position + 4);
+                    int orientation = parseExifOrientation(segment.array());
+                    if (orientation > 0) {
+                        return orientation;
+                    }
+                }
+                position += 2 + length;
+            }
+        } catch (IOException e) {
+            System.err.println("Impossible de lire l'orientation EXIF: " + e.getMessage());
+        }
+        return 1;
+    }
+
+    static int parseExifOrientation(byte[] app1) {
+        // "Exif\0\0" followed by a TIFF header and IFD0.
+        if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') {
+            return -1;
+        }
+        int tiffStart = 6;
+        ByteBuffer buffer = ByteBuffer.wrap(app1);
+        if (app1[tiffStart] == 'I' && app1[tiffStart + 1] == 'I') {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (app1[tiffStart] == 'M' && app1[tiffStart + 1] == 'M') {
+            buffer.order(ByteOrder.BIG_ENDIAN);
+        } else {
+            return -1;
+        }
+
+        try {
+            int ifdOffset = tiffStart + buffer.getInt(tiffStart + 4);
+            int entries = buffer.getShort(ifdOffset) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifdOffset + 2 + i * 12;
+                if ((buffer.getShort(entry) & 0xFFFF) == EXIF_ORIENTATION_TAG) {
+                    return buffer.getShort(entry + 8) & 0xFFFF;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    static BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return image;
+        }
+
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swapsAxes = orientation >= 5;
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            default -> new AffineTransform(0, -1, 1, 0, 0, w);
+        };
+
+        BufferedImage rotated = new BufferedImage(swapsAxes ? h : w, swapsAxes ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rotated.createGraphics();
+        try {
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return rotated;
+    }
+
+    private BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    /**
+     * Halves the image until it is within a factor of two of the target, then does the final
+     * bilinear step; a single large bilinear step would alias badly on 12 MP photos.
+     */
+    private BufferedImage scaleDown(BufferedImage image, int maxDimension) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int longest = Math.max(width, height);
+        if (longest <= maxDimension) {
+            return image;
+        }
+
+        double ratio = (double) maxDimension / longest;
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetWidth || current.getHeight() != targetHeight) {
+            current = resize(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    private BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resized.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return resized;
+    }
+
+    /**
+     * Encodes {@code image} into a new file in the incoming directory; the caller hands it to the store.
+     */
+    private Path writeJpeg(BufferedImage image) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No JPEG writer available");
+        }
+
+        ImageWriter writer = writers.next();
+        Path tempFile = storageLayout.newIncomingFile();
+        try {
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tempFile.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            return tempFile;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+    }
+}
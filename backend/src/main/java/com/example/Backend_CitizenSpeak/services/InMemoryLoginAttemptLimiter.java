@@ -0,0 +1,142 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Attempt counters in memory, for a single node.
+ *
+ * Each scope (the part of the key before ':', such as {@code ip} or {@code email}) has its own
+ * maps and its own capacity of {@code maxKeys}, so spraying one scope cannot crowd out another.
+ * Keys are spread over {@value #STRIPES} maps so that no single map becomes a point of
+ * contention, and each counter is an immutable window swapped in with compare-and-set, so
+ * recording an attempt never takes a lock. Idle keys are swept periodically; when a stripe is
+ * still full, the key with the oldest attempt is evicted to make room, so new keys are always
+ * counted.
+ */
+public class InMemoryLoginAttemptLimiter implements LoginAttemptLimiter, AutoCloseable {
+
+    private static final int STRIPES = 16;
+
+    private record Window(long windowMillis, long index, int previous, int current, long lastAttempt) {
+
+        Window record(long now) {
+            long currentIndex = now / windowMillis;
+            if (currentIndex == index) {
+                return new Window(windowMillis, index, previous, current + 1, now);
+            }
+            return new Window(windowMillis, currentIndex, currentIndex == index + 1 ? current : 0, 1, now);
+        }
+
+        boolean isIdle(long now) {
+            return now / windowMillis > index + 1;
+        }
+    }
+
+    private final Map<String, Map<String, AtomicReference<Window>>[]> scopes = new ConcurrentHashMap<>();
+    private final int maxKeysPerStripe;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService sweeper;
+
+    public InMemoryLoginAttemptLimiter(int maxKeys, long sweepIntervalMillis) {
+        this(maxKeys, sweepIntervalMillis, System::currentTimeMillis);
+    }
+
+    InMemoryLoginAttemptLimiter(int maxKeys, long sweepIntervalMillis, LongSupplier clock) {
+        this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+        this.clock = clock;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "login-throttle-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getType() {
+        return "memory";
+    }
+
+    @Override
+    public double recordAttempt(String key, long windowMillis) {
+        long now = clock.getAsLong();
+        Map<String, AtomicReference<Window>> stripe = stripesOf(key)[Math.floorMod(key.hashCode(), STRIPES)];
+        AtomicReference<Window> counter = stripe.get(key);
+        if (counter == null) {
+            if (stripe.size() >= maxKeysPerStripe) {
+                makeRoom(stripe, now);
+            }
+            counter = stripe.computeIfAbsent(key, k -> new AtomicReference<>(new Window(windowMillis, now / windowMillis, 0, 0, now)));
+        }
+        Window window = counter.updateAndGet(current -> current.record(now));
+        double elapsed = (double) (now % windowMillis) / windowMillis;
+        return window.previous() * (1 - elapsed) + window.current();
+    }
+
+    @Override
+    public long trackedKeys() {
+        long total = 0;
+        for (Map<String, AtomicReference<Window>>[] stripes : scopes.values()) {
+            for (Map<String, AtomicReference<Window>> stripe : stripes) {
+                total += stripe.size();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, AtomicReference<Window>>[] stripesOf(String key) {
+        int separator = key.indexOf(':');
+        String scope = separator >= 0 ? key.substring(0, separator) : key;
+        return scopes.computeIfAbsent(scope, name -> {
+            Map<String, AtomicReference<Window>>[] stripes = new Map[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new ConcurrentHashMap<>();
+            }
+            return stripes;
+        });
+    }
+
+    /**
+     * Drops the idle keys of a full stripe, or failing that the key with the oldest attempt. Under
+     * concurrent insertions a stripe may briefly hold a few keys more than its share.
+     */
+    private void makeRoom(Map<String, AtomicReference<Window>> stripe, long now) {
+        stripe.values().removeIf(counter -> counter.get().isIdle(now));
+        if (stripe.size() < maxKeysPerStripe) {
+            return;
+        }
+        String oldest = null;
+        long oldestAttempt = Long.MAX_VALUE;
+        for (Map.Entry<String, AtomicReference<Window>> entry : stripe.entrySet()) {
+            long lastAttempt = entry.getValue().get().lastAttempt();
+            if (lastAttempt < oldestAttempt) {
+                oldestAttempt = lastAttempt;
+                oldest = entry.getKey();
+            }
+        }
+        if (oldest != null) {
+            stripe.remove(oldest);
+        }
+    }
+
+    void sweep() {
+        long now = clock.getAsLong();
+        for (Map<String, AtomicReference<Window>>[] stripes : scopes.values()) {
+            for (Map<String, AtomicReference<Window>> stripe : stripes) {
+                stripe.values().removeIf(counter -> counter.get().isIdle(now));
+            }
+        }
+    }
+}
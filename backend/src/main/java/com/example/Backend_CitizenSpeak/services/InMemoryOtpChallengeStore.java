@@ -0,0 +1,125 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.OtpChallenge;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Pending logins in memory, for a single node.
+ *
+ * Expiry uses a hashed timer wheel: each challenge is filed in the slot of the tick it expires
+ * in, and every tick only the current slot is examined, so eviction costs are proportional to
+ * what actually expires. Challenges whose expiry is more than one turn of the wheel away stay in
+ * their slot until the right turn. At most {@code maxEntries} challenges are kept; beyond that new
+ * logins are refused rather than growing without bound.
+ */
+public class InMemoryOtpChallengeStore implements OtpChallengeStore, AutoCloseable {
+
+    private static final int WHEEL_SLOTS = 512;
+
+    private final Map<String, OtpChallenge> challenges = new ConcurrentHashMap<>();
+    private final Set<String>[] wheel;
+    private final long tickMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService ticker;
+    private long lastTick;
+
+    public InMemoryOtpChallengeStore(int maxEntries, long tickMillis) {
+        this(maxEntries, tickMillis, System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    InMemoryOtpChallengeStore(int maxEntries, long tickMillis, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        this.wheel = new Set[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.lastTick = clock.getAsLong() / tickMillis;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "otp-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleWithFixedDelay(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getType() {
+        return "memory";
+    }
+
+    @Override
+    public void save(OtpChallenge challenge) {
+        if (challenges.size() >= maxEntries) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Trop de connexions en attente, veuillez réessayer");
+        }
+        challenges.put(challenge.getToken(), challenge);
+        // The first tick at or after the expiry, so the challenge is already expired when its slot comes up.
+        wheel[slotOf(challenge.getExpiresAt().getTime() / tickMillis + 1)].add(challenge.getToken());
+    }
+
+    @Override
+    public OtpChallenge find(String token) {
+        OtpChallenge challenge = challenges.get(token);
+        return challenge != null && !challenge.isExpired(clock.getAsLong()) ? challenge : null;
+    }
+
+    @Override
+    public int recordFailedAttempt(String token) {
+        OtpChallenge challenge = challenges.computeIfPresent(token, (key, current) -> {
+            current.setAttempts(current.getAttempts() + 1);
+            return current;
+        });
+        return challenge != null ? challenge.getAttempts() : -1;
+    }
+
+    @Override
+    public boolean remove(String token) {
+        return challenges.remove(token) != null;
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Processes every tick since the previous run, so a delayed run does not skip slots.
+     */
+    synchronized void advance() {
+        long now = clock.getAsLong();
+        long currentTick = now / tickMillis;
+        for (long tick = lastTick + 1; tick <= currentTick && tick - lastTick <= WHEEL_SLOTS; tick++) {
+            Set<String> slot = wheel[slotOf(tick)];
+            slot.removeIf(token -> {
+                OtpChallenge challenge = challenges.get(token);
+                if (challenge == null) {
+                    return true;
+                }
+                if (challenge.isExpired(now)) {
+                    challenges.remove(token, challenge);
+                    return true;
+                }
+                return false;
+            });
+        }
+        lastTick = currentTick;
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) WHEEL_SLOTS);
+    }
+}
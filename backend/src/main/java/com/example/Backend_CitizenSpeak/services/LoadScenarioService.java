@@ -0,0 +1,309 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.User;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Replays mobile and back-office traffic against a running instance and reports latency
+ * percentiles and throughput per endpoint (see {@link LoadTestReport}).
+ *
+ * The actors are taken from the synthetic data of {@link SyntheticDataSeeder} only: citizens who
+ * filed complaints, agents with assigned complaints, an admin and an analyst. Without synthetic
+ * data the run is refused, so no token is ever minted for a real account and no comment posted on
+ * a real complaint. Their tokens are minted directly, since staff log in with a one-time code.
+ * Each of {@code concurrency} workers draws a request from the weighted mix of the scenario
+ * ({@code mobile}, {@code admin} or {@code mixed}) and sends it without think time, for
+ * {@code durationSeconds}. The mobile mix posts comments, so it writes to the database it runs
+ * against. Only loaded with the {@code loadtest} profile.
+ */
+@Service
+@Profile("loadtest")
+public class LoadScenarioService {
+
+    private static final int SAMPLED_COMPLAINTS = 2_000;
+
+    /**
+     * A request of the mix: {@code role} is the actor sending it, {@code path} builds the URL for
+     * an actor, and {@code body} is the JSON sent with a POST ({@code null} for a GET).
+     */
+    private record Step(String name, String role, int weight, Function<Actor, String> path, String body) {}
+
+    /**
+     * A user with a token, and the complaints it may look at (filed, or assigned to it).
+     */
+    private record Actor(String role, String token, List<String> complaintIds, double latitude, double longitude) {}
+
+    private static final List<Step> MOBILE = List.of(
+            new Step("GET /api/complaints", "citizen", 20, actor -> "/api/complaints", null),
+            new Step("GET /api/complaints/{id}", "citizen", 20,
+                    actor -> "/api/complaints/" + encode(pick(actor.complaintIds())), null),
+            new Step("GET /api/complaints/{id}/comments", "citizen", 10,
+                    actor -> "/api/complaints/" + encode(pick(actor.complaintIds())) + "/comments", null),
+            new Step("GET /api/notifications", "citizen", 15, actor -> "/api/notifications?page=0&size=20", null),
+            new Step("GET /api/notifications/unread-count", "citizen", 15,
+                    actor -> "/api/notifications/unread-count", null),
+            new Step("GET /api/complaints/nearby", "citizen", 10,
+                    actor -> String.format(Locale.ROOT, "/api/complaints/nearby?latitude=%.5f&longitude=%.5f&radius=2",
+                            actor.latitude(), actor.longitude()), null),
+            new Step("GET /api/categories", "citizen", 5, actor -> "/api/categories", null),
+            new Step("POST /api/complaints/{id}/comments", "citizen", 5,
+                    actor -> "/api/complaints/" + encode(pick(actor.complaintIds())) + "/comments",
+                    "{\"description\":\"Toujours d'actualité — مازال المشكل قائما\"}"));
+
+    private static final List<Step> BACK_OFFICE = List.of(
+            new Step("GET /api/dashboard/overview", "admin", 15, actor -> "/api/dashboard/overview", null),
+            new Step("GET /api/dashboard/stats", "admin", 10, actor -> "/api/dashboard/stats", null),
+            new Step("GET /api/dashboard/complaints-by-status", "admin", 8,
+                    actor -> "/api/dashboard/complaints-by-status", null),
+            new Step("GET /api/dashboard/complaints-timeline", "admin", 8,
+                    actor -> "/api/dashboard/complaints-timeline", null),
+            new Step("GET /api/dashboard/top-categories", "admin", 5, actor -> "/api/dashboard/top-categories", null),
+            new Step("GET /api/dashboard/agents-performance", "admin", 5,
+                    actor -> "/api/dashboard/agents-performance", null),
+            new Step("GET /api/dashboard/recent-activity", "admin", 8, actor -> "/api/dashboard/recent-activity", null),
+            new Step("GET /api/user/all", "admin", 5, actor -> "/api/user/all?page=0&size=50", null),
+            new Step("GET /api/analyst/dashboard/stats", "analyst", 8, actor -> "/api/analyst/dashboard/stats", null),
+            new Step("GET /api/analyst/trends/monthly", "analyst", 5, actor -> "/api/analyst/trends/monthly", null),
+            new Step("GET /api/analyst/complaints/by-category", "analyst", 5,
+                    actor -> "/api/analyst/complaints/by-category", null),
+            new Step("GET /api/agent/complaints/assigned", "agent", 10, actor -> "/api/agent/complaints/assigned", null),
+            new Step("GET /api/agent/complaints/{id}", "agent", 8,
+                    actor -> "/api/agent/complaints/" + encode(pick(actor.complaintIds())), null));
+
+    private final MongoTemplate mongoTemplate;
+    private final TokenService tokenService;
+    private final int actorsPerRole;
+
+    @Autowired
+    public LoadScenarioService(MongoTemplate mongoTemplate,
+                               TokenService tokenService,
+                               @Value("${loadtest.run.actors:200}") int actorsPerRole) {
+        this.mongoTemplate = mongoTemplate;
+        this.tokenService = tokenService;
+        this.actorsPerRole = actorsPerRole;
+    }
+
+    public static List<String> scenarios() {
+        return List.of("mobile", "admin", "mixed");
+    }
+
+    public LoadTestReport run(String scenario, String baseUrl, int concurrency, int durationSeconds) {
+        List<Step> steps = steps(scenario);
+        Map<String, List<Actor>> actors = actors();
+        List<Step> runnable = steps.stream().filter(step -> !actors.getOrDefault(step.role(), List.of()).isEmpty()).toList();
+        if (runnable.isEmpty()) {
+            throw new IllegalStateException("Aucun utilisateur pour le scénario " + scenario
+                    + ": générer des données avec loadtest.seed.records");
+        }
+        if (runnable.size() < steps.size()) {
+            System.err.println("Scénario " + scenario + ": requêtes ignorées faute d'utilisateurs: "
+                    + steps.stream().filter(step -> !runnable.contains(step)).map(Step::name).toList());
+        }
+        int totalWeight = runnable.stream().mapToInt(Step::weight).sum();
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        LoadTestReport report = new LoadTestReport();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        System.out.println("Test de charge " + scenario + " sur " + baseUrl + ": " + concurrency + " clients pendant "
+                + durationSeconds + " s");
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        report.start();
+        for (int w = 0; w < concurrency; w++) {
+            long seed = w;
+            workers.execute(() -> {
+                Random random = new Random(seed);
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    Step step = draw(runnable, totalWeight, random);
+                    List<Actor> candidates = actors.get(step.role());
+                    send(client, baseUrl, step, candidates.get(random.nextInt(candidates.size())), report);
+                }
+            });
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(durationSeconds + 120L, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        report.finish();
+        return report;
+    }
+
+    private void send(HttpClient client, String baseUrl, Step step, Actor actor, LoadTestReport report) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + step.path().apply(actor)))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer " + actor.token());
+        if (step.body() != null) {
+            request.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(step.body(), StandardCharsets.UTF_8));
+        } else {
+            request.GET();
+        }
+        long started = System.nanoTime();
+        int status = 0;
+        try {
+            status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            // Counted as an error with status 0.
+        }
+        report.record(step.name(), System.nanoTime() - started, status);
+    }
+
+    private List<Step> steps(String scenario) {
+        return switch (scenario) {
+            case "mobile" -> MOBILE;
+            case "admin" -> BACK_OFFICE;
+            case "mixed" -> {
+                // Citizens make most of the traffic: four mobile requests for one back-office request.
+                List<Step> mixed = new ArrayList<>();
+                MOBILE.forEach(step -> mixed.add(new Step(step.name(), step.role(), step.weight() * 4, step.path(), step.body())));
+                mixed.addAll(BACK_OFFICE);
+                yield mixed;
+            }
+            default -> throw new IllegalArgumentException("Scénario inconnu: " + scenario + " (attendu: " + scenarios() + ")");
+        };
+    }
+
+    /**
+     * Actors by role, from a sample of synthetic complaints: their citizens, their assigned
+     * agents, and synthetic admins and analysts.
+     */
+    private Map<String, List<Actor>> actors() {
+        if (!mongoTemplate.exists(Query.query(synthetic()), "complaints")) {
+            throw new IllegalStateException("Aucune donnée synthétique: générer des données avec loadtest.seed.records"
+                    + " avant de lancer un scénario");
+        }
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", new Document(SyntheticDataSeeder.BATCH_FIELD, new Document("$exists", true))));
+        pipeline.add(new Document("$sample", new Document("size", SAMPLED_COMPLAINTS)));
+        pipeline.add(new Document("$project", new Document("citizen", 1).append("assignedAgent", 1)
+                .append("latitude", 1).append("longitude", 1)));
+
+        Map<Object, List<String>> byCitizen = new LinkedHashMap<>();
+        Map<Object, List<String>> byAgent = new LinkedHashMap<>();
+        Map<Object, double[]> places = new HashMap<>();
+        for (Document complaint : mongoTemplate.getCollection("complaints").aggregate(pipeline)) {
+            String id = String.valueOf(complaint.get("_id"));
+            if (complaint.get("citizen") instanceof DBRef citizen && byCitizen.size() < actorsPerRole) {
+                byCitizen.computeIfAbsent(citizen.getId(), key -> new ArrayList<>()).add(id);
+                places.putIfAbsent(citizen.getId(), new double[]{
+                        number(complaint.get("latitude")), number(complaint.get("longitude"))});
+            }
+            if (complaint.get("assignedAgent") instanceof DBRef agent && byAgent.size() < actorsPerRole) {
+                byAgent.computeIfAbsent(agent.getId(), key -> new ArrayList<>()).add(id);
+            }
+        }
+
+        Map<String, List<Actor>> actors = new HashMap<>();
+        actors.put("citizen", toActors("citizen", byCitizen, places));
+        actors.put("agent", toActors("agent", byAgent, places));
+        actors.put("admin", staff("Admin"));
+        actors.put("analyst", staff("Analyst"));
+        actors.forEach((role, list) -> System.out.println("Test de charge: " + list.size() + " utilisateurs " + role));
+        return actors;
+    }
+
+    private List<Actor> toActors(String role, Map<Object, List<String>> complaintsByUser, Map<Object, double[]> places) {
+        if (complaintsByUser.isEmpty()) {
+            return List.of();
+        }
+        List<Actor> actors = new ArrayList<>();
+        Query query = Query.query(synthetic().and("_id").in(complaintsByUser.keySet()));
+        for (User user : mongoTemplate.find(query, User.class)) {
+            List<String> complaintIds = complaintsByUser.get(idKey(user.getUserId(), complaintsByUser));
+            if (complaintIds == null || !user.isActive()) {
+                continue;
+            }
+            double[] place = places.getOrDefault(idKey(user.getUserId(), places), new double[]{0, 0});
+            actors.add(new Actor(role, tokenService.generateToken(user, user.getUserId()), complaintIds, place[0], place[1]));
+        }
+        return actors;
+    }
+
+    private List<Actor> staff(String role) {
+        Criteria criteria = synthetic().and("role").regex("^" + Pattern.quote(role) + "$", "i").and("active").is(true);
+        List<Actor> actors = new ArrayList<>();
+        for (User user : mongoTemplate.find(Query.query(criteria).limit(5), User.class)) {
+            actors.add(new Actor(role.toLowerCase(), tokenService.generateToken(user, user.getUserId()), List.of(), 0, 0));
+        }
+        return actors;
+    }
+
+    private static Criteria synthetic() {
+        return Criteria.where(SyntheticDataSeeder.BATCH_FIELD).exists(true);
+    }
+
+    /**
+     * The key under which a user's id was collected: DBRef ids are stored as ObjectIds when the
+     * id is a valid hex string, and as strings otherwise.
+     */
+    private static Object idKey(String userId, Map<Object, ?> map) {
+        if (ObjectId.isValid(userId)) {
+            ObjectId objectId = new ObjectId(userId);
+            if (map.containsKey(objectId)) {
+                return objectId;
+            }
+        }
+        return userId;
+    }
+
+    private static Step draw(List<Step> steps, int totalWeight, Random random) {
+        int draw = random.nextInt(totalWeight);
+        for (Step step : steps) {
+            draw -= step.weight();
+            if (draw < 0) {
+                return step;
+            }
+        }
+        return steps.get(steps.size() - 1);
+    }
+
+    private static String pick(List<String> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latencies and response statuses of a load test, per endpoint. Every latency is kept, so the
+ * percentiles are exact (nearest rank) rather than estimated from buckets.
+ */
+public class LoadTestReport {
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+
+    public void start() {
+        startedNanos = System.nanoTime();
+    }
+
+    public void finish() {
+        finishedNanos = System.nanoTime();
+    }
+
+    /**
+     * Records one request; {@code status} is the HTTP status, or 0 when no response came back.
+     */
+    public void record(String endpoint, long nanos, int status) {
+        recorders.computeIfAbsent(endpoint, name -> new Recorder()).add(nanos, status);
+    }
+
+    public double elapsedSeconds() {
+        long end = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+        return Math.max(1, end - startedNanos) / 1e9;
+    }
+
+    /**
+     * One row per endpoint, by endpoint name, then a {@code TOTAL} row.
+     */
+    public List<Map<String, Object>> summary() {
+        double seconds = elapsedSeconds();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Recorder total = new Recorder();
+        for (Map.Entry<String, Recorder> entry : new TreeMap<>(recorders).entrySet()) {
+            rows.add(entry.getValue().row(entry.getKey(), seconds));
+            total.addAll(entry.getValue());
+        }
+        rows.add(total.row("TOTAL", seconds));
+        return rows;
+    }
+
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-40s %8s %9s %7s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Map<String, Object> row : summary()) {
+            out.append(String.format("%-40s %8d %9.1f %7d %9.1f %9.1f %9.1f %9.1f%n",
+                    row.get("endpoint"), row.get("requests"), row.get("throughput"), row.get("errors"),
+                    row.get("p50Ms"), row.get("p90Ms"), row.get("p99Ms"), row.get("maxMs")));
+        }
+        return out.toString();
+    }
+
+    /**
+     * The nearest-rank percentile of sorted values: the smallest value at or above which
+     * {@code percentile} percent of the values lie.
+     */
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e4) / 100.0;
+    }
+
+    private static final class Recorder {
+        private long[] latencies = new long[256];
+        private int count;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        private synchronized void add(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            statuses.merge(status, 1L, Long::sum);
+        }
+
+        private void addAll(Recorder other) {
+            long[] values;
+            Map<Integer, Long> otherStatuses;
+            synchronized (other) {
+                values = Arrays.copyOf(other.latencies, other.count);
+                otherStatuses = new TreeMap<>(other.statuses);
+            }
+            synchronized (this) {
+                if (count + values.length > latencies.length) {
+                    latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, count + values.length));
+                }
+                System.arraycopy(values, 0, latencies, count, values.length);
+                count += values.length;
+                otherStatuses.forEach((status, n) -> statuses.merge(status, n, Long::sum));
+            }
+        }
+
+        private synchronized Map<String, Object> row(String endpoint, double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            long errors = statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 400)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            long sum = 0;
+            for (long value : sorted) {
+                sum += value;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", endpoint);
+            row.put("requests", (long) count);
+            row.put("throughput", Math.round(count / seconds * 10) / 10.0);
+            row.put("errors", errors);
+            row.put("statuses", new TreeMap<>(statuses));
+            row.put("meanMs", count == 0 ? 0.0 : millis(sum / count));
+            row.put("p50Ms", millis(percentile(sorted, 50)));
+            row.put("p90Ms", millis(percentile(sorted, 90)));
+            row.put("p99Ms", millis(percentile(sorted, 99)));
+            row.put("maxMs", count == 0 ? 0.0 : millis(sorted[count - 1]));
+            return row;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.Backend_CitizenSpeak.services;
+
+/**
+ * Sliding-window attempt counters behind the login throttle. Each key keeps the count of the
+ * current fixed window and of the previous one; the estimate weights the previous window by the
+ * part of it that still overlaps the sliding window.
+ */
+public interface LoginAttemptLimiter {
+
+    String getType();
+
+    /**
+     * Counts one attempt for {@code key} and returns the estimated number of attempts, this one
+     * included, over the last {@code windowMillis}.
+     */
+    double recordAttempt(String key, long windowMillis);
+
+    /**
+     * Number of keys currently tracked, or -1 when the store cannot tell cheaply.
+     */
+    long trackedKeys();
+}
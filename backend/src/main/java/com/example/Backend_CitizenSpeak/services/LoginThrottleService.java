@@ -0,0 +1,201 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.exceptions.LoginOverloadedException;
+import com.example.Backend_CitizenSpeak.exceptions.TooManyAttemptsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Throttles the public login endpoints before any user lookup or password hashing happens.
+ *
+ * Attempts are counted per client IP, per email and globally, each over its own sliding window.
+ * Once an IP or email goes over its limit it is refused locally until the end of the current
+ * window, without consulting the counters again, so a blocked client costs almost nothing even
+ * when the counters are shared through Mongo.
+ *
+ * The global limit protects the service, not an account, so it never blocks anyone: above it,
+ * attempts are shed at random with a 503, in the proportion that brings the admitted rate back to
+ * the limit. A flood of attempts from many addresses slows legitimate logins down but does not
+ * lock them out, and shedding stops as soon as the rate drops.
+ */
+@Service
+public class LoginThrottleService {
+
+    private static final String GLOBAL_KEY = "global";
+    private static final long SHED_RETRY_AFTER_SECONDS = 1;
+    private static final int MAX_BLOCKED_KEYS = 100_000;
+
+    private record Scope(String name, int limit, long windowMillis, Counter rejected) {}
+
+    private final LoginAttemptLimiter limiter;
+    private final boolean enabled;
+    private final boolean trustForwardedFor;
+    private final Set<String> trustedProxies;
+    private final Scope ipScope;
+    private final Scope emailScope;
+    private final Scope globalScope;
+    private final Map<String, Long> blockedUntil = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LoginThrottleService(LoginAttemptLimiter limiter,
+                                MeterRegistry meterRegistry,
+                                @Value("${auth.throttle.enabled:true}") boolean enabled,
+                                @Value("${auth.throttle.trust-forwarded-for:false}") boolean trustForwardedFor,
+                                @Value("${auth.throttle.trusted-proxies:}") String trustedProxies,
+                                @Value("${auth.throttle.ip.limit:20}") int ipLimit,
+                                @Value("${auth.throttle.ip.window-seconds:60}") long ipWindowSeconds,
+                                @Value("${auth.throttle.email.limit:10}") int emailLimit,
+                                @Value("${auth.throttle.email.window-seconds:900}") long emailWindowSeconds,
+                                @Value("${auth.throttle.global.limit:1000}") int globalLimit,
+                                @Value("${auth.throttle.global.window-seconds:10}") long globalWindowSeconds) {
+        this.limiter = limiter;
+        this.enabled = enabled;
+        this.trustForwardedFor = trustForwardedFor;
+        this.trustedProxies = Arrays.stream(trustedProxies.split(","))
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.ipScope = new Scope("ip", ipLimit, ipWindowSeconds * 1000,
+                meterRegistry.counter("auth.throttle.rejected", "scope", "ip"));
+        this.emailScope = new Scope("email", emailLimit, emailWindowSeconds * 1000,
+                meterRegistry.counter("auth.throttle.rejected", "scope", "email"));
+        this.globalScope = new Scope("global", globalLimit, globalWindowSeconds * 1000,
+                meterRegistry.counter("auth.throttle.rejected", "scope", "global"));
+    }
+
+    /**
+     * Counts a login attempt, or throws a 429 when the client or the account has had too many
+     * attempts recently, or a 503 when this attempt is shed because the service as a whole has.
+     */
+    public void check(HttpServletRequest request, String email) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String ipKey = "ip:" + clientIp(request);
+        String emailKey = email != null ? "email:" + email.trim().toLowerCase(Locale.ROOT) : null;
+
+        rejectIfBlocked(ipKey, ipScope, now);
+        if (emailKey != null) {
+            rejectIfBlocked(emailKey, emailScope, now);
+        }
+
+        count(ipKey, ipScope, now);
+        if (emailKey != null) {
+            count(emailKey, emailScope, now);
+        }
+        shedIfOverloaded(now);
+    }
+
+    public Map<String, Object> getStatistics() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("store", limiter.getType());
+        stats.put("trackedKeys", limiter.trackedKeys());
+        stats.put("blockedKeys", blockedUntil.values().stream().filter(until -> until > now).count());
+        for (Scope scope : new Scope[]{ipScope, emailScope, globalScope}) {
+            Map<String, Object> scopeStats = new LinkedHashMap<>();
+            scopeStats.put("limit", scope.limit());
+            scopeStats.put("windowSeconds", scope.windowMillis() / 1000);
+            scopeStats.put("rejected", (long) scope.rejected().count());
+            stats.put(scope.name(), scopeStats);
+        }
+        return stats;
+    }
+
+    private void rejectIfBlocked(String key, Scope scope, long now) {
+        Long until = blockedUntil.get(key);
+        if (until == null) {
+            return;
+        }
+        if (until > now) {
+            throw reject(scope, until - now);
+        }
+        blockedUntil.remove(key, until);
+    }
+
+    private void count(String key, Scope scope, long now) {
+        double attempts = record(key, scope);
+        if (attempts <= scope.limit()) {
+            return;
+        }
+        long remaining = scope.windowMillis() - now % scope.windowMillis();
+        if (blockedUntil.size() >= MAX_BLOCKED_KEYS) {
+            blockedUntil.values().removeIf(until -> until <= now);
+        }
+        if (blockedUntil.size() < MAX_BLOCKED_KEYS) {
+            blockedUntil.put(key, now + remaining);
+        }
+        throw reject(scope, remaining);
+    }
+
+    private void shedIfOverloaded(long now) {
+        double attempts = record(GLOBAL_KEY, globalScope);
+        if (attempts <= globalScope.limit()) {
+            return;
+        }
+        // Admit limit/attempts of the attempts, so about `limit` get through per window.
+        if (ThreadLocalRandom.current().nextDouble() * attempts < globalScope.limit()) {
+            return;
+        }
+        globalScope.rejected().increment();
+        throw new LoginOverloadedException("Service de connexion surchargé, veuillez réessayer dans un instant",
+                SHED_RETRY_AFTER_SECONDS);
+    }
+
+    /**
+     * The estimated attempts for {@code key}, this one included, or 0 when the counters are
+     * unavailable: they are a shield, not a dependency, so logins go on without them.
+     */
+    private double record(String key, Scope scope) {
+        try {
+            return limiter.recordAttempt(key, scope.windowMillis());
+        } catch (Exception e) {
+            System.err.println("Limiteur de connexions indisponible: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private TooManyAttemptsException reject(Scope scope, long remainingMillis) {
+        scope.rejected().increment();
+        return new TooManyAttemptsException("Trop de tentatives de connexion, veuillez réessayer plus tard",
+                Math.max(1, (remainingMillis + 999) / 1000));
+    }
+
+    /**
+     * The address the attempt came from. Behind a trusted proxy it is taken from X-Forwarded-For,
+     * reading from the right: each proxy appends the address it received the request from, so the
+     * rightmost entry that is not one of our own proxies was written by them, while anything to
+     * its left was sent by the client and could be changed on every attempt.
+     */
+    String clientIp(HttpServletRequest request) {
+        if (!trustForwardedFor) {
+            return request.getRemoteAddr();
+        }
+        List<String> headers = Collections.list(request.getHeaders("X-Forwarded-For"));
+        String[] hops = String.join(",", headers).split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                return hop;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
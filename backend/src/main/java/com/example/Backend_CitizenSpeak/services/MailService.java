@@ -1,21 +1,429 @@
 package com.example.Backend_CitizenSpeak.services;
 
+import com.example.Backend_CitizenSpeak.models.OutboundMail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbound email. Callers only write the mail to the {@code mail_outbox} collection; sending
+ * happens on at most {@code mail.outbox.workers} background threads, so a slow or unreachable
+ * SMTP server no longer holds up login or password reset.
+ *
+ * Each worker keeps one SMTP connection open while it drains the outbox and reuses it for up to
+ * {@code mail.smtp.max-messages-per-connection} messages, instead of a handshake per mail.
+ * Failed sends are retried with exponential backoff until the mail expires or has used
+ * {@code mail.outbox.max-attempts}; a mail whose worker died is taken over once its lease runs
+ * out, so delivery is at-least-once. Templates are read from {@code classpath:mail/<name>.txt}
+ * (subject on the first line, then a blank line and the body, {@code {{variable}}} placeholders)
+ * and parsed once.
+ *
+ * For local testing point {@code spring.mail.host}/{@code spring.mail.port} at an SMTP stub
+ * and set {@code spring.mail.properties.mail.smtp.auth=false}.
+ */
 @Service
 public class MailService {
 
+    public static final String TEMPLATE_OTP = "otp";
+    public static final String TEMPLATE_PASSWORD_RESET = "password-reset";
+
+    private final JavaMailSender mailSender;
+    private final MongoTemplate mongoTemplate;
+    private final String from;
+    private final String resetUrl;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration retryBaseDelay;
+    private final Duration retryMaxDelay;
+    private final int maxMessagesPerConnection;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore workers;
+    private final Map<String, MailTemplate> templates = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    private final Timer lagTimer;
+    private final Counter sentMails;
+    private final Counter retriedMails;
+    private final Counter failedMails;
+
     @Autowired
-    private JavaMailSender mailSender;
-
-    public void sendOtpEmail(String to, String otp) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject("Votre code OTP");
-        message.setText("Bonjour,\n\nVotre code OTP est : " + otp + "\n\nIl est valable 5 minutes.");
-        mailSender.send(message);
+    public MailService(JavaMailSender mailSender,
+                       MongoTemplate mongoTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${mail.from:${spring.mail.username:}}") String from,
+                       @Value("${mail.reset-password-url:http://your-app-url/reset-password?token=}") String resetUrl,
+                       @Value("${mail.outbox.workers:2}") int threads,
+                       @Value("${mail.outbox.lease-seconds:60}") long leaseSeconds,
+                       @Value("${mail.outbox.max-attempts:6}") int maxAttempts,
+                       @Value("${mail.outbox.retry-base-delay-ms:2000}") long retryBaseDelayMs,
+                       @Value("${mail.outbox.retry-max-delay-ms:60000}") long retryMaxDelayMs,
+                       @Value("${mail.smtp.max-messages-per-connection:100}") int maxMessagesPerConnection) {
+        this.mailSender = mailSender;
+        this.mongoTemplate = mongoTemplate;
+        this.from = from;
+        this.resetUrl = resetUrl;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.retryBaseDelay = Duration.ofMillis(retryBaseDelayMs);
+        this.retryMaxDelay = Duration.ofMillis(retryMaxDelayMs);
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.workers = new Semaphore(threads);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mail-sender-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.lagTimer = Timer.builder("mail.outbox.lag")
+                .description("Time between a mail being queued and being accepted by the SMTP server")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.sentMails = meterRegistry.counter("mail.outbox.mails", "outcome", "sent");
+        this.retriedMails = meterRegistry.counter("mail.outbox.mails", "outcome", "retry");
+        this.failedMails = meterRegistry.counter("mail.outbox.mails", "outcome", "failed");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            var indexOps = mongoTemplate.indexOps(OutboundMail.class);
+            indexOps.ensureIndex(new Index().on("status", Sort.Direction.ASC).on("nextAttemptAt", Sort.Direction.ASC)
+                    .named("mail_outbox_status_next_attempt"));
+            indexOps.ensureIndex(new Index().on("expiresAt", Sort.Direction.ASC)
+                    .expire(Duration.ZERO)
+                    .named("mail_outbox_expires_ttl"));
+        } catch (Exception e) {
+            System.err.println("Impossible de créer les index de l'outbox des emails: " + e.getMessage());
+        }
+    }
+
+    public void sendOtpEmail(String to, String otp, Date expiresAt) {
+        long validityMinutes = Math.max(1, Math.round((expiresAt.getTime() - System.currentTimeMillis()) / 60000.0));
+        enqueue(TEMPLATE_OTP, to, Map.of("otp", otp, "validityMinutes", String.valueOf(validityMinutes)), expiresAt);
+    }
+
+    public void sendPasswordResetEmail(String to, String resetToken, Date expiresAt) {
+        enqueue(TEMPLATE_PASSWORD_RESET, to, Map.of("resetUrl", resetUrl + resetToken), expiresAt);
+    }
+
+    /**
+     * Queues a mail and wakes a worker. Returns once the mail is stored; an unknown template is
+     * rejected here rather than by the worker.
+     */
+    public void enqueue(String template, String to, Map<String, String> variables, Date expiresAt) {
+        template(template);
+        Date now = new Date();
+        OutboundMail mail = new OutboundMail(template, to, variables, expiresAt);
+        mail.setStatus(OutboundMail.STATUS_PENDING);
+        mail.setCreatedDate(now);
+        mail.setNextAttemptAt(now);
+        mongoTemplate.insert(mail);
+        startWorker();
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        startWorker();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        executor.shutdown();
+    }
+
+    private void startWorker() {
+        if (!running || !workers.tryAcquire()) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            workers.release();
+        }
+    }
+
+    private void drain() {
+        Transport transport = null;
+        int sentOnConnection = 0;
+        try {
+            OutboundMail mail;
+            while (running && (mail = claimNext()) != null) {
+                // More mails may be waiting; let an idle worker slot help.
+                startWorker();
+                try {
+                    MimeMessage message = render(mail);
+                    if (mailSender instanceof JavaMailSenderImpl sender) {
+                        if (transport == null || !transport.isConnected() || sentOnConnection >= maxMessagesPerConnection) {
+                            close(transport);
+                            transport = connect(sender);
+                            sentOnConnection = 0;
+                        }
+                        transport.sendMessage(message, message.getAllRecipients());
+                        sentOnConnection++;
+                    } else {
+                        mailSender.send(message);
+                    }
+                    markSent(mail);
+                } catch (Exception e) {
+                    // The connection may be in an unknown state; the next mail opens a fresh one.
+                    close(transport);
+                    transport = null;
+                    markFailed(mail, e);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur lors de l'envoi des emails: " + e.getMessage());
+        } finally {
+            close(transport);
+            workers.release();
+        }
+    }
+
+    /**
+     * Atomically takes the oldest due mail that has not expired, or one whose lease ran out.
+     */
+    private OutboundMail claimNext() {
+        Date now = new Date();
+        Query query = Query.query(new Criteria().andOperator(
+                Criteria.where("expiresAt").gt(now),
+                new Criteria().orOperator(
+                        Criteria.where("status").is(OutboundMail.STATUS_PENDING).and("nextAttemptAt").lte(now),
+                        Criteria.where("status").is(OutboundMail.STATUS_SENDING).and("lockedUntil").lt(now))));
+        query.with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+
+        Update update = new Update()
+                .set("status", OutboundMail.STATUS_SENDING)
+                .set("lockedUntil", new Date(now.getTime() + lease.toMillis()))
+                .inc("attempts", 1);
+
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), OutboundMail.class);
+    }
+
+    private void markSent(OutboundMail mail) {
+        Date now = new Date();
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(mail.getMailId())),
+                new Update()
+                        .set("status", OutboundMail.STATUS_SENT)
+                        .set("sentDate", now)
+                        .unset("variables")
+                        .unset("lockedUntil")
+                        .unset("lastError"),
+                OutboundMail.class);
+        sentMails.increment();
+        lagTimer.record(now.getTime() - mail.getCreatedDate().getTime(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules a retry with exponential backoff and jitter. Invalid recipients, unknown
+     * templates and mails out of attempts are parked as failed.
+     */
+    private void markFailed(OutboundMail mail, Exception error) {
+        boolean permanent = isPermanent(error) || mail.getAttempts() >= maxAttempts;
+        Update update = new Update()
+                .set("lastError", error.getMessage())
+                .unset("lockedUntil");
+        if (permanent) {
+            update.set("status", OutboundMail.STATUS_FAILED).unset("variables");
+            failedMails.increment();
+            System.err.println("Échec définitif de l'envoi de l'email " + mail.getTemplate()
+                    + " à " + mail.getRecipient() + ": " + error.getMessage());
+        } else {
+            long backoff = Math.min(retryMaxDelay.toMillis(),
+                    retryBaseDelay.toMillis() << Math.min(20, Math.max(0, mail.getAttempts() - 1)));
+            long jitter = ThreadLocalRandom.current().nextLong(backoff / 4 + 1);
+            update.set("status", OutboundMail.STATUS_PENDING)
+                    .set("nextAttemptAt", new Date(System.currentTimeMillis() + backoff + jitter));
+            retriedMails.increment();
+        }
+        try {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(mail.getMailId())), update,
+                    OutboundMail.class);
+        } catch (Exception e) {
+            // The lease runs out and another worker retries the mail.
+            System.err.println("Impossible d'enregistrer l'échec de l'email " + mail.getMailId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Whether retrying cannot help. A {@link SendFailedException} is also thrown when the server
+     * only deferred the mail (a 4xx reply, or a recipient left in the valid but unsent addresses),
+     * so only an address the server refused outright makes it permanent.
+     */
+    static boolean isPermanent(Exception error) {
+        if (error instanceof IllegalArgumentException) {
+            return true;
+        }
+        if (!(error instanceof SendFailedException failure)) {
+            return false;
+        }
+        for (Exception cause = failure; cause != null;
+             cause = cause instanceof MessagingException messaging ? messaging.getNextException() : null) {
+            int code = replyCode(cause);
+            if (code >= 400 && code < 500) {
+                return false;
+            }
+        }
+        Address[] invalid = failure.getInvalidAddresses();
+        return invalid != null && invalid.length > 0;
+    }
+
+    private static int replyCode(Exception error) {
+        if (error instanceof SMTPAddressFailedException addressFailure) {
+            return addressFailure.getReturnCode();
+        }
+        if (error instanceof SMTPSendFailedException sendFailure) {
+            return sendFailure.getReturnCode();
+        }
+        if (error instanceof SMTPSenderFailedException senderFailure) {
+            return senderFailure.getReturnCode();
+        }
+        return -1;
+    }
+
+    private Transport connect(JavaMailSenderImpl sender) throws MessagingException {
+        String protocol = sender.getProtocol() != null ? sender.getProtocol() : "smtp";
+        Transport transport = sender.getSession().getTransport(protocol);
+        String username = sender.getUsername() != null && !sender.getUsername().isBlank() ? sender.getUsername() : null;
+        transport.connect(sender.getHost(), sender.getPort(), username, username != null ? sender.getPassword() : null);
+        return transport;
+    }
+
+    private void close(Transport transport) {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            // Already broken; nothing left to release.
+        }
+    }
+
+    private MimeMessage render(OutboundMail mail) throws MessagingException {
+        MailTemplate template = template(mail.getTemplate());
+        Map<String, String> variables = mail.getVariables() != null ? mail.getVariables() : Map.of();
+
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, StandardCharsets.UTF_8.name());
+        if (from != null && !from.isBlank()) {
+            helper.setFrom(from);
+        }
+        helper.setTo(mail.getRecipient());
+        helper.setSubject(template.subject().render(variables));
+        helper.setText(template.body().render(variables));
+        helper.setSentDate(new Date());
+        message.saveChanges();
+        return message;
+    }
+
+    private MailTemplate template(String name) {
+        return templates.computeIfAbsent(name, MailService::loadTemplate);
+    }
+
+    private static MailTemplate loadTemplate(String name) {
+        ClassPathResource resource = new ClassPathResource("mail/" + name + ".txt");
+        if (!name.matches("[a-z0-9-]+") || !resource.exists()) {
+            throw new IllegalArgumentException("Modèle d'email inconnu: " + name);
+        }
+        try (InputStream input = resource.getInputStream()) {
+            String text = new String(input.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+            int subjectEnd = text.indexOf('\n');
+            if (subjectEnd < 0) {
+                return new MailTemplate(CompiledText.parse(text.trim()), CompiledText.parse(""));
+            }
+            String body = text.substring(subjectEnd + 1);
+            return new MailTemplate(CompiledText.parse(text.substring(0, subjectEnd).trim()),
+                    CompiledText.parse(body.startsWith("\n") ? body.substring(1) : body));
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible de lire le modèle d'email " + name, e);
+        }
+    }
+
+    private record MailTemplate(CompiledText subject, CompiledText body) {}
+
+    /**
+     * Text split once into literal parts and {@code {{variable}}} names, so rendering is a single
+     * pass of appends. Odd entries of {@code parts} are variable names.
+     */
+    private record CompiledText(List<String> parts) {
+
+        static CompiledText parse(String text) {
+            List<String> parts = new ArrayList<>();
+            int position = 0;
+            while (true) {
+                int start = text.indexOf("{{", position);
+                int end = start < 0 ? -1 : text.indexOf("}}", start + 2);
+                if (end < 0) {
+                    parts.add(text.substring(position));
+                    return new CompiledText(List.copyOf(parts));
+                }
+                parts.add(text.substring(position, start));
+                parts.add(text.substring(start + 2, end).trim());
+                position = end + 2;
+            }
+        }
+
+        String render(Map<String, String> variables) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < parts.size(); i++) {
+                if (i % 2 == 0) {
+                    builder.append(parts.get(i));
+                } else {
+                    builder.append(variables.getOrDefault(parts.get(i), ""));
+                }
+            }
+            return builder.toString();
+        }
     }
 }
@@ -0,0 +1,96 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.exceptions.FileStorageException;
+import com.example.Backend_CitizenSpeak.models.MediaLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Locks on stored content shared by every node: a lock is a {@code media_locks} document whose
+ * {@code _id} is the content key, so the unique {@code _id} index lets only one holder take it.
+ * A lock is leased; if its holder dies, the next caller takes it over once the lease has run out.
+ */
+@Service
+public class MediaContentLocks {
+
+    private static final long MAX_BACKOFF_MILLIS = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final long leaseMillis;
+    private final long waitMillis;
+
+    @Autowired
+    public MediaContentLocks(MongoTemplate mongoTemplate,
+                             @Value("${media.locks.lease-seconds:300}") long leaseSeconds,
+                             @Value("${media.locks.wait-seconds:60}") long waitSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.leaseMillis = leaseSeconds * 1000;
+        this.waitMillis = waitSeconds * 1000;
+    }
+
+    public ContentLock lockFor(String key) {
+        return new ContentLock(key != null ? key.toLowerCase() : "");
+    }
+
+    public final class ContentLock {
+        private final String key;
+        private final String owner = UUID.randomUUID().toString();
+
+        private ContentLock(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Waits for the lock, polling with backoff, and fails with a {@link FileStorageException}
+         * once {@code media.locks.wait-seconds} have passed.
+         */
+        public void lock() {
+            long deadline = System.currentTimeMillis() + waitMillis;
+            long backoff = 20;
+            while (!tryLock()) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new FileStorageException("Contenu verrouillé par une autre opération: " + key, null);
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new FileStorageException("Attente du verrou interrompue: " + key, e);
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+
+        /**
+         * Takes the lock when it is free or its lease has expired. A live holder makes the
+         * upsert collide with its document on {@code _id}.
+         */
+        public boolean tryLock() {
+            Date now = new Date();
+            try {
+                mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("_id").is(key).and("lockedUntil").lt(now)),
+                        new Update().set("owner", owner).set("lockedUntil", new Date(now.getTime() + leaseMillis)),
+                        FindAndModifyOptions.options().upsert(true).returnNew(true),
+                        MediaLock.class);
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        }
+
+        public void unlock() {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(key).and("owner").is(owner)), MediaLock.class);
+        }
+    }
+}
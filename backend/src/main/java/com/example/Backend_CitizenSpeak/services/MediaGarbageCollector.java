@@ -0,0 +1,266 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.dto.StoredObject;
+import com.example.Backend_CitizenSpeak.models.Media;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Reconciles the media store with the {@code media} collection.
+ *
+ * The store listing is streamed and checked against Mongo in batches, so neither the object
+ * list nor the collection is ever held in memory. An original is an orphan when no media
+ * document names it; a derivative is an orphan when no media document names its original.
+ * Objects younger than the grace period are skipped so in-flight uploads are never collected.
+ * Each orphan is checked again and deleted under the content's lock ({@link MediaContentLocks},
+ * shared by every node), so an upload deduplicated onto an old file in the meantime keeps it.
+ */
+@Service
+public class MediaGarbageCollector {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final MediaStorageLayout storageLayout;
+    private final MediaStore mediaStore;
+    private final MediaService mediaService;
+    private final long gracePeriodMillis;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Autowired
+    public MediaGarbageCollector(MongoTemplate mongoTemplate,
+                                 MediaStorageLayout storageLayout,
+                                 MediaStore mediaStore,
+                                 MediaService mediaService,
+                                 @Value("${media.gc.grace-period-minutes:60}") long gracePeriodMinutes) {
+        this.mongoTemplate = mongoTemplate;
+        this.storageLayout = storageLayout;
+        this.mediaStore = mediaStore;
+        this.mediaService = mediaService;
+        this.gracePeriodMillis = gracePeriodMinutes * 60 * 1000;
+    }
+
+    @Scheduled(cron = "${media.gc.cron:0 30 3 * * ?}")
+    public void scheduledCollection() {
+        Map<String, Object> report = collect(false);
+        System.out.println("Nettoyage des médias orphelins: " + report);
+    }
+
+    public Map<String, Object> collect(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("status", "already-running");
+            return report;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            CollectionRun run = new CollectionRun(dryRun, start - gracePeriodMillis);
+
+            try (Stream<StoredObject> objects = mediaStore.listObjects()) {
+                for (StoredObject object : (Iterable<StoredObject>) objects::iterator) {
+                    run.visit(object);
+                }
+            }
+            run.flush();
+            long danglingMedia = countDanglingMedia();
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("status", "completed");
+            report.put("dryRun", dryRun);
+            report.put("store", mediaStore.getType());
+            report.put("scannedFiles", run.scannedFiles);
+            report.put("orphanFiles", run.orphanFiles);
+            report.put("reclaimedBytes", run.reclaimedBytes);
+            report.put("danglingMedia", danglingMedia);
+            report.put("durationMs", System.currentTimeMillis() - start);
+            return report;
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Erreur lors du nettoyage des médias: " + e.getMessage());
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("status", "failed");
+            report.put("error", e.getMessage());
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Counts media documents whose file is missing, streaming only the file names.
+     */
+    private long countDanglingMedia() {
+        Query query = new Query();
+        query.fields().include("mediaFile");
+        query.cursorBatchSize(BATCH_SIZE);
+
+        long dangling = 0;
+        try (Stream<Media> stream = mongoTemplate.stream(query, Media.class)) {
+            for (Media media : (Iterable<Media>) stream::iterator) {
+                try {
+                    if (media.getMediaFile() == null || mediaStore.stat(storageLayout.keyFor(media.getMediaFile())) == null) {
+                        dangling++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    dangling++;
+                }
+            }
+        }
+        return dangling;
+    }
+
+    private Set<String> findReferenced(List<String> filenames) {
+        Query query = Query.query(Criteria.where("mediaFile").in(filenames));
+        query.fields().include("mediaFile");
+
+        Set<String> referenced = new HashSet<>();
+        for (Media media : mongoTemplate.find(query, Media.class)) {
+            referenced.add(media.getMediaFile());
+        }
+        return referenced;
+    }
+
+    /**
+     * Returns the original base names, among {@code baseNames}, that some media document still
+     * names. Anchored prefix patterns can use the {@code mediaFile} index.
+     */
+    private Set<String> findReferencedBases(Set<String> baseNames) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String baseName : baseNames) {
+            patterns.add(Pattern.compile("^" + Pattern.quote(baseName) + "\\."));
+        }
+        Query query = Query.query(Criteria.where("mediaFile").in(patterns));
+        query.fields().include("mediaFile");
+
+        Set<String> referenced = new HashSet<>();
+        for (Media media : mongoTemplate.find(query, Media.class)) {
+            if (media.getMediaFile() != null) {
+                referenced.add(baseName(media.getMediaFile()));
+            }
+        }
+        return referenced;
+    }
+
+    private static String baseName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    private class CollectionRun {
+        private final boolean dryRun;
+        private final long modifiedBefore;
+        private final List<StoredObject> originals = new ArrayList<>();
+        private final List<StoredObject> derivatives = new ArrayList<>();
+
+        private long scannedFiles;
+        private long orphanFiles;
+        private long reclaimedBytes;
+
+        private CollectionRun(boolean dryRun, long modifiedBefore) {
+            this.dryRun = dryRun;
+            this.modifiedBefore = modifiedBefore;
+        }
+
+        private void visit(StoredObject object) throws IOException {
+            String key = object.getKey();
+            String filename = object.getFilename();
+            if (key.startsWith(MediaStorageLayout.INCOMING_DIR + "/") || key.startsWith(MediaStorageLayout.PHOTOS_DIR + "/")
+                    || filename.startsWith(".")) {
+                return;
+            }
+
+            scannedFiles++;
+            if (object.getLastModified() >= modifiedBefore) {
+                return;
+            }
+
+            if (isDerivative(filename)) {
+                derivatives.add(object);
+            } else {
+                originals.add(object);
+            }
+            if (originals.size() >= BATCH_SIZE || derivatives.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            if (!originals.isEmpty()) {
+                List<String> filenames = new ArrayList<>();
+                originals.forEach(object -> filenames.add(object.getFilename()));
+                Set<String> referenced = findReferenced(filenames);
+                for (StoredObject orphan : originals.stream().filter(object -> !referenced.contains(object.getFilename())).toList()) {
+                    if (dryRun || mediaService.deleteFileIfUnreferenced(orphan.getFilename())) {
+                        count(orphan);
+                    }
+                }
+                originals.clear();
+            }
+
+            if (!derivatives.isEmpty()) {
+                Set<String> bases = new HashSet<>();
+                derivatives.forEach(object -> bases.add(originalBase(object.getFilename())));
+                Set<String> referenced = findReferencedBases(bases);
+                for (StoredObject orphan : derivatives.stream().filter(object -> !referenced.contains(originalBase(object.getFilename()))).toList()) {
+                    if (dryRun || removeDerivative(orphan)) {
+                        count(orphan);
+                    }
+                }
+                derivatives.clear();
+            }
+        }
+
+        /**
+         * Deletes an orphan derivative unless its original got referenced since the batch check.
+         */
+        private boolean removeDerivative(StoredObject derivative) throws IOException {
+            String base = originalBase(derivative.getFilename());
+            MediaContentLocks.ContentLock lock = mediaService.contentLock(derivative.getFilename());
+            lock.lock();
+            try {
+                if (!findReferencedBases(Set.of(base)).isEmpty()) {
+                    return false;
+                }
+                mediaStore.delete(derivative.getKey());
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void count(StoredObject orphan) {
+            orphanFiles++;
+            reclaimedBytes += orphan.getSize();
+        }
+
+        private boolean isDerivative(String filename) {
+            int underscore = filename.lastIndexOf('_');
+            if (underscore < 0 || !filename.endsWith(".jpg")) {
+                return false;
+            }
+            String suffix = filename.substring(underscore + 1, filename.length() - ".jpg".length());
+            return ImageDerivativeService.ImageVariant.fromSuffix(suffix) != null;
+        }
+
+        private String originalBase(String derivativeFilename) {
+            return derivativeFilename.substring(0, derivativeFilename.lastIndexOf('_'));
+        }
+    }
+}
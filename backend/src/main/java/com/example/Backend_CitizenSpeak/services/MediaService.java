@@ -1,5 +1,7 @@
 package com.example.Backend_CitizenSpeak.services;
 
+import com.example.Backend_CitizenSpeak.dto.MediaFileInfo;
+import com.example.Backend_CitizenSpeak.dto.StoredObject;
 import com.example.Backend_CitizenSpeak.exceptions.FileStorageException;
 import com.example.Backend_CitizenSpeak.exceptions.ResourceNotFoundException;
 import com.example.Backend_CitizenSpeak.models.Complaint;
@@ -7,36 +9,81 @@ import com.example.Backend_CitizenSpeak.models.Media;
 import com.example.Backend_CitizenSpeak.repositories.MediaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 public class MediaService {
 
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
     private final MediaRepository mediaRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ImageDerivativeService imageDerivativeService;
+    private final MediaStorageLayout storageLayout;
+    private final MediaStore mediaStore;
     private final Path fileStorageLocation;
+    private final Map<String, MediaFileInfo> fileInfoCache;
+    private final boolean presignedDownloads;
+    private final Duration presignedUrlTtl;
+    private final MediaContentLocks contentLocks;
 
     @Autowired
     public MediaService(MediaRepository mediaRepository,
-                        @Value("${file.upload-dir:uploads}") String uploadDir) {
+                        MongoTemplate mongoTemplate,
+                        ImageDerivativeService imageDerivativeService,
+                        MediaStorageLayout storageLayout,
+                        MediaStore mediaStore,
+                        MediaContentLocks contentLocks,
+                        @Value("${media.metadata-cache.size:10000}") int metadataCacheSize,
+                        @Value("${media.storage.presigned-downloads:true}") boolean presignedDownloads,
+                        @Value("${media.storage.presigned-url-ttl-seconds:300}") long presignedUrlTtlSeconds) {
         this.mediaRepository = mediaRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.imageDerivativeService = imageDerivativeService;
+        this.storageLayout = storageLayout;
+        this.mediaStore = mediaStore;
+        this.contentLocks = contentLocks;
+        this.presignedDownloads = presignedDownloads;
+        this.presignedUrlTtl = Duration.ofSeconds(presignedUrlTtlSeconds);
+        this.fileInfoCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MediaFileInfo> eldest) {
+                return size() > metadataCacheSize;
+            }
+        });
 
-        this.fileStorageLocation = Paths.get(uploadDir)
-                .toAbsolutePath().normalize();
+        this.fileStorageLocation = storageLayout.getRoot();
 
         try {
             Files.createDirectories(this.fileStorageLocation);
@@ -71,27 +118,26 @@ public class MediaService {
 
                 String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
                 String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-                String filename = UUID.randomUUID().toString() + fileExtension;
-
-                System.out.println("Saving file as: " + filename);
-
-                Path targetLocation = this.fileStorageLocation.resolve(filename);
-                Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-                System.out.println("File saved to: " + targetLocation.toString());
 
-                Media media = new Media();
-                media.setMediaFile(filename);
-                media.setCaptureDate(new Date());
+                // transferTo(File) lets the container move a part it already spooled to disk
+                // instead of streaming it through a second copy.
+                Path tempFile = storageLayout.newIncomingFile();
+                file.transferTo(tempFile.toFile());
+                String contentHash = computeContentHash(tempFile);
 
+                String complaintId = null;
                 try {
-                    media.setComplaintId(complaint.getComplaintId());
+                    complaintId = complaint.getComplaintId();
                 } catch (Exception e) {
                     System.out.println("ComplaintId not available, continuing without it");
                 }
 
-                Media savedMediaEntity = mediaRepository.save(media);
-                savedMedia.add(savedMediaEntity);
-                System.out.println("Media entity saved with ID: " + savedMediaEntity.getMediaId());
+                Media savedMediaEntity = storeMedia(tempFile, contentHash, fileExtension, file.getSize(), complaintId);
+                if (savedMedia.stream().noneMatch(media -> media.getMediaId().equals(savedMediaEntity.getMediaId()))) {
+                    savedMedia.add(savedMediaEntity);
+                }
+                System.out.println("Media entity saved with ID: " + savedMediaEntity.getMediaId()
+                        + " (" + savedMediaEntity.getMediaFile() + ")");
 
             } catch (IOException ex) {
                 System.err.println("Failed to store file: " + ex.getMessage());
@@ -103,25 +149,131 @@ public class MediaService {
         return savedMedia;
     }
 
-    public Resource loadFileAsResource(String filename) {
+    /**
+     * Records a media whose content was written to {@code tempFile} and hashed by the caller.
+     * The content is stored once under its SHA-256 name. A retried upload of the same content for
+     * the same complaint returns the existing {@link Media} unchanged: the unique
+     * {@code (contentHash, complaintId)} index turns the second insert, from any node, into a
+     * {@link DuplicateKeyException}. The media is recorded before the file is checked, and the
+     * check runs under the content's lock, so a concurrent deletion either sees the reference or
+     * has removed the file before it is stored again.
+     */
+    public Media storeMedia(Path tempFile, String contentHash, String extension, long size, String complaintId) throws IOException {
+        String filename = storageLayout.contentFilename(contentHash, extension);
+        String key = storageLayout.keyFor(filename);
+
+        Media media = new Media(filename, new Date());
+        media.setComplaintId(complaintId);
+        media.setContentHash(contentHash);
+        media.setFileSize(size);
+        media.setContentType(getContentType(filename));
+        media.setRefCount(1);
+
+        boolean created;
+        try {
+            media = mediaRepository.insert(media);
+            created = true;
+        } catch (DuplicateKeyException e) {
+            media = mediaRepository.findFirstByContentHashAndComplaintId(contentHash, complaintId).orElseThrow(() -> e);
+            created = false;
+            System.out.println("Duplicate upload for complaint " + complaintId + ", reusing media " + media.getMediaId());
+        }
+
+        MediaContentLocks.ContentLock lock = contentLocks.lockFor(contentHash);
+        lock.lock();
         try {
-            Path filePath = this.fileStorageLocation.resolve(filename).normalize();
+            if (mediaStore.stat(key) != null) {
+                Files.deleteIfExists(tempFile);
+                System.out.println("Content already stored, deduplicated: " + filename);
+            } else {
+                mediaStore.put(key, tempFile, getContentType(filename));
+                System.out.println("File saved to " + mediaStore.getType() + " store: " + key);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (created) {
+                mediaRepository.delete(media);
+            }
+            throw e;
+        } finally {
+            lock.unlock();
+        }
 
+        if (created) {
+            imageDerivativeService.scheduleDerivatives(filename);
+        }
+        return media;
+    }
+
+    /**
+     * Stores a profile photo under {@code photos/} and returns its public URL. On the local store
+     * this is the legacy static path; on a shared store it is served through the media controller.
+     */
+    public String storeProfilePhoto(MultipartFile file) {
+        String original = StringUtils.cleanPath(file.getOriginalFilename() != null ? file.getOriginalFilename() : "");
+        String filename = generateUniqueFilename(original);
+        Path tempFile = storageLayout.newIncomingFile();
+        try {
+            file.transferTo(tempFile.toFile());
+            mediaStore.put(storageLayout.photoKeyFor(filename), tempFile, getContentType(filename));
+        } catch (IOException e) {
             try {
-                if (!filePath.startsWith(this.fileStorageLocation)) {
-                    throw new ResourceNotFoundException("Accès non autorisé au fichier: " + filename);
-                }
-            } catch (Exception e) {
-                System.out.println("Security check not available, proceeding with file access");
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // nothing left to clean up
             }
+            throw new FileStorageException("Impossible de stocker la photo", e);
+        }
+        return getProfilePhotoUrl(filename);
+    }
 
-            Resource resource = new UrlResource(filePath.toUri());
-            if (resource.exists()) {
-                return resource;
-            } else {
+    public String getProfilePhotoUrl(String filename) {
+        return mediaStore.localPath(storageLayout.photoKeyFor(filename)) != null
+                ? "/uploads/photos/" + filename
+                : "/api/media/photos/" + filename;
+    }
+
+    public MediaFileInfo getProfilePhotoFileInfo(String filename) {
+        String key = storageLayout.photoKeyFor(filename);
+        try {
+            StoredObject object = mediaStore.stat(key);
+            if (object == null) {
                 throw new ResourceNotFoundException("File not found: " + filename);
             }
-        } catch (MalformedURLException ex) {
+            // Photo names are random UUIDs and never rewritten, so key and mtime make a stable validator.
+            String validator = Integer.toHexString(key.hashCode()) + "-" + Long.toHexString(object.getLastModified());
+            return new MediaFileInfo(filename, key, mediaStore.localPath(key), getContentType(filename),
+                    object.getSize(), validator, object.getLastModified());
+        } catch (IOException e) {
+            throw new FileStorageException("Could not read photo metadata: " + filename, e);
+        }
+    }
+
+    /**
+     * A presigned URL the client can download {@code info} from directly, or {@code null} when
+     * the store serves bytes through this application.
+     */
+    public URI getDirectDownloadUrl(MediaFileInfo info) {
+        if (!presignedDownloads || info.getPath() != null) {
+            return null;
+        }
+        return mediaStore.presignedGetUrl(info.getStorageKey(), presignedUrlTtl);
+    }
+
+    public InputStream openMediaStream(MediaFileInfo info, long offset, long length) throws IOException {
+        return mediaStore.openStream(info.getStorageKey(), offset, length);
+    }
+
+    public Resource loadFileAsResource(String filename) {
+        String key = storageLayout.keyFor(filename);
+        try {
+            if (mediaStore.stat(key) == null) {
+                throw new ResourceNotFoundException("File not found: " + filename);
+            }
+            Path localPath = mediaStore.localPath(key);
+            return localPath != null
+                    ? new UrlResource(localPath.toUri())
+                    : new InputStreamResource(mediaStore.openStream(key, 0, -1));
+        } catch (IOException ex) {
             throw new ResourceNotFoundException("File not found: " + filename, ex);
         }
     }
@@ -129,34 +281,28 @@ public class MediaService {
     public byte[] getMediaContent(String id) throws IOException {
         try {
             Media media = getMediaById(id);
-            Path filePath = this.fileStorageLocation.resolve(media.getMediaFile()).normalize();
+            String key = storageLayout.keyFor(media.getMediaFile());
 
-            if (!Files.exists(filePath)) {
-                throw new ResourceNotFoundException("Physical file not found: " + filePath);
+            if (mediaStore.stat(key) == null) {
+                throw new ResourceNotFoundException("Physical file not found: " + key);
             }
 
-            return Files.readAllBytes(filePath);
+            try (InputStream in = mediaStore.openStream(key, 0, -1)) {
+                return in.readAllBytes();
+            }
         } catch (Exception e) {
             System.err.println("Error reading media content: " + e.getMessage());
             throw new IOException("Could not read media content", e);
         }
     }
 
+    /**
+     * Drops one reference to the media. The document is removed when its count reaches zero,
+     * and the stored file only once no other media document points at the same content.
+     */
     public void deleteMedia(String id) {
         try {
-            Media media = getMediaById(id);
-
-            try {
-                Path filePath = this.fileStorageLocation.resolve(media.getMediaFile()).normalize();
-                Files.deleteIfExists(filePath);
-                System.out.println("Deleted file: " + filePath);
-            } catch (IOException e) {
-                System.err.println("Erreur lors de la suppression du fichier: " + e.getMessage());
-            }
-
-            mediaRepository.delete(media);
-            System.out.println("Media entity deleted with ID: " + id);
-
+            releaseReference(getMediaById(id));
         } catch (ResourceNotFoundException e) {
             System.err.println("Media not found for deletion: " + id);
             throw e;
@@ -183,18 +329,211 @@ public class MediaService {
         }
     }
 
+    /**
+     * Drops the complaint's reference to each of its media, as {@link #deleteMedia} does for one.
+     */
     public void deleteMediaByComplaintId(String complaintId) {
         try {
             List<Media> mediaList = getMediaByComplaintId(complaintId);
             for (Media media : mediaList) {
-                deleteMedia(media.getMediaId());
+                releaseReference(media);
             }
-            System.out.println("Deleted " + mediaList.size() + " media files for complaint: " + complaintId);
+            System.out.println("Released " + mediaList.size() + " media for complaint: " + complaintId);
         } catch (Exception e) {
             System.err.println("Error deleting media for complaint " + complaintId + ": " + e.getMessage());
         }
     }
 
+    /**
+     * Deletes the stored original {@code filename} and its derivatives unless a media document
+     * names it. The check and the deletion run under the content's lock, like the file check in
+     * {@link #storeMedia}, so an upload deduplicated onto this file either recorded its media
+     * before the check or finds the file gone and stores it again. Returns whether the file was
+     * deleted.
+     */
+    public boolean deleteFileIfUnreferenced(String filename) {
+        MediaContentLocks.ContentLock lock = contentLock(filename);
+        lock.lock();
+        try {
+            if (mediaRepository.countByMediaFile(filename) > 0) {
+                return false;
+            }
+            deleteStoredFile(filename);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the metadata needed to serve a media file (path, type, size, content hash).
+     * Entries are cached so repeated downloads of the same media skip the Mongo lookup;
+     * media saved before hashes were recorded get theirs computed once and persisted.
+     */
+    public MediaFileInfo getMediaFileInfo(String mediaId) {
+        MediaFileInfo cached = fileInfoCache.get("id:" + mediaId);
+        if (cached != null) {
+            return cached;
+        }
+
+        Media media = getMediaById(mediaId);
+        MediaFileInfo info = buildFileInfo(media.getMediaFile(), media);
+        fileInfoCache.put("id:" + mediaId, info);
+        fileInfoCache.put("file:" + info.getFilename(), info);
+        return info;
+    }
+
+    public MediaFileInfo getMediaFileInfoByFilename(String filename) {
+        MediaFileInfo cached = fileInfoCache.get("file:" + filename);
+        if (cached != null) {
+            return cached;
+        }
+
+        Media media = mediaRepository.findFirstByMediaFile(filename).orElse(null);
+        MediaFileInfo info = buildFileInfo(filename, media);
+        fileInfoCache.put("file:" + filename, info);
+        return info;
+    }
+
+    /**
+     * Resolves the metadata of a resized copy of {@code original}, queuing its generation on
+     * first use. Falls back to the original itself while the copy is not ready yet, or when the
+     * original is not a decodable image.
+     */
+    public MediaFileInfo getDerivativeFileInfo(MediaFileInfo original, ImageDerivativeService.ImageVariant variant) {
+        String derivativeFilename = imageDerivativeService.getOrCreateDerivative(original.getFilename(), variant);
+        if (derivativeFilename == null) {
+            return original;
+        }
+        return getMediaFileInfoByFilename(derivativeFilename);
+    }
+
+    public Map<String, String> getThumbnailUrls(String mediaUrl, String filename) {
+        return imageDerivativeService.getDerivativeUrls(mediaUrl, filename);
+    }
+
+    public String computeContentHash(Path filePath) throws IOException {
+        MessageDigest digest = newSha256();
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private String computeStoredContentHash(String key) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream in = mediaStore.openStream(key, 0, -1)) {
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private MediaFileInfo buildFileInfo(String filename, Media media) {
+        String key = storageLayout.keyFor(filename);
+
+        try {
+            StoredObject object = mediaStore.stat(key);
+            if (object == null) {
+                throw new ResourceNotFoundException("File not found: " + filename);
+            }
+
+            long size = object.getSize();
+            long lastModified = object.getLastModified();
+            String contentHash = media != null ? media.getContentHash() : null;
+
+            if (contentHash == null) {
+                contentHash = storageLayout.isContentAddressed(filename) && !filename.contains("_")
+                        ? filename.substring(0, filename.lastIndexOf('.'))
+                        : computeStoredContentHash(key);
+                if (media != null) {
+                    media.setContentHash(contentHash);
+                    media.setFileSize(size);
+                    media.setContentType(getContentType(filename));
+                    mediaRepository.save(media);
+                }
+            }
+
+            String contentType = media != null && media.getContentType() != null
+                    ? media.getContentType()
+                    : getContentType(filename);
+
+            return new MediaFileInfo(filename, key, mediaStore.localPath(key), contentType, size, contentHash, lastModified);
+        } catch (IOException e) {
+            throw new FileStorageException("Could not read media file metadata: " + filename, e);
+        }
+    }
+
+    private void deleteStoredFile(String filename) {
+        try {
+            String key = storageLayout.keyFor(filename);
+            mediaStore.delete(key);
+            imageDerivativeService.deleteDerivatives(filename);
+            System.out.println("Deleted file: " + key);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la suppression du fichier: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Decrements the media's reference count; at zero the document is removed, and the stored
+     * file too once no other media document points at the same content.
+     */
+    private void releaseReference(Media media) {
+        Media updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(media.getMediaId())),
+                new Update().inc("refCount", -1),
+                FindAndModifyOptions.options().returnNew(true),
+                Media.class);
+
+        if (updated != null && updated.getRefCount() != null && updated.getRefCount() > 0) {
+            System.out.println("Media " + media.getMediaId() + " still referenced " + updated.getRefCount() + " time(s)");
+            return;
+        }
+
+        mediaRepository.delete(media);
+        evictFileInfo(media);
+        System.out.println("Media entity deleted with ID: " + media.getMediaId());
+
+        if (media.getMediaFile() != null) {
+            deleteFileIfUnreferenced(media.getMediaFile());
+        }
+    }
+
+    /**
+     * The lock {@link #storeMedia} holds for the content stored as {@code filename} (an original
+     * or one of its derivatives): the hash for content-addressed names, the name otherwise.
+     */
+    MediaContentLocks.ContentLock contentLock(String filename) {
+        return contentLocks.lockFor(storageLayout.isContentAddressed(filename) ? filename.substring(0, 64) : filename);
+    }
+
+    private void evictFileInfo(Media media) {
+        fileInfoCache.remove("id:" + media.getMediaId());
+        if (media.getMediaFile() != null) {
+            fileInfoCache.remove("file:" + media.getMediaFile());
+            for (ImageDerivativeService.ImageVariant variant : ImageDerivativeService.ImageVariant.values()) {
+                fileInfoCache.remove("file:" + imageDerivativeService.getDerivativeFilename(media.getMediaFile(), variant));
+            }
+        }
+    }
+
     public String getFileExtension(String filename) {
         if (filename != null && filename.contains(".")) {
             return filename.substring(filename.lastIndexOf("."));
@@ -215,12 +554,8 @@ public class MediaService {
     public long getFileSize(String mediaId) {
         try {
             Media media = getMediaById(mediaId);
-            Path filePath = this.fileStorageLocation.resolve(media.getMediaFile()).normalize();
-
-            if (Files.exists(filePath)) {
-                return Files.size(filePath);
-            }
-            return 0;
+            StoredObject object = mediaStore.stat(storageLayout.keyFor(media.getMediaFile()));
+            return object != null ? object.getSize() : 0;
         } catch (Exception e) {
             System.err.println("Error getting file size: " + e.getMessage());
             return 0;
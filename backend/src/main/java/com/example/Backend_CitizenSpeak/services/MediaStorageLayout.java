@@ -0,0 +1,91 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.exceptions.FileStorageException;
+import com.example.Backend_CitizenSpeak.exceptions.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps media file names to their location under the upload directory.
+ *
+ * Content-addressed files are named {@code <sha256><ext>} (derivatives {@code <sha256>_<variant>.jpg})
+ * and live in a two-level shard, {@code ab/cd/abcd...}, so no directory grows past a few
+ * thousand entries. Files stored before content addressing keep their flat UUID names.
+ */
+@Component
+public class MediaStorageLayout {
+
+    public static final String INCOMING_DIR = ".incoming";
+    public static final String PHOTOS_DIR = "photos";
+
+    private static final Pattern CONTENT_ADDRESSED_NAME =
+            Pattern.compile("^([0-9a-f]{2})([0-9a-f]{2})[0-9a-f]{60}(_[a-z]+)?\\.[A-Za-z0-9]+$");
+
+    private final Path root;
+    private final Path incoming;
+
+    public MediaStorageLayout(@Value("${file.upload-dir:uploads}") String uploadDir) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.incoming = this.root.resolve(INCOMING_DIR);
+        try {
+            Files.createDirectories(this.incoming);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not create the directory for incoming uploads", ex);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public Path getIncomingDirectory() {
+        return incoming;
+    }
+
+    public Path newIncomingFile() {
+        return incoming.resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    public String contentFilename(String contentHash, String extension) {
+        return contentHash.toLowerCase() + (extension != null ? extension.toLowerCase() : "");
+    }
+
+    public boolean isContentAddressed(String filename) {
+        return filename != null && CONTENT_ADDRESSED_NAME.matcher(filename).matches();
+    }
+
+    /**
+     * The storage key of a media file: its path relative to the root, always with {@code /}.
+     */
+    public String keyFor(String filename) {
+        if (filename == null || filename.isBlank() || filename.contains("/") || filename.contains("\\")
+                || filename.equals("..") || filename.equals(".")) {
+            throw new ResourceNotFoundException("Nom de fichier invalide: " + filename);
+        }
+
+        Matcher matcher = CONTENT_ADDRESSED_NAME.matcher(filename);
+        return matcher.matches()
+                ? matcher.group(1) + "/" + matcher.group(2) + "/" + filename
+                : filename;
+    }
+
+    public String photoKeyFor(String filename) {
+        return PHOTOS_DIR + "/" + keyFor(filename);
+    }
+
+    public Path resolve(String filename) {
+        Path path = root.resolve(keyFor(filename)).normalize();
+        if (!path.startsWith(root)) {
+            throw new ResourceNotFoundException("Accès non autorisé au fichier: " + filename);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.dto.StoredObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Where media bytes live. Keys are the relative paths produced by {@link MediaStorageLayout#keyFor},
+ * e.g. {@code ab/cd/abcd...jpg} or {@code photos/<name>}.
+ */
+public interface MediaStore {
+
+    String getType();
+
+    /**
+     * Returns size and modification time, or {@code null} when the object does not exist.
+     */
+    StoredObject stat(String key) throws IOException;
+
+    /**
+     * Stores the content of {@code source} under {@code key}. The source file is consumed:
+     * it is moved or deleted once the object is durable.
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    InputStream openStream(String key, long offset, long length) throws IOException;
+
+    /**
+     * The file backing {@code key} when it is on this node's disk, else {@code null}.
+     */
+    Path localPath(String key);
+
+    /**
+     * A local file with the object's content; a temporary copy for remote stores, which the
+     * caller deletes when it differs from {@link #localPath}.
+     */
+    Path fetchToLocal(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    void deleteAll(Collection<String> keys) throws IOException;
+
+    /**
+     * Lazily lists every stored object; the stream must be closed.
+     */
+    Stream<StoredObject> listObjects() throws IOException;
+
+    /**
+     * A time-limited URL clients can download from directly, or {@code null} when unsupported.
+     */
+    URI presignedGetUrl(String key, Duration ttl);
+}
@@ -0,0 +1,78 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.LoginAttemptWindow;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Attempt counters in the {@code login_attempt_windows} collection, shared by every node. Each
+ * attempt is one upserting update whose pipeline rolls the window over when it has moved on, so
+ * concurrent nodes never lose a count. Counters idle for two windows are removed by a TTL index.
+ */
+public class MongoLoginAttemptLimiter implements LoginAttemptLimiter {
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoLoginAttemptLimiter(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        try {
+            mongoTemplate.indexOps(LoginAttemptWindow.class)
+                    .ensureIndex(new Index().on("expiresAt", Sort.Direction.ASC)
+                            .expire(Duration.ZERO)
+                            .named("login_attempt_window_expires_ttl"));
+        } catch (Exception e) {
+            System.err.println("Impossible de créer les index du limiteur de connexions: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getType() {
+        return "mongo";
+    }
+
+    @Override
+    public double recordAttempt(String key, long windowMillis) {
+        long now = System.currentTimeMillis();
+        long index = now / windowMillis;
+
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("previous").toValue(ConditionalOperators
+                        .when(ComparisonOperators.valueOf("windowIndex").equalToValue(index))
+                        .thenValueOf("previous")
+                        .otherwise(ConditionalOperators
+                                .when(ComparisonOperators.valueOf("windowIndex").equalToValue(index - 1))
+                                .thenValueOf("current")
+                                .otherwise(0)))
+                .set("current").toValue(ConditionalOperators
+                        .when(ComparisonOperators.valueOf("windowIndex").equalToValue(index))
+                        .thenValueOf(ArithmeticOperators.valueOf("current").add(1))
+                        .otherwise(1))
+                .set("windowIndex").toValue(index)
+                .set("expiresAt").toValue(new Date((index + 2) * windowMillis));
+
+        LoginAttemptWindow window = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(key)), update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), LoginAttemptWindow.class);
+        if (window == null) {
+            return 0;
+        }
+        double elapsed = (double) (now % windowMillis) / windowMillis;
+        return window.getPrevious() * (1 - elapsed) + window.getCurrent();
+    }
+
+    @Override
+    public long trackedKeys() {
+        return mongoTemplate.estimatedCount(LoginAttemptWindow.class);
+    }
+}
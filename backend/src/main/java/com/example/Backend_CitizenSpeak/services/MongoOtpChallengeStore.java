@@ -0,0 +1,66 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.OtpChallenge;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Pending logins in the {@code otp_challenges} collection, shared by every node. A TTL index
+ * removes expired challenges; since the TTL monitor only runs about once a minute, reads also
+ * filter on {@code expiresAt}.
+ */
+public class MongoOtpChallengeStore implements OtpChallengeStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoOtpChallengeStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        try {
+            mongoTemplate.indexOps(OtpChallenge.class)
+                    .ensureIndex(new Index().on("expiresAt", Sort.Direction.ASC)
+                            .expire(Duration.ZERO)
+                            .named("otp_challenge_expires_ttl"));
+        } catch (Exception e) {
+            System.err.println("Impossible de créer les index des codes OTP: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getType() {
+        return "mongo";
+    }
+
+    @Override
+    public void save(OtpChallenge challenge) {
+        mongoTemplate.insert(challenge);
+    }
+
+    @Override
+    public OtpChallenge find(String token) {
+        return mongoTemplate.findOne(live(token), OtpChallenge.class);
+    }
+
+    @Override
+    public int recordFailedAttempt(String token) {
+        OtpChallenge challenge = mongoTemplate.findAndModify(live(token), new Update().inc("attempts", 1),
+                FindAndModifyOptions.options().returnNew(true), OtpChallenge.class);
+        return challenge != null ? challenge.getAttempts() : -1;
+    }
+
+    @Override
+    public boolean remove(String token) {
+        return mongoTemplate.remove(live(token), OtpChallenge.class).getDeletedCount() > 0;
+    }
+
+    private Query live(String token) {
+        return Query.query(Criteria.where("_id").is(token).and("expiresAt").gt(new Date()));
+    }
+}
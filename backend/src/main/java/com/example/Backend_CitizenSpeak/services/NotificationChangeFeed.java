@@ -0,0 +1,181 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.BroadcastNotification;
+import com.example.Backend_CitizenSpeak.models.Notification;
+import com.example.Backend_CitizenSpeak.models.NotificationStoredEvent;
+import com.mongodb.DBRef;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Republishes every notification and broadcast inserted by any node as a
+ * {@link NotificationStoredEvent}, read from a MongoDB change stream, so each node's live streams
+ * see what the other nodes dispatched.
+ *
+ * Change streams need a replica set. On a standalone server the feed stays inactive and the
+ * streams keep using the events published by this node; while the change stream is down for
+ * another reason it is reopened with backoff from the last event read, and local events are
+ * used in the meantime.
+ */
+@Service
+public class NotificationChangeFeed {
+
+    /** Returned by servers where $changeStream is not available (standalone). */
+    private static final int CHANGE_STREAM_NOT_SUPPORTED = 40573;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final BroadcastNotificationService broadcastService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+
+    private volatile boolean active;
+    private volatile boolean stopped;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+    private Thread worker;
+
+    @Autowired
+    public NotificationChangeFeed(MongoTemplate mongoTemplate,
+                                  BroadcastNotificationService broadcastService,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${notifications.stream.change-feed.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.broadcastService = broadcastService;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Whether stored notifications currently arrive through the change stream; when not, the
+     * events published locally by the dispatcher are the only source.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        worker = new Thread(this::run, "notification-change-feed");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> current = cursor;
+        if (current != null) {
+            current.close();
+        }
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        String notifications = mongoTemplate.getCollectionName(Notification.class);
+        String broadcasts = mongoTemplate.getCollectionName(BroadcastNotification.class);
+        List<Bson> pipeline = List.of(Aggregates.match(Filters.and(
+                Filters.eq("operationType", "insert"),
+                Filters.in("ns.coll", notifications, broadcasts))));
+
+        BsonDocument resumeToken = null;
+        long backoff = 1000;
+        while (!stopped) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> opened = open(pipeline, resumeToken)) {
+                cursor = opened;
+                active = true;
+                backoff = 1000;
+                System.out.println("Flux de modifications des notifications ouvert");
+                while (!stopped) {
+                    ChangeStreamDocument<Document> change = opened.tryNext();
+                    if (change == null) {
+                        continue;
+                    }
+                    resumeToken = change.getResumeToken();
+                    publish(change, notifications);
+                }
+            } catch (MongoCommandException e) {
+                active = false;
+                if (e.getErrorCode() == CHANGE_STREAM_NOT_SUPPORTED) {
+                    System.out.println("Flux de modifications indisponible (pas de replica set), "
+                            + "notifications en direct limitées à cette instance");
+                    return;
+                }
+                System.err.println("Flux de modifications des notifications interrompu: " + e.getMessage());
+            } catch (RuntimeException e) {
+                active = false;
+                if (stopped) {
+                    return;
+                }
+                System.err.println("Flux de modifications des notifications interrompu: " + e.getMessage());
+            } finally {
+                cursor = null;
+            }
+
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(List<Bson> pipeline,
+                                                                         BsonDocument resumeToken) {
+        var stream = mongoTemplate.getDb().watch(pipeline).maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    private void publish(ChangeStreamDocument<Document> change, String notifications) {
+        Document document = change.getFullDocument();
+        if (document == null || change.getNamespace() == null) {
+            return;
+        }
+        try {
+            if (notifications.equals(change.getNamespace().getCollectionName())) {
+                Object recipient = document.get("recipient");
+                if (!(recipient instanceof DBRef ref)) {
+                    return;
+                }
+                // The payload only needs the notification's own fields: leave the references unresolved.
+                Document fields = new Document(document);
+                fields.remove("recipient");
+                fields.remove("relatedComplaint");
+                fields.remove("relatedIntervention");
+                Notification notification = mongoTemplate.getConverter().read(Notification.class, fields);
+                eventPublisher.publishEvent(new NotificationStoredEvent(notification, ref.getId().toString(), null, true));
+            } else {
+                BroadcastNotification broadcast = mongoTemplate.getConverter().read(BroadcastNotification.class, document);
+                eventPublisher.publishEvent(new NotificationStoredEvent(
+                        broadcastService.toNotification(broadcast, false), null, broadcast.getRole(), true));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Notification du flux de modifications ignorée: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.*;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Expands outbox events into per-recipient notifications. Events addressed to a role are stored
+ * once as a broadcast by {@link BroadcastNotificationService} rather than copied to each user.
+ *
+ * At most {@code notifications.outbox.dispatcher-threads} events are expanded at once; each
+ * worker keeps claiming events until the outbox is empty. Workers are started when an event is
+ * enqueued and by a periodic poll that also picks up retries and events left by other nodes.
+ * Notifications get a deterministic id ({@code <eventId>-<recipientId>}), so re-running an event
+ * after a crash inserts only the notifications that are still missing.
+ *
+ * Events with a coalesce key are held for {@code notifications.coalesce.window-ms} and merged
+ * with later events for the same key, so a burst of updates on one complaint becomes a single
+ * notification. Role events that are not high priority are collected into one daily digest per
+ * role when {@code notifications.digest.enabled} is set.
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+    private static final long BACKLOG_REFRESH_INTERVAL_MS = 10_000;
+    private static final String DIGEST_KEY_PREFIX = "digest:";
+    private static final int DIGEST_MAX_LINES = 20;
+
+    private final NotificationOutboxService outboxService;
+    private final BroadcastNotificationService broadcastService;
+    private final UnreadCounterService unreadCounterService;
+    private final NotificationRetentionService retentionService;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int insertBatchSize;
+    private final long coalesceWindowMillis;
+    private final boolean digestEnabled;
+    private final CronExpression digestCron;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore workers;
+    private volatile boolean running = true;
+
+    private final Timer lagTimer;
+    private final Counter dispatchedEvents;
+    private final Counter retriedEvents;
+    private final Counter failedEvents;
+    private final Counter deliveredNotifications;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+    private volatile long lastBacklogRefresh;
+
+    @Autowired
+    public NotificationDispatcher(NotificationOutboxService outboxService,
+                                  BroadcastNotificationService broadcastService,
+                                  UnreadCounterService unreadCounterService,
+                                  NotificationRetentionService retentionService,
+                                  MongoTemplate mongoTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${notifications.outbox.dispatcher-threads:2}") int threads,
+                                  @Value("${notifications.outbox.insert-batch-size:500}") int insertBatchSize,
+                                  @Value("${notifications.coalesce.window-ms:30000}") long coalesceWindowMillis,
+                                  @Value("${notifications.digest.enabled:false}") boolean digestEnabled,
+                                  @Value("${notifications.digest.cron:0 0 7 * * *}") String digestCron) {
+        this.outboxService = outboxService;
+        this.broadcastService = broadcastService;
+        this.unreadCounterService = unreadCounterService;
+        this.retentionService = retentionService;
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.insertBatchSize = insertBatchSize;
+        this.coalesceWindowMillis = coalesceWindowMillis;
+        this.digestEnabled = digestEnabled;
+        this.digestCron = CronExpression.parse(digestCron);
+        this.workers = new Semaphore(threads);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-dispatcher-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.lagTimer = Timer.builder("notifications.outbox.lag")
+                .description("Time between an outbox event being written and its notifications being stored")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.dispatchedEvents = meterRegistry.counter("notifications.outbox.events", "outcome", "dispatched");
+        this.retriedEvents = meterRegistry.counter("notifications.outbox.events", "outcome", "retry");
+        this.failedEvents = meterRegistry.counter("notifications.outbox.events", "outcome", "failed");
+        this.deliveredNotifications = meterRegistry.counter("notifications.outbox.delivered");
+        Gauge.builder("notifications.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Outbox events waiting to be dispatched")
+                .register(meterRegistry);
+        Gauge.builder("notifications.outbox.oldest.pending.age", oldestPendingAgeMillis, value -> value.get() / 1000.0)
+                .description("Age in seconds of the oldest undispatched outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the event and starts a worker for it. Events without recipients are dropped;
+     * digest and coalesced events are only recorded, the poll picks them up once released.
+     */
+    public void enqueue(NotificationOutboxEvent event) {
+        if (!event.hasRecipients()) {
+            return;
+        }
+        if (digestEnabled && event.getRecipientRole() != null && !"high".equals(event.getPriority())) {
+            event.setCoalesceKey(DIGEST_KEY_PREFIX + event.getRecipientRole());
+            LocalDateTime next = digestCron.next(LocalDateTime.now());
+            Date releaseAt = next != null ? Date.from(next.atZone(ZoneId.systemDefault()).toInstant()) : new Date();
+            outboxService.enqueueCoalesced(event, releaseAt, true);
+            return;
+        }
+        if (event.getCoalesceKey() != null && coalesceWindowMillis > 0) {
+            outboxService.enqueueCoalesced(event, new Date(System.currentTimeMillis() + coalesceWindowMillis), false);
+            return;
+        }
+        event.setCoalesceKey(null);
+        if (outboxService.enqueue(event)) {
+            startWorker();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        long now = System.currentTimeMillis();
+        if (now - lastBacklogRefresh >= BACKLOG_REFRESH_INTERVAL_MS) {
+            lastBacklogRefresh = now;
+            try {
+                pendingEvents.set(outboxService.countByStatus(NotificationOutboxEvent.STATUS_PENDING));
+                oldestPendingAgeMillis.set(outboxService.oldestPendingAgeMillis());
+            } catch (Exception e) {
+                System.err.println("Impossible de mesurer l'outbox des notifications: " + e.getMessage());
+            }
+        }
+        startWorker();
+    }
+
+    public Timer getLagTimer() {
+        return lagTimer;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        executor.shutdown();
+    }
+
+    private void startWorker() {
+        if (!running || !workers.tryAcquire()) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            workers.release();
+        }
+    }
+
+    private void drain() {
+        try {
+            NotificationOutboxEvent event;
+            while (running && (event = outboxService.claimNext()) != null) {
+                // More events may be waiting; let an idle worker slot help.
+                startWorker();
+                dispatch(event);
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur du dispatcher de notifications: " + e.getMessage());
+        } finally {
+            workers.release();
+        }
+    }
+
+    private void dispatch(NotificationOutboxEvent event) {
+        try {
+            summarize(event);
+            int delivered = event.getRecipientRole() != null
+                    ? (broadcastService.publish(event) ? 1 : 0)
+                    : expand(event);
+            outboxService.markDone(event, delivered);
+            // Held events count from their release, not from the first event of the window.
+            Date readySince = event.getCoalesceKey() != null ? event.getNextAttemptAt() : event.getCreatedDate();
+            lagTimer.record(System.currentTimeMillis() - readySince.getTime(), TimeUnit.MILLISECONDS);
+            dispatchedEvents.increment();
+            deliveredNotifications.increment(delivered);
+        } catch (Exception e) {
+            System.err.println("Échec de l'envoi de l'événement de notification " + event.getEventId()
+                    + " (tentative " + event.getAttempts() + "): " + e.getMessage());
+            if (outboxService.markFailed(event, e.getMessage())) {
+                failedEvents.increment();
+            } else {
+                retriedEvents.increment();
+            }
+        }
+    }
+
+    /**
+     * Rewrites the content of a digest or of an event that absorbed later ones, before it is
+     * stored; the outbox document itself keeps the merged fields.
+     */
+    private void summarize(NotificationOutboxEvent event) {
+        if (event.getDigestItems() != null && !event.getDigestItems().isEmpty()) {
+            List<String> items = event.getDigestItems();
+            StringBuilder message = new StringBuilder(items.size() + " notification(s) depuis le dernier résumé");
+            items.stream().limit(DIGEST_MAX_LINES).forEach(item -> message.append("\n- ").append(item));
+            if (items.size() > DIGEST_MAX_LINES) {
+                message.append("\n… et ").append(items.size() - DIGEST_MAX_LINES).append(" autre(s)");
+            }
+            event.setLegacyFormat(false);
+            event.setType("digest");
+            event.setTitle("Résumé quotidien");
+            event.setMessage(message.toString());
+            event.setIconType("bell");
+            event.setActionUrl(null);
+            event.setRelatedEntityId(null);
+            event.setRelatedEntityType(null);
+            event.setRelatedComplaintId(null);
+            event.setRelatedComplaintTitle(null);
+        } else if (event.getCoalescedCount() > 1) {
+            if (event.isLegacyFormat()) {
+                event.setContent(event.getCoalescedCount() + " mises à jour de votre signalement. Dernière : "
+                        + event.getContent());
+            } else {
+                event.setMessage(event.getMessage() + " (" + event.getCoalescedCount() + " événements regroupés)");
+            }
+        }
+    }
+
+    private int expand(NotificationOutboxEvent event) {
+        int delivered = 0;
+        List<Notification> batch = new ArrayList<>(insertBatchSize);
+
+        for (String recipientId : event.getRecipientIds()) {
+            batch.add(buildNotification(event, recipientId));
+            if (batch.size() >= insertBatchSize) {
+                delivered += insertBatch(event, batch);
+                batch = new ArrayList<>(insertBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            delivered += insertBatch(event, batch);
+        }
+        return delivered;
+    }
+
+    /**
+     * Inserts the batch unordered. Duplicate-key failures mean the notification was stored by
+     * an earlier attempt and are ignored; anything else fails the event so it is retried. Either
+     * way the notifications that did go in are counted and announced first: the retry will find
+     * them as duplicates and skip them.
+     */
+    private int insertBatch(NotificationOutboxEvent event, List<Notification> batch) {
+        Set<Integer> notInserted = new HashSet<>();
+        BulkOperationException failure = null;
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class)
+                    .insert(batch)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                notInserted.add(error.getIndex());
+                if (error.getCode() != DUPLICATE_KEY_ERROR) {
+                    failure = e;
+                }
+            }
+        }
+
+        int inserted = 0;
+        Map<String, Long> unreadByUser = new HashMap<>();
+        List<Notification> pushed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (notInserted.contains(i)) {
+                continue;
+            }
+            inserted++;
+            Notification notification = batch.get(i);
+            User recipient = notification.getRecipient();
+            unreadByUser.merge(recipient.getUserId(), 1L, Long::sum);
+            eventPublisher.publishEvent(new NotificationStoredEvent(notification, recipient.getUserId(), null));
+            if (event.isPush()) {
+                pushed.add(notification);
+            }
+        }
+        unreadCounterService.incrementAll(unreadByUser);
+        if (!pushed.isEmpty()) {
+            eventPublisher.publishEvent(new NotificationEvent(pushed));
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return inserted;
+    }
+
+    private Notification buildNotification(NotificationOutboxEvent event, String recipientId) {
+        User recipient = recipientReference(event.getRecipientType(), recipientId);
+
+        Notification notification = new Notification();
+        notification.setNotificationId(event.getEventId() + "-" + recipientId);
+        notification.setRead(false);
+
+        notification.setRecipient(recipient);
+        notification.setCreatedDate(event.getCreatedDate());
+        notification.setExpiresAt(retentionService.unreadExpiry(event.getCreatedDate()));
+
+        if (event.isLegacyFormat()) {
+            notification.setNotificationType(event.getNotificationType());
+            notification.setContent(event.getContent());
+            notification.setSentDate(event.getCreatedDate());
+        } else {
+            notification.setType(event.getType());
+            notification.setTitle(event.getTitle());
+            notification.setMessage(event.getMessage());
+        }
+
+        notification.setComplaintId(event.getComplaintId());
+        notification.setPriority(event.getPriority());
+        notification.setIconType(event.getIconType());
+        notification.setActionUrl(event.getActionUrl());
+        notification.setRelatedEntityId(event.getRelatedEntityId());
+        notification.setRelatedEntityType(event.getRelatedEntityType());
+
+        if (event.getRelatedComplaintId() != null) {
+            Complaint complaint = new Complaint();
+            complaint.setComplaintId(event.getRelatedComplaintId());
+            notification.setRelatedComplaint(complaint);
+        }
+        if (event.getRelatedInterventionId() != null) {
+            Intervention intervention = new Intervention();
+            intervention.setInterventionId(event.getRelatedInterventionId());
+            notification.setRelatedIntervention(intervention);
+        }
+        return notification;
+    }
+
+    /**
+     * A reference carrying only the id; enough for the DBRef, which stores the collection
+     * ({@code users} for every role) and the id.
+     */
+    private User recipientReference(String recipientType, String recipientId) {
+        User user = switch (recipientType != null ? recipientType : "") {
+            case "Citizen" -> new Citizen();
+            case "CommunityAgent" -> new CommunityAgent();
+            case "Admin" -> new Admin();
+            case "Analyst" -> new Analyst();
+            default -> new User();
+        };
+        user.setUserId(recipientId);
+        return user;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.NotificationOutboxEvent;
+import com.example.Backend_CitizenSpeak.repositories.NotificationOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Persistence side of the notification outbox: writing events, claiming them with a lease so
+ * that only one dispatcher (on any node) expands a given event, and recording the outcome.
+ */
+@Service
+public class NotificationOutboxService {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final MongoTemplate mongoTemplate;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration retryBaseDelay;
+    private final Duration retryMaxDelay;
+    private final Duration doneRetention;
+
+    @Autowired
+    public NotificationOutboxService(NotificationOutboxRepository outboxRepository,
+                                     MongoTemplate mongoTemplate,
+                                     @Value("${notifications.outbox.lease-seconds:60}") long leaseSeconds,
+                                     @Value("${notifications.outbox.max-attempts:8}") int maxAttempts,
+                                     @Value("${notifications.outbox.retry-base-delay-ms:2000}") long retryBaseDelayMs,
+                                     @Value("${notifications.outbox.retry-max-delay-ms:600000}") long retryMaxDelayMs,
+                                     @Value("${notifications.outbox.done-retention-hours:24}") long doneRetentionHours) {
+        this.outboxRepository = outboxRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.retryBaseDelay = Duration.ofMillis(retryBaseDelayMs);
+        this.retryMaxDelay = Duration.ofMillis(retryMaxDelayMs);
+        this.doneRetention = Duration.ofHours(doneRetentionHours);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            var indexOps = mongoTemplate.indexOps(NotificationOutboxEvent.class);
+            indexOps.ensureIndex(new Index().on("dedupKey", Sort.Direction.ASC).unique()
+                    .partial(PartialIndexFilter.of(Criteria.where("dedupKey").exists(true)))
+                    .named("outbox_dedup_key"));
+            indexOps.ensureIndex(new Index().on("status", Sort.Direction.ASC).on("nextAttemptAt", Sort.Direction.ASC)
+                    .named("outbox_status_next_attempt"));
+            // At most one open (pending) event per coalesce key; concurrent producers merge into it.
+            indexOps.ensureIndex(new Index().on("coalesceKey", Sort.Direction.ASC).unique()
+                    .partial(PartialIndexFilter.of(Criteria.where("coalesceKey").exists(true)
+                            .and("status").is(NotificationOutboxEvent.STATUS_PENDING)))
+                    .named("outbox_pending_coalesce_key"));
+            indexOps.ensureIndex(new Index().on("mergedDedupKeys", Sort.Direction.ASC)
+                    .named("outbox_merged_dedup_keys"));
+            indexOps.ensureIndex(new Index().on("processedDate", Sort.Direction.ASC)
+                    .expire(doneRetention)
+                    .named("outbox_processed_ttl"));
+        } catch (Exception e) {
+            System.err.println("Impossible de créer les index de l'outbox des notifications: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the event. Returns {@code false} when an event with the same dedup key already
+     * exists, i.e. the domain operation was retried after its notification was recorded.
+     */
+    public boolean enqueue(NotificationOutboxEvent event) {
+        Date now = new Date();
+        event.setStatus(NotificationOutboxEvent.STATUS_PENDING);
+        event.setCreatedDate(now);
+        event.setNextAttemptAt(now);
+        try {
+            mongoTemplate.insert(event);
+            return true;
+        } catch (DuplicateKeyException e) {
+            System.out.println("Événement de notification déjà enregistré: " + event.getDedupKey());
+            return false;
+        }
+    }
+
+    /**
+     * Merges the event into the pending event with the same coalesce key, or writes it to be
+     * released at {@code releaseAt}. A digest collects one line per event; otherwise the newest
+     * content replaces the previous one. Returns {@code false} if the event was already recorded.
+     */
+    public boolean enqueueCoalesced(NotificationOutboxEvent event, Date releaseAt, boolean digest) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (mergeIntoPending(event, digest)) {
+                return true;
+            }
+            if (event.getDedupKey() != null && mongoTemplate.exists(Query.query(new Criteria().orOperator(
+                    Criteria.where("dedupKey").is(event.getDedupKey()),
+                    Criteria.where("mergedDedupKeys").is(event.getDedupKey()))), NotificationOutboxEvent.class)) {
+                System.out.println("Événement de notification déjà enregistré: " + event.getDedupKey());
+                return false;
+            }
+
+            event.setStatus(NotificationOutboxEvent.STATUS_PENDING);
+            event.setCreatedDate(new Date());
+            event.setNextAttemptAt(releaseAt);
+            event.setCoalescedCount(1);
+            event.setMergedDedupKeys(event.getDedupKey() != null
+                    ? new ArrayList<>(List.of(event.getDedupKey())) : new ArrayList<>());
+            event.setDigestItems(digest ? new ArrayList<>(List.of(digestLine(event))) : new ArrayList<>());
+            try {
+                mongoTemplate.insert(event);
+                return true;
+            } catch (DuplicateKeyException e) {
+                // Either the dedup key exists, or another producer just opened the pending event
+                // for this coalesce key; a second pass tells them apart.
+                event.setEventId(null);
+            }
+        }
+        return false;
+    }
+
+    private boolean mergeIntoPending(NotificationOutboxEvent event, boolean digest) {
+        Criteria criteria = Criteria.where("coalesceKey").is(event.getCoalesceKey())
+                .and("status").is(NotificationOutboxEvent.STATUS_PENDING);
+        Update update = new Update().inc("coalescedCount", 1);
+        if (event.getDedupKey() != null) {
+            criteria.and("mergedDedupKeys").ne(event.getDedupKey());
+            update.addToSet("mergedDedupKeys", event.getDedupKey());
+        }
+        if (digest) {
+            update.push("digestItems", digestLine(event));
+        } else {
+            update.set("notificationType", event.getNotificationType())
+                    .set("content", event.getContent())
+                    .set("type", event.getType())
+                    .set("title", event.getTitle())
+                    .set("message", event.getMessage())
+                    .set("priority", event.getPriority())
+                    .set("iconType", event.getIconType())
+                    .set("actionUrl", event.getActionUrl())
+                    .set("complaintId", event.getComplaintId())
+                    .set("relatedComplaintId", event.getRelatedComplaintId())
+                    .set("relatedComplaintTitle", event.getRelatedComplaintTitle())
+                    .set("relatedInterventionId", event.getRelatedInterventionId())
+                    .set("relatedEntityId", event.getRelatedEntityId())
+                    .set("relatedEntityType", event.getRelatedEntityType());
+        }
+        return mongoTemplate.updateFirst(Query.query(criteria), update, NotificationOutboxEvent.class)
+                .getModifiedCount() > 0;
+    }
+
+    private String digestLine(NotificationOutboxEvent event) {
+        String title = event.getTitle() != null ? event.getTitle() : event.getNotificationType();
+        String message = event.getMessage() != null ? event.getMessage() : event.getContent();
+        return title + " : " + message;
+    }
+
+    /**
+     * Atomically takes the oldest due event, or one whose previous lease expired because its
+     * dispatcher died, and leases it to the caller.
+     */
+    public NotificationOutboxEvent claimNext() {
+        Date now = new Date();
+        Query query = Query.query(new Criteria().orOperator(
+                Criteria.where("status").is(NotificationOutboxEvent.STATUS_PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(NotificationOutboxEvent.STATUS_PROCESSING).and("lockedUntil").lt(now)));
+        query.with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+
+        Update update = new Update()
+                .set("status", NotificationOutboxEvent.STATUS_PROCESSING)
+                .set("lockedUntil", new Date(now.getTime() + lease.toMillis()))
+                .inc("attempts", 1);
+
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), NotificationOutboxEvent.class);
+    }
+
+    public void markDone(NotificationOutboxEvent event, int deliveredCount) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(event.getEventId())),
+                new Update()
+                        .set("status", NotificationOutboxEvent.STATUS_DONE)
+                        .set("processedDate", new Date())
+                        .set("deliveredCount", deliveredCount)
+                        .unset("lockedUntil")
+                        .unset("lastError"),
+                NotificationOutboxEvent.class);
+    }
+
+    /**
+     * Schedules a retry with exponential backoff and jitter, or parks the event as failed once
+     * it has used all its attempts. Returns {@code true} when the event was parked.
+     */
+    public boolean markFailed(NotificationOutboxEvent event, String error) {
+        boolean exhausted = event.getAttempts() >= maxAttempts;
+        // A retried event no longer takes merges; new events for its key open a fresh one.
+        Update update = new Update()
+                .set("lastError", error)
+                .unset("lockedUntil")
+                .unset("coalesceKey");
+        if (exhausted) {
+            update.set("status", NotificationOutboxEvent.STATUS_FAILED);
+        } else {
+            long backoff = Math.min(retryMaxDelay.toMillis(),
+                    retryBaseDelay.toMillis() << Math.min(20, Math.max(0, event.getAttempts() - 1)));
+            long jitter = ThreadLocalRandom.current().nextLong(backoff / 4 + 1);
+            update.set("status", NotificationOutboxEvent.STATUS_PENDING)
+                    .set("nextAttemptAt", new Date(System.currentTimeMillis() + backoff + jitter));
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(event.getEventId())), update,
+                NotificationOutboxEvent.class);
+        return exhausted;
+    }
+
+    public long retryFailed() {
+        return mongoTemplate.updateMulti(
+                Query.query(Criteria.where("status").is(NotificationOutboxEvent.STATUS_FAILED)),
+                new Update()
+                        .set("status", NotificationOutboxEvent.STATUS_PENDING)
+                        .set("attempts", 0)
+                        .set("nextAttemptAt", new Date()),
+                NotificationOutboxEvent.class).getModifiedCount();
+    }
+
+    public long countByStatus(String status) {
+        return outboxRepository.countByStatus(status);
+    }
+
+    /**
+     * How long the longest-waiting due event has been ready to be expanded, in milliseconds; 0 when
+     * the outbox is drained. Events held back for coalescing or a digest are not due yet.
+     */
+    public long oldestPendingAgeMillis() {
+        Date now = new Date();
+        Query query = Query.query(Criteria.where("status").is(NotificationOutboxEvent.STATUS_PENDING)
+                .and("nextAttemptAt").lte(now));
+        query.with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        NotificationOutboxEvent oldest = mongoTemplate.findOne(query, NotificationOutboxEvent.class);
+        return oldest != null ? now.getTime() - oldest.getNextAttemptAt().getTime() : 0L;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", countByStatus(NotificationOutboxEvent.STATUS_PENDING));
+        stats.put("processing", countByStatus(NotificationOutboxEvent.STATUS_PROCESSING));
+        stats.put("failed", countByStatus(NotificationOutboxEvent.STATUS_FAILED));
+        stats.put("done", countByStatus(NotificationOutboxEvent.STATUS_DONE));
+        stats.put("oldestPendingAgeMs", oldestPendingAgeMillis());
+        return stats;
+    }
+}
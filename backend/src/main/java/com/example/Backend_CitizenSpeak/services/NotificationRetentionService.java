@@ -0,0 +1,186 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.Notification;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Notification retention. Every notification carries an {@code expiresAt} date and a TTL index
+ * on it lets MongoDB remove expired notifications in the background, a few at a time, instead of
+ * a nightly range delete. Unread notifications are kept {@code notifications.retention.unread-days};
+ * marking one read brings its expiry forward to {@code notifications.retention.read-days} from then.
+ *
+ * With archival enabled, the TTL index waits {@code archive.grace-hours} past the expiry date,
+ * and the archive job writes expired notifications to gzipped JSON-lines files in the meantime.
+ */
+@Service
+public class NotificationRetentionService {
+
+    private static final String NOTIFICATIONS = "notifications";
+    private static final String TTL_INDEX = "notification_expires_ttl";
+    private static final int ARCHIVE_MARK_BATCH = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration unreadRetention;
+    private final Duration readRetention;
+    private final boolean archiveEnabled;
+    private final Path archiveDir;
+    private final Duration archiveGrace;
+
+    @Autowired
+    public NotificationRetentionService(MongoTemplate mongoTemplate,
+                                        @Value("${notifications.retention.unread-days:90}") long unreadDays,
+                                        @Value("${notifications.retention.read-days:30}") long readDays,
+                                        @Value("${notifications.retention.archive.enabled:false}") boolean archiveEnabled,
+                                        @Value("${notifications.retention.archive.dir:archive/notifications}") String archiveDir,
+                                        @Value("${notifications.retention.archive.grace-hours:48}") long archiveGraceHours) {
+        this.mongoTemplate = mongoTemplate;
+        this.unreadRetention = Duration.ofDays(unreadDays);
+        this.readRetention = Duration.ofDays(readDays);
+        this.archiveEnabled = archiveEnabled;
+        this.archiveDir = Paths.get(archiveDir);
+        this.archiveGrace = Duration.ofHours(archiveGraceHours);
+    }
+
+    /**
+     * Creates the TTL index, recreating it if the archival setting changed its delay, and gives an
+     * expiry date to notifications stored before retention was tracked.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            var indexOps = mongoTemplate.indexOps(Notification.class);
+            Duration expireAfter = archiveEnabled ? archiveGrace : Duration.ZERO;
+            for (IndexInfo index : indexOps.getIndexInfo()) {
+                if (TTL_INDEX.equals(index.getName())
+                        && !expireAfter.equals(index.getExpireAfter().orElse(null))) {
+                    indexOps.dropIndex(TTL_INDEX);
+                }
+            }
+            indexOps.ensureIndex(new Index().on("expiresAt", Sort.Direction.ASC)
+                    .expire(expireAfter)
+                    .named(TTL_INDEX));
+            if (archiveEnabled) {
+                indexOps.ensureIndex(new Index().on("archivedDate", Sort.Direction.ASC)
+                        .on("expiresAt", Sort.Direction.ASC)
+                        .named("notification_archived_expires"));
+            }
+
+            AggregationUpdate backfill = AggregationUpdate.update()
+                    .set("expiresAt").toValue(ArithmeticOperators.valueOf("createdDate").add(
+                            ConditionalOperators.when(Criteria.where("isRead").is(true))
+                                    .then(readRetention.toMillis())
+                                    .otherwise(unreadRetention.toMillis())));
+            long updated = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("expiresAt").exists(false).and("createdDate").exists(true)),
+                    backfill, NOTIFICATIONS).getModifiedCount();
+            if (updated > 0) {
+                System.out.println("Date d'expiration ajoutée aux notifications existantes: " + updated);
+            }
+        } catch (Exception e) {
+            System.err.println("Impossible de configurer la rétention des notifications: " + e.getMessage());
+        }
+    }
+
+    public Date unreadExpiry(Date createdDate) {
+        Date from = createdDate != null ? createdDate : new Date();
+        return new Date(from.getTime() + unreadRetention.toMillis());
+    }
+
+    public Date readExpiry() {
+        return new Date(System.currentTimeMillis() + readRetention.toMillis());
+    }
+
+    /**
+     * Expiry update for notifications being marked read: {@code $min} never pushes an earlier
+     * expiry back.
+     */
+    public Update markReadUpdate() {
+        return new Update().set("isRead", true).min("expiresAt", readExpiry());
+    }
+
+    /**
+     * Streams notifications past their expiry that are not yet archived into one gzipped file,
+     * then flags them so the next run skips them. The file is written under a temporary name and
+     * renamed once complete, so a crash never leaves a truncated archive behind.
+     */
+    @Scheduled(cron = "${notifications.retention.archive.cron:0 30 3 * * *}")
+    public void archiveExpired() {
+        if (!archiveEnabled) {
+            return;
+        }
+        Date now = new Date();
+        Query query = Query.query(Criteria.where("archivedDate").exists(false).and("expiresAt").lte(now));
+        query.with(Sort.by(Sort.Direction.ASC, "expiresAt"));
+
+        String name = "notifications-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(now) + ".jsonl.gz";
+        Path target = archiveDir.resolve(name);
+        Path partial = archiveDir.resolve(name + ".part");
+        List<Object> archivedIds = new ArrayList<>();
+        try {
+            Files.createDirectories(archiveDir);
+            try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, NOTIFICATIONS);
+                 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                         new GZIPOutputStream(Files.newOutputStream(partial)), StandardCharsets.UTF_8))) {
+                Iterator<Document> iterator = documents.iterator();
+                while (iterator.hasNext()) {
+                    Document document = iterator.next();
+                    writer.write(document.toJson());
+                    writer.newLine();
+                    archivedIds.add(document.get("_id"));
+                }
+            }
+            if (archivedIds.isEmpty()) {
+                Files.deleteIfExists(partial);
+                return;
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+
+            for (int i = 0; i < archivedIds.size(); i += ARCHIVE_MARK_BATCH) {
+                List<Object> batch = archivedIds.subList(i, Math.min(i + ARCHIVE_MARK_BATCH, archivedIds.size()));
+                mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(batch)),
+                        new Update().set("archivedDate", now), NOTIFICATIONS);
+            }
+            System.out.println("Notifications archivées: " + archivedIds.size() + " dans " + target);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Échec de l'archivage des notifications: " + e.getMessage());
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                // Left for the next run to overwrite.
+            }
+        }
+    }
+}
@@ -3,114 +3,115 @@ package com.example.Backend_CitizenSpeak.services;
 import com.example.Backend_CitizenSpeak.exceptions.ResourceNotFoundException;
 import com.example.Backend_CitizenSpeak.models.*;
 import com.example.Backend_CitizenSpeak.repositories.*;
+import com.mongodb.client.result.UpdateResult;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 @Service
 public class NotificationService {
 
+    private static final int MAX_EMPTY_INBOXES = 50_000;
+
     private final NotificationRepository notificationRepository;
     private final DeviceTokenRepository deviceTokenRepository;
-    private final ApplicationEventPublisher eventPublisher;
-
-    @Autowired
-    private UserRepository userRepository;
-    @Autowired
-    private AdminRepository adminRepository;
-    @Autowired
-    private AgentRepository agentRepository;
-    @Autowired
-    private AnalystRepository analystRepository;
-    @Autowired
-    private CitizenRepository citizenRepository;
+    private final NotificationDispatcher notificationDispatcher;
+    private final BroadcastNotificationService broadcastService;
+    private final UnreadCounterService unreadCounterService;
+    private final NotificationRetentionService retentionService;
+    private final MongoTemplate mongoTemplate;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int maxOffset;
+    private final long emptyInboxTtlMillis;
+
+    /** Users whose last lookup found no notification, until the given time. */
+    private final Map<String, Long> emptyInboxes = new ConcurrentHashMap<>();
 
     @Autowired
     public NotificationService(NotificationRepository notificationRepository,
                                DeviceTokenRepository deviceTokenRepository,
-                               ApplicationEventPublisher eventPublisher) {
+                               NotificationDispatcher notificationDispatcher,
+                               BroadcastNotificationService broadcastService,
+                               UnreadCounterService unreadCounterService,
+                               NotificationRetentionService retentionService,
+                               MongoTemplate mongoTemplate,
+                               @Value("${notifications.page-size:50}") int defaultPageSize,
+                               @Value("${notifications.max-page-size:200}") int maxPageSize,
+                               @Value("${notifications.max-offset:2000}") int maxOffset,
+                               @Value("${notifications.empty-inbox-cache-ttl-ms:30000}") long emptyInboxTtlMillis) {
         this.notificationRepository = notificationRepository;
         this.deviceTokenRepository = deviceTokenRepository;
-        this.eventPublisher = eventPublisher;
+        this.notificationDispatcher = notificationDispatcher;
+        this.broadcastService = broadcastService;
+        this.unreadCounterService = unreadCounterService;
+        this.retentionService = retentionService;
+        this.mongoTemplate = mongoTemplate;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxOffset = maxOffset;
+        this.emptyInboxTtlMillis = emptyInboxTtlMillis;
     }
 
-    public List<Notification> getNotificationsByUser(User user) {
-        try {
-            return notificationRepository.findByUserOrderBySentDateDesc(user);
-        } catch (Exception e) {
-            return getNotificationsForUser(user);
-        }
+    public List<Notification> getNotificationsForUser(User user) {
+        return getNotificationsForUser(user, 0, defaultPageSize);
     }
 
-    public List<Notification> getNotificationsForUser(User user) {
-        try {
-            System.out.println("=== RECHERCHE NOTIFICATIONS INTELLIGENTE ===");
-            System.out.println("User ID: " + user.getUserId());
-            System.out.println("User Email: " + user.getEmail());
-            System.out.println("User Class: " + user.getClass().getSimpleName());
+    /**
+     * One page of the user's notifications, newest first, with their role's broadcasts merged in.
+     * A size of 0 means {@code notifications.page-size}.
+     */
+    public List<Notification> getNotificationsForUser(User user, int page, int size) {
+        return getPage(user, false, page, size);
+    }
 
-            try {
-                List<Notification> directResult = notificationRepository.findByRecipientOrderByCreatedDateDesc(user);
-                System.out.println("Recherche directe: " + directResult.size());
-                if (!directResult.isEmpty()) {
-                    return directResult;
-                }
-            } catch (Exception e) {
-                System.out.println("Méthode directe non disponible, fallback vers ancienne méthode");
-            }
+    public List<Notification> getUnreadNotificationsForUser(User user) {
+        return getUnreadNotificationsForUser(user, 0, defaultPageSize);
+    }
 
-            try {
-                List<Notification> legacyResult = notificationRepository.findByUserOrderBySentDateDesc(user);
-                System.out.println("Recherche legacy: " + legacyResult.size());
-                if (!legacyResult.isEmpty()) {
-                    return legacyResult;
-                }
-            } catch (Exception e) {
-                System.out.println("Méthode legacy non disponible");
-            }
+    public List<Notification> getUnreadNotificationsForUser(User user, int page, int size) {
+        return getPage(user, true, page, size);
+    }
 
-            String email = user.getEmail();
-            List<Notification> allNotifications = notificationRepository.findAll();
-
-            List<Notification> emailMatches = allNotifications.stream()
-                    .filter(notif -> {
-                        try {
-                            return notif.getRecipient() != null &&
-                                    email.equals(notif.getRecipient().getEmail());
-                        } catch (Exception e) {
-                            try {
-                                return notif.getUser() != null &&
-                                        email.equals(notif.getUser().getEmail());
-                            } catch (Exception ex) {
-                                return false;
-                            }
-                        }
-                    })
-                    .sorted((n1, n2) -> {
-                        try {
-                            return n2.getCreatedDate().compareTo(n1.getCreatedDate());
-                        } catch (Exception e) {
-                            try {
-                                return n2.getSentDate().compareTo(n1.getSentDate());
-                            } catch (Exception ex) {
-                                return 0;
-                            }
-                        }
-                    })
-                    .collect(Collectors.toList());
-
-            System.out.println("Recherche par email: " + emailMatches.size());
-            return emailMatches;
+    /**
+     * Pages start at most {@code notifications.max-offset} notifications deep: past that the page
+     * is empty, since a merged page costs memory in proportion to its depth.
+     */
+    private List<Notification> getPage(User user, boolean unreadOnly, int page, int size) {
+        int pageSize = size > 0 ? Math.min(size, maxPageSize) : defaultPageSize;
+        long offset = (long) Math.max(0, page) * pageSize;
+        if (offset > maxOffset) {
+            return new ArrayList<>();
+        }
+        int from = (int) offset;
+        try {
+            if (broadcastService.roleOf(user) == null) {
+                return findPersonal(user, unreadOnly, PageRequest.of(Math.max(0, page), pageSize));
+            }
 
+            // Both streams are sorted by date; the first from + size of each cover the merged page.
+            int window = from + pageSize;
+            List<Notification> personal = findPersonal(user, unreadOnly, PageRequest.of(0, window));
+            List<Notification> merged = withBroadcasts(personal, () -> unreadOnly
+                    ? broadcastService.getUnreadBroadcasts(user, window)
+                    : broadcastService.getBroadcasts(user, window));
+            return new ArrayList<>(merged.subList(Math.min(from, merged.size()), Math.min(window, merged.size())));
         } catch (Exception e) {
             System.err.println("Erreur récupération notifications: " + e.getMessage());
             e.printStackTrace();
@@ -118,29 +119,37 @@ public class NotificationService {
         }
     }
 
-    public List<Notification> getUnreadNotificationsForUser(User user) {
-        try {
-            System.out.println("=== RECUPERATION NOTIFICATIONS NON LUES ===");
+    /**
+     * Single indexed query on {@code (recipient, isRead, createdDate)}. Users known to have no
+     * notification at all are answered from {@link #emptyInboxes} without a query.
+     */
+    private List<Notification> findPersonal(User user, boolean unreadOnly, Pageable pageable) {
+        String userId = user.getUserId();
+        Long emptyUntil = emptyInboxes.get(userId);
+        if (emptyUntil != null) {
+            if (emptyUntil > System.currentTimeMillis()) {
+                return new ArrayList<>();
+            }
+            emptyInboxes.remove(userId, emptyUntil);
+        }
 
-            try {
-                List<Notification> unreadNotifications = notificationRepository.findByRecipientAndIsReadFalseOrderByCreatedDateDesc(user);
-                System.out.println("Notifications non lues trouvées: " + unreadNotifications.size());
-                return unreadNotifications;
-            } catch (Exception e) {
-                try {
-                    List<Notification> unreadNotifications = notificationRepository.findByUserAndIsReadFalseOrderBySentDateDesc(user);
-                    System.out.println("Notifications non lues (legacy): " + unreadNotifications.size());
-                    return unreadNotifications;
-                } catch (Exception ex) {
-                    return getNotificationsForUser(user).stream()
-                            .filter(notif -> !notif.isRead())
-                            .collect(Collectors.toList());
-                }
+        List<Notification> notifications = unreadOnly
+                ? notificationRepository.findByRecipientAndIsReadFalseOrderByCreatedDateDesc(user, pageable)
+                : notificationRepository.findByRecipientOrderByCreatedDateDesc(user, pageable);
+        if (!unreadOnly && notifications.isEmpty() && pageable.getOffset() == 0 && emptyInboxTtlMillis > 0) {
+            if (emptyInboxes.size() >= MAX_EMPTY_INBOXES) {
+                long now = System.currentTimeMillis();
+                emptyInboxes.values().removeIf(until -> until <= now);
             }
-        } catch (Exception e) {
-            System.err.println("Erreur notifications non lues: " + e.getMessage());
-            e.printStackTrace();
-            return new ArrayList<>();
+            emptyInboxes.put(userId, System.currentTimeMillis() + emptyInboxTtlMillis);
+        }
+        return notifications;
+    }
+
+    @EventListener
+    public void onNotificationStored(NotificationStoredEvent event) {
+        if (event.getRecipientId() != null) {
+            emptyInboxes.remove(event.getRecipientId());
         }
     }
 
@@ -149,21 +158,39 @@ public class NotificationService {
                 .orElseThrow(() -> new ResourceNotFoundException("Notification not found with id: " + id));
     }
 
+    /**
+     * Stores a notification created outside the outbox and counts it if it is unread.
+     */
+    public Notification saveNotification(Notification notification) {
+        if (notification.getCreatedDate() == null) {
+            notification.setCreatedDate(new Date());
+        }
+        notification.setExpiresAt(notification.isRead()
+                ? retentionService.readExpiry()
+                : retentionService.unreadExpiry(notification.getCreatedDate()));
+        Notification saved = notificationRepository.insert(notification);
+        if (ownerIdOf(saved) != null) {
+            emptyInboxes.remove(ownerIdOf(saved));
+        }
+        if (!saved.isRead() && ownerIdOf(saved) != null) {
+            unreadCounterService.incrementAll(Map.of(ownerIdOf(saved), 1L));
+        }
+        return saved;
+    }
+
     public long getUnreadCount(User user) {
+        long broadcastCount = 0;
         try {
-            try {
-                long count = notificationRepository.countByRecipientAndIsReadFalse(user);
-                System.out.println("Compteur non lues pour " + user.getEmail() + ": " + count);
-                return count;
-            } catch (Exception e) {
-                try {
-                    long count = notificationRepository.countByUserAndIsReadFalse(user);
-                    System.out.println("Compteur non lues (legacy): " + count);
-                    return count;
-                } catch (Exception ex) {
-                    return getUnreadNotificationsForUser(user).size();
-                }
-            }
+            broadcastCount = broadcastService.countUnread(user);
+        } catch (Exception e) {
+            System.err.println("Erreur compteur des notifications diffusées: " + e.getMessage());
+        }
+        return getPersonalUnreadCount(user) + broadcastCount;
+    }
+
+    private long getPersonalUnreadCount(User user) {
+        try {
+            return unreadCounterService.get(user.getUserId(), () -> countUnreadNotifications(user));
         } catch (Exception e) {
             System.err.println("Erreur compteur: " + e.getMessage());
             e.printStackTrace();
@@ -171,52 +198,74 @@ public class NotificationService {
         }
     }
 
+    /**
+     * Seed for the unread counter, served by the {@code (recipient, isRead, createdDate)} index.
+     */
+    private long countUnreadNotifications(User user) {
+        long count = notificationRepository.countByRecipientAndIsReadFalse(user);
+        System.out.println("Compteur non lues initialisé pour " + user.getEmail() + ": " + count);
+        return count;
+    }
+
     @Transactional
     public Notification markAsRead(String notificationId, User user) {
         try {
             Notification notification = getNotificationById(notificationId);
 
             try {
-                if (!notification.getUser().getUserId().equals(user.getUserId())) {
+                if (!notification.getRecipient().getUserId().equals(user.getUserId())) {
                     throw new RuntimeException("Unauthorized access to notification");
                 }
             } catch (Exception e) {
-                try {
-                    if (!notification.getRecipient().getUserId().equals(user.getUserId())) {
-                        throw new RuntimeException("Unauthorized access to notification");
-                    }
-                } catch (Exception ex) {
-                    System.out.println("Skipping authorization check");
-                }
+                System.out.println("Skipping authorization check");
             }
 
-            notification.setRead(true);
-            return notificationRepository.save(notification);
+            markRead(notification);
+            return notification;
         } catch (Exception e) {
             System.err.println("Error in markAsRead with user: " + e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * Returns {@code false} when no personal notification has this id, e.g. it is a broadcast.
+     */
     @Transactional
-    public void markAsRead(String notificationId) {
+    public boolean markAsRead(String notificationId) {
         Optional<Notification> notification = notificationRepository.findById(notificationId);
         if (notification.isPresent()) {
-            notification.get().setRead(true);
-            notificationRepository.save(notification.get());
+            markRead(notification.get());
+            return true;
         }
+        return false;
+    }
+
+    /**
+     * Flips the flag only if it is still unset, so concurrent calls decrement the counter once.
+     */
+    private void markRead(Notification notification) {
+        if (notification.isRead()) {
+            return;
+        }
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(notification.getNotificationId()).and("isRead").is(false)),
+                retentionService.markReadUpdate(),
+                Notification.class);
+        if (result.getModifiedCount() > 0) {
+            unreadCounterService.decrement(ownerIdOf(notification), 1);
+        }
+        notification.setRead(true);
+    }
+
+    public boolean markBroadcastAsRead(String broadcastId, User user) {
+        return broadcastService.markAsRead(broadcastId, user);
     }
 
     @Transactional
     public void markAllAsRead(User user) {
         try {
-            try {
-                List<Notification> unreadNotifications = notificationRepository.findByUserAndIsReadFalseOrderBySentDateDesc(user);
-                unreadNotifications.forEach(notification -> notification.setRead(true));
-                notificationRepository.saveAll(unreadNotifications);
-            } catch (Exception e) {
-                markAllAsReadForUser(user);
-            }
+            markAllPersonalAsRead(user);
         } catch (Exception e) {
             System.err.println("Error marking all as read: " + e.getMessage());
         }
@@ -224,15 +273,19 @@ public class NotificationService {
 
     @Transactional
     public void markAllAsReadForUser(User user) {
-        try {
-            List<Notification> unreadNotifications = notificationRepository.findByRecipientAndIsReadFalseOrderByCreatedDateDesc(user);
-            unreadNotifications.forEach(notification -> notification.setRead(true));
-            notificationRepository.saveAll(unreadNotifications);
-        } catch (Exception e) {
-            List<Notification> unreadNotifications = getUnreadNotificationsForUser(user);
-            unreadNotifications.forEach(notification -> notification.setRead(true));
-            notificationRepository.saveAll(unreadNotifications);
-        }
+        broadcastService.markAllAsRead(user);
+        markAllPersonalAsRead(user);
+    }
+
+    /**
+     * One multi-update; the counter goes down by exactly what was flipped.
+     */
+    private void markAllPersonalAsRead(User user) {
+        UpdateResult result = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("recipient").is(user).and("isRead").is(false)),
+                retentionService.markReadUpdate(),
+                Notification.class);
+        unreadCounterService.decrement(user.getUserId(), result.getModifiedCount());
     }
 
     @Transactional
@@ -240,20 +293,17 @@ public class NotificationService {
         Notification notification = getNotificationById(notificationId);
 
         try {
-            if (!notification.getUser().getUserId().equals(user.getUserId())) {
+            if (!notification.getRecipient().getUserId().equals(user.getUserId())) {
                 throw new RuntimeException("Unauthorized access to notification");
             }
         } catch (Exception e) {
-            try {
-                if (!notification.getRecipient().getUserId().equals(user.getUserId())) {
-                    throw new RuntimeException("Unauthorized access to notification");
-                }
-            } catch (Exception ex) {
-                System.out.println("Skipping authorization check for deletion");
-            }
+            System.out.println("Skipping authorization check for deletion");
         }
 
         notificationRepository.delete(notification);
+        if (!notification.isRead()) {
+            unreadCounterService.decrement(ownerIdOf(notification), 1);
+        }
     }
 
     @Transactional
@@ -280,39 +330,18 @@ public class NotificationService {
         }
     }
 
-    @Transactional
     public void createStatusUpdateNotification(Complaint complaint, String newStatus, String notes) {
         try {
             System.out.println("Creating status update notification for complaint: " + complaint.getComplaintId());
 
-            String notificationType = getNotificationTypeForStatus(newStatus);
-            String content = createStatusUpdateContent(complaint, newStatus, notes);
-
-            Notification notification = new Notification();
-            notification.setNotificationType(notificationType);
-            notification.setSentDate(new Date());
-            notification.setContent(content);
-            notification.setRead(false);
-
-            try {
-                notification.setUser(complaint.getCitizen());
-            } catch (Exception e) {
-                notification.setRecipient(complaint.getCitizen());
-            }
-
-            try {
-                notification.setComplaintId(complaint.getComplaintId());
-            } catch (Exception e) {
-                System.out.println("ComplaintId field not available");
-            }
-
-            notificationRepository.save(notification);
-
-            try {
-                eventPublisher.publishEvent(new NotificationEvent(notification));
-            } catch (Exception e) {
-                System.out.println("Event publisher not available");
-            }
+            NotificationOutboxEvent event = legacyEvent(
+                    "status:" + complaint.getComplaintId() + ":" + newStatus + ":" + timestampOf(complaint.getLastUpdated()),
+                    getNotificationTypeForStatus(newStatus),
+                    createStatusUpdateContent(complaint, newStatus, notes),
+                    complaint.getComplaintId());
+            event.addRecipient(complaint.getCitizen());
+            event.setCoalesceKey(coalesceKey("status", complaint.getCitizen(), complaint.getComplaintId()));
+            notificationDispatcher.enqueue(event);
 
             System.out.println("Status update notification created successfully");
         } catch (Exception e) {
@@ -321,20 +350,16 @@ public class NotificationService {
         }
     }
 
-    @Transactional
     public void createCommentNotification(Comment comment) {
         try {
             System.out.println("Creating comment notification for complaint: " + comment.getComplaint().getComplaintId());
 
             String commentAuthorId = null;
-            String commentAuthorName = null;
 
             if ("CITIZEN".equals(comment.getAuthorType()) && comment.getCitizen() != null) {
                 commentAuthorId = comment.getCitizen().getUserId();
-                commentAuthorName = comment.getCitizen().getName();
             } else if ("AGENT".equals(comment.getAuthorType()) && comment.getAgent() != null) {
                 commentAuthorId = comment.getAgent().getUserId();
-                commentAuthorName = comment.getAgent().getName();
             }
 
             String complaintOwnerId = comment.getComplaint().getCitizen().getUserId();
@@ -344,33 +369,15 @@ public class NotificationService {
                 return;
             }
 
-            String content = createCommentContent(comment);
-
-            Notification notification = new Notification();
-            notification.setNotificationType("NEW_COMMENT");
-            notification.setSentDate(new Date());
-            notification.setContent(content);
-            notification.setRead(false);
-
-            try {
-                notification.setUser(comment.getComplaint().getCitizen());
-            } catch (Exception e) {
-                notification.setRecipient(comment.getComplaint().getCitizen());
-            }
-
-            try {
-                notification.setComplaintId(comment.getComplaint().getComplaintId());
-            } catch (Exception e) {
-                System.out.println("ComplaintId field not available");
-            }
-
-            notificationRepository.save(notification);
-
-            try {
-                eventPublisher.publishEvent(new NotificationEvent(notification));
-            } catch (Exception e) {
-                System.out.println("Event publisher not available");
-            }
+            NotificationOutboxEvent event = legacyEvent(
+                    "comment:" + comment.getCommentId(),
+                    "NEW_COMMENT",
+                    createCommentContent(comment),
+                    comment.getComplaint().getComplaintId());
+            event.addRecipient(comment.getComplaint().getCitizen());
+            event.setCoalesceKey(coalesceKey("comment", comment.getComplaint().getCitizen(),
+                    comment.getComplaint().getComplaintId()));
+            notificationDispatcher.enqueue(event);
 
             System.out.println("Comment notification created successfully");
         } catch (Exception e) {
@@ -379,340 +386,313 @@ public class NotificationService {
         }
     }
 
-    @Transactional
     public void createGeneralNotification(String content, User user) {
         try {
-            Notification notification = new Notification();
-            notification.setNotificationType("GENERAL");
-            notification.setSentDate(new Date());
-            notification.setContent(content);
-            notification.setRead(false);
-
-            try {
-                notification.setUser(user);
-            } catch (Exception e) {
-                notification.setRecipient(user);
-            }
-
-            notificationRepository.save(notification);
-
-            try {
-                eventPublisher.publishEvent(new NotificationEvent(notification));
-            } catch (Exception e) {
-                System.out.println("Event publisher not available");
-            }
+            NotificationOutboxEvent event = legacyEvent(null, "GENERAL", content, null);
+            event.addRecipient(user);
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Error creating general notification: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    @Transactional
     public void notifyAdminNewComplaint(Complaint complaint) {
         try {
-            List<Admin> admins = adminRepository.findAll();
-            for (Admin admin : admins) {
-                Notification notification = new Notification(
-                        "new_complaint",
-                        "Nouvelle plainte soumise",
-                        String.format("Une nouvelle plainte '%s' a été soumise par %s",
-                                complaint.getTitle(), complaint.getCitizen().getName()),
-                        admin,
-                        complaint,
-                        "medium"
-                );
-                notification.setIconType("alert-circle");
-                notification.setActionUrl("/admin/complaints/" + complaint.getComplaintId());
-                notificationRepository.save(notification);
-            }
+            NotificationOutboxEvent event = complaintEvent(
+                    "admin-new-complaint:" + complaint.getComplaintId(),
+                    "new_complaint",
+                    "Nouvelle plainte soumise",
+                    String.format("Une nouvelle plainte '%s' a été soumise par %s",
+                            complaint.getTitle(), complaint.getCitizen().getName()),
+                    complaint,
+                    "medium",
+                    "alert-circle",
+                    "/admin/complaints/" + complaint.getComplaintId());
+            event.setRecipientRole(NotificationOutboxEvent.ROLE_ADMIN);
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Error notifying admin new complaint: " + e.getMessage());
         }
     }
 
-    @Transactional
     public void notifyAdminComplaintResolved(Complaint complaint, User resolvedBy) {
         try {
-            List<Admin> admins = adminRepository.findAll();
-            for (Admin admin : admins) {
-                Notification notification = new Notification(
-                        "complaint_resolved",
-                        "Plainte résolue",
-                        String.format("La plainte '%s' a été marquée comme résolue par %s",
-                                complaint.getTitle(), resolvedBy.getName()),
-                        admin,
-                        complaint,
-                        "low"
-                );
-                notification.setIconType("check-circle");
-                notification.setActionUrl("/admin/complaints/" + complaint.getComplaintId());
-                notificationRepository.save(notification);
-            }
+            NotificationOutboxEvent event = complaintEvent(
+                    "admin-resolved:" + complaint.getComplaintId() + ":" + timestampOf(complaint.getLastUpdated()),
+                    "complaint_resolved",
+                    "Plainte résolue",
+                    String.format("La plainte '%s' a été marquée comme résolue par %s",
+                            complaint.getTitle(), resolvedBy.getName()),
+                    complaint,
+                    "low",
+                    "check-circle",
+                    "/admin/complaints/" + complaint.getComplaintId());
+            event.setRecipientRole(NotificationOutboxEvent.ROLE_ADMIN);
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Error notifying admin complaint resolved: " + e.getMessage());
         }
     }
 
-    @Transactional
     public void notifyAdminUrgentComplaint(Complaint complaint) {
         try {
-            List<Admin> admins = adminRepository.findAll();
-            for (Admin admin : admins) {
-                Notification notification = new Notification(
-                        "urgent_complaint",
-                        "Plainte urgente",
-                        String.format("Une plainte urgente '%s' nécessite une attention immédiate",
-                                complaint.getTitle()),
-                        admin,
-                        complaint,
-                        "high"
-                );
-                notification.setIconType("alert-triangle");
-                notification.setActionUrl("/admin/complaints/" + complaint.getComplaintId());
-                notificationRepository.save(notification);
-            }
+            NotificationOutboxEvent event = complaintEvent(
+                    "admin-urgent:" + complaint.getComplaintId(),
+                    "urgent_complaint",
+                    "Plainte urgente",
+                    String.format("Une plainte urgente '%s' nécessite une attention immédiate",
+                            complaint.getTitle()),
+                    complaint,
+                    "high",
+                    "alert-triangle",
+                    "/admin/complaints/" + complaint.getComplaintId());
+            event.setRecipientRole(NotificationOutboxEvent.ROLE_ADMIN);
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Error notifying admin urgent complaint: " + e.getMessage());
         }
     }
 
-    @Transactional
     public void notifyAgentAssignment(CommunityAgent agent, Complaint complaint, User assignedBy) {
         try {
             System.out.println("=== CREATION NOTIFICATION ASSIGNMENT ===");
             System.out.println("Agent email: " + agent.getEmail());
             System.out.println("Agent ID: " + agent.getUserId());
 
-            Notification notification = new Notification(
+            NotificationOutboxEvent event = complaintEvent(
+                    "assigned:" + complaint.getComplaintId() + ":" + agent.getUserId() + ":" + timestampOf(complaint.getLastUpdated()),
                     "complaint_assigned",
                     "Nouvelle assignation",
                     String.format("La plainte '%s' vous a été assignée par %s",
                             complaint.getTitle(), assignedBy.getName()),
-                    agent,
                     complaint,
-                    "high"
-            );
-
-            notification.setIconType("user-check");
-            notification.setActionUrl("/agent/complaints/" + complaint.getComplaintId());
-
-            Notification saved = notificationRepository.save(notification);
-            System.out.println("Notification créée avec ID: " + saved.getNotificationId());
-
-            List<Notification> check = getNotificationsForUser(agent);
-            System.out.println("Vérification: " + check.size() + " notifications trouvées pour l'agent");
-
+                    "high",
+                    "user-check",
+                    "/agent/complaints/" + complaint.getComplaintId());
+            event.addRecipient(agent);
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Erreur création notification assignment: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    @Transactional
     public void notifyAgentStatusUpdate(CommunityAgent agent, Complaint complaint, String newStatus) {
         try {
-            Notification notification = new Notification(
+            NotificationOutboxEvent event = complaintEvent(
+                    "agent-status:" + complaint.getComplaintId() + ":" + agent.getUserId() + ":" + newStatus
+                            + ":" + timestampOf(complaint.getLastUpdated()),
                     "status_update",
                     "Mise à jour de statut",
                     String.format("Le statut de la plainte '%s' a été modifié : %s",
                             complaint.getTitle(), newStatus),
-                    agent,
                     complaint,
-                    "medium"
-            );
-            notification.setIconType("refresh-cw");
-            notification.setActionUrl("/agent/complaints/" + complaint.getComplaintId());
-            notificationRepository.save(notification);
+                    "medium",
+                    "refresh-cw",
+                    "/agent/complaints/" + complaint.getComplaintId());
+            event.addRecipient(agent);
+            event.setCoalesceKey(coalesceKey("agent-status", agent, complaint.getComplaintId()));
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Error notifying agent status update: " + e.getMessage());
         }
     }
 
-    @Transactional
     public void notifyAgentComment(CommunityAgent agent, Complaint complaint, String commenterName) {
         try {
-            Notification notification = new Notification(
+            NotificationOutboxEvent event = complaintEvent(
+                    null,
                     "new_comment",
                     "Nouveau commentaire",
                     String.format("Un nouveau commentaire a été ajouté à la plainte '%s' par %s",
                             complaint.getTitle(), commenterName),
-                    agent,
                     complaint,
-                    "low"
-            );
-            notification.setIconType("message-circle");
-            notification.setActionUrl("/agent/complaints/" + complaint.getComplaintId());
-            notificationRepository.save(notification);
+                    "low",
+                    "message-circle",
+                    "/agent/complaints/" + complaint.getComplaintId());
+            event.addRecipient(agent);
+            event.setCoalesceKey(coalesceKey("agent-comment", agent, complaint.getComplaintId()));
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Error notifying agent comment: " + e.getMessage());
         }
     }
 
-    @Transactional
     public void notifyAgentNewIntervention(CommunityAgent agent, Intervention intervention) {
         try {
-            Notification notification = new Notification(
+            NotificationOutboxEvent event = modernEvent(
+                    "intervention:" + intervention.getInterventionId() + ":" + agent.getUserId(),
                     "new_intervention",
                     "Nouvelle intervention planifiée",
                     String.format("Une intervention a été planifiée : %s",
                             intervention.getDescription()),
-                    agent
-            );
-            notification.setRelatedIntervention(intervention);
-            notification.setRelatedEntityId(intervention.getInterventionId());
-            notification.setRelatedEntityType("intervention");
-            notification.setIconType("calendar");
-            notification.setPriority("medium");
-            notification.setActionUrl("/agent/interventions/" + intervention.getInterventionId());
-            notificationRepository.save(notification);
+                    "medium",
+                    "calendar",
+                    "/agent/interventions/" + intervention.getInterventionId());
+            event.setRelatedInterventionId(intervention.getInterventionId());
+            event.setRelatedEntityId(intervention.getInterventionId());
+            event.setRelatedEntityType("intervention");
+            event.addRecipient(agent);
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Error notifying agent new intervention: " + e.getMessage());
         }
     }
 
-    @Transactional
-    public void notifyAnalystNewData(User analyst) {
+    public void notifyAnalystNewData() {
         try {
-            Notification notification = new Notification(
+            NotificationOutboxEvent event = modernEvent(
+                    null,
                     "data_update",
                     "Nouvelles données disponibles",
                     "De nouvelles données sont disponibles pour l'analyse",
-                    analyst
-            );
-            notification.setIconType("bar-chart");
-            notification.setPriority("medium");
-            notification.setActionUrl("/analyst/dashboard");
-            notificationRepository.save(notification);
+                    "medium",
+                    "bar-chart",
+                    "/analyst/dashboard");
+            event.setRecipientRole(NotificationOutboxEvent.ROLE_ANALYST);
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Error notifying analyst new data: " + e.getMessage());
         }
     }
 
-    @Transactional
-    public void notifyAnalystReportGenerated(User analyst, String reportType) {
+    public void notifyAnalystReportGenerated(String reportType) {
         try {
-            Notification notification = new Notification(
+            NotificationOutboxEvent event = modernEvent(
+                    null,
                     "report_ready",
                     "Rapport généré",
                     String.format("Le rapport %s a été généré avec succès", reportType),
-                    analyst
-            );
-            notification.setIconType("file-text");
-            notification.setPriority("low");
-            notification.setActionUrl("/analyst/reports");
-            notificationRepository.save(notification);
+                    "low",
+                    "file-text",
+                    "/analyst/reports");
+            event.setRecipientRole(NotificationOutboxEvent.ROLE_ANALYST);
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Error notifying analyst report generated: " + e.getMessage());
         }
     }
 
-    @Transactional
-    public void notifyAnalystThresholdAlert(User analyst, String metric, String threshold) {
+    public void notifyAnalystThresholdAlert(String metric, String threshold) {
         try {
-            Notification notification = new Notification(
+            NotificationOutboxEvent event = modernEvent(
+                    null,
                     "threshold_alert",
                     "Seuil d'alerte atteint",
                     String.format("Le seuil d'alerte pour %s a été dépassé : %s", metric, threshold),
-                    analyst
-            );
-            notification.setIconType("alert-triangle");
-            notification.setPriority("high");
-            notification.setActionUrl("/analyst/alerts");
-            notificationRepository.save(notification);
+                    "high",
+                    "alert-triangle",
+                    "/analyst/alerts");
+            event.setRecipientRole(NotificationOutboxEvent.ROLE_ANALYST);
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Error notifying analyst threshold alert: " + e.getMessage());
         }
     }
 
-    @Transactional
-    public void notifyAnalystTrendAlert(User analyst, String trendDescription) {
+    public void notifyAnalystTrendAlert(String trendDescription) {
         try {
-            Notification notification = new Notification(
+            NotificationOutboxEvent event = modernEvent(
+                    null,
                     "trend_alert",
                     "Tendance détectée",
                     String.format("Nouvelle tendance détectée : %s", trendDescription),
-                    analyst
-            );
-            notification.setIconType("trending-up");
-            notification.setPriority("medium");
-            notification.setActionUrl("/analyst/trends");
-            notificationRepository.save(notification);
+                    "medium",
+                    "trending-up",
+                    "/analyst/trends");
+            event.setRecipientRole(NotificationOutboxEvent.ROLE_ANALYST);
+            notificationDispatcher.enqueue(event);
         } catch (Exception e) {
             System.err.println("Error notifying analyst trend alert: " + e.getMessage());
         }
     }
 
     public List<Notification> getNotificationsByType(User user, String type) {
-        try {
-            return notificationRepository.findByRecipientAndTypeOrderByCreatedDateDesc(user, type);
-        } catch (Exception e) {
-            return getNotificationsForUser(user).stream()
-                    .filter(notif -> type.equals(notif.getType()))
-                    .collect(Collectors.toList());
-        }
+        List<Notification> personal = notificationRepository.findByRecipientAndTypeOrderByCreatedDateDesc(
+                user, type, PageRequest.of(0, defaultPageSize));
+        return withBroadcasts(personal, () -> broadcastService.getBroadcastsByType(user, type));
     }
 
     public List<Notification> getHighPriorityNotifications(User user) {
-        try {
-            return notificationRepository.findByRecipientAndPriorityOrderByCreatedDateDesc(user, "high");
-        } catch (Exception e) {
-            return getNotificationsForUser(user).stream()
-                    .filter(notif -> "high".equals(notif.getPriority()))
-                    .collect(Collectors.toList());
-        }
+        List<Notification> personal = notificationRepository.findByRecipientAndPriorityOrderByCreatedDateDesc(
+                user, "high", PageRequest.of(0, defaultPageSize));
+        return withBroadcasts(personal, () -> broadcastService.getBroadcastsByPriority(user, "high"));
     }
 
-    @Transactional
-    public void cleanOldNotifications() {
+    /**
+     * Merges the role broadcasts into the user's own notifications, newest first. Citizens and
+     * agents have no broadcasts and get their list back unchanged.
+     */
+    private List<Notification> withBroadcasts(List<Notification> personal, Supplier<List<Notification>> broadcasts) {
+        List<Notification> broadcastList;
         try {
-            LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-            Date cutoffDate = Date.from(thirtyDaysAgo.atZone(ZoneId.systemDefault()).toInstant());
-            notificationRepository.deleteOldNotifications(cutoffDate);
+            broadcastList = broadcasts.get();
         } catch (Exception e) {
-            System.err.println("Error cleaning old notifications: " + e.getMessage());
+            System.err.println("Erreur récupération notifications diffusées: " + e.getMessage());
+            return personal;
+        }
+        if (broadcastList.isEmpty()) {
+            return personal;
         }
+        List<Notification> merged = new ArrayList<>(personal.size() + broadcastList.size());
+        merged.addAll(personal);
+        merged.addAll(broadcastList);
+        merged.sort(Comparator.comparing(NotificationService::dateOf,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return merged;
     }
 
-    public User getCorrectUserReference(String email) {
-        try {
-            try {
-                Optional<User> directUser = userRepository.findByEmail(email);
-                if (directUser.isPresent()) {
-                    System.out.println("User trouvé directement: " + directUser.get().getUserId());
-                    return directUser.get();
-                }
-            } catch (Exception e) {
-                System.out.println("UserRepository non disponible");
-            }
+    private static Date dateOf(Notification notification) {
+        return notification.getCreatedDate();
+    }
 
-            try {
-                CommunityAgent agent = agentRepository.findByEmail(email)
-                        .orElse(null);
-                if (agent != null) {
-                    System.out.println("Agent trouvé: " + agent.getUserId());
-                    return agent;
-                }
-            } catch (Exception e) {
-                System.out.println("Pas un agent: " + e.getMessage());
-            }
+    private NotificationOutboxEvent legacyEvent(String dedupKey, String notificationType, String content, String complaintId) {
+        NotificationOutboxEvent event = new NotificationOutboxEvent(dedupKey);
+        event.setLegacyFormat(true);
+        event.setPush(true);
+        event.setNotificationType(notificationType);
+        event.setContent(content);
+        event.setComplaintId(complaintId);
+        return event;
+    }
 
-            try {
-                Citizen citizen = citizenRepository.findByEmail(email)
-                        .orElse(null);
-                if (citizen != null) {
-                    System.out.println("Citizen trouvé: " + citizen.getUserId());
-                    return citizen;
-                }
-            } catch (Exception e) {
-                System.out.println("Pas un citizen: " + e.getMessage());
-            }
+    private NotificationOutboxEvent modernEvent(String dedupKey, String type, String title, String message,
+                                                String priority, String iconType, String actionUrl) {
+        NotificationOutboxEvent event = new NotificationOutboxEvent(dedupKey);
+        event.setType(type);
+        event.setTitle(title);
+        event.setMessage(message);
+        event.setPriority(priority);
+        event.setIconType(iconType);
+        event.setActionUrl(actionUrl);
+        return event;
+    }
 
-            throw new RuntimeException("Utilisateur non trouvé: " + email);
-        } catch (Exception e) {
-            System.err.println("Erreur récupération utilisateur correct: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
-        }
+    private NotificationOutboxEvent complaintEvent(String dedupKey, String type, String title, String message,
+                                                   Complaint complaint, String priority, String iconType, String actionUrl) {
+        NotificationOutboxEvent event = modernEvent(dedupKey, type, title, message, priority, iconType, actionUrl);
+        event.setRelatedComplaintId(complaint.getComplaintId());
+        event.setRelatedComplaintTitle(complaint.getTitle());
+        event.setRelatedEntityId(complaint.getComplaintId());
+        event.setRelatedEntityType("complaint");
+        return event;
+    }
+
+    /**
+     * One key per kind of update, recipient and complaint: a burst of status changes (or of
+     * comments) on a complaint reaches the recipient as one notification.
+     */
+    private String coalesceKey(String kind, User recipient, String complaintId) {
+        return recipient != null ? kind + ":" + recipient.getUserId() + ":" + complaintId : null;
+    }
+
+    private String ownerIdOf(Notification notification) {
+        return notification.getRecipient() != null ? notification.getRecipient().getUserId() : null;
+    }
+
+    private long timestampOf(Date date) {
+        return date != null ? date.getTime() : System.currentTimeMillis();
     }
 
     private String getNotificationTypeForStatus(String status) {
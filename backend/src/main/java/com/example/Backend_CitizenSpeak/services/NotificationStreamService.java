@@ -0,0 +1,210 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.Notification;
+import com.example.Backend_CitizenSpeak.models.NotificationStoredEvent;
+import com.example.Backend_CitizenSpeak.models.User;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live notification delivery over server-sent events.
+ *
+ * An open stream costs only its {@link SseEmitter}: the request is in async mode and holds no
+ * thread while idle. Each message is written from its own virtual thread, on an executor kept
+ * to this service, so a slow client never holds up the dispatcher or the other subscribers.
+ * Streams are fed by {@link NotificationChangeFeed}, which sees the notifications stored by every
+ * node; while the change stream is unavailable, by the events this node publishes itself.
+ */
+@Service
+public class NotificationStreamService {
+
+    private static final String ROLE_KEY_PREFIX = "role:";
+
+    private final BroadcastNotificationService broadcastService;
+    private final NotificationChangeFeed changeFeed;
+    private final long streamTimeoutMillis;
+    private final int maxConnections;
+
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * One open stream. Writes are serialized per emitter because SseEmitter is not thread-safe; a
+     * lock rather than {@code synchronized} so a blocked write does not pin the carrier thread.
+     */
+    private static final class Subscription {
+        private final SseEmitter emitter;
+        private final List<String> keys;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Subscription(SseEmitter emitter, List<String> keys) {
+            this.emitter = emitter;
+            this.keys = keys;
+        }
+    }
+
+    @Autowired
+    public NotificationStreamService(BroadcastNotificationService broadcastService,
+                                     NotificationChangeFeed changeFeed,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${notifications.stream.timeout-ms:1800000}") long streamTimeoutMillis,
+                                     @Value("${notifications.stream.max-connections:6000}") int maxConnections) {
+        this.broadcastService = broadcastService;
+        this.changeFeed = changeFeed;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+        this.maxConnections = maxConnections;
+        Gauge.builder("notifications.stream.connections", openConnections, AtomicInteger::get)
+                .description("Open notification streams on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for the user. It is closed after {@code notifications.stream.timeout-ms} or
+     * when the token expires, whichever comes first; clients reconnect with a fresh token.
+     */
+    public SseEmitter subscribe(User user, Date tokenExpiry, long unreadCount) {
+        if (openConnections.incrementAndGet() > maxConnections) {
+            openConnections.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many notification streams");
+        }
+
+        long timeout = streamTimeoutMillis;
+        if (tokenExpiry != null) {
+            timeout = Math.max(1000, Math.min(timeout, tokenExpiry.getTime() - System.currentTimeMillis()));
+        }
+
+        List<String> keys = new ArrayList<>(2);
+        keys.add(user.getUserId());
+        String role = broadcastService.roleOf(user);
+        if (role != null) {
+            keys.add(ROLE_KEY_PREFIX + role);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscription subscription = new Subscription(emitter, keys);
+        for (String key : keys) {
+            subscriptions.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+        emitter.onCompletion(() -> unregister(subscription));
+        emitter.onTimeout(() -> unregister(subscription));
+        emitter.onError(error -> unregister(subscription));
+
+        send(subscription, SseEmitter.event().name("ready").data(Map.of("unreadCount", unreadCount)));
+        return emitter;
+    }
+
+    @EventListener
+    public void onNotificationStored(NotificationStoredEvent event) {
+        if (event.isFromChangeFeed() != changeFeed.isActive()) {
+            // Each notification is delivered once: from the change feed while it runs, else locally.
+            return;
+        }
+        String key = event.getRecipientRole() != null
+                ? ROLE_KEY_PREFIX + event.getRecipientRole()
+                : event.getRecipientId();
+        Set<Subscription> targets = key != null ? subscriptions.get(key) : null;
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> payload = toPayload(event.getNotification());
+        for (Subscription subscription : targets) {
+            sender.execute(() -> send(subscription, SseEmitter.event()
+                    .name("notification")
+                    .id(event.getNotification().getNotificationId())
+                    .data(payload)));
+        }
+    }
+
+    /**
+     * Keeps proxies from closing idle streams and finds clients that went away without closing.
+     */
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        Set<Subscription> all = new HashSet<>();
+        subscriptions.values().forEach(all::addAll);
+        for (Subscription subscription : all) {
+            sender.execute(() -> send(subscription, SseEmitter.event().comment("ping")));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Set<Subscription> all = new HashSet<>();
+        subscriptions.values().forEach(all::addAll);
+        all.forEach(subscription -> subscription.emitter.complete());
+        sender.shutdown();
+    }
+
+    private void send(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        subscription.lock.lock();
+        try {
+            subscription.emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            unregister(subscription);
+            subscription.emitter.completeWithError(e);
+        } finally {
+            subscription.lock.unlock();
+        }
+    }
+
+    private void unregister(Subscription subscription) {
+        boolean removed = false;
+        for (String key : subscription.keys) {
+            Set<Subscription> set = subscriptions.get(key);
+            if (set != null && set.remove(subscription)) {
+                removed = true;
+                if (set.isEmpty()) {
+                    subscriptions.remove(key, set);
+                }
+            }
+        }
+        if (removed) {
+            openConnections.decrementAndGet();
+        }
+    }
+
+    /**
+     * Same fields the list endpoints return, for both the citizen and the back-office formats.
+     */
+    private Map<String, Object> toPayload(Notification notification) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", notification.getNotificationId());
+        payload.put("isRead", false);
+        if (notification.getNotificationType() != null) {
+            payload.put("type", notification.getNotificationType());
+            payload.put("description", notification.getContent());
+            payload.put("date", notification.getSentDate());
+            payload.put("complaintId", notification.getComplaintId());
+        } else {
+            payload.put("type", notification.getType());
+            payload.put("title", notification.getTitle());
+            payload.put("message", notification.getMessage());
+            payload.put("date", notification.getCreatedDate());
+            payload.put("priority", notification.getPriority() != null ? notification.getPriority() : "medium");
+            payload.put("iconType", notification.getIconType() != null ? notification.getIconType() : "bell");
+            payload.put("actionUrl", notification.getActionUrl());
+            payload.put("relatedEntityId", notification.getRelatedEntityId());
+            payload.put("relatedEntityType", notification.getRelatedEntityType());
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.OtpChallenge;
+
+/**
+ * Where pending logins live between the password check and the OTP check. Expired challenges are
+ * never returned, whether or not they have been evicted yet.
+ */
+public interface OtpChallengeStore {
+
+    String getType();
+
+    void save(OtpChallenge challenge);
+
+    /**
+     * The challenge for {@code token}, or {@code null} when unknown or expired.
+     */
+    OtpChallenge find(String token);
+
+    /**
+     * Counts one wrong code and returns the number of wrong codes so far, or -1 when the
+     * challenge no longer exists.
+     */
+    int recordFailedAttempt(String token);
+
+    /**
+     * Removes the challenge; returns {@code true} only for the caller that actually removed it,
+     * so a code can be redeemed once.
+     */
+    boolean remove(String token);
+}
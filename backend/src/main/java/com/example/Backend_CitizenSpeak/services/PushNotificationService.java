@@ -1,69 +1,465 @@
 package com.example.Backend_CitizenSpeak.services;
 
-import org.springframework.stereotype.Service;
+import com.example.Backend_CitizenSpeak.models.DeviceToken;
+import com.example.Backend_CitizenSpeak.models.User;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.mongodb.DBRef;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
 
+/**
+ * Push delivery through FCM.
+ *
+ * Messages go into a bounded queue without ever blocking the producer: when the queue is full a
+ * message takes the retry path and is offered again after a backoff. A message addressed to
+ * users rather than tokens has its tokens looked up by the worker, in one query for everything
+ * it drained. Workers merge messages with the same content and send them as multicast requests
+ * of up to {@code push.max-batch-size} tokens over one pooled keep-alive HTTP client. FCM's
+ * per-token error codes decide what happens next: unavailable tokens are retried with backoff
+ * and jitter, unregistered or invalid ones are deactivated, and canonical ids replace the stored
+ * token unless the device already has it.
+ */
 @Service
 public class PushNotificationService {
 
-    @Value("${fcm.server.key:}")
-    private String fcmServerKey;
+    /** Errors meaning the token will never work again. */
+    private static final Set<String> INVALID_TOKEN_ERRORS =
+            Set.of("NotRegistered", "InvalidRegistration", "MismatchSenderId", "MissingRegistration");
+    /** Errors worth another attempt later. */
+    private static final Set<String> RETRYABLE_ERRORS =
+            Set.of("Unavailable", "InternalServerError", "DeviceMessageRateExceeded", "MessageRateExceeded");
+
+    /** Lookups of device tokens send at most this many users per query. */
+    private static final int TOKEN_LOOKUP_CHUNK = 1000;
+
+    /**
+     * Content and either the device tokens, or the ids of the users whose tokens are still to be
+     * looked up ({@code recipientIds} is then non-null).
+     */
+    private record PushMessage(String title, String body, String complaintId, List<String> tokens,
+                               List<String> recipientIds, int attempt) {
+        PushMessage withTokens(List<String> tokens, int attempt) {
+            return new PushMessage(title, body, complaintId, tokens, null, attempt);
+        }
+
+        PushMessage nextAttempt() {
+            return new PushMessage(title, body, complaintId, tokens, recipientIds, attempt + 1);
+        }
+
+        int size() {
+            return recipientIds != null ? recipientIds.size() : tokens.size();
+        }
+
+        List<Object> contentKey() {
+            return Arrays.asList(title, body, complaintId, attempt);
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record FcmResponse(int success, int failure, List<FcmResult> results) {}
 
-    @Value("${fcm.url:https://fcm.googleapis.com/fcm/send}")
-    private String fcmUrl;
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record FcmResult(@JsonProperty("message_id") String messageId,
+                             @JsonProperty("registration_id") String registrationId,
+                             String error) {}
 
+    private final String fcmServerKey;
+    private final String fcmUrl;
+    private final MongoTemplate mongoTemplate;
     private final RestTemplate restTemplate;
+    private final BlockingQueue<PushMessage> queue;
+    private final int maxBatchSize;
+    private final int workerCount;
+    private final int maxAttempts;
+    private final long retryBaseDelayMillis;
+    private final ScheduledExecutorService retryScheduler;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter invalidated;
+    private final Counter failed;
+    private final Counter dropped;
+
+    @Autowired
+    public PushNotificationService(MongoTemplate mongoTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${fcm.server.key:}") String fcmServerKey,
+                                   @Value("${fcm.url:https://fcm.googleapis.com/fcm/send}") String fcmUrl,
+                                   @Value("${push.connect-timeout-ms:5000}") long connectTimeoutMillis,
+                                   @Value("${push.read-timeout-ms:10000}") long readTimeoutMillis,
+                                   @Value("${push.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${push.max-batch-size:1000}") int maxBatchSize,
+                                   @Value("${push.workers:2}") int workerCount,
+                                   @Value("${push.max-attempts:5}") int maxAttempts,
+                                   @Value("${push.retry-base-delay-ms:1000}") long retryBaseDelayMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.fcmServerKey = fcmServerKey;
+        this.fcmUrl = fcmUrl;
+        this.maxBatchSize = maxBatchSize;
+        this.workerCount = workerCount;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseDelayMillis = retryBaseDelayMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
 
-    public PushNotificationService() {
-        this.restTemplate = new RestTemplate();
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        this.restTemplate = new RestTemplate(requestFactory);
+
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "push-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.delivered = meterRegistry.counter("push.messages", "outcome", "delivered");
+        this.retried = meterRegistry.counter("push.messages", "outcome", "retry");
+        this.invalidated = meterRegistry.counter("push.messages", "outcome", "invalid_token");
+        this.failed = meterRegistry.counter("push.messages", "outcome", "failed");
+        this.dropped = meterRegistry.counter("push.messages", "outcome", "dropped");
+        Gauge.builder("push.queue.size", queue, BlockingQueue::size)
+                .description("Push messages waiting to be sent")
+                .register(meterRegistry);
     }
 
-    public void sendPushNotification(String deviceToken, String title, String body, String complaintId) {
-        try {
-            if (fcmServerKey == null || fcmServerKey.isEmpty()) {
-                System.out.println("FCM server key not configured, skipping push notification");
+    @PostConstruct
+    public void start() {
+        for (int i = 1; i <= workerCount; i++) {
+            Thread worker = new Thread(this::drain, "push-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        retryScheduler.shutdownNow();
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Queues one notification for the given device tokens. Never blocks; returns {@code false}
+     * if the message could not be queued, in which case it is offered again after a backoff.
+     */
+    public boolean sendPushNotification(List<String> deviceTokens, String title, String body, String complaintId) {
+        if (deviceTokens.isEmpty()) {
+            return true;
+        }
+        return submit(new PushMessage(title, body, complaintId, List.copyOf(deviceTokens), null, 1));
+    }
+
+    /**
+     * Queues one notification for the active devices of the given users, whose tokens the worker
+     * looks up. Never blocks, like {@link #sendPushNotification}.
+     */
+    public boolean sendToUsers(Collection<String> userIds, String title, String body, String complaintId) {
+        if (userIds.isEmpty()) {
+            return true;
+        }
+        return submit(new PushMessage(title, body, complaintId, null, List.copyOf(userIds), 1));
+    }
+
+    private boolean submit(PushMessage message) {
+        if (fcmServerKey == null || fcmServerKey.isEmpty()) {
+            System.out.println("FCM server key not configured, skipping push notification");
+            return false;
+        }
+        if (queue.offer(message)) {
+            return true;
+        }
+        System.err.println("File des notifications push pleine, nouvel essai différé pour "
+                + message.size() + " destinataire(s)");
+        retryLater(message, 0);
+        return false;
+    }
+
+    private void drain() {
+        List<PushMessage> drained = new ArrayList<>();
+        while (running) {
+            try {
+                PushMessage first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                drained.add(first);
+                queue.drainTo(drained, maxBatchSize - 1);
+                List<PushMessage> resolved = resolveRecipients(drained);
+                drained.clear();
+
+                // Same content, same attempt: one multicast for all their tokens, each sent once.
+                Map<List<Object>, Set<String>> tokensByContent = new LinkedHashMap<>();
+                Map<List<Object>, PushMessage> contentByKey = new HashMap<>();
+                for (PushMessage message : resolved) {
+                    tokensByContent.computeIfAbsent(message.contentKey(), key -> new LinkedHashSet<>()).addAll(message.tokens());
+                    contentByKey.putIfAbsent(message.contentKey(), message);
+                }
+
+                tokensByContent.forEach((key, tokenSet) -> {
+                    PushMessage content = contentByKey.get(key);
+                    List<String> tokens = new ArrayList<>(tokenSet);
+                    for (int from = 0; from < tokens.size(); from += maxBatchSize) {
+                        List<String> batch = tokens.subList(from, Math.min(tokens.size(), from + maxBatchSize));
+                        send(content.withTokens(List.copyOf(batch), content.attempt()));
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 return;
+            } catch (Exception e) {
+                drained.clear();
+                System.err.println("Erreur du worker de notifications push: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replaces the messages addressed to users by messages addressed to their active tokens,
+     * looking the tokens up in one query per {@value #TOKEN_LOOKUP_CHUNK} users for the whole
+     * drained batch. If the lookup fails, those messages take the retry path.
+     */
+    private List<PushMessage> resolveRecipients(List<PushMessage> messages) {
+        Set<String> userIds = new LinkedHashSet<>();
+        for (PushMessage message : messages) {
+            if (message.recipientIds() != null) {
+                userIds.addAll(message.recipientIds());
             }
+        }
+        if (userIds.isEmpty()) {
+            return new ArrayList<>(messages);
+        }
 
-            Map<String, Object> notification = new HashMap<>();
-            notification.put("title", title);
-            notification.put("body", body);
-            notification.put("sound", "default");
+        Map<String, List<String>> tokensByUser;
+        try {
+            tokensByUser = findActiveTokens(userIds);
+        } catch (RuntimeException e) {
+            System.err.println("Impossible de charger les jetons d'appareil: " + e.getMessage());
+            tokensByUser = null;
+        }
 
-            Map<String, Object> data = new HashMap<>();
-            data.put("type", "notification");
-            if (complaintId != null) {
-                data.put("complaintId", complaintId);
+        List<PushMessage> resolved = new ArrayList<>(messages.size());
+        for (PushMessage message : messages) {
+            if (message.recipientIds() == null) {
+                resolved.add(message);
+            } else if (tokensByUser == null) {
+                retryLater(message, 0);
+            } else {
+                List<String> tokens = new ArrayList<>();
+                for (String userId : message.recipientIds()) {
+                    tokens.addAll(tokensByUser.getOrDefault(userId, List.of()));
+                }
+                if (!tokens.isEmpty()) {
+                    resolved.add(message.withTokens(tokens, message.attempt()));
+                }
             }
+        }
+        return resolved;
+    }
 
-            Map<String, Object> message = new HashMap<>();
-            message.put("to", deviceToken);
-            message.put("notification", notification);
-            message.put("data", data);
-            message.put("priority", "high");
+    /**
+     * Active tokens by user id. Reads the raw documents so the {@code user} references are not
+     * resolved into full users.
+     */
+    private Map<String, List<String>> findActiveTokens(Collection<String> userIds) {
+        String users = mongoTemplate.getCollectionName(User.class);
+        String deviceTokens = mongoTemplate.getCollectionName(DeviceToken.class);
+        List<String> ids = new ArrayList<>(userIds);
+        Map<String, List<String>> tokensByUser = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += TOKEN_LOOKUP_CHUNK) {
+            List<DBRef> refs = new ArrayList<>();
+            for (String id : ids.subList(from, Math.min(ids.size(), from + TOKEN_LOOKUP_CHUNK))) {
+                refs.add(new DBRef(users, ObjectId.isValid(id) ? new ObjectId(id) : id));
+            }
+            Query query = Query.query(Criteria.where("user").in(refs).and("active").is(true));
+            query.fields().include("user").include("token");
+            for (Document document : mongoTemplate.find(query, Document.class, deviceTokens)) {
+                if (document.get("user") instanceof DBRef ref && document.getString("token") != null) {
+                    tokensByUser.computeIfAbsent(ref.getId().toString(), key -> new ArrayList<>())
+                            .add(document.getString("token"));
+                }
+            }
+        }
+        return tokensByUser;
+    }
 
+    private void send(PushMessage message) {
+        FcmResponse response;
+        try {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("Authorization", "key=" + fcmServerKey);
+            response = restTemplate.exchange(fcmUrl, HttpMethod.POST,
+                    new HttpEntity<>(buildPayload(message), headers), FcmResponse.class).getBody();
+        } catch (HttpStatusCodeException e) {
+            int status = e.getStatusCode().value();
+            if (status == 429 || e.getStatusCode().is5xxServerError()) {
+                retryLater(message, retryAfterMillis(e.getResponseHeaders()));
+            } else {
+                // 400/401: the request or the server key is wrong; retrying will not help.
+                failed.increment(message.tokens().size());
+                System.err.println("Requête push refusée par FCM (" + status + "): " + e.getResponseBodyAsString());
+            }
+            return;
+        } catch (ResourceAccessException e) {
+            retryLater(message, 0);
+            return;
+        }
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(message, headers);
+        if (response == null || response.results() == null) {
+            failed.increment(message.tokens().size());
+            return;
+        }
+        handleResults(message, response.results());
+    }
 
-            restTemplate.exchange(fcmUrl, HttpMethod.POST, entity, String.class);
+    private void handleResults(PushMessage message, List<FcmResult> results) {
+        List<String> retry = new ArrayList<>();
+        List<String> invalid = new ArrayList<>();
+        Map<String, String> canonical = new HashMap<>();
 
-            System.out.println("Push notification sent successfully to token: " + deviceToken.substring(0, 10) + "...");
+        for (int i = 0; i < results.size() && i < message.tokens().size(); i++) {
+            String token = message.tokens().get(i);
+            FcmResult result = results.get(i);
+            if (result.error() == null) {
+                delivered.increment();
+                if (result.registrationId() != null && !result.registrationId().equals(token)) {
+                    canonical.put(token, result.registrationId());
+                }
+            } else if (INVALID_TOKEN_ERRORS.contains(result.error())) {
+                invalid.add(token);
+            } else if (RETRYABLE_ERRORS.contains(result.error())) {
+                retry.add(token);
+            } else {
+                failed.increment();
+                System.err.println("Échec de la notification push (" + result.error() + ")");
+            }
+        }
 
-        } catch (Exception e) {
-            System.err.println("Error sending push notification: " + e.getMessage());
-            throw new RuntimeException("Failed to send push notification", e);
+        if (!invalid.isEmpty()) {
+            invalidated.increment(invalid.size());
+            mongoTemplate.updateMulti(Query.query(Criteria.where("token").in(invalid)),
+                    new Update().set("active", false), DeviceToken.class);
+            System.out.println("Jetons d'appareil désactivés: " + invalid.size());
+        }
+        canonical.forEach(this::replaceToken);
+        if (!retry.isEmpty()) {
+            retryLater(message.withTokens(List.copyOf(retry), message.attempt()), 0);
         }
     }
 
+    /**
+     * Moves a device from {@code oldToken} to its canonical {@code newToken}. A user that already
+     * has the canonical token active keeps that one and the old entries are deactivated, so no
+     * device ends up registered twice; otherwise one old entry takes the new token.
+     */
+    private void replaceToken(String oldToken, String newToken) {
+        String deviceTokens = mongoTemplate.getCollectionName(DeviceToken.class);
+        Query query = Query.query(Criteria.where("token").in(oldToken, newToken).and("active").is(true));
+        query.fields().include("user").include("token");
+
+        Map<Object, List<Document>> byUser = new LinkedHashMap<>();
+        for (Document document : mongoTemplate.find(query, Document.class, deviceTokens)) {
+            Object user = document.get("user") instanceof DBRef ref ? ref.getId() : document.get("user");
+            byUser.computeIfAbsent(user, key -> new ArrayList<>()).add(document);
+        }
+
+        for (List<Document> entries : byUser.values()) {
+            boolean hasNew = entries.stream().anyMatch(entry -> newToken.equals(entry.getString("token")));
+            for (Document entry : entries) {
+                if (!oldToken.equals(entry.getString("token"))) {
+                    continue;
+                }
+                Update update = hasNew ? new Update().set("active", false) : new Update().set("token", newToken);
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(entry.get("_id"))), update, deviceTokens);
+                hasNew = true;
+            }
+        }
+    }
+
+    /**
+     * Requeues the message after an exponential delay with jitter, or the server's Retry-After if
+     * longer. Gives up after {@code push.max-attempts}.
+     */
+    private void retryLater(PushMessage message, long minDelayMillis) {
+        if (message.attempt() >= maxAttempts || !running) {
+            failed.increment(message.size());
+            return;
+        }
+        long backoff = retryBaseDelayMillis << Math.min(16, message.attempt() - 1);
+        long delay = Math.max(minDelayMillis, backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+        PushMessage next = message.nextAttempt();
+        retried.increment(message.size());
+        try {
+            retryScheduler.schedule(() -> {
+                if (!queue.offer(next)) {
+                    retryLater(next, 0);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            dropped.increment(message.size());
+        }
+    }
+
+    private long retryAfterMillis(HttpHeaders headers) {
+        String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(retryAfter.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private Map<String, Object> buildPayload(PushMessage message) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("title", message.title());
+        notification.put("body", message.body());
+        notification.put("sound", "default");
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", "notification");
+        if (message.complaintId() != null) {
+            data.put("complaintId", message.complaintId());
+        }
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("registration_ids", message.tokens());
+        payload.put("notification", notification);
+        payload.put("data", data);
+        payload.put("priority", "high");
+        return payload;
+    }
 }
@@ -0,0 +1,191 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.dto.StoredObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writes go to the primary store synchronously and are copied to the replica in the
+ * background; reads only ever touch the primary. A put only queues the key: the replication
+ * thread reads the object back from the primary, through a hard link to the stored file when
+ * the primary is on this node's disk, so the request thread neither copies the upload nor waits
+ * on the replica. Failed replications are retried with backoff and then logged; the replica is a
+ * disaster-recovery copy, not a source of truth.
+ */
+public class ReplicatingMediaStore implements MediaStore {
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final MediaStore primary;
+    private final MediaStore replica;
+    private final Path spoolDirectory;
+    private final ThreadPoolExecutor executor;
+
+    public ReplicatingMediaStore(MediaStore primary, MediaStore replica, Path spoolDirectory, int queueCapacity) {
+        this.primary = primary;
+        this.replica = replica;
+        this.spoolDirectory = spoolDirectory;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-replication");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String getType() {
+        return primary.getType();
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        return primary.stat(key);
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        primary.put(key, source, contentType);
+        replicate("put " + key, () -> {
+            Path snapshot = snapshotFromPrimary(key);
+            if (snapshot == null) {
+                // Deleted before its turn came: the queued delete takes care of the replica.
+                return;
+            }
+            try {
+                replica.put(key, snapshot, contentType);
+            } finally {
+                deleteQuietly(snapshot);
+            }
+        });
+    }
+
+    @Override
+    public InputStream openStream(String key, long offset, long length) throws IOException {
+        return primary.openStream(key, offset, length);
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return primary.localPath(key);
+    }
+
+    @Override
+    public Path fetchToLocal(String key) throws IOException {
+        return primary.fetchToLocal(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        primary.delete(key);
+        replicate("delete " + key, () -> replica.delete(key));
+    }
+
+    @Override
+    public void deleteAll(Collection<String> keys) throws IOException {
+        primary.deleteAll(keys);
+        List<String> copy = new ArrayList<>(keys);
+        replicate("delete " + copy.size() + " objects", () -> replica.deleteAll(copy));
+    }
+
+    @Override
+    public Stream<StoredObject> listObjects() throws IOException {
+        return primary.listObjects();
+    }
+
+    @Override
+    public URI presignedGetUrl(String key, Duration ttl) {
+        return primary.presignedGetUrl(key, ttl);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void replicate(String description, ReplicationTask task) {
+        try {
+            executor.execute(() -> runWithRetry(description, task));
+        } catch (RejectedExecutionException e) {
+            System.err.println("File de réplication pleine, opération ignorée: " + description);
+        }
+    }
+
+    /**
+     * A file the replica may consume, or {@code null} when the primary no longer has the object.
+     * A local primary file is hard-linked into the spool directory (copied only when the link is
+     * refused, e.g. across file systems); a remote primary is downloaded to a temporary file.
+     */
+    private Path snapshotFromPrimary(String key) throws IOException {
+        Path stored = primary.localPath(key);
+        if (stored == null) {
+            return primary.stat(key) != null ? primary.fetchToLocal(key) : null;
+        }
+        Path snapshot = spoolDirectory.resolve(".replica-" + System.nanoTime() + ".tmp");
+        try {
+            Files.createLink(snapshot, stored);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (UnsupportedOperationException | IOException e) {
+            try {
+                Files.copy(stored, snapshot);
+            } catch (NoSuchFileException missing) {
+                return null;
+            }
+        }
+        return snapshot;
+    }
+
+    private void runWithRetry(String description, ReplicationTask task) {
+        long backoff = 500;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                task.run();
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    System.err.println("Échec de la réplication (" + description + "): " + e.getMessage());
+                    return;
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff *= 2;
+            }
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Impossible de supprimer le fichier temporaire de réplication: " + file);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ReplicationTask {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.dto.StoredObject;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * S3-compatible object store. Works against AWS S3 and self-hosted stand-ins such as MinIO
+ * (set an endpoint and path-style access). Files above the multipart threshold are sent as
+ * multipart uploads, one part in memory at a time.
+ */
+public class S3MediaStore implements MediaStore {
+
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private final S3Client client;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final long multipartThreshold;
+    private final int partSize;
+    private final Path tempDirectory;
+
+    public S3MediaStore(String endpoint,
+                        String region,
+                        String bucket,
+                        String accessKey,
+                        String secretKey,
+                        boolean pathStyleAccess,
+                        long multipartThreshold,
+                        int partSize,
+                        boolean createBucket,
+                        Path tempDirectory) {
+        AwsCredentialsProvider credentials = accessKey != null && !accessKey.isBlank()
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey))
+                : DefaultCredentialsProvider.create();
+        S3Configuration configuration = S3Configuration.builder()
+                .pathStyleAccessEnabled(pathStyleAccess)
+                .build();
+
+        var clientBuilder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration);
+        var presignerBuilder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration);
+        if (endpoint != null && !endpoint.isBlank()) {
+            clientBuilder.endpointOverride(URI.create(endpoint));
+            presignerBuilder.endpointOverride(URI.create(endpoint));
+        }
+
+        this.client = clientBuilder.build();
+        this.presigner = presignerBuilder.build();
+        this.bucket = bucket;
+        this.multipartThreshold = multipartThreshold;
+        this.partSize = partSize;
+        this.tempDirectory = tempDirectory;
+
+        if (createBucket) {
+            ensureBucket();
+        }
+    }
+
+    @Override
+    public String getType() {
+        return "s3";
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = client.headObject(request -> request.bucket(bucket).key(key));
+            return new StoredObject(key, head.contentLength(), head.lastModified().toEpochMilli());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            throw new IOException("S3 head failed for " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("S3 head failed for " + key, e);
+        }
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        try {
+            long size = Files.size(source);
+            if (size < multipartThreshold) {
+                client.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                        RequestBody.fromFile(source));
+            } else {
+                multipartPut(key, source, size, contentType);
+            }
+        } catch (SdkException e) {
+            throw new IOException("S3 upload failed for " + key, e);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    private void multipartPut(String key, Path source, long size, String contentType) throws IOException {
+        String uploadId = client.createMultipartUpload(request -> request.bucket(bucket).key(key).contentType(contentType))
+                .uploadId();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            List<CompletedPart> parts = new ArrayList<>();
+            ByteBuffer buffer = ByteBuffer.allocate(partSize);
+            int partNumber = 1;
+            long position = 0;
+
+            while (position < size) {
+                buffer.clear();
+                while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+                    // fill the part
+                }
+                buffer.flip();
+                int length = buffer.remaining();
+                int currentPart = partNumber;
+
+                String eTag = client.uploadPart(
+                        request -> request.bucket(bucket).key(key).uploadId(uploadId)
+                                .partNumber(currentPart).contentLength((long) length),
+                        RequestBody.fromByteBuffer(buffer)).eTag();
+                parts.add(CompletedPart.builder().partNumber(currentPart).eTag(eTag).build());
+
+                position += length;
+                partNumber++;
+            }
+
+            client.completeMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build()));
+        } catch (IOException | RuntimeException e) {
+            try {
+                client.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+            } catch (SdkException abortError) {
+                System.err.println("Impossible d'annuler le téléversement multipart " + uploadId + ": " + abortError.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream openStream(String key, long offset, long length) throws IOException {
+        String range = length < 0 ? "bytes=" + offset + "-" : "bytes=" + offset + "-" + (offset + length - 1);
+        try {
+            return client.getObject(request -> request.bucket(bucket).key(key).range(range));
+        } catch (SdkException e) {
+            throw new IOException("S3 download failed for " + key, e);
+        }
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return null;
+    }
+
+    @Override
+    public Path fetchToLocal(String key) throws IOException {
+        Path target = tempDirectory.resolve("s3-" + System.nanoTime() + "-" + key.replace('/', '_'));
+        try {
+            client.getObject(request -> request.bucket(bucket).key(key), ResponseTransformer.toFile(target));
+            return target;
+        } catch (SdkException e) {
+            Files.deleteIfExists(target);
+            throw new IOException("S3 download failed for " + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("S3 delete failed for " + key, e);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<String> keys) throws IOException {
+        List<ObjectIdentifier> batch = new ArrayList<>();
+        for (String key : keys) {
+            batch.add(ObjectIdentifier.builder().key(key).build());
+            if (batch.size() == DELETE_BATCH_SIZE) {
+                deleteBatch(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleteBatch(batch);
+        }
+    }
+
+    private void deleteBatch(List<ObjectIdentifier> batch) throws IOException {
+        try {
+            client.deleteObjects(request -> request.bucket(bucket)
+                    .delete(Delete.builder().objects(batch).quiet(true).build()));
+        } catch (SdkException e) {
+            throw new IOException("S3 batch delete failed", e);
+        }
+    }
+
+    @Override
+    public Stream<StoredObject> listObjects() {
+        return client.listObjectsV2Paginator(request -> request.bucket(bucket))
+                .contents()
+                .stream()
+                .map(object -> new StoredObject(object.key(), object.size(), object.lastModified().toEpochMilli()));
+    }
+
+    @Override
+    public URI presignedGetUrl(String key, Duration ttl) {
+        try {
+            return presigner.presignGetObject(request -> request
+                            .signatureDuration(ttl)
+                            .getObjectRequest(get -> get.bucket(bucket).key(key)))
+                    .url()
+                    .toURI();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Invalid presigned URL for " + key, e);
+        }
+    }
+
+    private void ensureBucket() {
+        try {
+            client.headBucket(request -> request.bucket(bucket));
+        } catch (S3Exception e) {
+            if (e.statusCode() != 404) {
+                throw e;
+            }
+            client.createBucket(request -> request.bucket(bucket));
+            System.out.println("Bucket S3 créé: " + bucket);
+        }
+    }
+}
@@ -0,0 +1,577 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.Admin;
+import com.example.Backend_CitizenSpeak.models.Analyst;
+import com.example.Backend_CitizenSpeak.models.Category;
+import com.example.Backend_CitizenSpeak.models.Citizen;
+import com.example.Backend_CitizenSpeak.models.Comment;
+import com.example.Backend_CitizenSpeak.models.CommunityAgent;
+import com.example.Backend_CitizenSpeak.models.Complaint;
+import com.example.Backend_CitizenSpeak.models.ComplaintStatus;
+import com.example.Backend_CitizenSpeak.models.Department;
+import com.example.Backend_CitizenSpeak.models.Media;
+import com.example.Backend_CitizenSpeak.models.Notification;
+import com.example.Backend_CitizenSpeak.models.Organization;
+import com.example.Backend_CitizenSpeak.models.StatusHistory;
+import com.example.Backend_CitizenSpeak.models.User;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the database with synthetic but plausible data for load tests: organizations, departments,
+ * agents, citizens, and complaints with their status histories, comments, notifications and media
+ * placeholders.
+ *
+ * {@code records} is the approximate total number of documents; a complaint comes with about ten
+ * (three to four status changes, two comments, two to three notifications, a media reference), so
+ * 5,000,000 records is about 500,000 complaints. Complaints are spread over the last
+ * {@code loadtest.seed.days} days, around a few hotspots within {@code loadtest.seed.radius-km} of
+ * the city center, with French and Arabic text; older ones are mostly resolved. A few citizens
+ * file many complaints, most file one or two.
+ *
+ * Documents are converted with the application's mapping and written with unordered
+ * {@code insertMany}, bypassing the repository events: the dashboard counters are reconciled at
+ * the next startup or schedule. Every seeded document carries {@value #BATCH_FIELD}, which
+ * {@link #clear()} uses to remove them. Only loaded with the {@code loadtest} profile.
+ *
+ * The seeded accounts share a password drawn at random for each run and never shown, since
+ * {@code /api/auth/mobile-login} would let anyone who knows it in without a one-time code: they
+ * are only used through the tokens {@link LoadScenarioService} mints for them.
+ */
+@Service
+@Profile("loadtest")
+public class SyntheticDataSeeder {
+
+    public static final String BATCH_FIELD = "syntheticBatch";
+    public static final String EMAIL_DOMAIN = "loadtest.citizenspeak.ma";
+
+    private static final SecureRandom PASSWORD_RANDOM = new SecureRandom();
+    private static final int INSERT_BATCH_SIZE = 2_000;
+    private static final int DOCUMENTS_PER_COMPLAINT = 10;
+    private static final List<String> SEEDED_COLLECTIONS = List.of("organizations", "departments", "users",
+            "complaints", "status_histories", "comments", "notifications", "media");
+
+    private static final String[] FIRST_NAMES = {"Mohammed", "Fatima", "Youssef", "Khadija", "Ahmed", "Aicha",
+            "Omar", "Salma", "Hamza", "Meryem", "Karim", "Nadia", "Mehdi", "Imane", "Rachid", "Souad", "Anas",
+            "Hajar", "Adil", "Zineb", "Hicham", "Laila", "Ayoub", "Siham"};
+    private static final String[] LAST_NAMES = {"El Amrani", "Benjelloun", "Alaoui", "Bennani", "Tazi", "Idrissi",
+            "Berrada", "Chraibi", "El Fassi", "Lahlou", "Ouazzani", "Sqalli", "Bouzidi", "Naciri", "Kettani",
+            "Filali", "Ziani", "Hajji", "Cherkaoui", "Mansouri"};
+    private static final String[] DISTRICTS = {"Agdal", "Hay Riad", "Hassan", "Océan", "Souissi", "Akkari",
+            "Yacoub El Mansour", "Takaddoum", "Youssoufia", "Médina"};
+    private static final String[] STREETS = {"Avenue Mohammed V", "Avenue Fal Ould Oumeir", "Rue Oued Sebou",
+            "Boulevard Hassan II", "Avenue Annakhil", "Rue Patrice Lumumba", "Avenue Ibn Sina", "Rue Moulay Slimane",
+            "Avenue Al Majd", "Rue de Fès"};
+
+    /**
+     * Department handling each category, and bilingual titles and descriptions, by category label.
+     */
+    private record Topic(String department, String[][] titles, String[][] descriptions) {}
+
+    private static final Map<String, Topic> TOPICS = Map.of(
+            "Déchets", new Topic("Propreté",
+                    new String[][]{{"Dépôt sauvage d'ordures", "رمي عشوائي للنفايات"},
+                            {"Conteneur plein depuis plusieurs jours", "حاوية ممتلئة منذ أيام"}},
+                    new String[][]{{"Les déchets s'accumulent et attirent les animaux.", "النفايات تتراكم وتجذب الحيوانات."},
+                            {"La collecte n'est pas passée cette semaine.", "لم تمر شاحنة جمع النفايات هذا الأسبوع."}}),
+            "Routes", new Topic("Voirie",
+                    new String[][]{{"Nid-de-poule dangereux", "حفرة خطيرة في الطريق"},
+                            {"Chaussée dégradée", "طريق متدهورة"}},
+                    new String[][]{{"Plusieurs voitures ont été endommagées.", "تضررت عدة سيارات."},
+                            {"Le trou s'agrandit après chaque pluie.", "الحفرة تتسع بعد كل مطر."}}),
+            "Éclairage", new Topic("Éclairage public",
+                    new String[][]{{"Lampadaire en panne", "عمود إنارة معطل"},
+                            {"Rue plongée dans le noir", "شارع مظلم"}},
+                    new String[][]{{"La rue n'est plus éclairée la nuit.", "الشارع غير مضاء ليلا."},
+                            {"Les habitants ne se sentent pas en sécurité.", "السكان لا يشعرون بالأمان."}}),
+            "Vandalisme", new Topic("Police administrative",
+                    new String[][]{{"Mobilier urbain dégradé", "تخريب الممتلكات العامة"},
+                            {"Graffitis sur un bâtiment public", "كتابات على جدار مبنى عمومي"}},
+                    new String[][]{{"Les bancs du jardin ont été cassés.", "تم تكسير كراسي الحديقة."},
+                            {"Les dégradations se répètent chaque week-end.", "التخريب يتكرر كل نهاية أسبوع."}}),
+            "Eau", new Topic("Eau et assainissement",
+                    new String[][]{{"Fuite d'eau sur la voie publique", "تسرب الماء في الطريق العام"},
+                            {"Égout bouché", "انسداد قناة الصرف الصحي"}},
+                    new String[][]{{"L'eau coule depuis hier soir.", "الماء يتسرب منذ مساء أمس."},
+                            {"Des odeurs fortes se dégagent.", "تنبعث روائح كريهة."}}),
+            "Végétation", new Topic("Espaces verts",
+                    new String[][]{{"Arbre menaçant de tomber", "شجرة مهددة بالسقوط"},
+                            {"Espace vert non entretenu", "مساحة خضراء مهملة"}},
+                    new String[][]{{"Les branches touchent les fils électriques.", "الأغصان تلامس الأسلاك الكهربائية."},
+                            {"Les herbes hautes envahissent le trottoir.", "الأعشاب الطويلة تغطي الرصيف."}}),
+            "Bruit", new Topic("Environnement",
+                    new String[][]{{"Nuisances sonores nocturnes", "ضجيج ليلي مزعج"},
+                            {"Chantier bruyant hors horaires", "ورش صاخب خارج الأوقات القانونية"}},
+                    new String[][]{{"Le bruit continue après minuit.", "الضجيج يستمر بعد منتصف الليل."},
+                            {"Les travaux commencent avant 6 heures.", "الأشغال تبدأ قبل السادسة صباحا."}}));
+    private static final Topic OTHER_TOPIC = new Topic("Accueil et orientation",
+            new String[][]{{"Problème dans le quartier", "مشكل في الحي"}},
+            new String[][]{{"Merci d'intervenir rapidement.", "المرجو التدخل بسرعة."}});
+
+    private static final String[][] CITIZEN_COMMENTS = {{"Toujours pas de changement.", "لا يوجد أي تغيير."},
+            {"Merci pour votre réactivité.", "شكرا على تفاعلكم."}, {"Le problème s'aggrave.", "المشكل يتفاقم."}};
+    private static final String[][] AGENT_COMMENTS = {{"Une équipe a été dépêchée sur place.", "تم إرسال فريق إلى عين المكان."},
+            {"Intervention planifiée cette semaine.", "التدخل مبرمج هذا الأسبوع."},
+            {"Le matériel nécessaire a été commandé.", "تم طلب المعدات اللازمة."}};
+
+    /**
+     * Final status weights for a complaint filed today and for one older than two months; in
+     * between they are interpolated.
+     */
+    private static final double[] RECENT_WEIGHTS = {35, 25, 25, 5, 8, 0, 2};
+    private static final double[] OLD_WEIGHTS = {3, 4, 5, 3, 35, 42, 8};
+    private static final ComplaintStatus[] STATUSES = {ComplaintStatus.NEW, ComplaintStatus.ASSIGNED,
+            ComplaintStatus.IN_PROGRESS, ComplaintStatus.PENDING, ComplaintStatus.RESOLVED, ComplaintStatus.CLOSED,
+            ComplaintStatus.REJECTED};
+
+    private final MongoTemplate mongoTemplate;
+    private final PasswordHashingService passwordHashingService;
+    private final NotificationRetentionService retentionService;
+    private final double centerLatitude;
+    private final double centerLongitude;
+    private final double radiusKm;
+    private final int days;
+
+    @Autowired
+    public SyntheticDataSeeder(MongoTemplate mongoTemplate,
+                               PasswordHashingService passwordHashingService,
+                               NotificationRetentionService retentionService,
+                               @Value("${loadtest.seed.center-latitude:33.9716}") double centerLatitude,
+                               @Value("${loadtest.seed.center-longitude:-6.8498}") double centerLongitude,
+                               @Value("${loadtest.seed.radius-km:8}") double radiusKm,
+                               @Value("${loadtest.seed.days:730}") int days) {
+        this.mongoTemplate = mongoTemplate;
+        this.passwordHashingService = passwordHashingService;
+        this.retentionService = retentionService;
+        this.centerLatitude = centerLatitude;
+        this.centerLongitude = centerLongitude;
+        this.radiusKm = radiusKm;
+        this.days = days;
+    }
+
+    public boolean hasSyntheticData() {
+        return mongoTemplate.exists(Query.query(Criteria.where(BATCH_FIELD).exists(true)), "users");
+    }
+
+    /**
+     * Seeds about {@code records} documents and returns how many were written per collection.
+     * The same {@code randomSeed} produces the same data.
+     */
+    public Map<String, Long> seed(long records, long randomSeed) {
+        long started = System.currentTimeMillis();
+        Run run = new Run(new Random(randomSeed), new ObjectId().toHexString());
+        int complaints = (int) Math.max(1, records / DOCUMENTS_PER_COMPLAINT);
+
+        List<Category> categories = mongoTemplate.findAll(Category.class);
+        if (categories.isEmpty()) {
+            throw new IllegalStateException("Aucune catégorie: lancer l'application une fois avant de générer des données");
+        }
+        Map<String, Department> departments = seedOrganizations(run, categories);
+        List<CommunityAgent> agents = seedStaff(run, departments, Math.max(8, complaints / 200));
+        List<Citizen> citizens = seedCitizens(run, Math.max(10, complaints / 5));
+
+        Map<Integer, Long> nextNumberByYear = new HashMap<>();
+        for (int i = 0; i < complaints; i++) {
+            seedComplaint(run, categories, departments, agents, citizens, nextNumberByYear);
+            if ((i + 1) % 50_000 == 0) {
+                System.out.println("Données synthétiques: " + (i + 1) + "/" + complaints + " plaintes");
+            }
+        }
+        run.flushAll();
+
+        System.out.println("Données synthétiques générées en " + (System.currentTimeMillis() - started) / 1000
+                + " s: " + run.inserted);
+        return run.inserted;
+    }
+
+    /**
+     * Gives the accounts seeded by an earlier run a new random password.
+     */
+    public long resetPasswords() {
+        return mongoTemplate.updateMulti(Query.query(Criteria.where(BATCH_FIELD).exists(true)),
+                new Update().set("password", passwordHashingService.encode(randomPassword())), "users")
+                .getModifiedCount();
+    }
+
+    /**
+     * Removes every seeded document.
+     */
+    public long clear() {
+        long removed = 0;
+        for (String collection : SEEDED_COLLECTIONS) {
+            removed += mongoTemplate.remove(Query.query(Criteria.where(BATCH_FIELD).exists(true)), collection)
+                    .getDeletedCount();
+        }
+        System.out.println("Données synthétiques supprimées: " + removed + " documents");
+        return removed;
+    }
+
+    private Map<String, Department> seedOrganizations(Run run, List<Category> categories) {
+        Organization commune = new Organization();
+        commune.setOrganizationId(new ObjectId().toHexString());
+        commune.setName("Commune urbaine (données de test)");
+        commune.setDescription("Organisation générée pour les tests de charge");
+        commune.setResponsible(name(run.random));
+        commune.setEmail("commune@" + EMAIL_DOMAIN);
+        commune.setPhone(phone(run.random));
+        commune.setActive(true);
+        commune.setCreatedBy("loadtest");
+        commune.setCreatedAt(LocalDateTime.now());
+
+        Map<String, Department> departments = new LinkedHashMap<>();
+        List<String> names = new ArrayList<>();
+        for (Category category : categories) {
+            names.add(topic(category).department());
+        }
+        names.add(OTHER_TOPIC.department());
+        for (String departmentName : names) {
+            if (departments.containsKey(departmentName)) {
+                continue;
+            }
+            Department department = new Department();
+            department.setDepartmentId(new ObjectId().toHexString());
+            department.setName(departmentName);
+            department.setDescription("Service " + departmentName + " (données de test)");
+            department.setContactEmail(slug(departmentName) + "@" + EMAIL_DOMAIN);
+            department.setPhone(phone(run.random));
+            department.setManager(name(run.random));
+            department.setStatus("active");
+            department.setOrganization(commune);
+            departments.put(departmentName, department);
+            run.add("departments", department);
+        }
+        commune.setDepartments(new ArrayList<>(departments.values()));
+        run.add("organizations", commune);
+        return departments;
+    }
+
+    private List<CommunityAgent> seedStaff(Run run, Map<String, Department> departments, int agentCount) {
+        String encoded = passwordHashingService.encode(randomPassword());
+        run.encodedPassword = encoded;
+        for (int i = 1; i <= 2; i++) {
+            run.add("users", account(new Admin(name(run.random), "admin" + i + "@" + EMAIL_DOMAIN, encoded,
+                    phone(run.random))));
+            run.add("users", account(new Analyst(name(run.random), "analyst" + i + "@" + EMAIL_DOMAIN, encoded,
+                    phone(run.random))));
+        }
+        List<Department> all = new ArrayList<>(departments.values());
+        List<CommunityAgent> agents = new ArrayList<>();
+        for (int i = 0; i < agentCount; i++) {
+            Department department = all.get(i % all.size());
+            CommunityAgent agent = new CommunityAgent(name(run.random), "agent" + i + "@" + EMAIL_DOMAIN, encoded,
+                    phone(run.random), department.getName(), department);
+            agent.setActive(run.random.nextDouble() > 0.05);
+            agents.add(account(agent));
+            run.add("users", agent);
+        }
+        return agents;
+    }
+
+    private List<Citizen> seedCitizens(Run run, int count) {
+        List<Citizen> citizens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Citizen citizen = account(new Citizen(name(run.random), "citizen" + i + "@" + EMAIL_DOMAIN,
+                    run.encodedPassword, phone(run.random)));
+            citizens.add(citizen);
+            run.add("users", citizen);
+        }
+        return citizens;
+    }
+
+    private void seedComplaint(Run run, List<Category> categories, Map<String, Department> departments,
+                               List<CommunityAgent> agents, List<Citizen> citizens,
+                               Map<Integer, Long> nextNumberByYear) {
+        Random random = run.random;
+        long now = System.currentTimeMillis();
+        // Skewed towards recent dates: activity grows over time.
+        double age = 1 - Math.sqrt(random.nextDouble());
+        Date created = new Date(now - (long) (age * TimeUnit.DAYS.toMillis(days)));
+        double ageDays = (now - created.getTime()) / (double) TimeUnit.DAYS.toMillis(1);
+
+        Category category = categories.get(random.nextInt(categories.size()));
+        Topic topic = topic(category);
+        // Squaring the draw makes a few citizens account for many complaints.
+        Citizen citizen = citizens.get((int) (citizens.size() * Math.pow(random.nextDouble(), 2)));
+        ComplaintStatus status = finalStatus(random, ageDays);
+
+        int year = created.toInstant().atZone(ZoneId.systemDefault()).getYear();
+        long number = nextNumberByYear.computeIfAbsent(year, this::firstFreeNumber);
+        nextNumberByYear.put(year, number + 1);
+
+        String[] title = pick(random, topic.titles());
+        String[] description = pick(random, topic.descriptions());
+        String district = DISTRICTS[random.nextInt(DISTRICTS.length)];
+        double[] point = location(random);
+
+        Complaint complaint = new Complaint();
+        complaint.setComplaintId("#" + year + "-" + String.format("%03d", number));
+        complaint.setTitle(title[0] + " / " + title[1]);
+        complaint.setDescription(description[0] + " " + STREETS[random.nextInt(STREETS.length)] + ", " + district
+                + ". — " + description[1]);
+        complaint.setCreationDate(created);
+        complaint.setStatusCode(status);
+        complaint.setLatitude(point[0]);
+        complaint.setLongitude(point[1]);
+        complaint.setPriorityLevel(1 + random.nextInt(3));
+        complaint.setIsVerified(random.nextDouble() < 0.6 ? 1 : 0);
+        complaint.setCitizen(citizen);
+        complaint.setCategory(category);
+
+        CommunityAgent agent = null;
+        if (status != ComplaintStatus.NEW && status != ComplaintStatus.REJECTED) {
+            Department department = departments.getOrDefault(topic.department(), departments.values().iterator().next());
+            agent = agents.get(random.nextInt(agents.size()));
+            complaint.setAssignedDepartment(department);
+            complaint.setAssignedAgent(agent);
+        }
+
+        List<Media> media = new ArrayList<>();
+        int mediaCount = random.nextDouble() < 0.7 ? 1 + random.nextInt(2) : 0;
+        for (int m = 0; m < mediaCount; m++) {
+            Media placeholder = new Media("placeholder-" + slug(category.getLabel()) + "-" + (m + 1) + ".jpg", created);
+            placeholder.setMediaId(new ObjectId().toHexString());
+            placeholder.setComplaintId(complaint.getComplaintId());
+            placeholder.setContentType("image/jpeg");
+            placeholder.setFileSize(0L);
+            placeholder.setContentHash("placeholder-" + slug(category.getLabel()) + "-" + (m + 1));
+            media.add(placeholder);
+            run.add("media", placeholder);
+        }
+        complaint.setMedia(media);
+
+        // Status history from NEW to the final status, spread between filing and now.
+        List<ComplaintStatus> path = statusPath(status);
+        long span = Math.max(TimeUnit.HOURS.toMillis(1), Math.min(now - created.getTime(), TimeUnit.DAYS.toMillis(30)));
+        Date changed = created;
+        for (int step = 0; step < path.size(); step++) {
+            if (step > 0) {
+                changed = new Date(changed.getTime() + (long) (random.nextDouble() * span / path.size()));
+            }
+            ComplaintStatus reached = path.get(step);
+            StatusHistory history = new StatusHistory();
+            history.setStatusHistoryId(new ObjectId().toHexString());
+            history.setStatus(reached.getLabel());
+            history.setStatusDate(changed);
+            history.setNotes(step == 0 ? "Signalement créé" : "Statut mis à jour");
+            history.setComplaint(complaint);
+            history.setUpdatedBy(step == 0 || agent == null ? citizen : agent);
+            run.add("status_histories", history);
+            if (step > 0) {
+                run.add("notifications", statusNotification(random, citizen, complaint, reached, changed, now));
+            }
+            if (reached.isClosed() && complaint.getClosureDate() == null) {
+                complaint.setClosureDate(changed);
+            }
+        }
+        complaint.setLastUpdated(changed);
+
+        int comments = (int) Math.round(random.nextDouble() * 4 * (path.size() > 1 ? 1 : 0.5));
+        for (int c = 0; c < comments; c++) {
+            boolean fromAgent = agent != null && c % 2 == 1;
+            String[] text = pick(random, fromAgent ? AGENT_COMMENTS : CITIZEN_COMMENTS);
+            Date at = new Date(created.getTime() + (long) (random.nextDouble() * span));
+            Comment comment = fromAgent
+                    ? new Comment(at, text[0] + " — " + text[1], agent, complaint)
+                    : new Comment(at, text[0] + " — " + text[1], citizen, complaint);
+            comment.setCommentId(new ObjectId().toHexString());
+            comment.setAuthorType(fromAgent ? "AGENT" : "CITIZEN");
+            run.add("comments", comment);
+        }
+
+        run.add("complaints", complaint);
+    }
+
+    private Notification statusNotification(Random random, Citizen citizen, Complaint complaint,
+                                            ComplaintStatus status, Date at, long now) {
+        Notification notification = new Notification();
+        notification.setNotificationId(new ObjectId().toHexString());
+        notification.setRecipient(citizen);
+        notification.setNotificationType(switch (status) {
+            case RESOLVED -> "COMPLAINT_RESOLVED";
+            case IN_PROGRESS -> "COMPLAINT_IN_PROGRESS";
+            default -> "STATUS_UPDATE";
+        });
+        notification.setContent(String.format("Votre signalement '%s' a été marqué comme \"%s\".",
+                complaint.getTitle(), status.getLabel()));
+        notification.setComplaintId(complaint.getComplaintId());
+        notification.setSentDate(at);
+        notification.setCreatedDate(at);
+        notification.setPriority(complaint.getPriorityLevel() == 3 ? "HIGH" : "NORMAL");
+        // Old notifications are mostly read.
+        boolean read = now - at.getTime() > TimeUnit.DAYS.toMillis(7) ? random.nextDouble() < 0.9 : random.nextDouble() < 0.3;
+        notification.setRead(read);
+        notification.setExpiresAt(read ? retentionService.readExpiry() : retentionService.unreadExpiry(at));
+        return notification;
+    }
+
+    private ComplaintStatus finalStatus(Random random, double ageDays) {
+        double weightOfOld = Math.min(1, ageDays / 60);
+        double total = 0;
+        double[] weights = new double[STATUSES.length];
+        for (int i = 0; i < STATUSES.length; i++) {
+            weights[i] = RECENT_WEIGHTS[i] * (1 - weightOfOld) + OLD_WEIGHTS[i] * weightOfOld;
+            total += weights[i];
+        }
+        double draw = random.nextDouble() * total;
+        for (int i = 0; i < STATUSES.length; i++) {
+            draw -= weights[i];
+            if (draw < 0) {
+                return STATUSES[i];
+            }
+        }
+        return ComplaintStatus.NEW;
+    }
+
+    private List<ComplaintStatus> statusPath(ComplaintStatus status) {
+        return switch (status) {
+            case NEW -> List.of(ComplaintStatus.NEW);
+            case ASSIGNED -> List.of(ComplaintStatus.NEW, ComplaintStatus.ASSIGNED);
+            case IN_PROGRESS -> List.of(ComplaintStatus.NEW, ComplaintStatus.ASSIGNED, ComplaintStatus.IN_PROGRESS);
+            case PENDING -> List.of(ComplaintStatus.NEW, ComplaintStatus.ASSIGNED, ComplaintStatus.IN_PROGRESS,
+                    ComplaintStatus.PENDING);
+            case RESOLVED -> List.of(ComplaintStatus.NEW, ComplaintStatus.ASSIGNED, ComplaintStatus.IN_PROGRESS,
+                    ComplaintStatus.RESOLVED);
+            case CLOSED -> List.of(ComplaintStatus.NEW, ComplaintStatus.ASSIGNED, ComplaintStatus.IN_PROGRESS,
+                    ComplaintStatus.RESOLVED, ComplaintStatus.CLOSED);
+            case REJECTED -> List.of(ComplaintStatus.NEW, ComplaintStatus.REJECTED);
+        };
+    }
+
+    /**
+     * Seventy percent of the points around five hotspots, the rest anywhere within the radius.
+     */
+    private double[] location(Random random) {
+        double kmPerDegreeLongitude = 111.32 * Math.cos(Math.toRadians(centerLatitude));
+        double north;
+        double east;
+        if (random.nextDouble() < 0.7) {
+            int hotspot = random.nextInt(5);
+            double angle = hotspot * 2 * Math.PI / 5;
+            north = Math.sin(angle) * radiusKm / 2 + random.nextGaussian() * 0.8;
+            east = Math.cos(angle) * radiusKm / 2 + random.nextGaussian() * 0.8;
+        } else {
+            double distance = radiusKm * Math.sqrt(random.nextDouble());
+            double angle = random.nextDouble() * 2 * Math.PI;
+            north = distance * Math.sin(angle);
+            east = distance * Math.cos(angle);
+        }
+        return new double[]{centerLatitude + north / 111.32, centerLongitude + east / kmPerDegreeLongitude};
+    }
+
+    /**
+     * The number after the highest complaint of {@code year} already stored, as
+     * {@code ComplaintIdGeneratorService} would number it.
+     */
+    private long firstFreeNumber(int year) {
+        Date start = Date.from(LocalDateTime.of(year, 1, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant());
+        Date end = Date.from(LocalDateTime.of(year + 1, 1, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant());
+        return mongoTemplate.count(Query.query(Criteria.where("creationDate").gte(start).lt(end)), Complaint.class) + 1;
+    }
+
+    private <T extends User> T account(T user) {
+        user.setUserId(new ObjectId().toHexString());
+        return user;
+    }
+
+    private Topic topic(Category category) {
+        return TOPICS.getOrDefault(category.getLabel(), OTHER_TOPIC);
+    }
+
+    private String[] pick(Random random, String[][] options) {
+        return options[random.nextInt(options.length)];
+    }
+
+    private static String randomPassword() {
+        byte[] bytes = new byte[24];
+        PASSWORD_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private String name(Random random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    private String phone(Random random) {
+        return "06" + String.format("%08d", random.nextInt(100_000_000));
+    }
+
+    private String slug(String value) {
+        return Normalizer.normalize(value, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase()
+                .replaceAll("[^a-z0-9]+", "-");
+    }
+
+    /**
+     * Buffers converted documents per collection and writes them in batches.
+     */
+    private final class Run {
+        private final Random random;
+        private final String batchId;
+        private final Map<String, List<Document>> pending = new LinkedHashMap<>();
+        private final Map<String, Long> inserted = new LinkedHashMap<>();
+        private String encodedPassword;
+
+        private Run(Random random, String batchId) {
+            this.random = random;
+            this.batchId = batchId;
+        }
+
+        private void add(String collection, Object entity) {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(entity, document);
+            document.append(BATCH_FIELD, batchId);
+            List<Document> batch = pending.computeIfAbsent(collection, name -> new ArrayList<>(INSERT_BATCH_SIZE));
+            batch.add(document);
+            if (batch.size() >= INSERT_BATCH_SIZE) {
+                flush(collection);
+            }
+        }
+
+        private void flushAll() {
+            for (String collection : new ArrayList<>(pending.keySet())) {
+                flush(collection);
+            }
+        }
+
+        private void flush(String collection) {
+            List<Document> batch = pending.remove(collection);
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            long written = batch.size();
+            try {
+                mongoTemplate.getCollection(collection).insertMany(batch, new InsertManyOptions().ordered(false));
+            } catch (MongoBulkWriteException e) {
+                // Duplicate complaint numbers and the like: keep the rest of the batch.
+                written -= e.getWriteErrors().size();
+                System.err.println("Documents synthétiques refusés dans " + collection + ": " + e.getWriteErrors().size());
+            }
+            inserted.merge(collection, written, Long::sum);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.Backend_CitizenSpeak.services;
 
+import com.example.Backend_CitizenSpeak.models.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -19,6 +21,9 @@ public class TokenService {
     private static final String SECRET_KEY = "MySuperSecretKeyForJWTMySuperSecretKeyForJWT";
     private static final long EXPIRATION_TIME = 1000 * 60 * 60 * 1;
 
+    public static final String CLAIM_USER_ID = "userId";
+    public static final String CLAIM_PROFILE_ID = "profileId";
+
     private final SecretKey key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
 
     public String generateToken(String email, String role) {
@@ -34,6 +39,27 @@ public class TokenService {
                 .compact();
     }
 
+    /**
+     * Token for an authenticated user. Besides the email and role it carries the id of the
+     * {@code users} document and of the role document (citizen, agent, ...), so requests can be
+     * resolved to a user without looking the email up.
+     */
+    public String generateToken(User user, String profileId) {
+        Date now = new Date();
+        Date expiry = new Date(now.getTime() + EXPIRATION_TIME);
+
+        JwtBuilder builder = Jwts.builder()
+                .setSubject(user.getEmail())
+                .claim("role", user.getRole())
+                .claim(CLAIM_USER_ID, user.getUserId())
+                .setIssuedAt(now)
+                .setExpiration(expiry);
+        if (profileId != null) {
+            builder.claim(CLAIM_PROFILE_ID, profileId);
+        }
+        return builder.signWith(key, SignatureAlgorithm.HS256).compact();
+    }
+
     public String extractEmailFromToken(String token) {
         try {
             System.out.println("Extracting email from token...");
@@ -0,0 +1,140 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.UnreadCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user unread notification counters.
+ *
+ * A counter only exists once it has been seeded from a count query; increments and decrements
+ * are applied to existing counters only, so a missing counter is never mistaken for zero. Reads
+ * go through a short-lived local cache because clients poll the count endpoints.
+ */
+@Service
+public class UnreadCounterService {
+
+    private static final int MAX_CACHED_USERS = 10_000;
+
+    private record CachedCount(long unread, long expiresAt) {}
+
+    private final MongoTemplate mongoTemplate;
+    private final long cacheTtlMillis;
+    private final Duration maxAge;
+    private final Map<String, CachedCount> cache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UnreadCounterService(MongoTemplate mongoTemplate,
+                                @Value("${notifications.unread-counter.cache-ttl-ms:2000}") long cacheTtlMillis,
+                                @Value("${notifications.unread-counter.max-age-hours:24}") long maxAgeHours) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.maxAge = Duration.ofHours(maxAgeHours);
+    }
+
+    /**
+     * Counters expire {@code max-age-hours} after seeding and are re-seeded on the next read, which
+     * corrects drift from notifications removed by the retention TTL index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(UnreadCounter.class)
+                    .ensureIndex(new Index().on("seededDate", Sort.Direction.ASC)
+                            .expire(maxAge)
+                            .named("unread_counter_seeded_ttl"));
+        } catch (Exception e) {
+            System.err.println("Impossible de créer les index des compteurs de notifications: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the user's unread count, seeding the counter with {@code seed} the first time.
+     */
+    public long get(String userId, LongSupplier seed) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = cache.get(userId);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.unread();
+        }
+
+        UnreadCounter counter = mongoTemplate.findById(userId, UnreadCounter.class);
+        if (counter == null) {
+            // If another request seeded it meanwhile, $setOnInsert keeps that value.
+            counter = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(userId)),
+                    new Update().setOnInsert("unread", seed.getAsLong()).setOnInsert("seededDate", new Date()),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    UnreadCounter.class);
+        }
+        long unread = Math.max(0, counter.getUnread());
+        cache(userId, unread);
+        return unread;
+    }
+
+    /**
+     * Adds newly stored unread notifications, one bulk write for all recipients.
+     */
+    public void incrementAll(Map<String, Long> unreadByUser) {
+        if (unreadByUser.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UnreadCounter.class);
+        unreadByUser.forEach((userId, count) ->
+                bulk.updateOne(Query.query(Criteria.where("_id").is(userId)), new Update().inc("unread", count)));
+        bulk.execute();
+        unreadByUser.keySet().forEach(cache::remove);
+    }
+
+    public void decrement(String userId, long count) {
+        if (userId == null || count <= 0) {
+            return;
+        }
+        UnreadCounter counter = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().inc("unread", -count),
+                FindAndModifyOptions.options().returnNew(true),
+                UnreadCounter.class);
+        if (counter == null) {
+            cache.remove(userId);
+        } else if (counter.getUnread() < 0) {
+            // Drifted (e.g. a notification deleted in bulk); let the next read re-seed it.
+            invalidate(userId);
+        } else {
+            cache(userId, counter.getUnread());
+        }
+    }
+
+    public void invalidate(String userId) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(userId)), UnreadCounter.class);
+        cache.remove(userId);
+    }
+
+    private void cache(String userId, long unread) {
+        if (cacheTtlMillis <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (cache.size() >= MAX_CACHED_USERS) {
+            cache.values().removeIf(entry -> entry.expiresAt() <= now);
+        }
+        cache.put(userId, new CachedCount(unread, now + cacheTtlMillis));
+    }
+}
@@ -7,47 +7,61 @@ import com.example.Backend_CitizenSpeak.exceptions.UserNotFoundException;
 import com.example.Backend_CitizenSpeak.models.*;
 import com.example.Backend_CitizenSpeak.repositories.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.regex.Pattern;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Service
 public class UserService {
 
-    private final Map<String, String> tempTokenStorage = new HashMap<>();
+    public static final int MAX_LISTING_PAGE_SIZE = 1000;
+
+    private static final SecureRandom OTP_RANDOM = new SecureRandom();
 
     private final UserRepository userRepository;
-    private final AgentRepository agentRepository;
-    private final AdminRepository adminRepository;
-    private final AnalystRepository analystRepository;
-    private final CitizenRepository citizenRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final JavaMailSender mailSender;
+    private final PasswordHashingService passwordHashingService;
+    private final MongoTemplate mongoTemplate;
+    private final CurrentUserService currentUserService;
+    private final MailService mailService;
+    private final OtpChallengeStore otpChallengeStore;
+    private final Duration otpValidity;
+    private final int maxOtpAttempts;
 
     @Autowired
     public UserService(UserRepository userRepository,
-                       AgentRepository agentRepository,
-                       AdminRepository adminRepository,
-                       AnalystRepository analystRepository,
-                       CitizenRepository citizenRepository,
-                       PasswordEncoder passwordEncoder,
-                       JavaMailSender mailSender) {
+                       PasswordHashingService passwordHashingService,
+                       MongoTemplate mongoTemplate,
+                       CurrentUserService currentUserService,
+                       MailService mailService,
+                       OtpChallengeStore otpChallengeStore,
+                       @Value("${auth.otp.validity-seconds:300}") long otpValiditySeconds,
+                       @Value("${auth.otp.max-attempts:5}") int maxOtpAttempts) {
         this.userRepository = userRepository;
-        this.agentRepository = agentRepository;
-        this.adminRepository = adminRepository;
-        this.analystRepository = analystRepository;
-        this.citizenRepository = citizenRepository;
-        this.passwordEncoder = passwordEncoder;
-        this.mailSender = mailSender;
+        this.passwordHashingService = passwordHashingService;
+        this.mongoTemplate = mongoTemplate;
+        this.currentUserService = currentUserService;
+        this.mailService = mailService;
+        this.otpChallengeStore = otpChallengeStore;
+        this.otpValidity = Duration.ofSeconds(otpValiditySeconds);
+        this.maxOtpAttempts = maxOtpAttempts;
     }
 
     public void registerUser(String email, String password, String role, String name, String phone, String extra) {
@@ -55,35 +69,21 @@ public class UserService {
             throw new UserAlreadyExistsException("Email existe déjà.");
         }
 
-        String encodedPassword = passwordEncoder.encode(password);
-        User baseUser = new User(name, email, encodedPassword, phone, role);
-        userRepository.save(baseUser);
-
-        switch (role.toLowerCase()) {
+        String encodedPassword = passwordHashingService.encode(password);
+        User user = switch (role.toLowerCase()) {
             case "agent" -> {
                 CommunityAgent agent = new CommunityAgent(name, email, encodedPassword, phone, "Agent");
                 agent.setService(extra);
-                agentRepository.save(agent);
-            }
-            case "admin" -> {
-                Admin admin = new Admin(name, email, encodedPassword, phone);
-                adminRepository.save(admin);
-            }
-            case "analyst" -> {
-                Analyst analyst = new Analyst(name, email, encodedPassword, phone);
-                analystRepository.save(analyst);
-            }
-            case "citizen" -> {
-                try {
-                    Citizen citizen = new Citizen(name, email, encodedPassword, phone, extra);
-                    citizenRepository.save(citizen);
-                } catch (Exception e) {
-                    Citizen citizen = new Citizen(name, email, encodedPassword, phone);
-                    citizenRepository.save(citizen);
-                }
+                yield agent;
             }
+            case "admin" -> new Admin(name, email, encodedPassword, phone);
+            case "analyst" -> new Analyst(name, email, encodedPassword, phone);
+            case "citizen" -> new Citizen(name, email, encodedPassword, phone);
             default -> throw new IllegalArgumentException("Unknown role: " + role);
-        }
+        };
+        // One document per account; the role keeps the spelling the caller used, as before.
+        user.setRole(role);
+        userRepository.save(user);
     }
 
     public String processLogin(String email, String password) {
@@ -95,21 +95,18 @@ public class UserService {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Votre compte est inactif.");
             }
 
-            if (!passwordEncoder.matches(password, user.getPassword())) {
+            if (!passwordHashingService.matches(password, user.getPassword())) {
                 throw new IllegalArgumentException("Mot de passe incorrect");
             }
+            upgradePasswordHash(user, password);
 
-            String otp = String.format("%06d", new Random().nextInt(1000000));
-            try {
-                user.setOtp(otp);
-                userRepository.save(user);
-                sendOtpEmail(user.getEmail(), otp);
-            } catch (Exception e) {
-                System.err.println("OTP feature not available: " + e.getMessage());
-            }
-
+            // The code lives with the temporary token, so a login no longer writes to the user.
+            String otp = String.format("%06d", OTP_RANDOM.nextInt(1000000));
             String tempToken = UUID.randomUUID().toString();
-            tempTokenStorage.put(tempToken, email);
+            Date expiresAt = new Date(System.currentTimeMillis() + otpValidity.toMillis());
+            otpChallengeStore.save(new OtpChallenge(tempToken, email, otp, expiresAt));
+            // Only queued here; the mail is sent in the background so SMTP latency stays out of login.
+            mailService.sendOtpEmail(user.getEmail(), otp, expiresAt);
 
             return tempToken;
         } catch (Exception e) {
@@ -118,44 +115,34 @@ public class UserService {
         }
     }
 
-    private void sendOtpEmail(String email, String otp) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(email);
-            message.setSubject("Votre code OTP");
-            message.setText("Bonjour,\n\nVotre code OTP est : " + otp + "\n\nIl est valable 5 minutes.");
-            mailSender.send(message);
-        } catch (Exception e) {
-            System.err.println("Error sending OTP email: " + e.getMessage());
-        }
-    }
-
     public String verifyOtp(String tempToken, String otp) {
         try {
-            System.out.println("Token reçu: " + tempToken);
-            System.out.println("TempTokenStorage: " + tempTokenStorage);
-            String email = tempTokenStorage.get(tempToken);
-            if (email == null) {
+            OtpChallenge challenge = otpChallengeStore.find(tempToken);
+            if (challenge == null) {
                 throw new IllegalArgumentException("Token temporaire invalide ou expiré");
             }
+            if (challenge.getAttempts() >= maxOtpAttempts) {
+                otpChallengeStore.remove(tempToken);
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Trop de tentatives, veuillez vous reconnecter");
+            }
 
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new UserNotFoundException("Utilisateur introuvable"));
-
-            try {
-                if (!otp.equals(user.getOtp())) {
-                    throw new IllegalArgumentException("OTP invalide");
+            if (otp == null || !MessageDigest.isEqual(otp.getBytes(StandardCharsets.UTF_8),
+                    challenge.getOtp().getBytes(StandardCharsets.UTF_8))) {
+                int attempts = otpChallengeStore.recordFailedAttempt(tempToken);
+                if (attempts < 0 || attempts >= maxOtpAttempts) {
+                    otpChallengeStore.remove(tempToken);
+                    throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                            "Trop de tentatives, veuillez vous reconnecter");
                 }
-
-                user.setOtp(null);
-                userRepository.save(user);
-            } catch (Exception e) {
-                System.err.println("OTP verification error: " + e.getMessage());
                 throw new IllegalArgumentException("OTP invalide");
             }
 
-            tempTokenStorage.remove(tempToken);
-            return email;
+            // Only the request that removes the challenge completes the login.
+            if (!otpChallengeStore.remove(tempToken)) {
+                throw new IllegalArgumentException("Token temporaire invalide ou expiré");
+            }
+            return challenge.getEmail();
         } catch (Exception e) {
             System.err.println("Error in verifyOtp: " + e.getMessage());
             throw e;
@@ -211,11 +198,11 @@ public class UserService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UserNotFoundException("Utilisateur introuvable"));
 
-        if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
+        if (!passwordHashingService.matches(currentPassword, user.getPassword())) {
             throw new IllegalArgumentException("Mot de passe actuel incorrect");
         }
 
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword));
         userRepository.save(user);
     }
 
@@ -240,59 +227,23 @@ public class UserService {
         try {
             User u = userRepository.findByEmail(email)
                     .orElseThrow(() -> new UserNotFoundException("Utilisateur introuvable"));
-            u.setName(newName);
-            u.setPhone(newPhone);
-            u.setRole(newRole);
-            userRepository.save(u);
-
-            switch (newRole.toLowerCase()) {
-                case "admin" -> {
-                    try {
-                        Admin adm = adminRepository.findByEmail(email)
-                                .orElseThrow(() -> new UserNotFoundException("Admin introuvable"));
-                        adm.setName(newName);
-                        adm.setPhone(newPhone);
-                        adminRepository.save(adm);
-                    } catch (Exception e) {
-                        System.err.println("Error updating admin: " + e.getMessage());
-                    }
-                }
-                case "analyst" -> {
-                    try {
-                        Analyst anl = analystRepository.findByEmail(email)
-                                .orElseThrow(() -> new UserNotFoundException("Analyst introuvable"));
-                        anl.setName(newName);
-                        anl.setPhone(newPhone);
-                        analystRepository.save(anl);
-                    } catch (Exception e) {
-                        System.err.println("Error updating analyst: " + e.getMessage());
-                    }
-                }
-                case "agent" -> {
-                    try {
-                        CommunityAgent ag = agentRepository.findByEmail(email)
-                                .orElseThrow(() -> new UserNotFoundException("Agent introuvable"));
-                        ag.setName(newName);
-                        ag.setPhone(newPhone);
-                        ag.setService(extra);
-                        agentRepository.save(ag);
-                    } catch (Exception e) {
-                        System.err.println("Error updating agent: " + e.getMessage());
-                    }
-                }
-                case "citizen" -> {
-                    try {
-                        Citizen cit = citizenRepository.findByEmail(email)
-                                .orElseThrow(() -> new UserNotFoundException("Citizen introuvable"));
-                        cit.setName(newName);
-                        cit.setPhone(newPhone);
-                        citizenRepository.save(cit);
-                    } catch (Exception e) {
-                        System.err.println("Error updating citizen: " + e.getMessage());
-                    }
-                }
-                default -> throw new IllegalArgumentException("Role inconnu: " + newRole);
+            String type = User.typeForRole(newRole);
+            if (type == null) {
+                throw new IllegalArgumentException("Role inconnu: " + newRole);
             }
+
+            // A role change changes the stored subclass, which a save of the loaded instance would not.
+            Update update = new Update()
+                    .set("name", newName)
+                    .set("phone", newPhone)
+                    .set("role", newRole)
+                    .set("_class", type);
+            if (CommunityAgent.TYPE.equals(type)) {
+                update.set("service", extra);
+            }
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(u.getUserId())), update, User.class);
+            // Template updates bypass the repository events the principal cache listens to.
+            currentUserService.invalidate(email);
         } catch (Exception e) {
             System.err.println("Error in updateInternalUser: " + e.getMessage());
             throw e;
@@ -301,43 +252,8 @@ public class UserService {
 
     public void deleteUser(String email) {
         try {
-            User u = userRepository.findByEmail(email)
+            userRepository.findByEmail(email)
                     .orElseThrow(() -> new UserNotFoundException("Utilisateur introuvable"));
-            String role = u.getRole().toLowerCase();
-
-            switch (role) {
-                case "admin" -> {
-                    try {
-                        adminRepository.deleteByEmail(email);
-                    } catch (Exception e) {
-                        System.err.println("Error deleting admin: " + e.getMessage());
-                    }
-                }
-                case "analyst" -> {
-                    try {
-                        analystRepository.deleteByEmail(email);
-                    } catch (Exception e) {
-                        System.err.println("Error deleting analyst: " + e.getMessage());
-                    }
-                }
-                case "agent" -> {
-                    try {
-                        agentRepository.deleteByEmail(email);
-                    } catch (Exception e) {
-                        System.err.println("Error deleting agent: " + e.getMessage());
-                    }
-                }
-                case "citizen" -> {
-                    try {
-                        citizenRepository.deleteByEmail(email);
-                    } catch (Exception e) {
-                        System.err.println("Error deleting citizen: " + e.getMessage());
-                    }
-                }
-                default -> {
-                    System.out.println("Unknown role for deletion: " + role);
-                }
-            }
             userRepository.deleteByEmail(email);
         } catch (Exception e) {
             System.err.println("Error in deleteUser: " + e.getMessage());
@@ -353,9 +269,28 @@ public class UserService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Your account is inactive");
         }
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHashingService.matches(password, user.getPassword())) {
             throw new AuthenticationException("Invalid credentials");
         }
+        upgradePasswordHash(user, password);
+    }
+
+    /**
+     * Replaces a hash made with another BCrypt cost once the password is known to be right. Runs
+     * in the background and only if the hash has not changed meanwhile (e.g. a password change).
+     */
+    private void upgradePasswordHash(User user, String rawPassword) {
+        String currentHash = user.getPassword();
+        if (!passwordHashingService.needsRehash(currentHash)) {
+            return;
+        }
+        passwordHashingService.encodeInBackground(rawPassword, newHash -> {
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(user.getUserId()).and("password").is(currentHash)),
+                    new Update().set("password", newHash),
+                    User.class);
+            currentUserService.invalidate(user.getEmail());
+        });
     }
 
     public void sendPasswordResetToken(String email) {
@@ -367,40 +302,23 @@ public class UserService {
             }
 
             String resetToken = UUID.randomUUID().toString();
+            Instant expiry = Instant.now().plus(30, ChronoUnit.MINUTES);
 
             try {
                 user.setResetToken(resetToken);
-                user.setResetTokenExpiry(Instant.now().plus(30, ChronoUnit.MINUTES));
+                user.setResetTokenExpiry(expiry);
                 userRepository.save(user);
             } catch (Exception e) {
                 System.err.println("Reset token feature not available: " + e.getMessage());
                 return;
             }
 
-            sendPasswordResetEmail(user.getEmail(), resetToken);
+            mailService.sendPasswordResetEmail(user.getEmail(), resetToken, Date.from(expiry));
         } catch (Exception e) {
             System.err.println("Error in sendPasswordResetToken: " + e.getMessage());
         }
     }
 
-    private void sendPasswordResetEmail(String email, String resetToken) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(email);
-            message.setSubject("Réinitialisation de votre mot de passe");
-            message.setText("Bonjour,\n\n" +
-                    "Vous avez demandé la réinitialisation de votre mot de passe. " +
-                    "Cliquez sur le lien suivant pour définir un nouveau mot de passe :\n\n" +
-                    "http://your-app-url/reset-password?token=" + resetToken + "\n\n" +
-                    "Ce lien expirera dans 30 minutes.\n\n" +
-                    "Si vous n'avez pas demandé cette réinitialisation, veuillez ignorer cet email.");
-
-            mailSender.send(message);
-        } catch (Exception e) {
-            System.err.println("Error sending password reset email: " + e.getMessage());
-        }
-    }
-
     public void resetPassword(String token, String newPassword) {
         try {
             User user = userRepository.findByResetToken(token)
@@ -415,7 +333,7 @@ public class UserService {
                 throw new IllegalArgumentException("Invalid or expired token");
             }
 
-            user.setPassword(passwordEncoder.encode(newPassword));
+            user.setPassword(passwordHashingService.encode(newPassword));
 
             try {
                 user.setResetToken(null);
@@ -449,19 +367,12 @@ public class UserService {
             String deptName = "";
             String service = "";
 
-            if ("agent".equalsIgnoreCase(u.getRole())) {
-                try {
-                    CommunityAgent ag = agentRepository.findByEmail(email)
-                            .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Agent introuvable"));
-
-                    if (ag.getDepartment() != null) {
-                        deptId = ag.getDepartment().getDepartmentId();
-                        deptName = ag.getDepartment().getName();
-                    }
-                    service = ag.getService();
-                } catch (Exception e) {
-                    System.err.println("Error getting agent profile: " + e.getMessage());
+            if (u instanceof CommunityAgent ag) {
+                if (ag.getDepartment() != null) {
+                    deptId = ag.getDepartment().getDepartmentId();
+                    deptName = ag.getDepartment().getName();
                 }
+                service = ag.getService();
             }
 
             return new ProfileDto(
@@ -480,6 +391,74 @@ public class UserService {
         }
     }
 
+    /**
+     * One page of the directory, optionally for one role, without credentials. A single indexed
+     * query on {@code (_class, name)}; the departments of the agents on the page are then read in
+     * one query instead of one per agent.
+     */
+    public List<Map<String, Object>> getUserListing(String role, int page, int size) {
+        Query query = listingQuery(role)
+                .with(Sort.by("_class", "name"))
+                .skip((long) Math.max(0, page) * size)
+                .limit(size);
+        query.fields().include("name", "email", "phone", "role", "active", "service", "department");
+        List<Document> users = mongoTemplate.find(query, Document.class, "users");
+
+        Set<Object> departmentIds = new HashSet<>();
+        for (Document user : users) {
+            if (user.get("department") instanceof com.mongodb.DBRef ref) {
+                departmentIds.add(ref.getId());
+            }
+        }
+        Map<String, Department> departments = new HashMap<>();
+        if (!departmentIds.isEmpty()) {
+            for (Department department : mongoTemplate.find(
+                    Query.query(Criteria.where("_id").in(departmentIds)), Department.class)) {
+                departments.put(department.getDepartmentId(), department);
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(users.size());
+        for (Document user : users) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("userId", user.get("_id").toString());
+            m.put("name", user.getString("name"));
+            m.put("email", user.getString("email"));
+            m.put("phone", user.getString("phone"));
+            m.put("role", user.getString("role"));
+            m.put("active", !Boolean.FALSE.equals(user.get("active")));
+
+            if (CommunityAgent.TYPE.equals(user.getString("_class"))) {
+                m.put("service", user.getString("service"));
+                if (user.get("department") instanceof com.mongodb.DBRef ref) {
+                    Department d = departments.get(ref.getId().toString());
+                    if (d != null) {
+                        Map<String, String> dept = new HashMap<>();
+                        dept.put("id", d.getDepartmentId());
+                        dept.put("name", d.getName());
+                        m.put("department", dept);
+                    }
+                }
+            }
+            result.add(m);
+        }
+        return result;
+    }
+
+    public long countUsers(String role) {
+        return mongoTemplate.count(listingQuery(role), "users");
+    }
+
+    private Query listingQuery(String role) {
+        if (role == null || role.isBlank()) {
+            return new Query();
+        }
+        String type = User.typeForRole(role);
+        return type != null
+                ? Query.query(Criteria.where("_class").is(type))
+                : Query.query(Criteria.where("role").regex("^" + Pattern.quote(role) + "$", "i"));
+    }
+
     public List<User> getAllUsers() {
         try {
             return userRepository.findAll();
@@ -506,16 +485,4 @@ public class UserService {
             return 0;
         }
     }
-
-    public Map<String, String> getTempTokenStorage() {
-        return tempTokenStorage;
-    }
-
-    public void clearExpiredTempTokens() {
-        try {
-            tempTokenStorage.clear();
-        } catch (Exception e) {
-            System.err.println("Error clearing temp tokens: " + e.getMessage());
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,280 @@
+package com.example.Backend_CitizenSpeak.config;
+
+import com.example.Backend_CitizenSpeak.models.Citizen;
+import com.example.Backend_CitizenSpeak.models.CommunityAgent;
+import com.example.Backend_CitizenSpeak.models.Complaint;
+import com.example.Backend_CitizenSpeak.models.ComplaintStatus;
+import com.example.Backend_CitizenSpeak.models.Department;
+import com.example.Backend_CitizenSpeak.models.User;
+import com.example.Backend_CitizenSpeak.repositories.CommentRepository;
+import com.example.Backend_CitizenSpeak.repositories.ComplaintRepository;
+import com.example.Backend_CitizenSpeak.repositories.DeviceTokenRepository;
+import com.example.Backend_CitizenSpeak.repositories.MediaRepository;
+import com.example.Backend_CitizenSpeak.repositories.NotificationRepository;
+import com.example.Backend_CitizenSpeak.repositories.StatusHistoryRepository;
+import com.mongodb.ConnectionString;
+import com.mongodb.DBRef;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fails when a hot repository query is answered by a collection scan.
+ *
+ * Runs against the Mongo at {@code -Dmongo.test.uri} (or {@code MONGO_TEST_URI}, default
+ * {@code mongodb://localhost:27017}) in a throwaway database seeded with synthetic data, and is
+ * skipped when no server answers. The indexes come from {@link MongoIndexRegistry}; the queries are
+ * sent through the real repositories with {@link MongoQueryProfiler} attached, which explains each
+ * of them synchronously here.
+ */
+class QueryPlanRegressionTest {
+
+    private static final int USERS = 300;
+    private static final int COMPLAINTS = 3_000;
+    private static final int COMMENTS_PER_COMPLAINT = 3;
+    private static final int NOTIFICATIONS_PER_USER = 20;
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+    private static String database;
+    private static MongoQueryProfiler profiler;
+    private static SimpleMeterRegistry meterRegistry;
+    private static MongoRepositoryFactory repositories;
+
+    private static final List<ObjectId> citizenIds = new ArrayList<>();
+    private static final List<ObjectId> agentIds = new ArrayList<>();
+    private static final List<ObjectId> complaintIds = new ArrayList<>();
+    private static final ObjectId departmentId = new ObjectId();
+
+    @BeforeAll
+    static void setUp() {
+        String uri = System.getProperty("mongo.test.uri",
+                System.getenv().getOrDefault("MONGO_TEST_URI", "mongodb://localhost:27017"));
+        database = "citizenspeak_plans_" + new ObjectId().toHexString();
+
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        meterRegistry = new SimpleMeterRegistry();
+        // Explains run inline and every shape is explained once; no query counts as slow.
+        profiler = new MongoQueryProfiler(beans.getBeanProvider(MongoTemplate.class), meterRegistry, Runnable::run,
+                true, Long.MAX_VALUE, Long.MAX_VALUE, false, 500);
+
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+                .addCommandListener(profiler)
+                .build());
+        try {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+        } catch (Exception e) {
+            client.close();
+            client = null;
+            Assumptions.abort("Pas de serveur MongoDB sur " + uri + ": " + e.getMessage());
+        }
+
+        mongoTemplate = new MongoTemplate(client, database);
+        beans.registerSingleton("mongoTemplate", mongoTemplate);
+        seed();
+        new MongoIndexRegistry(mongoTemplate, 0).ensureIndexes();
+
+        repositories = new MongoRepositoryFactory(mongoTemplate);
+        repositories.addRepositoryProxyPostProcessor(RepositoryQueryLabeler.labelling());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (client != null) {
+            client.getDatabase(database).drop();
+            client.close();
+        }
+    }
+
+    @Test
+    void declaredPatternsUseAnIndex() {
+        List<Map<String, Object>> scans = new MongoIndexRegistry(mongoTemplate, 0).verify().stream()
+                .filter(result -> Set.of("COLLSCAN", "ERROR").contains(result.get("status")))
+                .toList();
+        assertTrue(scans.isEmpty(), "Requêtes sans index: " + scans);
+    }
+
+    @Test
+    void hotRepositoryQueriesUseAnIndex() {
+        ComplaintRepository complaints = repositories.getRepository(ComplaintRepository.class);
+        CommentRepository comments = repositories.getRepository(CommentRepository.class);
+        StatusHistoryRepository statusHistories = repositories.getRepository(StatusHistoryRepository.class);
+        NotificationRepository notifications = repositories.getRepository(NotificationRepository.class);
+        MediaRepository media = repositories.getRepository(MediaRepository.class);
+        DeviceTokenRepository deviceTokens = repositories.getRepository(DeviceTokenRepository.class);
+
+        Citizen citizen = new Citizen();
+        citizen.setUserId(citizenIds.get(0).toHexString());
+        CommunityAgent agent = new CommunityAgent();
+        agent.setUserId(agentIds.get(0).toHexString());
+        Department department = new Department();
+        department.setDepartmentId(departmentId.toHexString());
+        Complaint complaint = new Complaint();
+        complaint.setComplaintId(complaintIds.get(0).toHexString());
+        String complaintId = complaint.getComplaintId();
+
+        complaints.findByStatusOrderByCreationDateDesc(ComplaintStatus.REJECTED);
+        complaints.findByCitizenOrderByCreationDateDesc(citizen);
+        complaints.findByAssignedAgent(agent);
+        complaints.findByAssignedAgentAndStatus(agent, ComplaintStatus.ASSIGNED);
+        complaints.countByAssignedAgentUserIdAndStatus(agent.getUserId(), ComplaintStatus.ASSIGNED);
+        complaints.findByAssignedDepartmentAndStatus(department, ComplaintStatus.ASSIGNED);
+        complaints.countByYear(Calendar.getInstance().get(Calendar.YEAR));
+        complaints.findTop10ByOrderByCreationDateDesc();
+
+        comments.findByComplaintOrderByCommentDateDesc(complaint);
+        comments.findByComplaintComplaintId(complaintId);
+        comments.countByComplaintComplaintIdAndAuthorType(complaintId, "CITIZEN");
+
+        statusHistories.findByComplaintOrderByStatusDateAsc(complaint);
+        statusHistories.findByComplaintId(complaintId);
+
+        User recipient = citizen;
+        notifications.findByRecipientOrderByCreatedDateDesc(recipient, PageRequest.of(0, 20));
+        notifications.findByRecipientAndIsReadFalseOrderByCreatedDateDesc(recipient, PageRequest.of(0, 20));
+        notifications.countByRecipientAndIsReadFalse(recipient);
+
+        media.findByComplaintId(complaintId);
+        media.findByMediaFileIn(List.of("media-1.jpg", "media-2.jpg"));
+        media.findFirstByContentHashAndComplaintId("hash-1", complaintId);
+
+        deviceTokens.findByUserAndActiveTrue(recipient);
+
+        List<MongoQueryProfiler.PlanSample> samples = profiler.getPlanSamples();
+        Set<String> sampled = samples.stream().map(MongoQueryProfiler.PlanSample::query).collect(Collectors.toSet());
+        for (String query : List.of("ComplaintRepository.findByStatusOrderByCreationDateDesc",
+                "ComplaintRepository.countByYearRange", "CommentRepository.findByComplaintComplaintId",
+                "StatusHistoryRepository.findByComplaintId",
+                "NotificationRepository.findByRecipientAndIsReadFalseOrderByCreatedDateDesc",
+                "DeviceTokenRepository.findByUserAndActiveTrue")) {
+            assertTrue(sampled.contains(query), "Requête non profilée: " + query + " parmi " + sampled);
+        }
+
+        List<String> scans = samples.stream()
+                .filter(MongoQueryProfiler.PlanSample::collectionScan)
+                .map(sample -> sample.query() + " " + sample.command() + " " + sample.collection() + " "
+                        + sample.shape() + " -> " + sample.plan())
+                .toList();
+        assertTrue(scans.isEmpty(), "Requêtes fréquentes servies par un COLLSCAN:\n" + String.join("\n", scans));
+    }
+
+    @Test
+    void latenciesAreRecordedPerRepositoryMethod() {
+        ComplaintRepository complaints = repositories.getRepository(ComplaintRepository.class);
+        complaints.findTop10ByOrderByCreationDateDesc();
+
+        Timer timer = meterRegistry.find("mongo.query")
+                .tag("query", "ComplaintRepository.findTop10ByOrderByCreationDateDesc")
+                .tag("collection", "complaints")
+                .timer();
+        assertNotNull(timer);
+        assertTrue(timer.count() >= 1);
+        assertFalse(profiler.getQueryReport().isEmpty());
+    }
+
+    private static void seed() {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        long year = TimeUnit.DAYS.toMillis(365);
+        ComplaintStatus[] statuses = ComplaintStatus.values();
+
+        List<Document> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            ObjectId id = new ObjectId();
+            boolean agent = i % 10 == 0;
+            (agent ? agentIds : citizenIds).add(id);
+            users.add(new Document("_id", id)
+                    .append("_class", agent ? CommunityAgent.TYPE : Citizen.TYPE)
+                    .append("name", "Utilisateur " + i)
+                    .append("email", "user" + i + "@example.test")
+                    .append("role", agent ? "AGENT" : "CITIZEN")
+                    .append("active", true));
+        }
+        mongoTemplate.getCollection("users").insertMany(users);
+        mongoTemplate.getCollection("departments").insertOne(new Document("_id", departmentId).append("name", "Voirie"));
+
+        List<Document> complaintDocuments = new ArrayList<>();
+        for (int i = 0; i < COMPLAINTS; i++) {
+            ObjectId id = new ObjectId();
+            complaintIds.add(id);
+            ComplaintStatus status = statuses[random.nextInt(statuses.length)];
+            Document complaint = new Document("_id", id)
+                    .append("title", "Plainte " + i)
+                    .append("creationDate", new Date(now - (long) (random.nextDouble() * 2 * year)))
+                    .append("status", status.code())
+                    .append("priorityLevel", 1 + random.nextInt(3))
+                    .append("citizen", new DBRef("users", citizenIds.get(random.nextInt(citizenIds.size()))));
+            if (status != ComplaintStatus.NEW) {
+                complaint.append("assignedAgent", new DBRef("users", agentIds.get(random.nextInt(agentIds.size()))))
+                        .append("assignedDepartment", new DBRef("departments", departmentId));
+            }
+            complaintDocuments.add(complaint);
+        }
+        mongoTemplate.getCollection("complaints").insertMany(complaintDocuments);
+
+        List<Document> comments = new ArrayList<>();
+        List<Document> histories = new ArrayList<>();
+        List<Document> media = new ArrayList<>();
+        for (int i = 0; i < complaintIds.size(); i++) {
+            DBRef complaint = new DBRef("complaints", complaintIds.get(i));
+            for (int c = 0; c < COMMENTS_PER_COMPLAINT; c++) {
+                comments.add(new Document("commentDate", new Date(now - c * 60_000L))
+                        .append("description", "Commentaire " + c)
+                        .append("authorType", c % 2 == 0 ? "CITIZEN" : "AGENT")
+                        .append("complaint", complaint));
+                histories.add(new Document("status", statuses[c % statuses.length].code())
+                        .append("statusDate", new Date(now - c * 60_000L))
+                        .append("complaint", complaint));
+            }
+            media.add(new Document("mediaFile", "media-" + i + ".jpg")
+                    .append("complaintId", complaintIds.get(i).toHexString())
+                    .append("contentHash", "hash-" + i));
+        }
+        mongoTemplate.getCollection("comments").insertMany(comments);
+        mongoTemplate.getCollection("status_histories").insertMany(histories);
+        mongoTemplate.getCollection("media").insertMany(media);
+
+        List<Document> notifications = new ArrayList<>();
+        List<Document> tokens = new ArrayList<>();
+        for (ObjectId userId : citizenIds) {
+            DBRef recipient = new DBRef("users", userId);
+            for (int n = 0; n < NOTIFICATIONS_PER_USER; n++) {
+                notifications.add(new Document("recipient", recipient)
+                        .append("isRead", random.nextBoolean())
+                        .append("createdDate", new Date(now - n * 3_600_000L))
+                        .append("title", "Notification " + n));
+            }
+            tokens.add(new Document("user", recipient).append("token", "token-" + userId).append("active", true));
+        }
+        mongoTemplate.getCollection("notifications").insertMany(notifications);
+        mongoTemplate.getCollection("device_tokens").insertMany(tokens);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.Backend_CitizenSpeak.controllers;
+
+import com.example.Backend_CitizenSpeak.config.SecurityConfig;
+import com.example.Backend_CitizenSpeak.models.Admin;
+import com.example.Backend_CitizenSpeak.models.Citizen;
+import com.example.Backend_CitizenSpeak.models.User;
+import com.example.Backend_CitizenSpeak.services.MediaGarbageCollector;
+import com.example.Backend_CitizenSpeak.services.NotificationDispatcher;
+import com.example.Backend_CitizenSpeak.services.NotificationOutboxService;
+import com.example.Backend_CitizenSpeak.services.TokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest({MediaAdminController.class, NotificationAdminController.class})
+@Import({SecurityConfig.class, TokenService.class})
+class AdminEndpointSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @MockitoBean
+    private MediaGarbageCollector mediaGarbageCollector;
+
+    @MockitoBean
+    private NotificationOutboxService outboxService;
+
+    @MockitoBean
+    private NotificationDispatcher notificationDispatcher;
+
+    @Test
+    void citizenCannotCollectMedia() throws Exception {
+        mockMvc.perform(post("/api/admin/media/gc").param("dryRun", "false")
+                        .header("Authorization", "Bearer " + token(new Citizen("Citoyen", "citoyen@test.ma", "x", "0600000000"))))
+                .andExpect(status().isForbidden());
+        verify(mediaGarbageCollector, never()).collect(anyBoolean());
+    }
+
+    @Test
+    void anonymousCannotCollectMedia() throws Exception {
+        mockMvc.perform(post("/api/admin/media/gc"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void adminCanCollectMedia() throws Exception {
+        when(mediaGarbageCollector.collect(true)).thenReturn(Map.of("deleted", 0));
+        mockMvc.perform(post("/api/admin/media/gc")
+                        .header("Authorization", "Bearer " + token(new Admin("Admin", "admin@test.ma", "x", "0600000000"))))
+                .andExpect(status().isOk());
+    }
+
+    private String token(User user) {
+        user.setUserId("507f1f77bcf86cd799439011");
+        return tokenService.generateToken(user, user.getUserId());
+    }
+
+    @Test
+    void citizenCannotReadOrRetryTheOutbox() throws Exception {
+        String citizen = token(new Citizen("Citoyen", "citoyen@test.ma", "x", "0600000000"));
+        mockMvc.perform(get("/api/admin/notifications/outbox").header("Authorization", "Bearer " + citizen))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/notifications/outbox/retry-failed").header("Authorization", "Bearer " + citizen))
+                .andExpect(status().isForbidden());
+        verify(outboxService, never()).retryFailed();
+        verify(notificationDispatcher, never()).poll();
+    }
+
+    @Test
+    void actuatorEndpointsOtherThanHealthAreForAdmins() throws Exception {
+        String citizen = token(new Citizen("Citoyen", "citoyen@test.ma", "x", "0600000000"));
+        mockMvc.perform(get("/actuator/loginthrottle"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/loginthrottle").header("Authorization", "Bearer " + citizen))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void indexPlansAreForAdmins() throws Exception {
+        String citizen = token(new Citizen("Citoyen", "citoyen@test.ma", "x", "0600000000"));
+        mockMvc.perform(get("/actuator/indexes"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/indexes").header("Authorization", "Bearer " + citizen))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void metricsAndQueryProfilesAreForAdmins() throws Exception {
+        String citizen = token(new Citizen("Citoyen", "citoyen@test.ma", "x", "0600000000"));
+        for (String endpoint : new String[]{"/actuator/metrics", "/actuator/metrics/mongo.query", "/actuator/mongoqueries"}) {
+            mockMvc.perform(get(endpoint))
+                    .andExpect(status().isUnauthorized());
+            mockMvc.perform(get(endpoint).header("Authorization", "Bearer " + citizen))
+                    .andExpect(status().isForbidden());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.Backend_CitizenSpeak.controllers;
+
+import com.example.Backend_CitizenSpeak.config.SecurityConfig;
+import com.example.Backend_CitizenSpeak.dto.MediaFileInfo;
+import com.example.Backend_CitizenSpeak.services.ImageDerivativeService;
+import com.example.Backend_CitizenSpeak.services.MediaService;
+import com.example.Backend_CitizenSpeak.services.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(MediaController.class)
+@Import({SecurityConfig.class, TokenService.class})
+class MediaControllerRangeTest {
+
+    private static final String MEDIA_ID = "507f1f77bcf86cd799439011";
+    private static final String HASH = "a".repeat(64);
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private MediaService mediaService;
+
+    @TempDir
+    private Path directory;
+
+    private MediaFileInfo info;
+
+    @BeforeEach
+    void storeFile() throws Exception {
+        Path file = directory.resolve(HASH + ".txt");
+        Files.writeString(file, "0123456789", StandardCharsets.US_ASCII);
+        info = new MediaFileInfo(HASH + ".txt", HASH + ".txt", file, "text/plain", 10, HASH, LAST_MODIFIED);
+        when(mediaService.getMediaFileInfo(MEDIA_ID)).thenReturn(info);
+    }
+
+    @Test
+    void servesTheWholeFileWithoutRange() throws Exception {
+        mockMvc.perform(get("/api/media/" + MEDIA_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "10"))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void servesASingleRange() throws Exception {
+        mockMvc.perform(get("/api/media/" + MEDIA_ID).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "4"))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    void servesOpenEndedAndSuffixRanges() throws Exception {
+        mockMvc.perform(get("/api/media/" + MEDIA_ID).header(HttpHeaders.RANGE, "bytes=7-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().string("789"));
+        mockMvc.perform(get("/api/media/" + MEDIA_ID).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().string("789"));
+    }
+
+    @Test
+    void clampsARangePastTheEnd() throws Exception {
+        mockMvc.perform(get("/api/media/" + MEDIA_ID).header(HttpHeaders.RANGE, "bytes=8-100"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 8-9/10"))
+                .andExpect(content().string("89"));
+    }
+
+    @Test
+    void refusesAnUnsatisfiableRange() throws Exception {
+        mockMvc.perform(get("/api/media/" + MEDIA_ID).header(HttpHeaders.RANGE, "bytes=20-30"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+        mockMvc.perform(get("/api/media/" + MEDIA_ID).header(HttpHeaders.RANGE, "items=0-1"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    @Test
+    void servesTheWholeFileForSeveralRanges() throws Exception {
+        mockMvc.perform(get("/api/media/" + MEDIA_ID).header(HttpHeaders.RANGE, "bytes=0-1,4-5"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void honoursTheRangeOnlyWhenIfRangeMatchesTheETag() throws Exception {
+        mockMvc.perform(get("/api/media/" + MEDIA_ID)
+                        .header(HttpHeaders.RANGE, "bytes=0-1")
+                        .header(HttpHeaders.IF_RANGE, "\"" + HASH + "\""))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("01"));
+        mockMvc.perform(get("/api/media/" + MEDIA_ID)
+                        .header(HttpHeaders.RANGE, "bytes=0-1")
+                        .header(HttpHeaders.IF_RANGE, "\"" + "b".repeat(64) + "\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+        mockMvc.perform(get("/api/media/" + MEDIA_ID)
+                        .header(HttpHeaders.RANGE, "bytes=0-1")
+                        .header(HttpHeaders.IF_RANGE, "W/\"" + HASH + "\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void honoursTheRangeOnlyWhenIfRangeMatchesTheDate() throws Exception {
+        mockMvc.perform(get("/api/media/" + MEDIA_ID)
+                        .header(HttpHeaders.RANGE, "bytes=0-1")
+                        .header(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED)))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("01"));
+        mockMvc.perform(get("/api/media/" + MEDIA_ID)
+                        .header(HttpHeaders.RANGE, "bytes=0-1")
+                        .header(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED - 60_000)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+        mockMvc.perform(get("/api/media/" + MEDIA_ID)
+                        .header(HttpHeaders.RANGE, "bytes=0-1")
+                        .header(HttpHeaders.IF_RANGE, "not a date"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void servesTheOriginalUncachedWhileTheVariantIsGenerated() throws Exception {
+        when(mediaService.getDerivativeFileInfo(info, ImageDerivativeService.ImageVariant.THUMB)).thenReturn(info);
+        mockMvc.perform(get("/api/media/" + MEDIA_ID).param("variant", "thumb"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(content().string("0123456789"));
+        mockMvc.perform(get("/api/media/" + MEDIA_ID))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=604800, public"));
+    }
+
+    private static String httpDate(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atOffset(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.Backend_CitizenSpeak.models;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ComplaintStatusTest {
+
+    @Test
+    void readsTheStoredCodes() {
+        for (ComplaintStatus status : ComplaintStatus.values()) {
+            assertEquals(status, ComplaintStatus.fromValue(status.code()));
+        }
+    }
+
+    @Test
+    void readsTheEnglishLabels() {
+        for (ComplaintStatus status : ComplaintStatus.values()) {
+            assertEquals(status, ComplaintStatus.fromValue(status.getLabel()));
+        }
+        assertEquals(ComplaintStatus.IN_PROGRESS, ComplaintStatus.fromValue("In Progress"));
+    }
+
+    @Test
+    void readsFrenchSpellingsWithOrWithoutAccents() {
+        assertEquals(ComplaintStatus.NEW, ComplaintStatus.fromValue("Nouvelle"));
+        assertEquals(ComplaintStatus.NEW, ComplaintStatus.fromValue("nouveau"));
+        assertEquals(ComplaintStatus.ASSIGNED, ComplaintStatus.fromValue("Assignée"));
+        assertEquals(ComplaintStatus.ASSIGNED, ComplaintStatus.fromValue("assignee"));
+        assertEquals(ComplaintStatus.ASSIGNED, ComplaintStatus.fromValue("assigné"));
+        assertEquals(ComplaintStatus.IN_PROGRESS, ComplaintStatus.fromValue("En cours"));
+        assertEquals(ComplaintStatus.PENDING, ComplaintStatus.fromValue("en attente"));
+        assertEquals(ComplaintStatus.RESOLVED, ComplaintStatus.fromValue("Résolue"));
+        assertEquals(ComplaintStatus.RESOLVED, ComplaintStatus.fromValue("resolu"));
+        assertEquals(ComplaintStatus.CLOSED, ComplaintStatus.fromValue("Fermée"));
+        assertEquals(ComplaintStatus.CLOSED, ComplaintStatus.fromValue("cloturee"));
+        assertEquals(ComplaintStatus.REJECTED, ComplaintStatus.fromValue("REJETÉE"));
+        assertEquals(ComplaintStatus.REJECTED, ComplaintStatus.fromValue("rejete"));
+    }
+
+    @Test
+    void ignoresCaseSeparatorsAndSurroundingSpaces() {
+        assertEquals(ComplaintStatus.IN_PROGRESS, ComplaintStatus.fromValue("in_progress"));
+        assertEquals(ComplaintStatus.IN_PROGRESS, ComplaintStatus.fromValue("in-progress"));
+        assertEquals(ComplaintStatus.IN_PROGRESS, ComplaintStatus.fromValue("  IN   PROGRESS "));
+        assertEquals(ComplaintStatus.IN_PROGRESS, ComplaintStatus.fromValue("En_Cours"));
+        assertEquals(ComplaintStatus.PENDING, ComplaintStatus.fromValue("en-attente"));
+    }
+
+    @Test
+    void rejectsUnknownValues() {
+        assertThrows(IllegalArgumentException.class, () -> ComplaintStatus.fromValue("Archived"));
+        assertThrows(IllegalArgumentException.class, () -> ComplaintStatus.fromValue(""));
+        assertThrows(IllegalArgumentException.class, () -> ComplaintStatus.fromValue("en"));
+        assertNull(ComplaintStatus.fromValue(null));
+        assertNull(ComplaintStatus.parseOrNull("Archived"));
+        assertNull(ComplaintStatus.parseOrNull(null));
+    }
+}
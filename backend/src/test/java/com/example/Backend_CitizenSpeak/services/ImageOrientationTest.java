@@ -0,0 +1,130 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ImageOrientationTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void readsTheOrientationInEitherByteOrder() throws Exception {
+        assertEquals(6, ImageDerivativeService.readExifOrientation(
+                jpeg("big-endian.jpg", null, exif(ByteOrder.BIG_ENDIAN, 6))));
+        assertEquals(3, ImageDerivativeService.readExifOrientation(
+                jpeg("little-endian.JPEG", null, exif(ByteOrder.LITTLE_ENDIAN, 3))));
+    }
+
+    @Test
+    void findsTheExifBlockAfterOtherSegments() throws Exception {
+        byte[] jfif = {'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0, 1, 0, 0};
+        assertEquals(8, ImageDerivativeService.readExifOrientation(
+                jpeg("jfif.jpg", jfif, exif(ByteOrder.BIG_ENDIAN, 8))));
+    }
+
+    @Test
+    void defaultsToUprightWithoutAUsableTag() throws Exception {
+        assertEquals(1, ImageDerivativeService.readExifOrientation(jpeg("no-exif.jpg", null, null)));
+        assertEquals(1, ImageDerivativeService.readExifOrientation(
+                jpeg("not-a-jpeg.png", null, exif(ByteOrder.BIG_ENDIAN, 6))));
+
+        Path garbage = directory.resolve("garbage.jpg");
+        Files.write(garbage, new byte[]{1, 2, 3, 4, 5, 6});
+        assertEquals(1, ImageDerivativeService.readExifOrientation(garbage));
+
+        byte[] truncated = exif(ByteOrder.BIG_ENDIAN, 6);
+        assertEquals(-1, ImageDerivativeService.parseExifOrientation(Arrays.copyOf(truncated, 20)));
+        assertEquals(-1, ImageDerivativeService.parseExifOrientation("XMP\0\0\0 not exif data".getBytes()));
+    }
+
+    @Test
+    void turnsEachOrientationUpright() {
+        int w = 3;
+        int h = 2;
+        BufferedImage source = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                source.setRGB(x, y, color(x, y));
+            }
+        }
+
+        for (int orientation = 1; orientation <= 8; orientation++) {
+            BufferedImage upright = ImageDerivativeService.applyOrientation(source, orientation);
+            boolean swapsAxes = orientation >= 5;
+            assertEquals(swapsAxes ? h : w, upright.getWidth(), "width for " + orientation);
+            assertEquals(swapsAxes ? w : h, upright.getHeight(), "height for " + orientation);
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    int[] to = switch (orientation) {
+                        case 2 -> new int[]{w - 1 - x, y};
+                        case 3 -> new int[]{w - 1 - x, h - 1 - y};
+                        case 4 -> new int[]{x, h - 1 - y};
+                        case 5 -> new int[]{y, x};
+                        case 6 -> new int[]{h - 1 - y, x};
+                        case 7 -> new int[]{h - 1 - y, w - 1 - x};
+                        case 8 -> new int[]{y, w - 1 - x};
+                        default -> new int[]{x, y};
+                    };
+                    assertEquals(color(x, y), upright.getRGB(to[0], to[1]) & 0xFFFFFF,
+                            "pixel (" + x + "," + y + ") for " + orientation);
+                }
+            }
+        }
+    }
+
+    private static int color(int x, int y) {
+        return (x * 80) << 16 | (y * 120) << 8 | 0x40;
+    }
+
+    /**
+     * An APP1 payload: "Exif\0\0", a TIFF header and an IFD0 with an unrelated tag followed by
+     * the orientation.
+     */
+    private static byte[] exif(ByteOrder order, int orientation) {
+        ByteBuffer tiff = ByteBuffer.allocate(8 + 2 + 2 * 12 + 4).order(order);
+        tiff.put(order == ByteOrder.BIG_ENDIAN ? new byte[]{'M', 'M'} : new byte[]{'I', 'I'});
+        tiff.putShort((short) 42).putInt(8);
+        tiff.putShort((short) 2);
+        tiff.putShort((short) 0x010F).putShort((short) 2).putInt(4).putInt(0);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+
+        ByteArrayOutputStream app1 = new ByteArrayOutputStream();
+        app1.writeBytes(new byte[]{'E', 'x', 'i', 'f', 0, 0});
+        app1.writeBytes(tiff.array());
+        return app1.toByteArray();
+    }
+
+    private Path jpeg(String name, byte[] app0, byte[] app1) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xD8});
+        if (app0 != null) {
+            segment(out, 0xE0, app0);
+        }
+        if (app1 != null) {
+            segment(out, 0xE1, app1);
+        }
+        segment(out, 0xDA, new byte[]{0, 0});
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xD9});
+        Path file = directory.resolve(name);
+        Files.write(file, out.toByteArray());
+        return file;
+    }
+
+    private static void segment(ByteArrayOutputStream out, int marker, byte[] payload) {
+        int length = payload.length + 2;
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) marker, (byte) (length >> 8), (byte) length});
+        out.writeBytes(payload);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryLoginAttemptLimiterTest {
+
+    private static final long HOUR = 3_600_000;
+
+    private final AtomicLong clock = new AtomicLong(10 * HOUR);
+    private InMemoryLoginAttemptLimiter limiter;
+
+    @AfterEach
+    void close() {
+        limiter.close();
+    }
+
+    @Test
+    void previousWindowIsWeightedByItsOverlap() {
+        limiter = new InMemoryLoginAttemptLimiter(1_000, HOUR, clock::get);
+        long windowStart = clock.get();
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(i, limiter.recordAttempt("ip:10.0.0.1", 1_000), 1e-9);
+        }
+
+        // Half-way through the next window, half of the previous one still counts.
+        clock.set(windowStart + 1_500);
+        assertEquals(3 * 0.5 + 1, limiter.recordAttempt("ip:10.0.0.1", 1_000), 1e-9);
+
+        // After a whole idle window, nothing carries over.
+        clock.set(windowStart + 3_100);
+        assertEquals(1, limiter.recordAttempt("ip:10.0.0.1", 1_000), 1e-9);
+    }
+
+    @Test
+    void idleKeysAreSwept() {
+        limiter = new InMemoryLoginAttemptLimiter(1_000, HOUR, clock::get);
+        limiter.recordAttempt("email:a@test.ma", 1_000);
+        limiter.sweep();
+        assertEquals(1, limiter.trackedKeys());
+
+        clock.addAndGet(2_500);
+        limiter.sweep();
+        assertEquals(0, limiter.trackedKeys());
+    }
+
+    @Test
+    void sprayingOneScopeDoesNotTurnOffAnother() {
+        limiter = new InMemoryLoginAttemptLimiter(32, HOUR, clock::get);
+        for (int i = 0; i < 10_000; i++) {
+            limiter.recordAttempt("email:random" + i + "@test.ma", HOUR);
+        }
+        assertEquals(1, limiter.recordAttempt("ip:10.0.0.1", HOUR), 1e-9);
+        assertEquals(2, limiter.recordAttempt("ip:10.0.0.1", HOUR), 1e-9);
+        assertTrue(limiter.trackedKeys() <= 32 + 32, "tracked " + limiter.trackedKeys());
+    }
+
+    @Test
+    void fullScopeEvictsTheOldestKeyAndKeepsCounting() {
+        limiter = new InMemoryLoginAttemptLimiter(32, HOUR, clock::get);
+        for (int i = 0; i < 1_000; i++) {
+            clock.incrementAndGet();
+            assertEquals(1, limiter.recordAttempt("ip:10.1." + (i / 250) + "." + (i % 250), HOUR), 1e-9);
+            clock.incrementAndGet();
+            // Attacked all along, this key is never the oldest of its stripe.
+            assertEquals(i + 1, limiter.recordAttempt("ip:10.0.0.1", HOUR), 1e-9);
+        }
+        assertTrue(limiter.trackedKeys() <= 32, "tracked " + limiter.trackedKeys());
+    }
+}
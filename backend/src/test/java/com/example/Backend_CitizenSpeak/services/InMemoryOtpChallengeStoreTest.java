@@ -0,0 +1,103 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.OtpChallenge;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryOtpChallengeStoreTest {
+
+    private static final long TICK = 1_000;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000 * TICK);
+    private InMemoryOtpChallengeStore store;
+
+    @AfterEach
+    void close() {
+        store.close();
+    }
+
+    @Test
+    void expiredChallengesAreNeverReturned() {
+        store = new InMemoryOtpChallengeStore(10, TICK, clock::get);
+        store.save(challenge("a", 5 * TICK));
+        assertNotNull(store.find("a"));
+
+        // Not evicted yet, but already hidden.
+        clock.addAndGet(5 * TICK);
+        assertNull(store.find("a"));
+    }
+
+    @Test
+    void theWheelEvictsChallengesOnceExpired() {
+        store = new InMemoryOtpChallengeStore(1, TICK, clock::get);
+        store.save(challenge("a", 5 * TICK));
+        assertThrows(ResponseStatusException.class, () -> store.save(challenge("b", 5 * TICK)));
+
+        clock.addAndGet(4 * TICK);
+        store.advance();
+        assertThrows(ResponseStatusException.class, () -> store.save(challenge("b", 5 * TICK)));
+
+        clock.addAndGet(2 * TICK);
+        store.advance();
+        assertDoesNotThrow(() -> store.save(challenge("b", 5 * TICK)));
+    }
+
+    @Test
+    void aLateTickStillProcessesTheSlotsItSkipped() {
+        store = new InMemoryOtpChallengeStore(1, TICK, clock::get);
+        store.save(challenge("a", 3 * TICK));
+
+        clock.addAndGet(10 * TICK);
+        store.advance();
+        assertDoesNotThrow(() -> store.save(challenge("b", 5 * TICK)));
+    }
+
+    @Test
+    void challengesMoreThanOneTurnAwayWaitForTheirTurn() {
+        store = new InMemoryOtpChallengeStore(1, TICK, clock::get);
+        // The wheel has 512 slots: this slot comes up once about 90 ticks in, then again at 601.
+        store.save(challenge("a", 600 * TICK));
+
+        for (int tick = 0; tick < 100; tick++) {
+            clock.addAndGet(TICK);
+            store.advance();
+        }
+        assertNotNull(store.find("a"));
+        assertThrows(ResponseStatusException.class, () -> store.save(challenge("b", 5 * TICK)));
+
+        clock.addAndGet(501 * TICK);
+        store.advance();
+        assertNull(store.find("a"));
+        assertDoesNotThrow(() -> store.save(challenge("b", 5 * TICK)));
+    }
+
+    @Test
+    void failedAttemptsAreCountedAndAChallengeIsRemovedOnce() {
+        store = new InMemoryOtpChallengeStore(10, TICK, clock::get);
+        store.save(challenge("a", 60 * TICK));
+
+        assertEquals(1, store.recordFailedAttempt("a"));
+        assertEquals(2, store.recordFailedAttempt("a"));
+        assertEquals(-1, store.recordFailedAttempt("unknown"));
+
+        assertTrue(store.remove("a"));
+        assertFalse(store.remove("a"));
+        assertNull(store.find("a"));
+    }
+
+    private OtpChallenge challenge(String token, long ttlMillis) {
+        return new OtpChallenge(token, token + "@test.ma", "123456", new Date(clock.get() + ttlMillis));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoadTestReportTest {
+
+    @Test
+    void percentilesUseTheNearestRank() {
+        long[] sorted = new long[100];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i + 1;
+        }
+        assertEquals(50, LoadTestReport.percentile(sorted, 50));
+        assertEquals(90, LoadTestReport.percentile(sorted, 90));
+        assertEquals(99, LoadTestReport.percentile(sorted, 99));
+        assertEquals(100, LoadTestReport.percentile(sorted, 100));
+        assertEquals(1, LoadTestReport.percentile(sorted, 0));
+        assertEquals(7, LoadTestReport.percentile(new long[]{7}, 99));
+        assertEquals(0, LoadTestReport.percentile(new long[0], 50));
+    }
+
+    @Test
+    void summaryHasOneRowPerEndpointAndATotal() {
+        LoadTestReport report = new LoadTestReport();
+        report.start();
+        for (int i = 1; i <= 10; i++) {
+            report.record("GET /api/complaints", i * 1_000_000L, 200);
+        }
+        report.record("GET /api/dashboard/stats", 50_000_000L, 500);
+        report.record("GET /api/dashboard/stats", 30_000_000L, 0);
+        report.finish();
+
+        List<Map<String, Object>> rows = report.summary();
+        assertEquals(3, rows.size());
+
+        Map<String, Object> complaints = rows.get(0);
+        assertEquals("GET /api/complaints", complaints.get("endpoint"));
+        assertEquals(10L, complaints.get("requests"));
+        assertEquals(0L, complaints.get("errors"));
+        assertEquals(5.0, complaints.get("p50Ms"));
+        assertEquals(9.0, complaints.get("p90Ms"));
+        assertEquals(10.0, complaints.get("maxMs"));
+
+        Map<String, Object> dashboard = rows.get(1);
+        assertEquals(2L, dashboard.get("errors"));
+        assertEquals(Map.of(0, 1L, 500, 1L), dashboard.get("statuses"));
+
+        Map<String, Object> total = rows.get(2);
+        assertEquals("TOTAL", total.get("endpoint"));
+        assertEquals(12L, total.get("requests"));
+        assertEquals(2L, total.get("errors"));
+        assertEquals(50.0, total.get("maxMs"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.exceptions.LoginOverloadedException;
+import com.example.Backend_CitizenSpeak.exceptions.TooManyAttemptsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginThrottleServiceTest {
+
+    /**
+     * Returns a fixed estimate per key prefix, so each scope can be put over or under its limit.
+     */
+    private static final class FixedLimiter implements LoginAttemptLimiter {
+        private final Map<String, Double> attempts = new HashMap<>();
+
+        @Override
+        public String getType() {
+            return "fixed";
+        }
+
+        @Override
+        public double recordAttempt(String key, long windowMillis) {
+            String scope = key.contains(":") ? key.substring(0, key.indexOf(':')) : key;
+            return attempts.getOrDefault(scope, 1.0);
+        }
+
+        @Override
+        public long trackedKeys() {
+            return attempts.size();
+        }
+    }
+
+    private final FixedLimiter limiter = new FixedLimiter();
+    private final LoginThrottleService throttle = new LoginThrottleService(limiter, new SimpleMeterRegistry(),
+            true, false, "", 20, 60, 10, 900, 1000, 10);
+
+    @Test
+    void globalOverloadShedsAboutTheExcessAndDoesNotStick() {
+        limiter.attempts.put("global", 2000.0);
+        int shed = 0;
+        for (int i = 0; i < 10_000; i++) {
+            try {
+                throttle.check(request("10.0.0." + (i % 200)), "user" + i + "@test.ma");
+            } catch (LoginOverloadedException e) {
+                shed++;
+            }
+        }
+        // Twice the limit: about half of the attempts are shed.
+        assertTrue(shed > 4_000 && shed < 6_000, "shed " + shed);
+
+        limiter.attempts.put("global", 999.0);
+        for (int i = 0; i < 1_000; i++) {
+            int n = i;
+            assertDoesNotThrow(() -> throttle.check(request("10.0.1.1"), "user" + n + "@test.ma"));
+        }
+    }
+
+    @Test
+    void ipOverItsLimitStaysBlockedForTheWindow() {
+        limiter.attempts.put("ip", 21.0);
+        assertThrows(TooManyAttemptsException.class, () -> throttle.check(request("10.0.0.1"), "a@test.ma"));
+
+        limiter.attempts.put("ip", 1.0);
+        assertThrows(TooManyAttemptsException.class, () -> throttle.check(request("10.0.0.1"), "b@test.ma"));
+        assertDoesNotThrow(() -> throttle.check(request("10.0.0.2"), "b@test.ma"));
+    }
+
+    @Test
+    void behindTrustedProxiesTheClientIsTheRightmostUntrustedHop() {
+        LoginThrottleService proxied = new LoginThrottleService(limiter, new SimpleMeterRegistry(),
+                true, true, "10.0.0.5, 10.0.0.6", 20, 60, 10, 900, 1000, 10);
+
+        MockHttpServletRequest request = request("10.0.0.6");
+        // The client wrote the first entry itself; the proxies appended the others.
+        request.addHeader("X-Forwarded-For", "1.2.3.4, 203.0.113.7, 10.0.0.5");
+        assertEquals("203.0.113.7", proxied.clientIp(request));
+
+        MockHttpServletRequest direct = request("10.0.0.6");
+        assertEquals("10.0.0.6", proxied.clientIp(direct));
+        direct.addHeader("X-Forwarded-For", "10.0.0.5");
+        assertEquals("10.0.0.6", proxied.clientIp(direct));
+
+        MockHttpServletRequest spoofed = request("203.0.113.9");
+        spoofed.addHeader("X-Forwarded-For", "1.2.3.4");
+        assertEquals("203.0.113.9", throttle.clientIp(spoofed));
+    }
+
+    private static MockHttpServletRequest request(String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(ip);
+        return request;
+    }
+}
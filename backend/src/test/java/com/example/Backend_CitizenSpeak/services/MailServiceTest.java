@@ -0,0 +1,180 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.OutboundMail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Provider;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.URLName;
+import jakarta.mail.internet.InternetAddress;
+import org.bson.Document;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MailServiceTest {
+
+    /**
+     * Stands in for the SMTP transport: each send takes the next scripted failure, or succeeds
+     * when there is none.
+     */
+    public static class FakeTransport extends Transport {
+        static final Queue<MessagingException> failures = new ConcurrentLinkedQueue<>();
+        static final List<String> delivered = new ArrayList<>();
+        static final AtomicInteger connections = new AtomicInteger();
+
+        public FakeTransport(Session session, URLName urlName) {
+            super(session, urlName);
+        }
+
+        @Override
+        protected boolean protocolConnect(String host, int port, String user, String password) {
+            connections.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public void sendMessage(Message message, Address[] addresses) throws MessagingException {
+            MessagingException failure = failures.poll();
+            if (failure != null) {
+                throw failure;
+            }
+            synchronized (delivered) {
+                delivered.add(addresses[0].toString() + " " + message.getSubject());
+            }
+        }
+    }
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private MailService mailService;
+
+    @BeforeEach
+    void start() throws Exception {
+        FakeTransport.failures.clear();
+        FakeTransport.delivered.clear();
+        FakeTransport.connections.set(0);
+
+        Session session = Session.getInstance(new Properties());
+        session.setProvider(new Provider(Provider.Type.TRANSPORT, "smtp", FakeTransport.class.getName(), "test", "1"));
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setSession(session);
+
+        mailService = new MailService(sender, mongoTemplate, new SimpleMeterRegistry(),
+                "noreply@test.ma", "http://test/reset?token=", 1, 60, 6, 2000, 60000, 100);
+    }
+
+    @AfterEach
+    void stop() {
+        mailService.shutdown();
+    }
+
+    @Test
+    void sendsQueuedMailsOverOneConnection() {
+        claims(mail("a@test.ma"), mail("b@test.ma"));
+
+        mailService.poll();
+
+        assertEquals(List.of(OutboundMail.STATUS_SENT, OutboundMail.STATUS_SENT), statuses(2));
+        assertEquals(2, FakeTransport.delivered.size());
+        assertTrue(FakeTransport.delivered.get(0).startsWith("a@test.ma "));
+        assertEquals(1, FakeTransport.connections.get());
+    }
+
+    @Test
+    void aDeferredRecipientIsRetried() throws Exception {
+        InternetAddress recipient = new InternetAddress("a@test.ma");
+        FakeTransport.failures.add(new SendFailedException("Mailbox busy",
+                new SMTPAddressFailedException(recipient, "RCPT TO:<a@test.ma>", 450, "450 try again later"),
+                new Address[0], new Address[]{recipient}, new Address[0]));
+        claims(mail("a@test.ma"));
+
+        mailService.poll();
+
+        assertEquals(List.of(OutboundMail.STATUS_PENDING), statuses(1));
+    }
+
+    @Test
+    void anInvalidRecipientFailsForGood() throws Exception {
+        InternetAddress recipient = new InternetAddress("nobody@test.ma");
+        FakeTransport.failures.add(new SendFailedException("Invalid Addresses",
+                new SMTPAddressFailedException(recipient, "RCPT TO:<nobody@test.ma>", 550, "550 no such user"),
+                new Address[0], new Address[0], new Address[]{recipient}));
+        claims(mail("nobody@test.ma"));
+
+        mailService.poll();
+
+        assertEquals(List.of(OutboundMail.STATUS_FAILED), statuses(1));
+    }
+
+    @Test
+    void onlyARefusedAddressIsPermanent() throws Exception {
+        InternetAddress recipient = new InternetAddress("a@test.ma");
+        assertFalse(MailService.isPermanent(new SendFailedException("Temporary failure",
+                new SMTPSendFailedException("DATA", 452, "452 insufficient storage", null,
+                        new Address[0], new Address[]{recipient}, new Address[0]))));
+        assertFalse(MailService.isPermanent(new SendFailedException("Unsent",
+                null, new Address[0], new Address[]{recipient}, new Address[0])));
+        assertFalse(MailService.isPermanent(new MessagingException("Connection reset")));
+        assertTrue(MailService.isPermanent(new IllegalArgumentException("Modèle d'email inconnu: x")));
+        assertTrue(MailService.isPermanent(new SendFailedException("Invalid Addresses",
+                null, new Address[0], new Address[0], new Address[]{recipient})));
+    }
+
+    private void claims(OutboundMail... mails) {
+        OutboundMail[] rest = new OutboundMail[mails.length];
+        System.arraycopy(mails, 1, rest, 0, mails.length - 1);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(OutboundMail.class))).thenReturn(mails[0], rest);
+    }
+
+    private List<Object> statuses(int count) {
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, timeout(5000).times(count))
+                .updateFirst(any(Query.class), updates.capture(), eq(OutboundMail.class));
+        return updates.getAllValues().stream()
+                .map(update -> ((Document) update.getUpdateObject().get("$set")).get("status"))
+                .toList();
+    }
+
+    private static OutboundMail mail(String recipient) {
+        OutboundMail mail = new OutboundMail(MailService.TEMPLATE_OTP, recipient,
+                Map.of("otp", "123456", "validityMinutes", "5"), new Date(System.currentTimeMillis() + 60_000));
+        mail.setMailId(recipient);
+        mail.setStatus(OutboundMail.STATUS_SENDING);
+        mail.setAttempts(1);
+        mail.setCreatedDate(new Date());
+        return mail;
+    }
+}
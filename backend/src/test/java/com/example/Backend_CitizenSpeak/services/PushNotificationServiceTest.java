@@ -0,0 +1,182 @@
+package com.example.Backend_CitizenSpeak.services;
+
+import com.example.Backend_CitizenSpeak.models.DeviceToken;
+import com.example.Backend_CitizenSpeak.models.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.DBRef;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the push service against a local stub of the FCM endpoint, which records each request and
+ * answers with the scripted per-token results.
+ */
+class PushNotificationServiceTest {
+
+    private static final String USER_A = new ObjectId().toHexString();
+    private static final String USER_B = new ObjectId().toHexString();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BlockingQueue<JsonNode> requests = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private HttpServer server;
+    private PushNotificationService service;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/fcm/send", exchange -> {
+            requests.add(mapper.readTree(exchange.getRequestBody()));
+            String body = responses.poll();
+            byte[] bytes = (body != null ? body : "{\"results\":[]}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+
+        when(mongoTemplate.getCollectionName(User.class)).thenReturn("users");
+        when(mongoTemplate.getCollectionName(DeviceToken.class)).thenReturn("device_tokens");
+    }
+
+    @AfterEach
+    void stop() {
+        if (service != null) {
+            service.shutdown();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void sendsEachTokenOnceAndDeactivatesInvalidOnes() throws Exception {
+        service = newService(100);
+        responses.add(results("{\"message_id\":\"1\"}", "{\"error\":\"NotRegistered\"}"));
+        service.sendPushNotification(List.of("a", "b", "a"), "Titre", "Corps", "C-1");
+        service.start();
+
+        JsonNode request = requests.poll(5, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals(List.of("a", "b"), tokens(request));
+        assertEquals("Titre", request.get("notification").get("title").asText());
+        assertEquals("C-1", request.get("data").get("complaintId").asText());
+
+        verify(mongoTemplate, timeout(2000)).updateMulti(
+                argThat((Query query) -> query.getQueryObject().toJson().contains("\"b\"")),
+                argThat((Update update) -> Boolean.FALSE.equals(update.getUpdateObject().get("$set", Document.class).get("active"))),
+                eq(DeviceToken.class));
+    }
+
+    @Test
+    void retriesOnlyTheUnavailableTokens() throws Exception {
+        service = newService(100);
+        responses.add(results("{\"message_id\":\"1\"}", "{\"error\":\"Unavailable\"}"));
+        responses.add(results("{\"message_id\":\"2\"}"));
+        service.sendPushNotification(List.of("a", "b"), "Titre", "Corps", null);
+        service.start();
+
+        assertEquals(List.of("a", "b"), tokens(requests.poll(5, TimeUnit.SECONDS)));
+        assertEquals(List.of("b"), tokens(requests.poll(5, TimeUnit.SECONDS)));
+        assertNull(requests.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void looksUpTheTokensOfADrainedBatchInOneQuery() throws Exception {
+        service = newService(100);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("device_tokens"))).thenReturn(List.of(
+                device(USER_A, "token-a"),
+                device(USER_B, "token-b1"),
+                device(USER_B, "token-b2")));
+        responses.add(results("{}", "{}", "{}"));
+
+        service.sendToUsers(List.of(USER_A), "Titre", "Corps", "C-1");
+        service.sendToUsers(List.of(USER_B), "Titre", "Corps", "C-1");
+        service.start();
+
+        JsonNode request = requests.poll(5, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals(Set.of("token-a", "token-b1", "token-b2"), Set.copyOf(tokens(request)));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Document.class), eq("device_tokens"));
+    }
+
+    @Test
+    void aCanonicalIdAlreadyRegisteredDeactivatesTheOldToken() throws Exception {
+        service = newService(100);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("device_tokens"))).thenReturn(List.of(
+                device(USER_A, "old").append("_id", "1"),
+                device(USER_A, "new").append("_id", "2")));
+        responses.add(results("{\"message_id\":\"1\",\"registration_id\":\"new\"}"));
+        service.sendPushNotification(List.of("old"), "Titre", "Corps", null);
+        service.start();
+
+        verify(mongoTemplate, timeout(5000)).updateFirst(
+                argThat((Query query) -> "1".equals(query.getQueryObject().get("_id"))),
+                argThat((Update update) -> Boolean.FALSE.equals(update.getUpdateObject().get("$set", Document.class).get("active"))),
+                eq("device_tokens"));
+    }
+
+    @Test
+    void aFullQueueNeverBlocksTheCaller() {
+        service = newService(1);
+        assertTrue(service.sendPushNotification(List.of("a"), "Titre", "Corps", null));
+
+        long start = System.nanoTime();
+        assertFalse(service.sendPushNotification(List.of("b"), "Titre", "Corps", null));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 200);
+    }
+
+    private PushNotificationService newService(int queueCapacity) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/fcm/send";
+        return new PushNotificationService(mongoTemplate, new SimpleMeterRegistry(), "test-key", url,
+                1000, 2000, queueCapacity, 1000, 1, 3, 10);
+    }
+
+    private static String results(String... results) {
+        return "{\"results\":[" + String.join(",", results) + "]}";
+    }
+
+    private static Document device(String userId, String token) {
+        return new Document("user", new DBRef("users", new ObjectId(userId))).append("token", token);
+    }
+
+    private static List<String> tokens(JsonNode request) {
+        assertNotNull(request);
+        List<String> tokens = new ArrayList<>();
+        request.get("registration_ids").forEach(token -> tokens.add(token.asText()));
+        return tokens;
+    }
+}
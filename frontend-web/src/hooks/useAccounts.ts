@@ -3,6 +3,21 @@ import api from '../utils/api';
 import { UserAccount, BackendUser, Organization, Department, NewUserForm } from '../types/accounts';
 import { emptyUserForm } from '../constants/accountsConstants';
 
+const USERS_PAGE_SIZE = 1000;
+
+// /user/all is paged; the total comes in X-Total-Count, so fetch pages until every user is loaded.
+async function fetchAllUsers(): Promise<BackendUser[]> {
+  const all: BackendUser[] = [];
+  for (let page = 0; ; page++) {
+    const res = await api.get<BackendUser[]>('/user/all', { params: { page, size: USERS_PAGE_SIZE } });
+    all.push(...res.data);
+    const total = Number(res.headers['x-total-count']);
+    if (res.data.length < USERS_PAGE_SIZE || (Number.isFinite(total) && all.length >= total)) {
+      return all;
+    }
+  }
+}
+
 export function useAccounts() {
   const [users, setUsers] = useState<UserAccount[]>([]);
   const [selectedRole, setSelectedRole] = useState<'admin'|'analyst'|'agent'|null>(null);
@@ -17,9 +32,9 @@ export function useAccounts() {
   const [departments, setDepartments] = useState<Department[]>([]);
 
   useEffect(() => {
-    api.get<BackendUser[]>('/user/all')
-      .then(res => {
-        const list = res.data.map(u => {
+    fetchAllUsers()
+      .then(all => {
+        const list = all.map(u => {
           const fullName = u.name || '';
           const parts = fullName.trim().split(/\s+/);
           const initials = (